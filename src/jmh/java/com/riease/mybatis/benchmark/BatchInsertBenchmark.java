@@ -0,0 +1,167 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.plugins.BatchInsertPlugin;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 比較 {@link BatchInsertPlugin} 產生的寫入方法與逐筆 insert 在本機 SQLite 上的耗時。
+ * <p>
+ * benchmark 不依賴 MyBatis runtime，直接以 JDBC 執行各方法送出的 SQL：
+ * <ul>
+ *   <li>singleRow：逐筆呼叫 insert，每筆各自 prepare 並執行（SIMPLE executor）</li>
+ *   <li>insertMultipleInChunks：每批 maxParameters / columns 筆組成一個多列 INSERT</li>
+ *   <li>insertBatch：同一個 PreparedStatement addBatch 後一次執行（BATCH executor）</li>
+ * </ul>
+ * 每次執行都在同一個交易中寫入 rows 筆後 rollback，資料表大小不會隨執行次數增加。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BatchInsertBenchmark {
+
+  private static final String TABLE_NAME = "t_batch_insert";
+
+  @Param({"1000", "10000"})
+  public int rows;
+
+  /** 資料表的欄位數 */
+  @Param({"10"})
+  public int columns;
+
+  private Connection conn;
+  private String insertSql;
+  private String valuesSql;
+  private String singleRowSql;
+  private int chunkSize;
+  private String chunkSql;
+
+  @Setup
+  public void setUp() throws SQLException {
+    File root = SchemaFixture.defaultRoot();
+    if (!root.isDirectory() && !root.mkdirs()) {
+      throw new IllegalStateException("無法建立 fixture 目錄: " + root);
+    }
+    conn = DriverManager.getConnection("jdbc:sqlite:" + new File(root, "batch-insert.db").getAbsolutePath());
+    StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(TABLE_NAME).append(" (id INTEGER");
+    StringBuilder names = new StringBuilder("id");
+    for (int c = 1; c < columns; c++) {
+      String column = String.format("c_%02d", c);
+      ddl.append(", ").append(column).append(" VARCHAR(64)");
+      names.append(", ").append(column);
+    }
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+      stmt.execute(ddl.append(')').toString());
+    }
+    conn.setAutoCommit(false);
+
+    insertSql = "INSERT INTO " + TABLE_NAME + " (" + names + ") VALUES ";
+    valuesSql = valuesClause();
+    singleRowSql = insertSql + valuesSql;
+    chunkSize = Math.max(1, BatchInsertPlugin.DEFAULT_MAX_PARAMETERS / columns);
+    chunkSql = multiRowSql(chunkSize);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  @Benchmark
+  public int singleRow() throws SQLException {
+    int inserted = 0;
+    try {
+      for (int row = 0; row < rows; row++) {
+        try (PreparedStatement ps = conn.prepareStatement(singleRowSql)) {
+          bindRow(ps, 0, row);
+          inserted += ps.executeUpdate();
+        }
+      }
+    } finally {
+      conn.rollback();
+    }
+    return inserted;
+  }
+
+  @Benchmark
+  public int insertMultipleInChunks() throws SQLException {
+    int inserted = 0;
+    try {
+      for (int start = 0; start < rows; start += chunkSize) {
+        int size = Math.min(chunkSize, rows - start);
+        String sql = size == chunkSize ? chunkSql : multiRowSql(size);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+          for (int i = 0; i < size; i++) {
+            bindRow(ps, i * columns, start + i);
+          }
+          inserted += ps.executeUpdate();
+        }
+      }
+    } finally {
+      conn.rollback();
+    }
+    return inserted;
+  }
+
+  @Benchmark
+  public int insertBatch() throws SQLException {
+    int inserted = 0;
+    try (PreparedStatement ps = conn.prepareStatement(singleRowSql)) {
+      for (int row = 0; row < rows; row++) {
+        bindRow(ps, 0, row);
+        ps.addBatch();
+      }
+      for (int count : ps.executeBatch()) {
+        inserted += count;
+      }
+    } finally {
+      conn.rollback();
+    }
+    return inserted;
+  }
+
+  private void bindRow(PreparedStatement ps, int offset, int row) throws SQLException {
+    ps.setInt(offset + 1, row);
+    for (int c = 1; c < columns; c++) {
+      ps.setString(offset + c + 1, "v" + row + "_" + c);
+    }
+  }
+
+  private String valuesClause() {
+    StringBuilder values = new StringBuilder("(");
+    for (int c = 0; c < columns; c++) {
+      values.append(c == 0 ? "?" : ", ?");
+    }
+    return values.append(')').toString();
+  }
+
+  private String multiRowSql(int size) {
+    StringBuilder sql = new StringBuilder(insertSql);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(valuesSql);
+    }
+    return sql.toString();
+  }
+}
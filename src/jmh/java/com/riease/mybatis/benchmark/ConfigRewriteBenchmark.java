@@ -0,0 +1,83 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.BulkSchemaIntrospector;
+import com.riease.mybatis.DataSourceParameter;
+import com.riease.mybatis.Dialect;
+import com.riease.mybatis.GeneratorConfigRewriter;
+import com.riease.mybatis.TableFilter;
+import com.riease.mybatis.TableMeta;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 以範本設定檔加入所有資料表的改寫時間；搭配 {@code -prof gc} 可取得每次改寫的記憶體配置量。
+ * <p>
+ * 每次執行前重新複製範本，量測的是第一次加入所有 table 定義的情境。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigRewriteBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int tables;
+
+  private List<DataSourceParameter> dataSources;
+  private Map<String, List<TableMeta>> tablesToAppend;
+  private File configFile;
+
+  @Setup
+  public void setUp() throws SQLException, IOException {
+    File projectDir = SchemaFixture.prepare(SchemaFixture.defaultRoot(), tables);
+    DataSourceParameter dataSource = new DataSourceParameter();
+    dataSource.setDriverClass("org.sqlite.JDBC");
+    dataSource.setConnectionURL(SchemaFixture.connectionUrl(projectDir));
+    dataSources = Collections.singletonList(dataSource);
+    try (Connection conn = DriverManager.getConnection(dataSource.getConnectionURL())) {
+      List<TableMeta> tableMetaList = new BulkSchemaIntrospector(Dialect.SQLITE)
+        .introspect(conn, null, null, TableFilter.of(null, null, null));
+      tablesToAppend = Collections.singletonMap("", tableMetaList);
+    }
+    configFile = File.createTempFile("mybatis-generator-config", ".xml");
+  }
+
+  @Setup(Level.Invocation)
+  public void copyTemplate() throws IOException {
+    try (InputStream in = GeneratorConfigRewriter.class.getClassLoader()
+      .getResourceAsStream("config/mybatis-generator-config.xml")) {
+      Files.copy(in, configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(configFile.toPath());
+  }
+
+  @Benchmark
+  public File rewrite() throws IOException, XMLStreamException {
+    new GeneratorConfigRewriter(SchemaFixture.TARGET_PACKAGE, dataSources, tablesToAppend).rewrite(configFile);
+    return configFile;
+  }
+}
@@ -0,0 +1,54 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.MyBatisGenerateMain;
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 以 fixture 的設定檔執行完整的 mybatisGenerate（解析設定檔、MyBatisGenerator 讀取 metadata 與寫出檔案）。
+ * <p>
+ * 每次執行都會產生所有資料表，結果除以 tables 即為每個資料表的產生時間。
+ * 10,000 個資料表單次執行時間過長，預設只量測 100 與 1,000 個資料表。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class GenerationBenchmark {
+
+  @Param({"100", "1000"})
+  public int tables;
+
+  /** mybatis.generator.generate.shards */
+  @Param({"1", "4"})
+  public int shards;
+
+  private Map<String, String> properties;
+
+  @Setup
+  public void setUp() throws SQLException {
+    File projectDir = SchemaFixture.prepare(SchemaFixture.defaultRoot(), tables);
+    properties = SchemaFixture.executionProperties(projectDir);
+    properties.put("mybatis.generator.config.file", SchemaFixture.configFile(projectDir).getAbsolutePath());
+    properties.put("mybatis.generator.verbose", "false");
+    properties.put("mybatis.generator.generate.shards", String.valueOf(shards));
+  }
+
+  @Benchmark
+  public void generate() throws Exception {
+    MyBatisGenerateMain.execute(properties);
+  }
+}
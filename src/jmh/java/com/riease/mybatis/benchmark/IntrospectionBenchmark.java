@@ -0,0 +1,63 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.BulkSchemaIntrospector;
+import com.riease.mybatis.Dialect;
+import com.riease.mybatis.PerTableSchemaIntrospector;
+import com.riease.mybatis.SchemaIntrospector;
+import com.riease.mybatis.TableFilter;
+import com.riease.mybatis.TableMeta;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 讀取整個 schema 的 metadata 所需時間（copyMyBatisGeneratorConfig 中 queryTableMeta 的主要成本）。
+ * <p>
+ * 結果為讀取所有資料表的平均時間，除以 tables 即為每個資料表的時間。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IntrospectionBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int tables;
+
+  /** bulk：BulkSchemaIntrospector，perTable：PerTableSchemaIntrospector */
+  @Param({"bulk", "perTable"})
+  public String mode;
+
+  private Connection conn;
+  private SchemaIntrospector introspector;
+  private TableFilter filter;
+
+  @Setup
+  public void setUp() throws SQLException {
+    File projectDir = SchemaFixture.prepare(SchemaFixture.defaultRoot(), tables);
+    conn = DriverManager.getConnection(SchemaFixture.connectionUrl(projectDir));
+    introspector = "bulk".equals(mode) ? new BulkSchemaIntrospector(Dialect.SQLITE) : new PerTableSchemaIntrospector();
+    filter = TableFilter.of(null, null, null);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  @Benchmark
+  public List<TableMeta> introspect() throws SQLException {
+    return introspector.introspect(conn, null, null, filter);
+  }
+}
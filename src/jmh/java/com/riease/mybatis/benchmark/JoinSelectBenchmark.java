@@ -0,0 +1,170 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.plugins.JoinSelectPlugin;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 比較逐筆查詢參照資料（1 + N 次查詢）與 {@link JoinSelectPlugin} 的 left join（1 次查詢），
+ * 在本機 SQLite 上讀取 limit 筆訂單與其客戶資料的耗時。
+ * <p>
+ * benchmark 不依賴 MyBatis runtime，直接以 JDBC 執行兩種方法送出的 SQL，join 的欄位別名與產生的
+ * selectWithReferences 相同。本機資料庫沒有網路往返，實際資料庫的差距會隨每次查詢的延遲放大。
+ * 已存在且筆數相同的資料庫會直接使用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class JoinSelectBenchmark {
+
+  private static final String ORDER_TABLE = "t_join_order";
+  private static final String CUSTOMER_TABLE = "t_join_customer";
+
+  private static final String ORDER_SQL = "SELECT id, customer_id, amount FROM " + ORDER_TABLE
+    + " WHERE id > ? ORDER BY id LIMIT ?";
+
+  private static final String CUSTOMER_SQL = "SELECT id, name, level FROM " + CUSTOMER_TABLE + " WHERE id = ?";
+
+  private static final String JOIN_SQL = "SELECT p.id, p.customer_id, p.amount,"
+    + " j0.id AS j0_id, j0.name AS j0_name, j0.level AS j0_level FROM " + ORDER_TABLE + " p"
+    + " LEFT JOIN " + CUSTOMER_TABLE + " j0 ON p.customer_id = j0.id WHERE p.id > ? ORDER BY p.id LIMIT ?";
+
+  @Param({"100000"})
+  public int rows;
+
+  /** 每次讀取的訂單筆數，1 + N 查詢的 N */
+  @Param({"10", "100"})
+  public int limit;
+
+  private Connection conn;
+  private int customers;
+
+  @Setup
+  public void setUp() throws SQLException {
+    File root = SchemaFixture.defaultRoot();
+    if (!root.isDirectory() && !root.mkdirs()) {
+      throw new IllegalStateException("無法建立 fixture 目錄: " + root);
+    }
+    conn = DriverManager.getConnection("jdbc:sqlite:" + new File(root, "join-select.db").getAbsolutePath());
+    customers = Math.max(1, rows / 10);
+    if (countRows() != rows) {
+      createTables();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  @Benchmark
+  public long nPlusOne() throws SQLException {
+    List<int[]> orders = new ArrayList<>();
+    try (PreparedStatement ps = conn.prepareStatement(ORDER_SQL)) {
+      ps.setInt(1, rows / 2);
+      ps.setInt(2, limit);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          orders.add(new int[] {rs.getInt(1), rs.getInt(2)});
+          rs.getBigDecimal(3);
+        }
+      }
+    }
+    long sum = 0;
+    for (int[] order : orders) {
+      // 與逐筆呼叫參照資料表的 selectByPrimaryKey 相同，每筆訂單各執行一次查詢
+      try (PreparedStatement ps = conn.prepareStatement(CUSTOMER_SQL)) {
+        ps.setInt(1, order[1]);
+        try (ResultSet rs = ps.executeQuery()) {
+          if (rs.next()) {
+            sum += order[0] + (long) rs.getInt(1);
+            rs.getString(2);
+            rs.getInt(3);
+          }
+        }
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long join() throws SQLException {
+    long sum = 0;
+    try (PreparedStatement ps = conn.prepareStatement(JOIN_SQL)) {
+      ps.setInt(1, rows / 2);
+      ps.setInt(2, limit);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          rs.getInt(2);
+          rs.getBigDecimal(3);
+          sum += rs.getInt(1) + (long) rs.getInt(4);
+          rs.getString(5);
+          rs.getInt(6);
+        }
+      }
+    }
+    return sum;
+  }
+
+  private int countRows() throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + ORDER_TABLE)) {
+      return rs.next() ? rs.getInt(1) : 0;
+    } catch (SQLException e) {
+      // 資料表不存在
+      return -1;
+    }
+  }
+
+  private void createTables() throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("DROP TABLE IF EXISTS " + ORDER_TABLE);
+      stmt.execute("DROP TABLE IF EXISTS " + CUSTOMER_TABLE);
+      stmt.execute("CREATE TABLE " + CUSTOMER_TABLE + " (id INTEGER PRIMARY KEY, name VARCHAR(64), level INTEGER)");
+      stmt.execute("CREATE TABLE " + ORDER_TABLE + " (id INTEGER PRIMARY KEY, customer_id INTEGER"
+        + " REFERENCES " + CUSTOMER_TABLE + " (id), amount DECIMAL(12,2))");
+    }
+    conn.setAutoCommit(false);
+    try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + CUSTOMER_TABLE + " VALUES (?, ?, ?)")) {
+      for (int n = 0; n < customers; n++) {
+        ps.setInt(1, n);
+        ps.setString(2, "customer-" + n);
+        ps.setInt(3, n % 5);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + ORDER_TABLE + " VALUES (?, ?, ?)")) {
+      for (int n = 0; n < rows; n++) {
+        ps.setInt(1, n);
+        ps.setInt(2, (int) ((n * 7919L) % customers));
+        ps.setInt(3, n % 1000);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    conn.commit();
+    conn.setAutoCommit(true);
+  }
+}
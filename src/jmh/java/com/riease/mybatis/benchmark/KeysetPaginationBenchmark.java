@@ -0,0 +1,150 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.plugins.KeysetPaginationPlugin;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 比較 offset 分頁（RowBoundsPlugin、LIMIT ... OFFSET）與 {@link KeysetPaginationPlugin} 的 keyset 分頁，
+ * 在本機 SQLite 上讀取第 page 頁的耗時。
+ * <p>
+ * benchmark 不依賴 MyBatis runtime，直接以 JDBC 執行兩種方法送出的 SQL。資料表有 rows 筆資料，
+ * 主鍵為 (id, version) 的複合主鍵，每個 id 有兩個 version，keyset 條件與產生的 selectPageAfter 相同。
+ * 已存在且筆數相同的資料庫會直接使用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class KeysetPaginationBenchmark {
+
+  private static final String TABLE_NAME = "t_keyset_page";
+
+  private static final String OFFSET_SQL = "SELECT id, version, name, amount FROM " + TABLE_NAME
+    + " ORDER BY id, version LIMIT ? OFFSET ?";
+
+  private static final String KEYSET_SQL = "SELECT id, version, name, amount FROM " + TABLE_NAME
+    + " WHERE id >= ? AND (id > ? OR (id = ? AND version > ?)) ORDER BY id, version LIMIT ?";
+
+  @Param({"200000"})
+  public int rows;
+
+  /** 每頁筆數 */
+  @Param({"100"})
+  public int limit;
+
+  /** 讀取的頁數（從 0 開始），越大 offset 分頁需略過的資料越多 */
+  @Param({"10", "1000", "1900"})
+  public int page;
+
+  private Connection conn;
+  /** 上一頁最後一筆資料的主鍵 */
+  private int lastId;
+  private int lastVersion;
+
+  @Setup
+  public void setUp() throws SQLException {
+    File root = SchemaFixture.defaultRoot();
+    if (!root.isDirectory() && !root.mkdirs()) {
+      throw new IllegalStateException("無法建立 fixture 目錄: " + root);
+    }
+    conn = DriverManager.getConnection("jdbc:sqlite:" + new File(root, "keyset-page.db").getAbsolutePath());
+    if (countRows() != rows) {
+      createTable();
+    }
+    // 第 n 筆資料（從 0 開始）的主鍵為 (n / 2, n % 2)
+    int last = page * limit - 1;
+    lastId = last / 2;
+    lastVersion = last % 2;
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  @Benchmark
+  public long offset() throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(OFFSET_SQL)) {
+      ps.setInt(1, limit);
+      ps.setInt(2, page * limit);
+      return read(ps);
+    }
+  }
+
+  @Benchmark
+  public long keyset() throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(KEYSET_SQL)) {
+      ps.setInt(1, lastId);
+      ps.setInt(2, lastId);
+      ps.setInt(3, lastId);
+      ps.setInt(4, lastVersion);
+      ps.setInt(5, limit);
+      return read(ps);
+    }
+  }
+
+  /**
+   * @return 讀取的主鍵總和，確保兩種方法讀取相同的資料
+   */
+  private static long read(PreparedStatement ps) throws SQLException {
+    long sum = 0;
+    try (ResultSet rs = ps.executeQuery()) {
+      while (rs.next()) {
+        sum += rs.getInt(1) * 2L + rs.getInt(2);
+        rs.getString(3);
+        rs.getBigDecimal(4);
+      }
+    }
+    return sum;
+  }
+
+  private int countRows() throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME)) {
+      return rs.next() ? rs.getInt(1) : 0;
+    } catch (SQLException e) {
+      // 資料表不存在
+      return -1;
+    }
+  }
+
+  private void createTable() throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+      stmt.execute("CREATE TABLE " + TABLE_NAME + " (id INTEGER NOT NULL, version INTEGER NOT NULL,"
+        + " name VARCHAR(64), amount DECIMAL(12,2), PRIMARY KEY (id, version))");
+    }
+    conn.setAutoCommit(false);
+    try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE_NAME + " VALUES (?, ?, ?, ?)")) {
+      for (int n = 0; n < rows; n++) {
+        ps.setInt(1, n / 2);
+        ps.setInt(2, n % 2);
+        ps.setString(3, "name-" + n);
+        ps.setInt(4, n % 1000);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    conn.commit();
+    conn.setAutoCommit(true);
+  }
+}
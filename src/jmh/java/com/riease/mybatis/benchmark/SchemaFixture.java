@@ -0,0 +1,162 @@
+package com.riease.mybatis.benchmark;
+
+import com.riease.mybatis.CopyMyBatisGeneratorConfigMain;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 產生 benchmark 用的 SQLite 資料庫與對應的 mybatis-generator-config.xml。
+ * <p>
+ * 每個資料表有 4 ~ 24 個一般欄位；每 10 個資料表有一個複合主鍵，其餘為單一主鍵；
+ * 除第一個資料表外，各有 0 ~ 2 個外鍵參照先前建立的單一主鍵資料表。
+ * 以資料表數量作為亂數種子，相同數量產生的 schema 完全相同。
+ * <p>
+ * 產生的專案目錄結構與一般專案相同：
+ * <ul>
+ *   <li>schema.db：SQLite 資料庫</li>
+ *   <li>build-tools/mybatis/mybatis-generator-config.xml：以 CopyMyBatisGeneratorConfigMain 產生，包含所有資料表</li>
+ *   <li>src/main/java、src/main/resources：產生檔案的目錄</li>
+ * </ul>
+ * 已存在的 fixture 會直接使用，不重新產生。
+ */
+public class SchemaFixture {
+
+  /** fixture 的預設根目錄，可用系統屬性 mybatis.benchmark.fixture.dir 指定 */
+  public static final String DEFAULT_ROOT = "build/jmh-fixtures";
+
+  /** 產出檔案的基礎套件 */
+  public static final String TARGET_PACKAGE = "com.example.benchmark";
+
+  private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+
+  /**
+   * 產生設定檔中的 targetProject，MyBatis Generator 不會自行建立
+   */
+  private static final String[] TARGET_PROJECTS = {"src/main/java", "src/main/resources"};
+
+  private static final String[] COLUMN_TYPES = {
+    "VARCHAR(64)", "VARCHAR(255)", "INTEGER", "BIGINT", "DECIMAL(12,2)", "TIMESTAMP", "DATE", "TEXT", "BOOLEAN"
+  };
+
+  private SchemaFixture() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    File root = args.length > 0 ? new File(args[0]) : defaultRoot();
+    int[] counts = {100, 1000, 10000};
+    for (int count : counts) {
+      System.out.println("fixture: " + prepare(root, count).getAbsolutePath());
+    }
+  }
+
+  public static File defaultRoot() {
+    return new File(System.getProperty("mybatis.benchmark.fixture.dir", DEFAULT_ROOT));
+  }
+
+  /**
+   * 取得指定資料表數量的 fixture 專案目錄，不存在時產生
+   */
+  public static synchronized File prepare(File root, int tables) throws SQLException {
+    File projectDir = new File(root, "tables-" + tables).getAbsoluteFile();
+    File database = new File(projectDir, "schema.db");
+    File configFile = configFile(projectDir);
+    for (String targetProject : TARGET_PROJECTS) {
+      File dir = new File(projectDir, targetProject);
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IllegalStateException("無法建立 fixture 目錄: " + dir);
+      }
+    }
+    if (database.isFile() && configFile.isFile()) {
+      return projectDir;
+    }
+    if (!projectDir.isDirectory() && !projectDir.mkdirs()) {
+      throw new IllegalStateException("無法建立 fixture 目錄: " + projectDir);
+    }
+    if (database.exists() && !database.delete()) {
+      throw new IllegalStateException("無法刪除舊的 fixture: " + database);
+    }
+    createSchema(database, tables);
+    CopyMyBatisGeneratorConfigMain.execute(executionProperties(projectDir));
+    return projectDir;
+  }
+
+  public static File configFile(File projectDir) {
+    return new File(projectDir, "build-tools/mybatis/mybatis-generator-config.xml");
+  }
+
+  public static String connectionUrl(File projectDir) {
+    return "jdbc:sqlite:" + new File(projectDir, "schema.db").getAbsolutePath();
+  }
+
+  /**
+   * 執行 copyMyBatisGeneratorConfig 與 mybatisGenerate 的參數；SQLite 不需帳號密碼，但參數不可為空白
+   */
+  public static Map<String, String> executionProperties(File projectDir) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("mybatis.generator.project.dir", projectDir.getAbsolutePath());
+    properties.put("mybatis.generator.copy.overwrite", "true");
+    properties.put("mybatis.generator.target.package", TARGET_PACKAGE);
+    properties.put("mybatis.generator.db.driverClass", DRIVER_CLASS);
+    properties.put("mybatis.generator.db.connectionURL", connectionUrl(projectDir));
+    properties.put("mybatis.generator.db.username", "fixture");
+    properties.put("mybatis.generator.db.password", "fixture");
+    return properties;
+  }
+
+  private static void createSchema(File database, int tables) throws SQLException {
+    Random random = new Random(tables);
+    // 可被外鍵參照的單一主鍵資料表
+    List<String> referenceable = new ArrayList<>();
+    try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+         Statement stmt = conn.createStatement()) {
+      conn.setAutoCommit(false);
+      for (int i = 1; i <= tables; i++) {
+        String tableName = String.format("t_%05d", i);
+        boolean compositeKey = i % 10 == 0;
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(tableName).append(" (");
+        if (compositeKey) {
+          ddl.append("id INTEGER NOT NULL, version INTEGER NOT NULL");
+        } else {
+          ddl.append("id INTEGER NOT NULL PRIMARY KEY");
+        }
+        int columns = 4 + random.nextInt(21);
+        for (int c = 1; c <= columns; c++) {
+          ddl.append(", ").append(String.format("c_%02d", c)).append(' ')
+            .append(COLUMN_TYPES[random.nextInt(COLUMN_TYPES.length)]);
+          if (random.nextInt(3) == 0) {
+            ddl.append(" NOT NULL");
+          }
+        }
+        int foreignKeys = referenceable.isEmpty() ? 0 : random.nextInt(3);
+        List<String> constraints = new ArrayList<>();
+        for (int f = 0; f < foreignKeys; f++) {
+          String referenced = referenceable.get(random.nextInt(referenceable.size()));
+          String column = "ref_" + f + "_" + referenced;
+          ddl.append(", ").append(column).append(" INTEGER");
+          constraints.add("FOREIGN KEY (" + column + ") REFERENCES " + referenced + " (id)");
+        }
+        if (compositeKey) {
+          constraints.add("PRIMARY KEY (id, version)");
+        }
+        for (String constraint : constraints) {
+          ddl.append(", ").append(constraint);
+        }
+        ddl.append(')');
+        stmt.addBatch(ddl.toString());
+        if (!compositeKey) {
+          referenceable.add(tableName);
+        }
+      }
+      stmt.executeBatch();
+      conn.commit();
+    }
+  }
+}
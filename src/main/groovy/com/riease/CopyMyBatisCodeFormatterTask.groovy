@@ -0,0 +1,36 @@
+package com.riease
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * 將 plugin 內建的 mybatis-code-formatter.xml 複製到專案，供 Spotless 的 Eclipse formatter 使用。
+ * <p>
+ * 只在 spotlessJava 執行前執行，內容相同時不覆寫檔案。
+ */
+abstract class CopyMyBatisCodeFormatterTask extends DefaultTask {
+
+  /** plugin 資源中的 formatter 設定檔路徑 */
+  static final String RESOURCE = 'config/mybatis-code-formatter.xml'
+
+  @OutputFile
+  abstract RegularFileProperty getFormatterFile()
+
+  @TaskAction
+  void copy() {
+    def resource = CopyMyBatisCodeFormatterTask.classLoader.getResource(RESOURCE)
+    if (resource == null) {
+      throw new IllegalStateException("Formatter configuration file not found in plugin resources.")
+    }
+    byte[] content = resource.openStream().withStream { it.bytes }
+    def targetFile = formatterFile.get().asFile
+    if (targetFile.isFile() && Arrays.equals(targetFile.bytes, content)) {
+      return
+    }
+    targetFile.parentFile.mkdirs()
+    targetFile.bytes = content
+    println "已複製 mybatis-code-formatter 設定檔到: ${targetFile.absolutePath}"
+  }
+}
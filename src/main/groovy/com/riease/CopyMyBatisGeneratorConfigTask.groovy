@@ -0,0 +1,29 @@
+package com.riease
+
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.UntrackedTask
+import org.gradle.workers.WorkAction
+
+/**
+ * 複製 mybatis-generator-config.xml 到專案的 build-tools 目錄，並依資料庫的 schema 加入 table 定義。
+ * <p>
+ * 結果取決於資料庫目前的 schema，無法由任務的輸入判斷是否為最新狀態，因此每次都會執行，也不使用 build cache；
+ * 讀取到的 schema 會寫入 schema 快照，作為 mybatisGenerate 的輸入。
+ */
+@UntrackedTask(because = '需連線資料庫讀取 schema，無法由輸入判斷是否為最新狀態')
+abstract class CopyMyBatisGeneratorConfigTask extends MyBatisExecTask {
+
+  @OutputFile
+  abstract RegularFileProperty getConfigFile()
+
+  @Override
+  protected String mainClassName() {
+    return 'com.riease.mybatis.CopyMyBatisGeneratorConfigMain'
+  }
+
+  @Override
+  protected Class<? extends WorkAction<MyBatisWorkParameters>> workActionClass() {
+    return CopyMyBatisGeneratorConfigWorkAction
+  }
+}
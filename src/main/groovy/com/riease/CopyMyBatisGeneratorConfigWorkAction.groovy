@@ -0,0 +1,15 @@
+package com.riease
+
+import com.riease.mybatis.CopyMyBatisGeneratorConfigMain
+import org.gradle.workers.WorkAction
+
+/**
+ * 於 Worker 中直接呼叫 CopyMyBatisGeneratorConfigMain，不需 fork 新的 JVM
+ */
+abstract class CopyMyBatisGeneratorConfigWorkAction implements WorkAction<MyBatisWorkParameters> {
+
+  @Override
+  void execute() {
+    CopyMyBatisGeneratorConfigMain.execute(parameters.executionProperties.get())
+  }
+}
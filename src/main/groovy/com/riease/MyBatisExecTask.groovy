@@ -0,0 +1,101 @@
+package com.riease
+
+import javax.inject.Inject
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.provider.MapProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.provider.SetProperty
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.TaskAction
+import org.gradle.process.ExecOperations
+import org.gradle.workers.WorkAction
+import org.gradle.workers.WorkerExecutor
+
+/**
+ * 執行 MyBatis 相關 Main 類別的任務基底。
+ * <ul>
+ *   <li>javaexec（預設）：以 ExecOperations fork 新的 JVM 執行 Main 類別</li>
+ *   <li>worker：以 Gradle Worker API 的 classLoaderIsolation 執行，與 Gradle daemon 共用同一個 JVM，
+ *   但以專案的 runtimeClasspath 建立隔離的 ClassLoader，避免 JDBC driver 與 MyBatis Generator 影響 Gradle 本身。
+ *   相同 classpath 的 ClassLoader 會被 daemon 重複使用，連續執行時不需重新啟動 JVM 與載入類別。</li>
+ * </ul>
+ * 任務的參數都在設定階段以 Property 設定，執行時不存取 Project，可搭配 configuration cache 使用。
+ * 設定 {@link MyBatisSchemaService} 時，讀取相同資料庫的任務依序執行，並受服務的同時連線數限制。
+ * 子類別以各自的 {@code @Input}、{@code @Output*} 宣告影響產出的參數與產出位置。
+ */
+abstract class MyBatisExecTask extends DefaultTask {
+
+  /** 執行用的 classpath，是否影響產出由子類別另外宣告 */
+  @Internal
+  abstract ConfigurableFileCollection getClasspath()
+
+  /** 是否以 Worker API 執行 */
+  @Internal
+  abstract Property<Boolean> getUseWorker()
+
+  /** 傳給 Main 類別的參數，含絕對路徑，不作為 build cache 的 key */
+  @Internal
+  abstract MapProperty<String, String> getExecutionProperties()
+
+  /** 資料庫帳號密碼，由環境變數 provider 於執行時取得，不作為任務的輸入，也不寫入 configuration cache */
+  @Internal
+  abstract MapProperty<String, String> getCredentials()
+
+  /** 多專案共用的 schema 讀取服務，未設定時不共用讀取結果 */
+  @Internal
+  abstract Property<MyBatisSchemaService> getSchemaService()
+
+  /** 任務連線的資料庫，與其他專案讀取相同資料庫的任務依序執行 */
+  @Internal
+  abstract SetProperty<String> getSchemaKeys()
+
+  @Inject
+  abstract WorkerExecutor getWorkerExecutor()
+
+  @Inject
+  abstract ExecOperations getExecOperations()
+
+  /** javaexec 模式執行的 Main 類別 */
+  protected abstract String mainClassName()
+
+  /** worker 模式執行的 WorkAction */
+  protected abstract Class<? extends WorkAction<MyBatisWorkParameters>> workActionClass()
+
+  @TaskAction
+  void execute() {
+    Map<String, String> properties = new LinkedHashMap<>(executionProperties.get())
+    credentials.get().each { key, value ->
+      if (value) {
+        properties[key] = value
+      }
+    }
+    def service = schemaService.getOrNull()
+    if (service == null) {
+      run(properties)
+      return
+    }
+    service.withSchemas(schemaKeys.getOrElse([] as Set)) {
+      run(properties)
+      // 等待 worker 執行完畢才釋放，讓其他專案可以使用這次讀取的結果
+      workerExecutor.await()
+    }
+  }
+
+  protected void run(Map<String, String> properties) {
+    if (useWorker.getOrElse(false)) {
+      def queue = workerExecutor.classLoaderIsolation { spec ->
+        spec.classpath.from(classpath)
+      }
+      queue.submit(workActionClass()) { MyBatisWorkParameters parameters ->
+        parameters.executionProperties.set(properties)
+      }
+    } else {
+      execOperations.javaexec { spec ->
+        spec.mainClass.set(mainClassName())
+        spec.classpath(classpath)
+        spec.systemProperties(properties)
+      }
+    }
+  }
+}
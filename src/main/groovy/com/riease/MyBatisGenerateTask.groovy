@@ -0,0 +1,69 @@
+package com.riease
+
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Classpath
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputDirectories
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.workers.WorkAction
+
+/**
+ * 根據 mybatis-generator-config.xml 產生 MyBatis 相關檔案。
+ * <p>
+ * 以設定檔、schema 快照（schema 的指紋）與 MyBatis Generator 的 classpath 作為輸入，
+ * 輸入未變更時任務為 up-to-date，不會連線資料庫；輸入相同時也可以從 build cache 取得產出。
+ * 快照需包含設定檔中的所有資料表才能代表 schema，否則任務一律執行，也不使用 build cache。
+ * incremental 的產出取決於上一次的產生紀錄，因此也不使用 build cache。
+ * schema 快照由 copyMyBatisGeneratorConfig 更新，資料庫有異動時需先執行該任務。
+ * 設定 DDL 腳本時，腳本也是輸入，產生時以腳本建立 in-memory 資料庫，不需連線實際資料庫。
+ */
+@CacheableTask
+abstract class MyBatisGenerateTask extends MyBatisExecTask {
+
+  @InputFile
+  @PathSensitive(PathSensitivity.RELATIVE)
+  abstract RegularFileProperty getConfigFile()
+
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE)
+  abstract ConfigurableFileCollection getSchemaSnapshots()
+
+  /** DDL 腳本的檔案或目錄，以腳本取代實際資料庫時，腳本內容決定產出 */
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE)
+  abstract ConfigurableFileCollection getDdlScripts()
+
+  /** 專案的外部相依套件（MyBatis Generator、JDBC driver 與 plugin），不含專案本身編譯的類別 */
+  @Classpath
+  abstract ConfigurableFileCollection getGeneratorClasspath()
+
+  @Input
+  abstract Property<Boolean> getIncremental()
+
+  /** 產出目錄，staged output 時為 staging 目錄，否則為設定檔中各 generator 的 targetProject 與 targetPackage */
+  @OutputDirectories
+  abstract ConfigurableFileCollection getOutputDirectories()
+
+  /** incremental 產生的紀錄 */
+  @OutputFile
+  @Optional
+  abstract RegularFileProperty getStateFile()
+
+  @Override
+  protected String mainClassName() {
+    return 'com.riease.mybatis.MyBatisGenerateMain'
+  }
+
+  @Override
+  protected Class<? extends WorkAction<MyBatisWorkParameters>> workActionClass() {
+    return MyBatisGenerateWorkAction
+  }
+}
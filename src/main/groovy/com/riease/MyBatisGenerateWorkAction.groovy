@@ -0,0 +1,15 @@
+package com.riease
+
+import com.riease.mybatis.MyBatisGenerateMain
+import org.gradle.workers.WorkAction
+
+/**
+ * 於 Worker 中直接呼叫 MyBatisGenerator API，不需 fork 新的 JVM
+ */
+abstract class MyBatisGenerateWorkAction implements WorkAction<MyBatisWorkParameters> {
+
+  @Override
+  void execute() {
+    MyBatisGenerateMain.execute(parameters.executionProperties.get())
+  }
+}
@@ -1,9 +1,18 @@
 package com.riease
 
 
+import com.riease.mybatis.GeneratedTableState
+import com.riease.mybatis.GeneratorConfigRewriter
+import com.riease.mybatis.SchemaSnapshotStore
+import groovy.json.JsonOutput
+import javax.xml.stream.XMLStreamException
 import org.gradle.api.Plugin
 import org.gradle.api.Project
-import org.gradle.api.tasks.JavaExec
+import org.gradle.api.logging.LogLevel
+import org.gradle.api.provider.MapProperty
+import org.gradle.api.tasks.SourceTask
+import org.gradle.api.tasks.bundling.AbstractArchiveTask
+import org.gradle.language.jvm.tasks.ProcessResources
 
 /**
  * MyBatisGeneratorPlugin
@@ -15,6 +24,11 @@ import org.gradle.api.tasks.JavaExec
  * 3. 註冊 mybatisGenerate 任務，根據設定檔自動產生 MyBatis 相關程式碼。
  * 4. 註冊 mybatisGenerateAndFormat 任務，產生程式碼後自動格式化。
  * 5. 自動偵測專案所用 JDBC 驅動類別。
+ * 6. 啟用 staged output 時，先產生並格式化到 staging 目錄，再只發布內容有變更的檔案。
+ * 7. mybatisGenerate 宣告輸入與輸出，輸入未變更時為 up-to-date，並支援 build cache 與 configuration cache。
+ * 8. 設定 DDL 腳本時，以腳本建立的 H2 in-memory 資料庫取代實際資料庫，不需連線資料庫即可產生。
+ * 9. 註冊 mybatisWatch 任務，持續監看 schema，變更時自動重新產生並格式化變更的資料表。
+ * 10. 多專案建置時以 {@link MyBatisSchemaService} 共用 schema 讀取結果，並限制同時連線資料庫的任務數。
  *
  * 使用方式：
  * - 在 build.gradle 中套用本 Plugin。
@@ -23,10 +37,65 @@ import org.gradle.api.tasks.JavaExec
  */
 class MyBatisGeneratorPlugin implements Plugin<Project> {
 
+  /** staged output 的 staging 目錄，相對於 build 目錄 */
+  static final String STAGING_DIR = 'mybatis/generated'
+
+  /** 執行報表的目錄，相對於 build 目錄 */
+  static final String REPORT_DIR = 'reports/mybatis'
+
+  /** 同一次建置中各專案共用的 schema 快照目錄，相對於根專案的 build 目錄 */
+  static final String SHARED_SCHEMA_DIR = 'mybatis/shared-schema'
+
+  /** mybatis-generator-config.xml，相對於專案目錄 */
+  static final String CONFIG_FILE = 'build-tools/mybatis/mybatis-generator-config.xml'
+
+  /** 執行 DDL 腳本的 H2 相依套件，只加入 MyBatis 任務的 classpath，不影響專案本身 */
+  static final String DDL_CONFIGURATION = 'mybatisDdlDatabase'
+
+  static final String H2_DEPENDENCY = 'com.h2database:h2:2.2.224'
+
+  /** Spotless 與 mybatisWatch 使用的 Eclipse formatter 設定檔，相對於根專案目錄 */
+  static final String FORMATTER_FILE = 'build-tools/spotless/mybatis-code-formatter.xml'
+
+  /** mybatisWatch 格式化產生檔案所使用的 Eclipse JDT，只加入 mybatisWatch 的 classpath */
+  static final String FORMATTER_CONFIGURATION = 'mybatisFormatter'
+
+  static final String JDT_DEPENDENCY = 'org.eclipse.jdt:org.eclipse.jdt.core:3.35.0'
+
   @Override
   void apply(Project project) {
+    // 是否先產生到 staging 目錄，只發布內容有變更的檔案，保留未變更檔案的修改時間
+    def stagedOutput = project.findProperty('mybatis.generator.staged.output') == 'true'
+
     // Configure Spotless for Java files
     project.pluginManager.withPlugin('com.diffplug.spotless') {
+      // formatter 設定檔儲存到所引用的專案，只在 spotlessJava 執行前複製，不在設定階段寫入檔案
+      def formatterFile = new File(project.rootDir, FORMATTER_FILE)
+      def copyFormatterTask = project.tasks.register('copyMyBatisCodeFormatter', CopyMyBatisCodeFormatterTask) {
+        group = 'MyBatis'
+        description = 'Copies mybatis-code-formatter.xml to the project build-tools directory.'
+        it.formatterFile.set(formatterFile)
+      }
+      // mybatisWatch 以相同的設定檔格式化
+      project.tasks.withType(MyBatisWatchTask).configureEach {
+        dependsOn copyFormatterTask
+      }
+      def formatReportFile = new File(reportDir(project), 'spotlessJava.json')
+      project.tasks.configureEach { task ->
+        if (task.name == 'spotlessJava') {
+          task.dependsOn copyFormatterTask
+          // spotlessJava 讀取 mybatisGenerate 的產出目錄
+          task.mustRunAfter 'mybatisGenerate'
+          // 記錄格式化耗時，與 copyMyBatisGeneratorConfig、mybatisGenerate 的報表放在同一個目錄
+          task.doFirst { t ->
+            t.extensions.extraProperties.set('mybatisFormatStart', System.nanoTime())
+          }
+          task.doLast { t ->
+            long elapsed = System.nanoTime() - (t.extensions.extraProperties.get('mybatisFormatStart') as long)
+            writeFormatReport(formatReportFile, elapsed)
+          }
+        }
+      }
       project.afterEvaluate {
         println('after evaluate for Spotless plugin')
         def spotlessExtension = project.extensions.findByName('spotless')
@@ -36,50 +105,66 @@ class MyBatisGeneratorPlugin implements Plugin<Project> {
         print('check spotlessExtension has java extension: ' + spotlessExtension.toString())
         println('config Spotless for Java files')
         spotlessExtension.java {
-          target 'src/**/dao/entity/*.java', 'src/**/dao/mapper/*.java'
-          // Use Eclipse formatter for MyBatis files
-          def configFile = this.class.classLoader.getResource("config/mybatis-code-formatter.xml")
-          if (configFile == null) {
-            throw new IllegalStateException("Formatter configuration file not found in plugin resources.")
-          }
-          // 儲存到所引用的專案
-          def targetFile = new File(project.rootDir, "build-tools/spotless/mybatis-code-formatter.xml")
-          if (!targetFile.parentFile.exists()) {
-            targetFile.parentFile.mkdirs()
-          }
-          targetFile.withOutputStream { out ->
-            configFile.openStream().withStream { inStream ->
-              out << inStream
+          if (stagedOutput) {
+            // 格式化 staging 目錄中的檔案（字串形式的 target 會排除 build 目錄，因此使用 fileTree）
+            target project.fileTree(stagingDir(project)) {
+              include '**/dao/entity/*.java', '**/dao/mapper/*.java'
             }
+          } else {
+            target 'src/**/dao/entity/*.java', 'src/**/dao/mapper/*.java'
           }
-          println "已複製 mybatis-code-formatter 設定檔到: ${targetFile.absolutePath}"
-
-          // 使用 Eclipse formatter 設定檔
-          eclipse().configFile(targetFile)
+          // 使用 Eclipse formatter 設定檔，檔案於 spotlessJava 讀取設定前由 copyMyBatisCodeFormatter 複製
+          eclipse().configFile(formatterFile)
         }
       }
     }
 
+    // 執行方式：javaexec（預設，每次 fork 新的 JVM）或 worker（Gradle Worker API，於 daemon 中以隔離 ClassLoader 執行）
+    def useWorker = project.findProperty('mybatis.generator.execution') == 'worker'
+    def incremental = project.findProperty('mybatis.generator.incremental') == 'true'
+    // 任務執行時不可存取 project（configuration cache），需要的值先在設定階段取得
+    def pluginVersion = project.version.toString()
+    def configFile = project.file(CONFIG_FILE)
+
+    // 設定 DDL 腳本時才需要 H2，未自行宣告相依套件時使用預設版本
+    def ddlScripts = ddlScripts(project)
+    def ddlClasspath = project.configurations.create(DDL_CONFIGURATION) {
+      canBeConsumed = false
+      description = 'H2 database used to load DDL scripts for MyBatis Generator.'
+      defaultDependencies { dependencies ->
+        dependencies.add(project.dependencies.create(H2_DEPENDENCY))
+      }
+    }
+
+    // 多專案共用的 schema 讀取服務：同一次建置中相同的資料庫只讀取一次，並限制同時連線資料庫的任務數
+    def maxConnections = project.findProperty('mybatis.generator.max.connections')
+    def schemaService = project.gradle.sharedServices.registerIfAbsent(MyBatisSchemaService.NAME,
+      MyBatisSchemaService) { spec ->
+      spec.parameters.sharedDir.set(sharedSchemaDir(project))
+      if (maxConnections != null) {
+        spec.maxParallelUsages.set(Math.max(1, maxConnections.toString().trim() as int))
+      }
+    }
+
     // 註冊 copyMyBatisGeneratorConfig 任務：目的為複製 mybatis-generator-config.xml 到專案 build-tools 目錄
-    project.tasks.register("copyMyBatisGeneratorConfig", JavaExec) {
+    project.tasks.register("copyMyBatisGeneratorConfig", CopyMyBatisGeneratorConfigTask) {
       group = 'MyBatis'
       description = 'Copies mybatis-generator-config.xml to the project build-tools directory.'
-      main = 'com.riease.mybatis.CopyMyBatisGeneratorConfigMain'
-      classpath = project.sourceSets.main.runtimeClasspath
-      // 設定參數，讓任務可以被執行
-      args = []
-      // 設定所使用的參數
-      systemProperties = [
-        'mybatis.generator.copy.overwrite': project.findProperty('mybatis.generator.copy.overwrite'),
-        'mybatis.generator.append.tables': project.findProperty('mybatis.generator.append.tables'),
-        'mybatis.generator.target.package': project.group,
-        'mybatis.generator.db.driverClass': project.findProperty('mybatis.generator.db.driverClass'),
-        'mybatis.generator.db.connectionURL': project.findProperty('mybatis.generator.db.connectionURL'),
-        'mybatis.generator.db.username': System.getenv('mybatis.generator.db.username'),
-        'mybatis.generator.db.password': System.getenv('mybatis.generator.db.password')
-      ]
+      classpath.from(project.sourceSets.main.runtimeClasspath)
+      if (!ddlScripts.isEmpty()) {
+        classpath.from(ddlClasspath)
+      }
+      it.useWorker.set(useWorker)
+      def properties = copyProperties(project)
+      properties['mybatis.generator.schema.shared.dir'] = sharedSchemaDir(project).absolutePath
+      executionProperties.set(withoutNulls(properties))
+      putCredentials(project, credentials)
+      it.schemaService.set(schemaService)
+      it.schemaKeys.set(schemaKeys(project))
+      usesService(schemaService)
+      it.configFile.set(configFile)
       doFirst {
-        println "MyBatisGeneratorPlugin-${project.version}: copyMyBatisGeneratorConfig task is starting..."
+        println "MyBatisGeneratorPlugin-${pluginVersion}: copyMyBatisGeneratorConfig task is starting..."
         println "Copy mybatis-generator-config.xml to project"
       }
       // 任務執行結束後提示訊息
@@ -89,17 +174,50 @@ class MyBatisGeneratorPlugin implements Plugin<Project> {
     }
 
     // 註冊 mybatisGenerate 任務：用於根據配置檔生成 MyBatis 相關檔案
-    project.tasks.register("mybatisGenerate", JavaExec) {
+    def projectDir = project.projectDir
+    def stagingDir = stagingDir(project)
+    project.tasks.register("mybatisGenerate", MyBatisGenerateTask) {
       group = 'MyBatis'
       description = 'Generates MyBatis artifacts based on the configuration file.'
-      main = 'org.mybatis.generator.api.ShellRunner'
-      classpath = project.sourceSets.main.runtimeClasspath
-      args = ['-configfile', 'build-tools/mybatis/mybatis-generator-config.xml', '-overwrite', '-verbose']
-      // 設定資料庫連線帳號密碼，從環境變數取得
-      systemProperties = [
-        'mybatis.generator.db.username': System.getenv('mybatis.generator.db.username'),
-        'mybatis.generator.db.password': System.getenv('mybatis.generator.db.password')
-      ]
+      classpath.from(project.sourceSets.main.runtimeClasspath)
+      generatorClasspath.from(project.configurations.named('runtimeClasspath'))
+      if (!ddlScripts.isEmpty()) {
+        classpath.from(ddlClasspath)
+        generatorClasspath.from(ddlClasspath)
+        it.ddlScripts.from(ddlScripts)
+      }
+      it.useWorker.set(useWorker)
+      executionProperties.set(withoutNulls(generateProperties(project)))
+      putCredentials(project, credentials)
+      // 只計入同時連線數，讀取結果由 copyMyBatisGeneratorConfig 寫入的快照提供
+      it.schemaService.set(schemaService)
+      usesService(schemaService)
+      it.configFile.set(configFile)
+      schemaSnapshots.from(project.fileTree(configFile.parentFile) {
+        include 'schema-snapshot*.bin'
+      })
+      it.incremental.set(incremental)
+      outputDirectories.from(project.provider {
+        stagedOutput ? [stagingDir] : targetDirectories(projectDir, configFile)
+      })
+      if (incremental) {
+        stateFile.set(project.file(GeneratedTableState.DEFAULT_PATH))
+      }
+      mustRunAfter 'copyMyBatisGeneratorConfig'
+      // 快照沒有包含設定檔中的所有資料表時，產生時會讀取資料庫，輸入無法代表 schema，
+      // 此時不視為 up-to-date，也不使用 build cache；DDL 腳本本身即為輸入
+      def offline = !ddlScripts.isEmpty()
+      outputs.upToDateWhen { offline || snapshotsComplete(projectDir, configFile, true) }
+      // 非 staged output 時產出目錄位於 src 中，可能含有手動維護的檔案，從 build cache 還原會覆蓋整個目錄，因此不使用 build cache
+      outputs.cacheIf('staged output 的產出目錄只包含產生的檔案') { stagedOutput }
+      // incremental 只產生有變更的資料表，產出取決於上一次的產生紀錄，該紀錄不是任務的輸入，因此不使用 build cache
+      outputs.cacheIf('未啟用 incremental') { !incremental }
+      outputs.cacheIf('schema 快照包含設定檔中的所有資料表') { offline || snapshotsComplete(projectDir, configFile, false) }
+
+      if (stagedOutput) {
+        // 產生後一律發布到專案目錄；若同時執行 spotlessApply，發布會排在格式化之後
+        finalizedBy 'mybatisPublishGenerated'
+      }
 
       // 任務執行結束後提示訊息
       doLast {
@@ -107,13 +225,321 @@ class MyBatisGeneratorPlugin implements Plugin<Project> {
       }
     }
 
+    if (!stagedOutput) {
+      // 產出目錄位於 src 中，同時執行時讀取原始碼的任務需排在產生之後
+      project.tasks.withType(SourceTask).configureEach {
+        mustRunAfter 'mybatisGenerate'
+      }
+      project.tasks.withType(ProcessResources).configureEach {
+        mustRunAfter 'mybatisGenerate'
+      }
+      project.tasks.withType(AbstractArchiveTask).configureEach {
+        mustRunAfter 'mybatisGenerate'
+      }
+    }
+
+    if (stagedOutput) {
+      // 註冊 mybatisPublishGenerated 任務：比對內容雜湊，只將有變更的檔案從 staging 目錄複製到專案目錄
+      project.tasks.register('mybatisPublishGenerated', PublishGeneratedFilesTask) {
+        group = 'MyBatis'
+        description = 'Publishes changed MyBatis artifacts from the staging directory to the project.'
+        classpath.from(project.sourceSets.main.runtimeClasspath)
+        it.useWorker.set(useWorker)
+        executionProperties.set(withoutNulls(publishProperties(project)))
+        it.stagingDir.set(stagingDir)
+        mustRunAfter 'mybatisGenerate'
+      }
+      project.pluginManager.withPlugin('com.diffplug.spotless') {
+        project.tasks.named('spotlessApply') {
+          mustRunAfter 'mybatisGenerate'
+        }
+        project.tasks.named('mybatisPublishGenerated') {
+          mustRunAfter 'spotlessApply'
+        }
+      }
+    }
+
     // 註冊 mybatisGenerateAndFormat 任務：此任務將在生成 MyBatis 代碼後自動格式化
     project.tasks.register('myBatisGenerateAndFormat') {
       group = 'MyBatis'
       description = 'Generate MyBatis code and format with Spotless.'
       // 依賴 mybatisGenerate 與 spotlessApply 任務，先生成再格式化
       dependsOn 'mybatisGenerate', 'spotlessApply'
+      if (stagedOutput) {
+        // 格式化後才發布到專案目錄
+        dependsOn 'mybatisPublishGenerated'
+      }
+    }
+
+    // 註冊 mybatisWatch 任務：持續監看 schema，變更時在同一個 JVM 中更新快照、incremental 產生並格式化
+    def formatterClasspath = project.configurations.create(FORMATTER_CONFIGURATION) {
+      canBeConsumed = false
+      description = 'Eclipse JDT formatter used by mybatisWatch to format generated files.'
+      defaultDependencies { dependencies ->
+        dependencies.add(project.dependencies.create(JDT_DEPENDENCY))
+      }
+    }
+    project.tasks.register('mybatisWatch', MyBatisWatchTask) {
+      group = 'MyBatis'
+      description = 'Watches the database schema and regenerates changed tables until interrupted.'
+      classpath.from(project.sourceSets.main.runtimeClasspath)
+      classpath.from(formatterClasspath)
+      if (!ddlScripts.isEmpty()) {
+        classpath.from(ddlClasspath)
+      }
+      it.useWorker.set(useWorker)
+      executionProperties.set(withoutNulls(watchProperties(project)))
+      putCredentials(project, credentials)
+      doFirst {
+        println "MyBatisGeneratorPlugin-${pluginVersion}: mybatisWatch task is starting..."
+      }
+    }
+  }
+
+  /**
+   * staged output 的 staging 目錄
+   */
+  private static File stagingDir(Project project) {
+    return project.layout.buildDirectory.dir(STAGING_DIR).get().asFile
+  }
+
+  /**
+   * 同一次建置中各專案共用的 schema 快照目錄
+   */
+  private static File sharedSchemaDir(Project project) {
+    return project.rootProject.layout.buildDirectory.dir(SHARED_SCHEMA_DIR).get().asFile
+  }
+
+  /**
+   * copyMyBatisGeneratorConfig 連線的資料庫（連線 URL、catalog 與 schema），DDL 腳本的資料來源不連線資料庫，不列入
+   */
+  private static Set<String> schemaKeys(Project project) {
+    def keys = [] as Set<String>
+    def defaultUrl = project.findProperty('mybatis.generator.db.connectionURL')
+    def defaultDdl = project.findProperty('mybatis.generator.ddl')
+    def names = dataSourceNames(project)
+    if (names.isEmpty()) {
+      if (defaultUrl != null && defaultDdl == null) {
+        keys << "${defaultUrl}||".toString()
+      }
+      return keys
+    }
+    names.each { name ->
+      def prefix = "mybatis.generator.datasource.${name}.".toString()
+      def url = project.findProperty(prefix + 'connectionURL') ?: defaultUrl
+      def ddl = project.findProperty(prefix + 'ddl') ?: defaultDdl
+      if (url != null && ddl == null) {
+        keys << "${url}|${project.findProperty(prefix + 'catalog') ?: ''}|${project.findProperty(prefix + 'schema') ?: ''}"
+          .toString()
+      }
+    }
+    return keys
+  }
+
+  /**
+   * 執行報表的目錄
+   */
+  private static File reportDir(Project project) {
+    return project.layout.buildDirectory.dir(REPORT_DIR).get().asFile
+  }
+
+  /**
+   * 輸出層級：未設定 mybatis.generator.log.level 時，以 gradle --info 或 --debug 執行時輸出明細
+   */
+  private static String logLevel(Project project) {
+    def level = project.findProperty('mybatis.generator.log.level')
+    if (level != null) {
+      return level.toString()
+    }
+    def gradleLevel = project.gradle.startParameter.logLevel
+    return gradleLevel == LogLevel.INFO || gradleLevel == LogLevel.DEBUG ? 'debug' : 'info'
+  }
+
+  /**
+   * 輸出 spotlessJava 的格式化耗時報表，格式與 GeneratorMetrics 相同
+   */
+  private static void writeFormatReport(File reportFile, long elapsedNanos) {
+    reportFile.parentFile.mkdirs()
+    reportFile.setText(JsonOutput.prettyPrint(JsonOutput.toJson([
+      task   : 'spotlessJava',
+      totalMs: elapsedNanos / 1_000_000.0,
+      phases : [formatting: elapsedNanos / 1_000_000.0]
+    ])) + System.lineSeparator(), 'UTF-8')
+  }
+
+  /**
+   * copyMyBatisGeneratorConfig 所使用的參數
+   */
+  private static Map<String, Object> copyProperties(Project project) {
+    def properties = [
+      'mybatis.generator.project.dir': project.projectDir.absolutePath,
+      'mybatis.generator.copy.overwrite': project.findProperty('mybatis.generator.copy.overwrite'),
+      'mybatis.generator.schema.refresh': project.findProperty('mybatis.generator.schema.refresh'),
+      'mybatis.generator.append.tables': project.findProperty('mybatis.generator.append.tables'),
+      'mybatis.generator.introspect.bulk': project.findProperty('mybatis.generator.introspect.bulk'),
+      'mybatis.generator.introspect.parallelism': project.findProperty('mybatis.generator.introspect.parallelism'),
+      'mybatis.generator.tables.include': project.findProperty('mybatis.generator.tables.include'),
+      'mybatis.generator.tables.exclude': project.findProperty('mybatis.generator.tables.exclude'),
+      'mybatis.generator.tables': project.findProperty('mybatis.generator.tables'),
+      'mybatis.generator.primitive.types': project.findProperty('mybatis.generator.primitive.types'),
+      'mybatis.generator.cache.lookup.tables': project.findProperty('mybatis.generator.cache.lookup.tables'),
+      'mybatis.generator.join.tables': project.findProperty('mybatis.generator.join.tables'),
+      'mybatis.generator.join.depth': project.findProperty('mybatis.generator.join.depth'),
+      'mybatis.generator.index.selectors': project.findProperty('mybatis.generator.index.selectors'),
+      'mybatis.generator.target.package': project.group,
+      'mybatis.generator.db.driverClass': project.findProperty('mybatis.generator.db.driverClass'),
+      'mybatis.generator.db.connectionURL': project.findProperty('mybatis.generator.db.connectionURL'),
+      'mybatis.generator.datasources': project.findProperty('mybatis.generator.datasources'),
+      'mybatis.generator.ddl': project.findProperty('mybatis.generator.ddl'),
+      'mybatis.generator.ddl.mode': project.findProperty('mybatis.generator.ddl.mode'),
+      'mybatis.generator.log.level': logLevel(project),
+      'mybatis.generator.report.dir': reportDir(project).absolutePath
+    ]
+    dataSourceNames(project).each { name ->
+      def prefix = "mybatis.generator.datasource.${name}.".toString()
+      ['driverClass', 'connectionURL', 'catalog', 'schema', 'package', 'ddl', 'ddl.mode'].each { key ->
+        properties[prefix + key] = project.findProperty(prefix + key)
+      }
+    }
+    return properties
+  }
+
+  /**
+   * mybatisGenerate 所使用的參數
+   */
+  private static Map<String, Object> generateProperties(Project project) {
+    def properties = [
+      'mybatis.generator.project.dir': project.projectDir.absolutePath,
+      'mybatis.generator.config.file': CONFIG_FILE,
+      'mybatis.generator.incremental': project.findProperty('mybatis.generator.incremental'),
+      'mybatis.generator.output.dir': project.findProperty('mybatis.generator.staged.output') == 'true' ?
+        stagingDir(project).absolutePath : null,
+      'mybatis.generator.generate.shards': project.findProperty('mybatis.generator.generate.shards'),
+      'mybatis.generator.generate.introspect': project.findProperty('mybatis.generator.generate.introspect'),
+      'mybatis.generator.datasources': project.findProperty('mybatis.generator.datasources'),
+      'mybatis.generator.ddl': project.findProperty('mybatis.generator.ddl'),
+      'mybatis.generator.ddl.mode': project.findProperty('mybatis.generator.ddl.mode'),
+      'mybatis.generator.log.level': logLevel(project),
+      'mybatis.generator.report.dir': reportDir(project).absolutePath
+    ]
+    dataSourceNames(project).each { name ->
+      def prefix = "mybatis.generator.datasource.${name}.".toString()
+      ['ddl', 'ddl.mode'].each { key ->
+        properties[prefix + key] = project.findProperty(prefix + key)
+      }
     }
+    return properties
+  }
+
+  /**
+   * mybatisWatch 所使用的參數：包含 copyMyBatisGeneratorConfig 與 mybatisGenerate 的參數，
+   * 不使用 staging 目錄，直接更新專案中的原始碼
+   */
+  private static Map<String, Object> watchProperties(Project project) {
+    def properties = copyProperties(project) + generateProperties(project)
+    properties.remove('mybatis.generator.output.dir')
+    properties['mybatis.generator.watch.interval'] = project.findProperty('mybatis.generator.watch.interval')
+    properties['mybatis.generator.watch.formatter'] = new File(project.rootDir, FORMATTER_FILE).absolutePath
+    return properties
+  }
+
+  /**
+   * mybatis.generator.ddl 與各資料來源 ddl 設定的 DDL 腳本檔案或目錄，相對於專案目錄
+   */
+  private static List<File> ddlScripts(Project project) {
+    def paths = [project.findProperty('mybatis.generator.ddl')]
+    dataSourceNames(project).each { name ->
+      paths << project.findProperty("mybatis.generator.datasource.${name}.ddl".toString())
+    }
+    return paths.findAll { it != null }
+      .collectMany { it.toString().split(',').toList() }
+      .collect { it.trim() }
+      .findAll { !it.isEmpty() }
+      .collect { project.file(it) }
+      .unique()
+  }
+
+  /**
+   * mybatis.generator.datasources 設定的資料來源名稱
+   */
+  private static List<String> dataSourceNames(Project project) {
+    def names = project.findProperty('mybatis.generator.datasources')
+    if (names == null) {
+      return []
+    }
+    return names.toString().split(',').collect { it.trim() }.findAll { !it.isEmpty() }
+  }
+
+  /**
+   * 資料庫帳號密碼，只從環境變數取得；以 provider 於任務執行時才讀取，不在設定階段讀取環境變數。
+   * 多資料來源時，各資料來源未設定時沿用 mybatis.generator.db.*
+   */
+  private static void putCredentials(Project project, MapProperty<String, String> credentials) {
+    def providers = project.providers
+    def username = providers.environmentVariable('mybatis.generator.db.username')
+    def password = providers.environmentVariable('mybatis.generator.db.password')
+    credentials.put('mybatis.generator.db.username', username.orElse(''))
+    credentials.put('mybatis.generator.db.password', password.orElse(''))
+    dataSourceNames(project).each { name ->
+      def prefix = "mybatis.generator.datasource.${name}.".toString()
+      credentials.put(prefix + 'username', providers.environmentVariable(prefix + 'username').orElse(username).orElse(''))
+      credentials.put(prefix + 'password', providers.environmentVariable(prefix + 'password').orElse(password).orElse(''))
+    }
+  }
+
+  /**
+   * schema 快照是否包含設定檔中的所有資料表
+   *
+   * @param report 不包含時是否輸出缺少的資料表
+   */
+  private static boolean snapshotsComplete(File projectDir, File configFile, boolean report) {
+    try {
+      def uncovered = SchemaSnapshotStore.uncoveredTables(projectDir, configFile)
+      if (report && !uncovered.isEmpty()) {
+        println "schema 快照沒有包含 ${uncovered.size()} 個資料表（例如 ${uncovered.take(5).join(', ')}），" +
+          "mybatisGenerate 將重新產生；請執行 copyMyBatisGeneratorConfig 更新快照"
+      }
+      return uncovered.isEmpty()
+    } catch (IOException | XMLStreamException e) {
+      System.err.println("無法讀取 schema 快照: ${e.message}")
+      return false
+    }
+  }
+
+  /**
+   * 設定檔中各 generator 的產出目錄，設定檔不存在或無法解析時回傳空列表
+   */
+  private static List<File> targetDirectories(File projectDir, File configFile) {
+    if (!configFile.isFile()) {
+      return []
+    }
+    try {
+      return GeneratorConfigRewriter.readTargetDirectories(configFile).collect { path ->
+        def file = new File(path)
+        file.isAbsolute() ? file : new File(projectDir, path)
+      }
+    } catch (XMLStreamException e) {
+      System.err.println("無法解析 ${configFile}: ${e.message}")
+      return []
+    }
+  }
+
+  /**
+   * mybatisPublishGenerated 所使用的參數
+   */
+  private static Map<String, Object> publishProperties(Project project) {
+    return [
+      'mybatis.generator.project.dir': project.projectDir.absolutePath,
+      'mybatis.generator.output.dir': stagingDir(project).absolutePath,
+      'mybatis.generator.incremental': project.findProperty('mybatis.generator.incremental')
+    ]
+  }
+
+  /**
+   * Worker API 的參數不可包含 null，移除未設定的參數並轉為字串
+   */
+  private static Map<String, String> withoutNulls(Map<String, Object> properties) {
+    return properties.findAll { it.value != null }.collectEntries { [(it.key): it.value.toString()] } as Map<String, String>
   }
 
   // ~ ----------------------------------------------------------
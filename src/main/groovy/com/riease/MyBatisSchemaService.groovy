@@ -0,0 +1,59 @@
+package com.riease
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantLock
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.services.BuildService
+import org.gradle.api.services.BuildServiceParameters
+
+/**
+ * 多專案建置中各專案共用的 schema 讀取服務。
+ * <ul>
+ *   <li>copyMyBatisGeneratorConfig 將讀取到的 schema 快照寫入共用目錄，以連線 URL、catalog、schema 與過濾條件的雜湊命名；
+ *   其他專案讀取相同來源時直接使用，同一次建置中相同的資料庫只讀取一次。共用目錄於建置結束時刪除。</li>
+ *   <li>讀取相同資料庫的任務依序執行，後執行的專案才能使用先執行的結果。</li>
+ *   <li>以 maxParallelUsages 限制同時連線資料庫的 MyBatis 任務數。</li>
+ * </ul>
+ * 任務可能以 javaexec 在其他 JVM 中執行，因此讀取結果以快照檔案傳遞，而非直接共用記憶體中的物件。
+ */
+abstract class MyBatisSchemaService implements BuildService<Parameters>, AutoCloseable {
+
+  static final String NAME = 'mybatisSchema'
+
+  interface Parameters extends BuildServiceParameters {
+
+    /** 共用的 schema 快照目錄 */
+    DirectoryProperty getSharedDir()
+  }
+
+  private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>()
+
+  MyBatisSchemaService() {
+    // 前一次建置未正常結束時可能留下快照，只使用這次建置讀取的結果
+    parameters.sharedDir.get().asFile.deleteDir()
+  }
+
+  /**
+   * 取得各資料庫的鎖後執行，依名稱排序取得，避免多個任務互相等待
+   *
+   * @param keys 任務讀取的資料庫（連線 URL、catalog 與 schema）
+   */
+  def <T> T withSchemas(Collection<String> keys, Closure<T> action) {
+    List<ReentrantLock> acquired = []
+    try {
+      new TreeSet<String>(keys).each { key ->
+        def lock = locks.computeIfAbsent(key) { new ReentrantLock() }
+        lock.lock()
+        acquired << lock
+      }
+      return action.call()
+    } finally {
+      acquired.reverseEach { it.unlock() }
+    }
+  }
+
+  @Override
+  void close() {
+    parameters.sharedDir.get().asFile.deleteDir()
+  }
+}
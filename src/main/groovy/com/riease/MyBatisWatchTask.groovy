@@ -0,0 +1,23 @@
+package com.riease
+
+import org.gradle.api.tasks.UntrackedTask
+import org.gradle.workers.WorkAction
+
+/**
+ * 持續監看資料庫 schema，schema 變更時自動更新設定檔與快照、incremental 產生並格式化變更的資料表。
+ * <p>
+ * 任務不會自行結束，以 Ctrl+C 中斷 Gradle 後停止；沒有輸入與輸出，每次都會執行。
+ */
+@UntrackedTask(because = '持續監看資料庫 schema，直到中斷才結束')
+abstract class MyBatisWatchTask extends MyBatisExecTask {
+
+  @Override
+  protected String mainClassName() {
+    return 'com.riease.mybatis.WatchSchemaMain'
+  }
+
+  @Override
+  protected Class<? extends WorkAction<MyBatisWorkParameters>> workActionClass() {
+    return MyBatisWatchWorkAction
+  }
+}
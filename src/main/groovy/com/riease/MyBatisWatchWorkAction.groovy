@@ -0,0 +1,15 @@
+package com.riease
+
+import com.riease.mybatis.WatchSchemaMain
+import org.gradle.workers.WorkAction
+
+/**
+ * 於 Worker 中直接呼叫 WatchSchemaMain，Gradle 取消任務時中斷執行緒而結束
+ */
+abstract class MyBatisWatchWorkAction implements WorkAction<MyBatisWorkParameters> {
+
+  @Override
+  void execute() {
+    WatchSchemaMain.execute(parameters.executionProperties.get())
+  }
+}
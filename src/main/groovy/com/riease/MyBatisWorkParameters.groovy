@@ -0,0 +1,12 @@
+package com.riease
+
+import org.gradle.api.provider.MapProperty
+import org.gradle.workers.WorkParameters
+
+/**
+ * MyBatis Worker 的參數，內容與 JavaExec 模式的 systemProperties 相同
+ */
+interface MyBatisWorkParameters extends WorkParameters {
+
+  MapProperty<String, String> getExecutionProperties()
+}
@@ -0,0 +1,32 @@
+package com.riease
+
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.tasks.InputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.UntrackedTask
+import org.gradle.workers.WorkAction
+
+/**
+ * 比對內容雜湊，只將有變更的檔案從 staging 目錄複製到專案目錄。
+ * <p>
+ * 只更新專案目錄中的部分檔案，無法宣告為獨立的產出目錄，因此每次都會執行；
+ * 沒有變更時不會寫入任何檔案。
+ */
+@UntrackedTask(because = '只更新專案目錄中內容有變更的檔案')
+abstract class PublishGeneratedFilesTask extends MyBatisExecTask {
+
+  @InputDirectory
+  @PathSensitive(PathSensitivity.RELATIVE)
+  abstract DirectoryProperty getStagingDir()
+
+  @Override
+  protected String mainClassName() {
+    return 'com.riease.mybatis.PublishGeneratedFilesMain'
+  }
+
+  @Override
+  protected Class<? extends WorkAction<MyBatisWorkParameters>> workActionClass() {
+    return PublishGeneratedFilesWorkAction
+  }
+}
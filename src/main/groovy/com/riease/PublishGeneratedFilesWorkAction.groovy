@@ -0,0 +1,15 @@
+package com.riease
+
+import com.riease.mybatis.PublishGeneratedFilesMain
+import org.gradle.workers.WorkAction
+
+/**
+ * 於 Worker 中直接呼叫 PublishGeneratedFilesMain，不需 fork 新的 JVM
+ */
+abstract class PublishGeneratedFilesWorkAction implements WorkAction<MyBatisWorkParameters> {
+
+  @Override
+  void execute() {
+    PublishGeneratedFilesMain.execute(parameters.executionProperties.get())
+  }
+}
@@ -0,0 +1,129 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * SchemaIntrospector 共用的 ResultSet 轉換方法。
+ */
+public abstract class AbstractSchemaIntrospector implements SchemaIntrospector {
+
+  /** 是否輸出每個資料表、欄位與鍵值的明細 */
+  private boolean verbose;
+  /** 各階段耗時的紀錄，未設定時不輸出報表 */
+  private GeneratorMetrics metrics = new GeneratorMetrics("introspect");
+  /** 同一次讀取的資料表共用重複的字串 */
+  private final StringPool strings = new StringPool();
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  public GeneratorMetrics getMetrics() {
+    return metrics;
+  }
+
+  public void setMetrics(GeneratorMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * 未設定 schema 時使用連線目前的 schema，讓 getTables、getColumns 與 bulk 查詢限定在同一個 schema，
+   * 不會讀到其他 schema 的同名資料表。MySQL 以 catalog 區分資料庫，SQLite 沒有 schema，維持原本的值。
+   *
+   * @param dialect 資料庫方言，沒有 bulk 讀取實作的資料庫為 null
+   */
+  static String resolveSchema(Connection conn, Dialect dialect, String schema) throws SQLException {
+    if (StringUtils.isNotBlank(schema) || dialect == Dialect.MYSQL || dialect == Dialect.SQLITE) {
+      return schema;
+    }
+    return conn.getSchema();
+  }
+
+  /**
+   * 依過濾條件查詢 TABLE，能轉換為 LIKE 樣式的條件直接作為 tableNamePattern。
+   *
+   * @return 以資料表名稱為 key、尚未讀取欄位與鍵值的 TableMeta.Builder，依資料表名稱排序
+   */
+  protected Map<String, TableMeta.Builder> queryTables(DatabaseMetaData meta, String catalog, String schema,
+    TableFilter filter) throws SQLException {
+    Map<String, TableMeta.Builder> tableMetaMap = new LinkedHashMap<>();
+    List<String> patterns = filter.tableNamePatterns(meta);
+    long tableListStart = System.nanoTime();
+    try {
+      for (String pattern : patterns) {
+        try (ResultSet rs = meta.getTables(catalog, schema, pattern, new String[] {"TABLE"})) {
+          while (rs.next()) {
+            String tableName = rs.getString("TABLE_NAME");
+            if (filter.accept(tableName) && !tableMetaMap.containsKey(tableName)) {
+              tableMetaMap.put(tableName, newTableMeta(tableName, rs.getString("REMARKS")));
+            }
+          }
+        }
+      }
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_TABLE_LIST, System.nanoTime() - tableListStart);
+    }
+    // 多個樣式時各自的結果已排序，合併後重新依名稱排序
+    return patterns.size() > 1 ? new LinkedHashMap<>(new TreeMap<>(tableMetaMap)) : tableMetaMap;
+  }
+
+  protected TableMeta.Builder newTableMeta(String tableName, String remarks) {
+    return TableMeta.builder(tableName, remarks, strings);
+  }
+
+  /**
+   * 將 DatabaseMetaData#getColumns 的一筆資料加入資料表
+   */
+  protected void readColumn(ResultSet columns, TableMeta.Builder tableMeta) throws SQLException {
+    // 保留 MyBatis Generator 讀取欄位時使用的內容，讓產生時可直接以快照取代資料庫
+    tableMeta.addColumn(columns.getString("COLUMN_NAME"), columns.getString("TYPE_NAME"), columns.getInt("DATA_TYPE"),
+      getInteger(columns, "COLUMN_SIZE"), getInteger(columns, "DECIMAL_DIGITS"),
+      "YES".equalsIgnoreCase(columns.getString("IS_NULLABLE")), columns.getString("COLUMN_DEF"),
+      "YES".equalsIgnoreCase(getOptionalString(columns, "IS_AUTOINCREMENT")),
+      "YES".equalsIgnoreCase(getOptionalString(columns, "IS_GENERATEDCOLUMN")), columns.getString("REMARKS"));
+  }
+
+  private static Integer getInteger(ResultSet rs, String columnLabel) throws SQLException {
+    int value = rs.getInt(columnLabel);
+    return rs.wasNull() ? null : value;
+  }
+
+  /**
+   * 讀取 JDBC 4.1 才加入的欄位，舊版 driver 沒有該欄位時回傳 null
+   */
+  private static String getOptionalString(ResultSet rs, String columnLabel) throws SQLException {
+    ResultSetMetaData metaData = rs.getMetaData();
+    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+      if (columnLabel.equalsIgnoreCase(metaData.getColumnName(i))) {
+        return rs.getString(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 建立讀取完成的 TableMeta，保持傳入的順序
+   */
+  protected static List<TableMeta> build(Collection<TableMeta.Builder> builders) {
+    List<TableMeta> tableMetaList = new ArrayList<>(builders.size());
+    for (TableMeta.Builder builder : builders) {
+      tableMetaList.add(builder.build());
+    }
+    return tableMetaList;
+  }
+}
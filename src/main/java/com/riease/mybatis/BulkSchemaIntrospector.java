@@ -0,0 +1,330 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 以整個 schema 為單位讀取 metadata，每一種 metadata 只查詢一次，再於記憶體中依資料表分組。
+ * <ul>
+ *   <li>資料表：DatabaseMetaData#getTables</li>
+ *   <li>欄位：DatabaseMetaData#getColumns，tableNamePattern 為 "%"</li>
+ *   <li>主鍵、外鍵與索引：依 {@link Dialect} 使用對應的 catalog 查詢</li>
+ * </ul>
+ * 查詢次數固定為 5 次，不隨資料表數量增加。
+ * <p>
+ * 有 {@link TableFilter} 時，資料表與欄位以過濾條件轉換的 LIKE 樣式查詢（每個樣式各一次），
+ * 主鍵、外鍵與索引仍以整個 schema 查詢，只保留需要的資料表。
+ * <p>
+ * 索引不含部分索引（有 WHERE 條件）與運算式索引，與 DatabaseMetaData#getIndexInfo 不同的是，
+ * 這兩種索引無法用於單純的欄位等值查詢，因此不讀取。
+ */
+public class BulkSchemaIntrospector extends AbstractSchemaIntrospector {
+
+  private static final String MYSQL_PRIMARY_KEYS =
+    "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE"
+      + " WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND CONSTRAINT_NAME = 'PRIMARY'"
+      + " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+  private static final String MYSQL_FOREIGN_KEYS =
+    "SELECT TABLE_NAME, COLUMN_NAME, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME"
+      + " FROM information_schema.KEY_COLUMN_USAGE"
+      + " WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND REFERENCED_TABLE_NAME IS NOT NULL"
+      + " ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION";
+
+  private static final String POSTGRESQL_PRIMARY_KEYS =
+    "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME"
+      + " FROM pg_catalog.pg_constraint con"
+      + " JOIN pg_catalog.pg_class c ON c.oid = con.conrelid"
+      + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " CROSS JOIN LATERAL unnest(con.conkey) WITH ORDINALITY AS k(attnum, ord)"
+      + " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum"
+      + " WHERE con.contype = 'p'"
+      + " AND n.nspname = COALESCE(?, current_schema())"
+      + " ORDER BY c.relname, k.ord";
+
+  private static final String POSTGRESQL_FOREIGN_KEYS =
+    "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME,"
+      + " rc.relname AS REFERENCED_TABLE_NAME, ra.attname AS REFERENCED_COLUMN_NAME"
+      + " FROM pg_catalog.pg_constraint con"
+      + " JOIN pg_catalog.pg_class c ON c.oid = con.conrelid"
+      + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " JOIN pg_catalog.pg_class rc ON rc.oid = con.confrelid"
+      + " CROSS JOIN LATERAL unnest(con.conkey, con.confkey) WITH ORDINALITY AS k(attnum, refattnum, ord)"
+      + " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum"
+      + " JOIN pg_catalog.pg_attribute ra ON ra.attrelid = rc.oid AND ra.attnum = k.refattnum"
+      + " WHERE con.contype = 'f'"
+      + " AND n.nspname = COALESCE(?, current_schema())"
+      + " ORDER BY c.relname, con.conname, k.ord";
+
+  private static final String ORACLE_PRIMARY_KEYS =
+    "SELECT cc.TABLE_NAME, cc.COLUMN_NAME"
+      + " FROM ALL_CONSTRAINTS c"
+      + " JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME"
+      + " WHERE c.CONSTRAINT_TYPE = 'P' AND c.OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))"
+      + " ORDER BY cc.TABLE_NAME, cc.POSITION";
+
+  private static final String ORACLE_FOREIGN_KEYS =
+    "SELECT cc.TABLE_NAME, cc.COLUMN_NAME,"
+      + " rcc.TABLE_NAME AS REFERENCED_TABLE_NAME, rcc.COLUMN_NAME AS REFERENCED_COLUMN_NAME"
+      + " FROM ALL_CONSTRAINTS c"
+      + " JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME"
+      + " JOIN ALL_CONS_COLUMNS rcc ON rcc.OWNER = c.R_OWNER AND rcc.CONSTRAINT_NAME = c.R_CONSTRAINT_NAME"
+      + " AND rcc.POSITION = cc.POSITION"
+      + " WHERE c.CONSTRAINT_TYPE = 'R' AND c.OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))"
+      + " ORDER BY cc.TABLE_NAME, c.CONSTRAINT_NAME, cc.POSITION";
+
+  private static final String SQLSERVER_PRIMARY_KEYS =
+    "SELECT tc.TABLE_NAME, kcu.COLUMN_NAME"
+      + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc"
+      + " JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu"
+      + " ON kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME"
+      + " WHERE tc.CONSTRAINT_TYPE = 'PRIMARY KEY' AND tc.TABLE_SCHEMA = COALESCE(?, SCHEMA_NAME())"
+      + " ORDER BY tc.TABLE_NAME, kcu.ORDINAL_POSITION";
+
+  private static final String SQLSERVER_FOREIGN_KEYS =
+    "SELECT kcu.TABLE_NAME, kcu.COLUMN_NAME,"
+      + " pk.TABLE_NAME AS REFERENCED_TABLE_NAME, pk.COLUMN_NAME AS REFERENCED_COLUMN_NAME"
+      + " FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS rc"
+      + " JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu"
+      + " ON kcu.CONSTRAINT_SCHEMA = rc.CONSTRAINT_SCHEMA AND kcu.CONSTRAINT_NAME = rc.CONSTRAINT_NAME"
+      + " JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE pk"
+      + " ON pk.CONSTRAINT_SCHEMA = rc.UNIQUE_CONSTRAINT_SCHEMA AND pk.CONSTRAINT_NAME = rc.UNIQUE_CONSTRAINT_NAME"
+      + " AND pk.ORDINAL_POSITION = kcu.ORDINAL_POSITION"
+      + " WHERE kcu.TABLE_SCHEMA = COALESCE(?, SCHEMA_NAME())"
+      + " ORDER BY kcu.TABLE_NAME, kcu.CONSTRAINT_NAME, kcu.ORDINAL_POSITION";
+
+  private static final String SQLITE_PRIMARY_KEYS =
+    "SELECT m.name AS TABLE_NAME, p.name AS COLUMN_NAME"
+      + " FROM sqlite_master m JOIN pragma_table_info(m.name) p"
+      + " WHERE m.type = 'table' AND p.pk > 0"
+      + " ORDER BY m.name, p.pk";
+
+  private static final String SQLITE_FOREIGN_KEYS =
+    "SELECT m.name AS TABLE_NAME, f.\"from\" AS COLUMN_NAME,"
+      + " f.\"table\" AS REFERENCED_TABLE_NAME, f.\"to\" AS REFERENCED_COLUMN_NAME"
+      + " FROM sqlite_master m JOIN pragma_foreign_key_list(m.name) f"
+      + " WHERE m.type = 'table'"
+      + " ORDER BY m.name, f.id, f.seq";
+
+  private static final String MYSQL_INDEXES =
+    "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME FROM information_schema.STATISTICS"
+      + " WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())"
+      + " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+
+  private static final String POSTGRESQL_INDEXES =
+    "SELECT c.relname AS TABLE_NAME, i.relname AS INDEX_NAME, NOT ix.indisunique AS NON_UNIQUE,"
+      + " a.attname AS COLUMN_NAME"
+      + " FROM pg_catalog.pg_index ix"
+      + " JOIN pg_catalog.pg_class c ON c.oid = ix.indrelid"
+      + " JOIN pg_catalog.pg_class i ON i.oid = ix.indexrelid"
+      + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " CROSS JOIN LATERAL unnest(ix.indkey) WITH ORDINALITY AS k(attnum, ord)"
+      + " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum"
+      + " WHERE ix.indpred IS NULL AND ix.indexprs IS NULL AND k.ord <= ix.indnkeyatts"
+      + " AND n.nspname = COALESCE(?, current_schema())"
+      + " ORDER BY c.relname, i.relname, k.ord";
+
+  private static final String ORACLE_INDEXES =
+    "SELECT ic.TABLE_NAME, ic.INDEX_NAME, CASE i.UNIQUENESS WHEN 'UNIQUE' THEN 0 ELSE 1 END AS NON_UNIQUE,"
+      + " ic.COLUMN_NAME"
+      + " FROM ALL_INDEXES i"
+      + " JOIN ALL_IND_COLUMNS ic ON ic.INDEX_OWNER = i.OWNER AND ic.INDEX_NAME = i.INDEX_NAME"
+      + " WHERE i.TABLE_OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))"
+      + " AND i.INDEX_TYPE IN ('NORMAL', 'NORMAL/REV', 'BITMAP')"
+      + " ORDER BY ic.TABLE_NAME, ic.INDEX_NAME, ic.COLUMN_POSITION";
+
+  private static final String SQLSERVER_INDEXES =
+    "SELECT t.name AS TABLE_NAME, i.name AS INDEX_NAME, CASE i.is_unique WHEN 1 THEN 0 ELSE 1 END AS NON_UNIQUE,"
+      + " c.name AS COLUMN_NAME"
+      + " FROM sys.indexes i"
+      + " JOIN sys.tables t ON t.object_id = i.object_id"
+      + " JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id"
+      + " JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id"
+      + " WHERE i.type IN (1, 2) AND i.is_hypothetical = 0 AND i.has_filter = 0 AND ic.is_included_column = 0"
+      + " AND SCHEMA_NAME(t.schema_id) = COALESCE(?, SCHEMA_NAME())"
+      + " ORDER BY t.name, i.name, ic.key_ordinal";
+
+  private static final String SQLITE_INDEXES =
+    "SELECT m.name AS TABLE_NAME, il.name AS INDEX_NAME, CASE il.\"unique\" WHEN 1 THEN 0 ELSE 1 END AS NON_UNIQUE,"
+      + " ii.name AS COLUMN_NAME"
+      + " FROM sqlite_master m JOIN pragma_index_list(m.name) il JOIN pragma_index_info(il.name) ii"
+      + " WHERE m.type = 'table' AND il.partial = 0"
+      + " ORDER BY m.name, il.name, ii.seqno";
+
+  private final Dialect dialect;
+
+  public BulkSchemaIntrospector(Dialect dialect) {
+    this.dialect = Objects.requireNonNull(dialect, "dialect");
+  }
+
+  @Override
+  public List<TableMeta> introspect(Connection conn, String catalog, String schema, TableFilter filter)
+    throws SQLException {
+    DatabaseMetaData meta = conn.getMetaData();
+    // 與 bulk 查詢相同，未設定 schema 時只讀取連線目前的 schema
+    String effectiveSchema = resolveSchema(conn, dialect, schema);
+    // 以資料表名稱為 key，保留 getTables 回傳的順序
+    Map<String, TableMeta.Builder> tableMetaMap = queryTables(meta, catalog, effectiveSchema, filter);
+    if (tableMetaMap.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // 一次查詢整個 schema（或符合過濾條件）的欄位資訊
+    long columnsStart = System.nanoTime();
+    try {
+      Set<String> loadedTables = new HashSet<>();
+      for (String pattern : filter.tableNamePatterns(meta)) {
+        // 多個樣式可能符合同一個資料表，只保留第一次讀到的欄位
+        Set<String> patternTables = new HashSet<>();
+        try (ResultSet columns = meta.getColumns(catalog, effectiveSchema, pattern, "%")) {
+          while (columns.next()) {
+            String tableName = columns.getString("TABLE_NAME");
+            TableMeta.Builder tableMeta = tableMetaMap.get(tableName);
+            // 不屬於 TABLE 類型的物件（例如 VIEW）或被排除的資料表會一併回傳，直接略過
+            if (tableMeta != null && !loadedTables.contains(tableName)) {
+              patternTables.add(tableName);
+              readColumn(columns, tableMeta);
+            }
+          }
+        }
+        loadedTables.addAll(patternTables);
+      }
+    } finally {
+      getMetrics().addPhase(GeneratorMetrics.PHASE_COLUMNS, System.nanoTime() - columnsStart);
+    }
+
+    long keysStart = System.nanoTime();
+    try {
+      // 一次查詢整個 schema 的主鍵
+      try (PreparedStatement ps = prepare(conn, primaryKeySql(), catalog, effectiveSchema);
+           ResultSet pk = ps.executeQuery()) {
+        while (pk.next()) {
+          TableMeta.Builder tableMeta = tableMetaMap.get(pk.getString("TABLE_NAME"));
+          if (tableMeta != null) {
+            tableMeta.addPrimaryKey(pk.getString("COLUMN_NAME"));
+          }
+        }
+      }
+
+      // 一次查詢整個 schema 的外鍵
+      try (PreparedStatement ps = prepare(conn, foreignKeySql(), catalog, effectiveSchema);
+           ResultSet fk = ps.executeQuery()) {
+        while (fk.next()) {
+          TableMeta.Builder tableMeta = tableMetaMap.get(fk.getString("TABLE_NAME"));
+          if (tableMeta != null) {
+            tableMeta.addForeignKey(fk.getString("COLUMN_NAME"), fk.getString("REFERENCED_TABLE_NAME"),
+              fk.getString("REFERENCED_COLUMN_NAME"));
+          }
+        }
+      }
+    } finally {
+      getMetrics().addPhase(GeneratorMetrics.PHASE_KEYS, System.nanoTime() - keysStart);
+    }
+
+    // 一次查詢整個 schema 的索引，同一個索引的欄位依順序連續回傳
+    long indexesStart = System.nanoTime();
+    try (PreparedStatement ps = prepare(conn, indexSql(), catalog, effectiveSchema);
+         ResultSet index = ps.executeQuery()) {
+      while (index.next()) {
+        TableMeta.Builder tableMeta = tableMetaMap.get(index.getString("TABLE_NAME"));
+        if (tableMeta != null) {
+          tableMeta.addIndexColumn(index.getString("INDEX_NAME"), !index.getBoolean("NON_UNIQUE"),
+            index.getString("COLUMN_NAME"));
+        }
+      }
+    } finally {
+      getMetrics().addPhase(GeneratorMetrics.PHASE_INDEXES, System.nanoTime() - indexesStart);
+    }
+
+    if (isVerbose()) {
+      for (TableMeta.Builder tableMeta : tableMetaMap.values()) {
+        System.out.println("Table: " + tableMeta.getTableName() + ", Comment: " + tableMeta.getComment()
+          + ", Columns: " + tableMeta.getColumnCount()
+          + ", Primary Keys: " + tableMeta.getPrimaryKeys()
+          + ", Foreign Keys: " + tableMeta.getForeignKeyCount()
+          + ", Indexes: " + tableMeta.getIndexCount());
+      }
+    }
+    return build(tableMetaMap.values());
+  }
+
+  /**
+   * 建立查詢，並依方言綁定 catalog 或 schema 參數；MySQL 的 database 為 catalog，其餘為 schema，未設定時使用連線目前的 schema
+   */
+  private PreparedStatement prepare(Connection conn, String sql, String catalog, String schema) throws SQLException {
+    PreparedStatement ps = conn.prepareStatement(sql);
+    switch (dialect) {
+      case MYSQL:
+        ps.setString(1, catalog);
+        break;
+      case POSTGRESQL:
+      case ORACLE:
+      case SQLSERVER:
+        ps.setString(1, schema);
+        break;
+      default:
+        break;
+    }
+    return ps;
+  }
+
+  private String primaryKeySql() {
+    switch (dialect) {
+      case MYSQL:
+        return MYSQL_PRIMARY_KEYS;
+      case POSTGRESQL:
+        return POSTGRESQL_PRIMARY_KEYS;
+      case ORACLE:
+        return ORACLE_PRIMARY_KEYS;
+      case SQLSERVER:
+        return SQLSERVER_PRIMARY_KEYS;
+      case SQLITE:
+        return SQLITE_PRIMARY_KEYS;
+      default:
+        throw new IllegalStateException("Unsupported dialect: " + dialect);
+    }
+  }
+
+  private String foreignKeySql() {
+    switch (dialect) {
+      case MYSQL:
+        return MYSQL_FOREIGN_KEYS;
+      case POSTGRESQL:
+        return POSTGRESQL_FOREIGN_KEYS;
+      case ORACLE:
+        return ORACLE_FOREIGN_KEYS;
+      case SQLSERVER:
+        return SQLSERVER_FOREIGN_KEYS;
+      case SQLITE:
+        return SQLITE_FOREIGN_KEYS;
+      default:
+        throw new IllegalStateException("Unsupported dialect: " + dialect);
+    }
+  }
+
+  private String indexSql() {
+    switch (dialect) {
+      case MYSQL:
+        return MYSQL_INDEXES;
+      case POSTGRESQL:
+        return POSTGRESQL_INDEXES;
+      case ORACLE:
+        return ORACLE_INDEXES;
+      case SQLSERVER:
+        return SQLSERVER_INDEXES;
+      case SQLITE:
+        return SQLITE_INDEXES;
+      default:
+        throw new IllegalStateException("Unsupported dialect: " + dialect);
+    }
+  }
+}
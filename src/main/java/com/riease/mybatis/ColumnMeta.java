@@ -1,75 +1,75 @@
 package com.riease.mybatis;
 
-public class ColumnMeta {
+/**
+ * {@link TableMeta} 中單一欄位的唯讀 view，不另外保存欄位內容。
+ */
+public final class ColumnMeta {
 
-  /** 欄位名稱 */
-  String name;
-  /** 欄位型別 */
-  String type;
-  /** 欄位長度 */
-  Integer length;
-  /** 欄位是否允許為空 */
-  boolean nullable = true;
-  /** 是否為主鍵 */
-  boolean isPrimaryKey = false;
-  /** 是否為外鍵 */
-  boolean isForeignKey = false;
-  /** 欄位備註 */
-  String comment;
+  private final TableMeta table;
+  private final int index;
 
-  public String getName() {
-    return name;
+  ColumnMeta(TableMeta table, int index) {
+    this.table = table;
+    this.index = index;
   }
 
-  public void setName(String name) {
-    this.name = name;
+  /** 欄位名稱 */
+  public String getName() {
+    return table.columnName(index);
   }
 
+  /** 欄位型別 */
   public String getType() {
-    return type;
+    return table.columnType(index);
   }
 
-  public void setType(String type) {
-    this.type = type;
+  /** {@link java.sql.Types} 中的 JDBC 型別 */
+  public int getJdbcType() {
+    return table.columnJdbcType(index);
   }
 
+  /** 欄位長度，未知時為 null */
   public Integer getLength() {
-    return length;
+    return table.columnLength(index);
   }
 
-  public void setLength(Integer length) {
-    this.length = length;
+  /** 小數位數，未知時為 null */
+  public Integer getScale() {
+    return table.columnScale(index);
   }
 
-  public boolean isNullable() {
-    return nullable;
+  /** 欄位預設值 */
+  public String getDefaultValue() {
+    return table.columnDefault(index);
   }
 
-  public void setNullable(boolean nullable) {
-    this.nullable = nullable;
+  /** 是否為自動遞增欄位 */
+  public boolean isAutoIncrement() {
+    return table.hasColumnFlag(index, TableMeta.AUTO_INCREMENT);
   }
 
-  public boolean isPrimaryKey() {
-    return isPrimaryKey;
+  /** 是否為計算欄位 */
+  public boolean isGenerated() {
+    return table.hasColumnFlag(index, TableMeta.GENERATED);
   }
 
-  public void setPrimaryKey(boolean primaryKey) {
-    isPrimaryKey = primaryKey;
+  /** 欄位是否允許為空 */
+  public boolean isNullable() {
+    return table.hasColumnFlag(index, TableMeta.NULLABLE);
   }
 
-  public boolean isForeignKey() {
-    return isForeignKey;
+  /** 是否為主鍵 */
+  public boolean isPrimaryKey() {
+    return table.hasColumnFlag(index, TableMeta.PRIMARY_KEY);
   }
 
-  public void setForeignKey(boolean foreignKey) {
-    isForeignKey = foreignKey;
+  /** 是否為外鍵 */
+  public boolean isForeignKey() {
+    return table.hasColumnFlag(index, TableMeta.FOREIGN_KEY);
   }
 
+  /** 欄位備註 */
   public String getComment() {
-    return comment;
-  }
-
-  public void setComment(String comment) {
-    this.comment = comment;
+    return table.columnComment(index);
   }
 }
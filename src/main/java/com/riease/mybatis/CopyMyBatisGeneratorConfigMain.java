@@ -2,16 +2,13 @@ package com.riease.mybatis;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,12 +16,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.stream.XMLStreamException;
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.parser.Parser;
-import org.jsoup.select.Elements;
 
 /**
  * CopyMyBatisGeneratorConfigMain
@@ -33,20 +32,47 @@ import org.jsoup.select.Elements;
 public class CopyMyBatisGeneratorConfigMain {
 
   private final Map<String, DatabaseDriver> databaseDriverMap = Map.of(
-    "mysql-connector-java", new DatabaseDriver("mysql-connector-java", "com.mysql.cj.jdbc.Driver", true, false),
-    "mariadb-java-client", new DatabaseDriver("mariadb-java-client", "org.mariadb.jdbc.Driver", true, false),
-    "postgresql", new DatabaseDriver("postgresql", "org.postgresql.Driver", true, false),
-    "ojdbc", new DatabaseDriver("ojdbc8", "oracle.jdbc.OracleDriver", false, true),
-    "mssql-jdbc", new DatabaseDriver("mssql-jdbc", "com.microsoft.sqlserver.jdbc.SQLServerDriver", true, false),
-    "sqlite-jdbc", new DatabaseDriver("sqlite-jdbc", "org.sqlite.JDBC", false, false)
+    "mysql-connector-java", new DatabaseDriver("mysql-connector-java", "com.mysql.cj.jdbc.Driver", true, false, Dialect.MYSQL),
+    "mariadb-java-client", new DatabaseDriver("mariadb-java-client", "org.mariadb.jdbc.Driver", true, false, Dialect.MYSQL),
+    "postgresql", new DatabaseDriver("postgresql", "org.postgresql.Driver", true, false, Dialect.POSTGRESQL),
+    "ojdbc", new DatabaseDriver("ojdbc8", "oracle.jdbc.OracleDriver", false, true, Dialect.ORACLE),
+    "mssql-jdbc", new DatabaseDriver("mssql-jdbc", "com.microsoft.sqlserver.jdbc.SQLServerDriver", true, false, Dialect.SQLSERVER),
+    "sqlite-jdbc", new DatabaseDriver("sqlite-jdbc", "org.sqlite.JDBC", false, false, Dialect.SQLITE),
+    // 以 DDL 腳本建立的 in-memory 資料庫
+    "h2", new DatabaseDriver("h2", DdlDatabase.DRIVER_CLASS, false, false)
   );
 
+  private static final AtomicInteger nextThreadId = new AtomicInteger();
+
   private CopyMyBatisParameter parameter;
 
+  /** 各階段耗時與讀取筆數 */
+  private GeneratorMetrics metrics = new GeneratorMetrics("copyMyBatisGeneratorConfig");
+
+  /** 執行參數，優先於系統屬性與環境變數 */
+  private final Map<String, String> properties;
+
+  public CopyMyBatisGeneratorConfigMain() {
+    this(Collections.emptyMap());
+  }
+
+  public CopyMyBatisGeneratorConfigMain(Map<String, String> properties) {
+    this.properties = properties;
+  }
+
   public static void main(String[] args) throws Exception {
-    CopyMyBatisGeneratorConfigMain main = new CopyMyBatisGeneratorConfigMain();
+    execute(Collections.emptyMap());
+  }
+
+  /**
+   * 以指定參數執行，供 Gradle Worker API 在同一個 JVM 中直接呼叫
+   */
+  public static void execute(Map<String, String> properties) {
+    CopyMyBatisGeneratorConfigMain main = new CopyMyBatisGeneratorConfigMain(properties);
     main.loadParameter();
+    main.metrics = GeneratorMetrics.start("copyMyBatisGeneratorConfig");
     main.run();
+    main.writeReport();
   }
 
   private void run() {
@@ -68,225 +94,381 @@ public class CopyMyBatisGeneratorConfigMain {
     }
 
     try {
-      // 使用 JSoup 讀取目標檔案，修改配置內容
-      Document doc = Jsoup.parse(targetFile, "UTF-8", "", Parser.xmlParser());
-      // 設定輸出格式為 XML
-      doc.outputSettings().syntax(Document.OutputSettings.Syntax.xml);
-
-      // 修改資料庫連線設定
-      processForJdbc(doc);
-
-      // 修改目標包名
-      processForTargetPackage(doc);
-
-      // 修改資料表設定
-      processForTables(doc);
-
-      // 回寫到 目標檔案
-      try (FileWriter writer = new FileWriter(targetFile, StandardCharsets.UTF_8)) {
-        writer.write(doc.outerHtml());
+      // 以串流方式改寫目標檔案：資料庫連線設定、目標包名與資料表設定
+      GeneratorConfigRewriter rewriter = new GeneratorConfigRewriter(this.parameter.getTargetPackage(),
+        this.parameter.getDataSources(), prepareTables());
+      rewriter.setVerbose(parameter.isVerbose());
+      rewriter.setPrimitiveTypes(parameter.isPrimitiveTypes());
+      rewriter.setCacheLookupTables(parameter.isCacheLookupTables());
+      rewriter.setJoinTables(parameter.getJoinTables());
+      rewriter.setJoinDepth(parameter.getJoinDepth());
+      rewriter.setIndexSelectors(parameter.isIndexSelectors());
+      long rewriteStart = System.nanoTime();
+      try {
+        rewriter.rewrite(targetFile);
+      } finally {
+        metrics.addPhase(GeneratorMetrics.PHASE_XML_REWRITE, System.nanoTime() - rewriteStart);
       }
-    } catch (IOException e) {
+    } catch (IOException | XMLStreamException e) {
       System.err.println("修改 mybatis-generator-config.xml 時發生錯誤: " + e.getMessage());
       throw new RuntimeException(e);
     }
   }
 
-  private void processForJdbc(Document doc) {
-    Element jdbcElement = doc.selectFirst("jdbcConnection");
-    if (Objects.isNull(jdbcElement)) {
-      System.err.println("找不到 jdbcConnection 元素，請檢查 mybatis-generator-config.xml 的結構。");
-      return;
+  /**
+   * 讀取要加入設定檔的資料表，多個資料來源時同時讀取
+   *
+   * @return key 為資料來源名稱（未命名時為空字串），不需加入資料表的資料來源不會出現在結果中
+   */
+  private Map<String, List<TableMeta>> prepareTables() {
+    Map<String, List<TableMeta>> tablesMap = new ConcurrentHashMap<>();
+    List<DataSourceParameter> dataSources = new ArrayList<>();
+    for (DataSourceParameter dataSource : parameter.getDataSources()) {
+      if (isReadable(dataSource)) {
+        dataSources.add(dataSource);
+      } else {
+        System.out.println(dataSourceLabel(dataSource) + "資料庫連線參數不完整，將不讀取資料庫表格資訊。");
+      }
     }
-
-    // 替換 jdbcConnection 的屬性 if parameter exist
-    if (StringUtils.isNotBlank(parameter.getDriverClass())) {
-      jdbcElement.attr("driverClass", parameter.getDriverClass());
+    if (dataSources.isEmpty()) {
+      return tablesMap;
     }
-    if (StringUtils.isNotBlank(parameter.getConnectionURL())) {
-      jdbcElement.attr("connectionURL", parameter.getConnectionURL());
+    if (!parameter.isAppendTables()) {
+      System.out.println("不會追加資料表到 mybatis-generator-config.xml 中。");
     }
 
-    // 注意：這邊不會置換 username 和 password，因為這些資訊可能包含敏感資料，
-  }
-
-  private void processForTargetPackage(Document doc) {
-    Element javaModelElement = doc.selectFirst("javaModelGenerator");
-    if (Objects.isNull(javaModelElement)) {
-      System.err.println("找不到 javaModelGenerator 元素，請檢查 mybatis-generator-config.xml 的結構。");
-      return;
-    }
-    // 替換 javaModelGenerator 的 targetPackage 屬性
-    if (StringUtils.isNotBlank(parameter.getTargetPackage())) {
-      javaModelElement.attr("targetPackage", parameter.getTargetPackage() + ".dao.entity");
+    if (dataSources.size() == 1) {
+      prepareTables(dataSources.get(0), tablesMap);
+      return tablesMap;
     }
 
-    Element javaClientElement = doc.selectFirst("javaClientGenerator");
-    if (Objects.isNull(javaClientElement)) {
-      System.err.println("找不到 javaClientGenerator 元素，請檢查 mybatis-generator-config.xml 的結構。");
-      return;
-    }
-    // 替換 javaClientGenerator 的 targetPackage 屬性
-    if (StringUtils.isNotBlank(parameter.getTargetPackage())) {
-      javaClientElement.attr("targetPackage", parameter.getTargetPackage() + ".dao.mapper");
+    // 各資料來源使用各自的連線，同時讀取
+    ExecutorService executor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-datasource-" + nextThreadId.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (DataSourceParameter dataSource : dataSources) {
+        futures.add(executor.submit(() -> prepareTables(dataSource, tablesMap)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
     }
+    return tablesMap;
   }
 
-  private void processForTables(Document doc) {
-    if (!parameter.isEnableReadDatabase()) {
-      System.out.println("參數 enableReadDatabase 為 false，將不讀取資料庫表格資訊。");
-      return;
-    }
-
-    List<TableMeta> tableMetaList = queryTableMeta();
+  private void prepareTables(DataSourceParameter dataSource, Map<String, List<TableMeta>> tablesMap) {
+    // 設定檔中已存在的資料表同樣讀取，讓 schema 快照保持完整；未變更時由指紋直接使用快照，不重新讀取
+    List<TableMeta> tableMetaList = queryTableMeta(dataSource, TableFilter.of(parameter.getTableIncludes(),
+      parameter.getTableExcludes(), parameter.getTables()));
     if (tableMetaList.isEmpty()) {
-      System.out.println("沒有找到任何資料表");
+      System.out.println(dataSourceLabel(dataSource) + "沒有找到任何資料表");
       return;
     }
-
-    if(!parameter.isAppendTables()) {
-      System.out.println("不會追加資料表到 mybatis-generator-config.xml 中。");
-      return;
+    reportUnindexedForeignKeys(dataSource, tableMetaList);
+    if (parameter.isAppendTables()) {
+      tablesMap.put(StringUtils.defaultString(dataSource.getName()), tableMetaList);
     }
+  }
 
-    // 找到首的 context 元素
-    Element contextElement = doc.selectFirst("context");
-    assert contextElement != null;
-
-    // 找到已存在於 context 中的 table 元素
-    Elements tableElements = contextElement.select("table");
-    List<String> existingTables = tableElements.eachAttr("tableName");
-
-    // 把 tableMetaList 換為 XML 元素
-    for (TableMeta tableMeta : tableMetaList) {
-      // 檢查該 table 是否需要處理
-      if(existingTables.contains(tableMeta.getTableName())) {
-        System.out.println("跳過已存在的表格: " + tableMeta.getTableName());
-        continue;
-      }
-      System.out.println("處理表格: " + tableMeta.getTableName());
-      StringBuilder xmlBuilder = new StringBuilder();
-      if (StringUtils.isNotBlank(tableMeta.getComment())) {
-        xmlBuilder.append(System.lineSeparator())
-          .append("\t\t<!-- ").append(tableMeta.getComment()).append(" -->\n\t\t");
-      }
-      xmlBuilder.append("<table tableName=\"")
-        .append(tableMeta.getTableName()).append("\">")
-        .append(System.lineSeparator());
-      // TODO 處理欄位資訊
-
-      // table 結尾
-      xmlBuilder.append("\t\t</table>")
-        .append(System.lineSeparator());
-      contextElement.append(xmlBuilder.toString());
-    }
+  private boolean isReadable(DataSourceParameter dataSource) {
+    return !StringUtils.isAnyBlank(dataSource.getDriverClass(), dataSource.getConnectionURL(),
+      dataSource.getUsername(), dataSource.getPassword());
   }
 
-  private List<TableMeta> queryTableMeta() {
+  private List<TableMeta> queryTableMeta(DataSourceParameter dataSource, TableFilter filter) {
     // from databaseDriverMap 取得相對定的 DatabaseDriver
     // 尋找方式為比對 driverClass 是否相同
     DatabaseDriver driver = databaseDriverMap.values().stream()
-      .filter(d -> StringUtils.equals(d.getDriverClass(), parameter.getDriverClass()))
+      .filter(d -> StringUtils.equals(d.getDriverClass(), dataSource.getDriverClass()))
       .findFirst().orElse(null);
     if (Objects.isNull(driver)) {
-      System.err.println("找不到對應的 DatabaseDriver，請檢查 driverClass 是否正確。");
+      System.err.println(dataSourceLabel(dataSource) + "找不到對應的 DatabaseDriver，請檢查 driverClass 是否正確。");
       return Collections.emptyList();
     }
 
-    // 最後回傳的 tableMetaList
-    List<TableMeta> tableMetaList = new ArrayList<>();
+    // 以目前的 ClassLoader 載入 driver 並註冊到 DriverManager，
+    // Worker API 的隔離 ClassLoader 中不會自動註冊 driver
+    try {
+      Class.forName(dataSource.getDriverClass());
+    } catch (ClassNotFoundException e) {
+      System.err.println("找不到 JDBC driver 類別，請確認已加入 classpath: " + dataSource.getDriverClass());
+      throw new RuntimeException(e);
+    }
 
-    // 讀取資料庫表格資訊，並添加到 XML 中
-    // 這裡可以使用 JDBC 或其他方式來讀取資料庫
-    try (Connection conn = DriverManager.getConnection(parameter.getConnectionURL(), parameter.getUsername(), parameter.getUsername())) {
-      DatabaseMetaData meta = conn.getMetaData();
+    // 設定 DDL 腳本時，讀取期間以腳本建立的 in-memory 資料庫取代實際資料庫
+    try {
+      DdlDatabase ddlDatabase = openDdlDatabase(dataSource);
+      try {
+        return queryTableMeta(dataSource, driver, filter);
+      } finally {
+        if (Objects.nonNull(ddlDatabase)) {
+          ddlDatabase.close();
+        }
+      }
+    } catch (SQLException e) {
+      System.err.println(dataSourceLabel(dataSource) + "讀取資料庫表格資訊時發生錯誤: " + e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
 
+  private List<TableMeta> queryTableMeta(DataSourceParameter dataSource, DatabaseDriver driver, TableFilter filter)
+    throws SQLException {
+    String catalog = dataSource.getCatalog();
+    String schema = dataSource.getSchema();
+    if (StringUtils.isAllBlank(catalog, schema)) {
       // 根據 driver 的設定來決定是否使用 catalog 和 schema
-      String catalog = null;
       if (driver.isUseCatalog()) {
-        catalog = parseSchemaFromUrl(parameter.getConnectionURL());
+        catalog = parseSchemaFromUrl(dataSource.getConnectionURL());
       }
-      String schema = null;
       if (driver.isUseSchema()) {
-        schema = parseSchemaFromUrl(parameter.getConnectionURL());
+        schema = parseSchemaFromUrl(dataSource.getConnectionURL());
       }
+      if (dataSource.isOffline()) {
+        schema = DdlDatabase.defaultSchema(dataSource.getDdlMode());
+      }
+    }
+
+    // 讀取來源以雜湊保存，避免連線 URL 中的參數寫入檔案
+    // 過濾條件不同時快照的內容不同，一併納入來源
+    String source = SchemaFingerprint.sha256(dataSource.getConnectionURL() + "|" + catalog + "|" + schema
+      + "|" + filter.describe());
+    File snapshotFile = new File(parameter.getProjectDir(), SchemaSnapshotStore.pathOf(dataSource.getName()));
+
+    // 同一次建置中其他專案已讀取相同來源時，直接使用其結果，不連線資料庫；
+    // DDL 腳本的 in-memory 資料庫各專案不同，不共用
+    File sharedFile = dataSource.isOffline() ? null : sharedSnapshotFile(source);
+    SchemaSnapshot shared = Objects.isNull(sharedFile) ? null : readSnapshot(sharedFile);
+    if (Objects.nonNull(shared)) {
+      System.out.println(dataSourceLabel(dataSource) + "使用同一次建置中已讀取的 schema: " + sharedFile.getAbsolutePath());
+      metrics.count("sharedSchemas", 1);
+      countTables(dataSource, shared.getTables());
+      writeSnapshot(snapshotFile, shared);
+      return shared.getTables();
+    }
 
-      // 查詢所有 TABLE
-      try (ResultSet rs = meta.getTables(catalog, schema, "%", new String[] {"TABLE"})) {
-        while (rs.next()) {
-          String tableName = rs.getString("TABLE_NAME");
-          String remarks = rs.getString("REMARKS");
-          System.out.println("Table: " + tableName + ", Comment: " + remarks);
-
-          TableMeta tableMeta = new TableMeta();
-          tableMeta.setTableName(tableName);
-          tableMeta.setComment(remarks);
-          tableMeta.setColumns(new ArrayList<>());
-          tableMeta.setPrimaryKeys(new ArrayList<>());
-          tableMeta.setForeignKeys(new ArrayList<>());
-          tableMetaList.add(tableMeta);
-
-          // 查詢欄位資訊
-          try (ResultSet columns = meta.getColumns(catalog, schema, tableName, "%")) {
-            while (columns.next()) {
-              String columnName = columns.getString("COLUMN_NAME");
-              String typeName = columns.getString("TYPE_NAME");
-              String isNullable = columns.getString("IS_NULLABLE");
-              String columnRemarks = columns.getString("REMARKS");
-              System.out.println("Column: " + columnName + " " + typeName + " " + isNullable + " " + columnRemarks);
-              ColumnMeta columnMeta = new ColumnMeta();
-              columnMeta.setName(columnName);
-              columnMeta.setType(typeName);
-              columnMeta.setNullable("YES".equalsIgnoreCase(isNullable));
-              columnMeta.setComment(columnRemarks);
-              tableMeta.getColumns().add(columnMeta);
-            }
-          }
-
-          // 查詢主鍵
-          try (ResultSet pk = meta.getPrimaryKeys(catalog, schema, tableName)) {
-            System.out.print("  Primary Keys:");
-            boolean hasPk = false;
-            while (pk.next()) {
-              hasPk = true;
-              String pkName = pk.getString("COLUMN_NAME");
-              System.out.print(" " + pkName);
-              tableMeta.getPrimaryKeys().add(pkName);
-            }
-            if (!hasPk) {
-              System.out.print(" 無主鍵");
-            }
-            System.out.println();
-          }
-
-          // 查詢外鍵
-          try (ResultSet fk = meta.getImportedKeys(catalog, schema, tableName)) {
-            System.out.println("  Foreign Keys:");
-            boolean hasFk = false;
-            while (fk.next()) {
-              hasFk = true;
-              String fkColumnName = fk.getString("FKCOLUMN_NAME");
-              String pkTableName = fk.getString("PKTABLE_NAME");
-              String pkColumnName = fk.getString("PKCOLUMN_NAME");
-              System.out.println("    " + fkColumnName + " -> " + pkTableName + "." + pkColumnName);
-              ForeignKeyMeta foreignKeyMeta = new ForeignKeyMeta();
-              foreignKeyMeta.setColumnName(fkColumnName);
-              foreignKeyMeta.setReferenceTable(pkTableName);
-              foreignKeyMeta.setReferenceColumn(pkColumnName);
-              tableMeta.getForeignKeys().add(foreignKeyMeta);
-            }
-            if (!hasFk) {
-              System.out.println("無外鍵");
-            }
-          }
+    // 讀取資料庫表格資訊，並添加到 XML 中
+    long connectStart = System.nanoTime();
+    try (Connection conn = DriverManager.getConnection(dataSource.getConnectionURL(), dataSource.getUsername(),
+      dataSource.getPassword())) {
+      metrics.addPhase(GeneratorMetrics.PHASE_CONNECT, System.nanoTime() - connectStart);
+      // 未設定 schema 時以連線目前的 schema 計算指紋與讀取 metadata，並記錄在快照中
+      schema = AbstractSchemaIntrospector.resolveSchema(conn, driver.getDialect(), schema);
+
+      // 計算 schema 指紋，若與快照相同則直接使用快照，不重新讀取 metadata；DDL 腳本以腳本內容計算
+      String fingerprint = dataSource.isOffline()
+        ? DdlDatabase.fingerprint(DdlDatabase.resolveScripts(parameter.getProjectDir(), dataSource.getDdlScripts()))
+        : computeFingerprint(conn, driver, catalog, schema);
+      if (!parameter.isRefreshSchema() && Objects.nonNull(fingerprint)) {
+        SchemaSnapshot snapshot = readSnapshot(snapshotFile);
+        if (Objects.nonNull(snapshot)
+          && StringUtils.equals(snapshot.getSource(), source)
+          && StringUtils.equals(snapshot.getFingerprint(), fingerprint)) {
+          System.out.println(dataSourceLabel(dataSource) + "schema 未變更，使用快照: " + snapshotFile.getAbsolutePath());
+          countTables(dataSource, snapshot.getTables());
+          writeSharedSnapshot(sharedFile, snapshot);
+          return snapshot.getTables();
         }
       }
+
+      List<TableMeta> tableMetaList = introspect(conn, driver, dataSource, catalog, schema, filter);
+      countTables(dataSource, tableMetaList);
+      SchemaSnapshot snapshot = new SchemaSnapshot(source, fingerprint, System.currentTimeMillis(), tableMetaList);
+      // 保存指紋的計算方式，mybatisGenerate 以快照取代資料庫讀取時用來確認快照未過期
+      snapshot.setCatalog(catalog);
+      snapshot.setSchema(schema);
+      snapshot.setDialect(driver.getDialect());
+      writeSnapshot(snapshotFile, snapshot);
+      writeSharedSnapshot(sharedFile, snapshot);
+      return tableMetaList;
+    }
+  }
+
+  /**
+   * 以 DDL 腳本建立 in-memory 資料庫
+   *
+   * @return 未設定 DDL 腳本時回傳 null
+   */
+  private DdlDatabase openDdlDatabase(DataSourceParameter dataSource) throws SQLException {
+    if (!dataSource.isOffline()) {
+      return null;
+    }
+    List<File> scripts = DdlDatabase.resolveScripts(parameter.getProjectDir(), dataSource.getDdlScripts());
+    System.out.println(dataSourceLabel(dataSource) + "以 DDL 腳本建立資料庫，不連線實際資料庫");
+    long ddlStart = System.nanoTime();
+    try {
+      return DdlDatabase.open(dataSource.getConnectionURL(), scripts);
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_DDL, System.nanoTime() - ddlStart);
+    }
+  }
+
+  private List<TableMeta> introspect(Connection conn, DatabaseDriver driver, DataSourceParameter dataSource,
+    String catalog, String schema, TableFilter filter) throws SQLException {
+    // 有 bulk 實作的 driver 以整個 schema 一次讀取，否則逐表讀取
+    if (parameter.isBulkIntrospection() && Objects.nonNull(driver.getDialect())) {
+      try {
+        return configure(new BulkSchemaIntrospector(driver.getDialect())).introspect(conn, catalog, schema, filter);
+      } catch (SQLException e) {
+        System.err.println("以 bulk 方式讀取資料庫表格資訊失敗，改為逐表讀取: " + e.getMessage());
+      }
+    }
+    // 逐表讀取時，可依參數以多條連線平行讀取
+    if (parameter.getIntrospectParallelism() > 1) {
+      JdbcConnectionSupplier connectionSupplier = () -> DriverManager.getConnection(
+        dataSource.getConnectionURL(), dataSource.getUsername(), dataSource.getPassword());
+      return configure(new ParallelSchemaIntrospector(connectionSupplier, parameter.getIntrospectParallelism()))
+        .introspect(conn, catalog, schema, filter);
+    }
+    return configure(new PerTableSchemaIntrospector()).introspect(conn, catalog, schema, filter);
+  }
+
+  private <T extends AbstractSchemaIntrospector> T configure(T introspector) {
+    introspector.setVerbose(parameter.isVerbose());
+    introspector.setMetrics(metrics);
+    return introspector;
+  }
+
+  /**
+   * 記錄並輸出讀取到的資料表、欄位、鍵值與索引數量
+   */
+  private void countTables(DataSourceParameter dataSource, List<TableMeta> tableMetaList) {
+    long columns = 0;
+    long primaryKeys = 0;
+    long foreignKeys = 0;
+    long indexes = 0;
+    for (TableMeta tableMeta : tableMetaList) {
+      columns += tableMeta.getColumns().size();
+      primaryKeys += tableMeta.getPrimaryKeys().size();
+      foreignKeys += tableMeta.getForeignKeys().size();
+      indexes += tableMeta.getIndexes().size();
+    }
+    metrics.count("tables", tableMetaList.size());
+    metrics.count("columns", columns);
+    metrics.count("primaryKeys", primaryKeys);
+    metrics.count("foreignKeys", foreignKeys);
+    metrics.count("indexes", indexes);
+    System.out.println(dataSourceLabel(dataSource) + "資料表: " + tableMetaList.size() + "，欄位: " + columns
+      + "，主鍵欄位: " + primaryKeys + "，外鍵: " + foreignKeys + "，索引: " + indexes);
+  }
+
+  /**
+   * 輸出沒有索引可用的外鍵欄位（見 {@link TableIndexes#unindexedForeignKeys(TableMeta)}），
+   * 明細寫入報表目錄的 unindexed-foreign-keys.txt，多資料來源時檔名加上資料來源名稱；沒有時刪除上次的報表
+   */
+  private void reportUnindexedForeignKeys(DataSourceParameter dataSource, List<TableMeta> tableMetaList) {
+    List<String> lines = new ArrayList<>();
+    for (TableMeta tableMeta : tableMetaList) {
+      for (ForeignKeyMeta foreignKey : TableIndexes.unindexedForeignKeys(tableMeta)) {
+        lines.add(tableMeta.getTableName() + "." + foreignKey.getColumnName() + " -> "
+          + foreignKey.getReferenceTable() + "." + foreignKey.getReferenceColumn());
+      }
+    }
+    metrics.count("unindexedForeignKeys", lines.size());
+    File reportFile = new File(resolveReportDir(), Objects.isNull(dataSource.getName())
+      ? "unindexed-foreign-keys.txt" : "unindexed-foreign-keys-" + dataSource.getName() + ".txt");
+    try {
+      if (lines.isEmpty()) {
+        Files.deleteIfExists(reportFile.toPath());
+        return;
+      }
+      Files.createDirectories(reportFile.getParentFile().toPath());
+      Files.write(reportFile.toPath(), lines, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      System.err.println("寫入外鍵索引報表時發生錯誤: " + e.getMessage());
+      return;
+    }
+    System.out.println(dataSourceLabel(dataSource) + "沒有索引的外鍵欄位: " + lines.size()
+      + "，刪除或更新參照的資料時需掃描整個資料表，明細: " + reportFile.getAbsolutePath());
+    if (parameter.isVerbose()) {
+      for (String line : lines) {
+        System.out.println("  " + line);
+      }
+    }
+  }
+
+  private void writeReport() {
+    try {
+      File reportFile = metrics.writeReport(resolveReportDir());
+      System.out.println("執行報表: " + reportFile.getAbsolutePath());
+    } catch (IOException e) {
+      System.err.println("寫入執行報表時發生錯誤: " + e.getMessage());
+    }
+  }
+
+  private File resolveReportDir() {
+    File reportDir = new File(parameter.getReportDir());
+    return reportDir.isAbsolute() ? reportDir : new File(parameter.getProjectDir(), parameter.getReportDir());
+  }
+
+  /**
+   * 多資料來源時，訊息前加上資料來源名稱
+   */
+  private static String dataSourceLabel(DataSourceParameter dataSource) {
+    return Objects.isNull(dataSource.getName()) ? "" : "[" + dataSource.getName() + "] ";
+  }
+
+  private String computeFingerprint(Connection conn, DatabaseDriver driver, String catalog, String schema) {
+    long fingerprintStart = System.nanoTime();
+    try {
+      return SchemaFingerprint.compute(conn, driver.getDialect(), catalog, schema);
     } catch (SQLException e) {
-      System.err.println("讀取資料庫表格資訊時發生錯誤: " + e.getMessage());
-      throw new RuntimeException(e);
+      System.err.println("無法計算 schema 指紋，將重新讀取資料庫表格資訊: " + e.getMessage());
+      return null;
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_FINGERPRINT, System.nanoTime() - fingerprintStart);
     }
+  }
 
-    return tableMetaList;
+  private SchemaSnapshot readSnapshot(File snapshotFile) {
+    try {
+      return SchemaSnapshotStore.read(snapshotFile);
+    } catch (IOException e) {
+      System.err.println("讀取 schema 快照時發生錯誤，將重新讀取資料庫表格資訊: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * 共用快照的檔案，以讀取來源的雜湊命名
+   *
+   * @return 未設定共用目錄時回傳 null
+   */
+  private File sharedSnapshotFile(String source) {
+    if (StringUtils.isBlank(parameter.getSharedSchemaDir())) {
+      return null;
+    }
+    return new File(parameter.getSharedSchemaDir(), source + ".bin");
+  }
+
+  /**
+   * 提供給同一次建置中讀取相同來源的其他專案
+   */
+  private void writeSharedSnapshot(File sharedFile, SchemaSnapshot snapshot) {
+    if (Objects.nonNull(sharedFile)) {
+      writeSnapshot(sharedFile, snapshot);
+    }
+  }
+
+  private void writeSnapshot(File snapshotFile, SchemaSnapshot snapshot) {
+    try {
+      SchemaSnapshotStore.write(snapshotFile, snapshot);
+    } catch (IOException e) {
+      System.err.println("寫入 schema 快照時發生錯誤: " + e.getMessage());
+    }
   }
 
   private void copyConfigFile(File targetFile) {
@@ -309,23 +491,99 @@ public class CopyMyBatisGeneratorConfigMain {
     // 讀取參數或環境變數
     Properties props = System.getProperties();
     String overwrite = getProp("mybatis.generator.copy.overwrite", "false");
+    String refreshSchema = getProp("mybatis.generator.schema.refresh", "false");
     String appendTables = getProp("mybatis.generator.append.tables", "true");
+    String bulkIntrospection = getProp("mybatis.generator.introspect.bulk", "true");
+    String introspectParallelism = getProp("mybatis.generator.introspect.parallelism", "1");
 
     this.parameter = new CopyMyBatisParameter();
-    this.parameter.setProjectDir(getProp("user.dir", ""));
+    this.parameter.setProjectDir(getProp("mybatis.generator.project.dir", getProp("user.dir", "")));
     this.parameter.setOverwrite(StringUtils.equals(overwrite, "true"));
+    this.parameter.setRefreshSchema(StringUtils.equals(refreshSchema, "true"));
     this.parameter.setAppendTables(StringUtils.equals(appendTables, "true"));
+    this.parameter.setBulkIntrospection(StringUtils.equals(bulkIntrospection, "true"));
+    this.parameter.setIntrospectParallelism(Math.max(1, Integer.parseInt(introspectParallelism.trim())));
+    this.parameter.setTableIncludes(getProp("mybatis.generator.tables.include", null));
+    this.parameter.setTableExcludes(getProp("mybatis.generator.tables.exclude", null));
+    this.parameter.setTables(getProp("mybatis.generator.tables", null));
+    // debug 時才輸出每個資料表、欄位與鍵值的明細
+    this.parameter.setVerbose(StringUtils.equalsIgnoreCase(getProp("mybatis.generator.log.level", "info"), "debug"));
+    this.parameter.setReportDir(getProp("mybatis.generator.report.dir", GeneratorMetrics.DEFAULT_REPORT_DIR));
+    this.parameter.setSharedSchemaDir(getProp("mybatis.generator.schema.shared.dir", null));
+    this.parameter.setPrimitiveTypes(StringUtils.equals(getProp("mybatis.generator.primitive.types", "false"), "true"));
+    this.parameter.setCacheLookupTables(
+      StringUtils.equals(getProp("mybatis.generator.cache.lookup.tables", "false"), "true"));
+    this.parameter.setJoinTables(getProp("mybatis.generator.join.tables", null));
+    this.parameter.setJoinDepth(Math.max(1, Integer.parseInt(getProp("mybatis.generator.join.depth", "1").trim())));
+    this.parameter.setIndexSelectors(StringUtils.equals(getProp("mybatis.generator.index.selectors", "true"), "true"));
     this.parameter.setTargetPackage(getProp("mybatis.generator.target.package", ""));
     this.parameter.setDriverClass(getProp("mybatis.generator.db.driverClass", null));
     this.parameter.setConnectionURL(getProp("mybatis.generator.db.connectionURL", null));
     this.parameter.setUsername(getProp("mybatis.generator.db.username", ""));
     this.parameter.setPassword(getProp("mybatis.generator.db.password", ""));
     this.parameter.checkDatabaseConfig();
+    this.parameter.setDataSources(loadDataSources());
+
+  }
+
+  /**
+   * 讀取資料來源設定，未設定 mybatis.generator.datasources 時以 mybatis.generator.db.* 參數建立單一資料來源
+   */
+  private List<DataSourceParameter> loadDataSources() {
+    List<DataSourceParameter> dataSources = new ArrayList<>();
+    String names = getProp("mybatis.generator.datasources", null);
+    if (StringUtils.isBlank(names)) {
+      DataSourceParameter dataSource = new DataSourceParameter();
+      dataSource.setDriverClass(parameter.getDriverClass());
+      dataSource.setConnectionURL(parameter.getConnectionURL());
+      dataSource.setUsername(parameter.getUsername());
+      dataSource.setPassword(parameter.getPassword());
+      dataSource.setDdlScripts(getProp("mybatis.generator.ddl", null));
+      dataSource.setDdlMode(getProp("mybatis.generator.ddl.mode", null));
+      dataSources.add(useDdlDatabase(dataSource));
+      return dataSources;
+    }
+    for (String name : names.split(",")) {
+      if (StringUtils.isBlank(name)) {
+        continue;
+      }
+      String prefix = "mybatis.generator.datasource." + name.trim() + ".";
+      DataSourceParameter dataSource = new DataSourceParameter();
+      dataSource.setName(name.trim());
+      // 未指定的連線參數沿用 mybatis.generator.db.*，方便同一個資料庫的多個 schema
+      dataSource.setDriverClass(getProp(prefix + "driverClass", parameter.getDriverClass()));
+      dataSource.setConnectionURL(getProp(prefix + "connectionURL", parameter.getConnectionURL()));
+      dataSource.setCatalog(getProp(prefix + "catalog", null));
+      dataSource.setSchema(getProp(prefix + "schema", null));
+      dataSource.setSubPackage(getProp(prefix + "package", name.trim()));
+      dataSource.setUsername(getProp(prefix + "username", parameter.getUsername()));
+      dataSource.setPassword(getProp(prefix + "password", parameter.getPassword()));
+      dataSource.setDdlScripts(getProp(prefix + "ddl", getProp("mybatis.generator.ddl", null)));
+      dataSource.setDdlMode(getProp(prefix + "ddl.mode", getProp("mybatis.generator.ddl.mode", null)));
+      dataSources.add(useDdlDatabase(dataSource));
+    }
+    return dataSources;
+  }
 
+  /**
+   * 設定 DDL 腳本的資料來源改為連線 in-memory 資料庫，不需要實際資料庫的連線參數與帳號密碼
+   */
+  private DataSourceParameter useDdlDatabase(DataSourceParameter dataSource) {
+    if (dataSource.isOffline()) {
+      dataSource.setDriverClass(DdlDatabase.DRIVER_CLASS);
+      dataSource.setConnectionURL(DdlDatabase.connectionUrl(parameter.getProjectDir(), dataSource.getName(),
+        dataSource.getDdlMode()));
+      dataSource.setUsername(DdlDatabase.USERNAME);
+      dataSource.setPassword(DdlDatabase.PASSWORD);
+    }
+    return dataSource;
   }
 
-  private static String getProp(String key, String def) {
-    String v = System.getProperty(key);
+  private String getProp(String key, String def) {
+    String v = properties.get(key);
+    if (StringUtils.isBlank(v)) {
+      v = System.getProperty(key);
+    }
     if (StringUtils.isBlank(v)) {
       v = System.getenv(key);
     }
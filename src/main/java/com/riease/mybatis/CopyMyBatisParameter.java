@@ -1,18 +1,44 @@
 package com.riease.mybatis;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 
 public class CopyMyBatisParameter {
 
   private String projectDir;
   private boolean overwrite;
+  private boolean refreshSchema;
   private boolean appendTables;
+  private boolean bulkIntrospection = true;
+  private int introspectParallelism = 1;
+  private String tableIncludes;
+  private String tableExcludes;
+  private String tables;
   private String driverClass;
   private String connectionURL;
   private String targetPackage;
   private String username;
   private String password;
   private boolean enableReadDatabase = false;
+  /** 資料來源，未設定多資料來源時只有一個以 db 參數建立的資料來源 */
+  private List<DataSourceParameter> dataSources = new ArrayList<>();
+  /** 是否輸出每個資料表、欄位與鍵值的明細 */
+  private boolean verbose;
+  /** 執行報表的輸出目錄 */
+  private String reportDir;
+  /** 同一次建置中各專案共用的 schema 快照目錄，多專案讀取相同的資料庫時只讀取一次 */
+  private String sharedSchemaDir;
+  /** NOT NULL 的數值與布林欄位是否以 columnOverride 改用基本型別 */
+  private boolean primitiveTypes;
+  /** 是否為參照用的資料表（被參照、本身沒有外鍵）啟用 Mapper 快取 */
+  private boolean cacheLookupTables;
+  /** 以外鍵產生 join 查詢的資料表樣式 */
+  private String joinTables;
+  /** join 查詢載入的參照層數 */
+  private int joinDepth = 1;
+  /** 是否依索引產生 selectBy 與 existsBy 查詢 */
+  private boolean indexSelectors = true;
 
   public String getProjectDir() {
     return projectDir;
@@ -30,6 +56,14 @@ public class CopyMyBatisParameter {
     this.overwrite = overwrite;
   }
 
+  public boolean isRefreshSchema() {
+    return refreshSchema;
+  }
+
+  public void setRefreshSchema(boolean refreshSchema) {
+    this.refreshSchema = refreshSchema;
+  }
+
   public boolean isAppendTables() {
     return appendTables;
   }
@@ -38,6 +72,46 @@ public class CopyMyBatisParameter {
     this.appendTables = appendTables;
   }
 
+  public boolean isBulkIntrospection() {
+    return bulkIntrospection;
+  }
+
+  public void setBulkIntrospection(boolean bulkIntrospection) {
+    this.bulkIntrospection = bulkIntrospection;
+  }
+
+  public int getIntrospectParallelism() {
+    return introspectParallelism;
+  }
+
+  public void setIntrospectParallelism(int introspectParallelism) {
+    this.introspectParallelism = introspectParallelism;
+  }
+
+  public String getTableIncludes() {
+    return tableIncludes;
+  }
+
+  public void setTableIncludes(String tableIncludes) {
+    this.tableIncludes = tableIncludes;
+  }
+
+  public String getTableExcludes() {
+    return tableExcludes;
+  }
+
+  public void setTableExcludes(String tableExcludes) {
+    this.tableExcludes = tableExcludes;
+  }
+
+  public String getTables() {
+    return tables;
+  }
+
+  public void setTables(String tables) {
+    this.tables = tables;
+  }
+
   public String getDriverClass() {
     return driverClass;
   }
@@ -86,6 +160,14 @@ public class CopyMyBatisParameter {
     this.enableReadDatabase = enableReadDatabase;
   }
 
+  public List<DataSourceParameter> getDataSources() {
+    return dataSources;
+  }
+
+  public void setDataSources(List<DataSourceParameter> dataSources) {
+    this.dataSources = dataSources;
+  }
+
   public void checkDatabaseConfig() {
     boolean result = true;
     if (StringUtils.isAnyBlank(driverClass, connectionURL, username, password)) {
@@ -93,4 +175,68 @@ public class CopyMyBatisParameter {
     }
     this.setEnableReadDatabase(result);
   }
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  public String getReportDir() {
+    return reportDir;
+  }
+
+  public void setReportDir(String reportDir) {
+    this.reportDir = reportDir;
+  }
+
+  public String getSharedSchemaDir() {
+    return sharedSchemaDir;
+  }
+
+  public void setSharedSchemaDir(String sharedSchemaDir) {
+    this.sharedSchemaDir = sharedSchemaDir;
+  }
+
+  public boolean isPrimitiveTypes() {
+    return primitiveTypes;
+  }
+
+  public void setPrimitiveTypes(boolean primitiveTypes) {
+    this.primitiveTypes = primitiveTypes;
+  }
+
+  public boolean isCacheLookupTables() {
+    return cacheLookupTables;
+  }
+
+  public void setCacheLookupTables(boolean cacheLookupTables) {
+    this.cacheLookupTables = cacheLookupTables;
+  }
+
+  public String getJoinTables() {
+    return joinTables;
+  }
+
+  public void setJoinTables(String joinTables) {
+    this.joinTables = joinTables;
+  }
+
+  public int getJoinDepth() {
+    return joinDepth;
+  }
+
+  public void setJoinDepth(int joinDepth) {
+    this.joinDepth = joinDepth;
+  }
+
+  public boolean isIndexSelectors() {
+    return indexSelectors;
+  }
+
+  public void setIndexSelectors(boolean indexSelectors) {
+    this.indexSelectors = indexSelectors;
+  }
 }
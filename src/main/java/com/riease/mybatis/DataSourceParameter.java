@@ -0,0 +1,116 @@
+package com.riease.mybatis;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 單一資料來源的設定，每個資料來源對應設定檔中的一個 context。
+ * <p>
+ * 未設定多資料來源時，以 {@code mybatis.generator.db.*} 參數建立 name 為 null 的資料來源，
+ * 對應設定檔中的第一個 context。
+ */
+public class DataSourceParameter {
+
+  /** 資料來源名稱，同時作為 context id */
+  private String name;
+  private String driverClass;
+  private String connectionURL;
+  /** 指定的 catalog，未設定時依 driver 由連線 URL 解析 */
+  private String catalog;
+  /** 指定的 schema，未設定時依 driver 由連線 URL 解析 */
+  private String schema;
+  /** 產出檔案的子套件名稱 */
+  private String subPackage;
+  private String username;
+  private String password;
+  /** DDL 或 migration 腳本，以逗號分隔的檔案或目錄；設定時以腳本建立的 in-memory 資料庫取代實際資料庫 */
+  private String ddlScripts;
+  /** 執行 DDL 腳本時的 H2 相容模式 */
+  private String ddlMode;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getDriverClass() {
+    return driverClass;
+  }
+
+  public void setDriverClass(String driverClass) {
+    this.driverClass = driverClass;
+  }
+
+  public String getConnectionURL() {
+    return connectionURL;
+  }
+
+  public void setConnectionURL(String connectionURL) {
+    this.connectionURL = connectionURL;
+  }
+
+  public String getCatalog() {
+    return catalog;
+  }
+
+  public void setCatalog(String catalog) {
+    this.catalog = catalog;
+  }
+
+  public String getSchema() {
+    return schema;
+  }
+
+  public void setSchema(String schema) {
+    this.schema = schema;
+  }
+
+  public String getSubPackage() {
+    return subPackage;
+  }
+
+  public void setSubPackage(String subPackage) {
+    this.subPackage = subPackage;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+
+  public String getDdlScripts() {
+    return ddlScripts;
+  }
+
+  public void setDdlScripts(String ddlScripts) {
+    this.ddlScripts = ddlScripts;
+  }
+
+  public String getDdlMode() {
+    return ddlMode;
+  }
+
+  public void setDdlMode(String ddlMode) {
+    this.ddlMode = ddlMode;
+  }
+
+  /**
+   * 是否以 DDL 腳本取代實際資料庫
+   */
+  public boolean isOffline() {
+    return StringUtils.isNotBlank(ddlScripts);
+  }
+}
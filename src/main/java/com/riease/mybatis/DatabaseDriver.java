@@ -6,15 +6,22 @@ public class DatabaseDriver {
   private String driverClass;
   private boolean useCatalog;
   private boolean useSchema;
+  /** 資料庫方言，為 null 時表示沒有 bulk 讀取實作，將以逐表方式讀取 metadata */
+  private Dialect dialect;
 
   public DatabaseDriver() {
   }
 
   public DatabaseDriver(String artifactId, String driverClass, boolean useCatalog, boolean useSchema) {
+    this(artifactId, driverClass, useCatalog, useSchema, null);
+  }
+
+  public DatabaseDriver(String artifactId, String driverClass, boolean useCatalog, boolean useSchema, Dialect dialect) {
     this.artifactId = artifactId;
     this.driverClass = driverClass;
     this.useCatalog = useCatalog;
     this.useSchema = useSchema;
+    this.dialect = dialect;
   }
 
   public String getArtifactId() {
@@ -48,4 +55,12 @@ public class DatabaseDriver {
   public void setUseSchema(boolean useSchema) {
     this.useSchema = useSchema;
   }
+
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  public void setDialect(Dialect dialect) {
+    this.dialect = dialect;
+  }
 }
@@ -0,0 +1,235 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 以 DDL 或 migration 腳本建立的 H2 in-memory 資料庫，不需連線實際資料庫即可讀取 metadata 與產生檔案。
+ * <p>
+ * 腳本可指定檔案或目錄，目錄中的 .sql 檔案（含子目錄）依 Flyway 的命名規則排序：
+ * <ul>
+ *   <li>V 開頭的版本腳本（例如 V1.2__add_user.sql）依版本號排序</li>
+ *   <li>R__ 開頭的 repeatable 腳本接在版本腳本之後，依檔名排序</li>
+ *   <li>U 開頭的 undo 腳本略過</li>
+ *   <li>其餘檔案接在最後，依檔名排序</li>
+ * </ul>
+ * Liquibase 只支援 formatted SQL changelog（.sql），changeset 標記為 SQL 註解，會直接執行其中的敘述。
+ * <p>
+ * 資料庫只在開啟期間存在，關閉後即釋放，以 Worker API 在 Gradle daemon 中執行時也不會殘留。
+ * 同一個專案與資料來源使用固定的資料庫名稱，寫入設定檔的連線 URL 不會因每次執行而改變。
+ */
+public class DdlDatabase implements AutoCloseable {
+
+  public static final String DRIVER_CLASS = "org.h2.Driver";
+
+  public static final String USERNAME = "sa";
+
+  public static final String PASSWORD = "sa";
+
+  private static final String URL_PREFIX = "jdbc:h2:mem:mybatis-generator-";
+
+  private static final Pattern VERSIONED = Pattern.compile("V(\\d+(?:[._]\\d+)*)__.*\\.sql", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern REPEATABLE = Pattern.compile("R__.*\\.sql", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern UNDO = Pattern.compile("U\\d+(?:[._]\\d+)*__.*\\.sql", Pattern.CASE_INSENSITIVE);
+
+  private final String connectionURL;
+
+  /** 保持開啟的連線，in-memory 資料庫在最後一條連線關閉時釋放 */
+  private final Connection connection;
+
+  private DdlDatabase(String connectionURL, Connection connection) {
+    this.connectionURL = connectionURL;
+    this.connection = connection;
+  }
+
+  /**
+   * 建立資料庫並依序執行腳本
+   *
+   * @param connectionURL 以 {@link #connectionUrl(String, String, String)} 取得的連線 URL
+   * @param scripts       以 {@link #resolveScripts(String, String)} 取得並排序的腳本
+   */
+  public static DdlDatabase open(String connectionURL, List<File> scripts) throws SQLException {
+    // 以目前的 ClassLoader 註冊 driver，Worker API 的隔離 ClassLoader 中不會自動註冊
+    try {
+      Class.forName(DRIVER_CLASS);
+    } catch (ClassNotFoundException e) {
+      System.err.println("找不到 H2 JDBC driver，請確認已加入 classpath: " + DRIVER_CLASS);
+      throw new RuntimeException(e);
+    }
+    Connection connection = DriverManager.getConnection(connectionURL, USERNAME, PASSWORD);
+    try (Statement statement = connection.createStatement()) {
+      // 相同名稱的資料庫仍在使用中時（例如前一次執行未正常結束），清除後重新建立
+      statement.execute("DROP ALL OBJECTS");
+      for (File script : scripts) {
+        try {
+          statement.execute("RUNSCRIPT FROM '" + script.getAbsolutePath().replace("'", "''") + "' CHARSET 'UTF-8'");
+        } catch (SQLException e) {
+          throw new SQLException("執行 DDL 腳本時發生錯誤: " + script.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+      }
+    } catch (SQLException e) {
+      connection.close();
+      throw e;
+    }
+    System.out.println("已載入 " + scripts.size() + " 個 DDL 腳本");
+    return new DdlDatabase(connectionURL, connection);
+  }
+
+  /**
+   * 資料來源對應的連線 URL
+   *
+   * @param projectDir 專案目錄，不同專案在同一個 daemon 中使用不同的資料庫
+   * @param name       資料來源名稱，未命名時為 null
+   * @param mode       H2 相容模式（例如 MySQL、PostgreSQL、Oracle、MSSQLServer），未設定時使用 H2 本身的語法
+   */
+  public static String connectionUrl(String projectDir, String name, String mode) {
+    String id = SchemaFingerprint.sha256(projectDir + "|" + StringUtils.defaultString(name)).substring(0, 16);
+    StringBuilder url = new StringBuilder(URL_PREFIX).append(id);
+    if (StringUtils.isNotBlank(mode)) {
+      url.append(";MODE=").append(mode.trim());
+    }
+    if (isLowerCase(mode)) {
+      // 與 MySQL、PostgreSQL 相同，未加引號的名稱以小寫保存，產生的類別名稱與實際資料庫相同
+      url.append(";DATABASE_TO_LOWER=TRUE");
+    }
+    return url.toString();
+  }
+
+  /**
+   * 未指定 schema 時讀取的 schema，排除 H2 的 INFORMATION_SCHEMA
+   */
+  public static String defaultSchema(String mode) {
+    return isLowerCase(mode) ? "public" : "PUBLIC";
+  }
+
+  private static boolean isLowerCase(String mode) {
+    String m = StringUtils.defaultString(mode).trim().toLowerCase(Locale.ROOT);
+    return m.equals("mysql") || m.equals("mariadb") || m.equals("postgresql");
+  }
+
+  /**
+   * 取得要執行的腳本並排序
+   *
+   * @param projectDir 相對路徑的基準目錄
+   * @param paths      以逗號分隔的檔案或目錄
+   */
+  public static List<File> resolveScripts(String projectDir, String paths) {
+    List<File> scripts = new ArrayList<>();
+    for (String path : StringUtils.defaultString(paths).split(",")) {
+      if (StringUtils.isBlank(path)) {
+        continue;
+      }
+      File file = new File(path.trim());
+      if (!file.isAbsolute()) {
+        file = new File(projectDir, path.trim());
+      }
+      if (file.isFile()) {
+        scripts.add(file);
+      } else if (file.isDirectory()) {
+        scripts.addAll(scanDirectory(file));
+      } else {
+        throw new IllegalArgumentException("找不到 DDL 腳本: " + file.getAbsolutePath());
+      }
+    }
+    return scripts;
+  }
+
+  private static List<File> scanDirectory(File dir) {
+    try (Stream<Path> paths = Files.walk(dir.toPath())) {
+      return paths.map(Path::toFile)
+        .filter(File::isFile)
+        .filter(file -> file.getName().toLowerCase(Locale.ROOT).endsWith(".sql"))
+        .filter(file -> !UNDO.matcher(file.getName()).matches())
+        .sorted(Comparator.comparingInt(DdlDatabase::category)
+          .thenComparing(DdlDatabase::compareVersion)
+          .thenComparing(File::getName))
+        .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new RuntimeException("讀取 DDL 腳本目錄時發生錯誤: " + dir.getAbsolutePath(), e);
+    }
+  }
+
+  /**
+   * 腳本的執行順序：版本腳本、repeatable 腳本、其他腳本
+   */
+  private static int category(File file) {
+    if (VERSIONED.matcher(file.getName()).matches()) {
+      return 0;
+    }
+    return REPEATABLE.matcher(file.getName()).matches() ? 1 : 2;
+  }
+
+  private static int compareVersion(File a, File b) {
+    long[] va = version(a);
+    long[] vb = version(b);
+    if (Objects.isNull(va) || Objects.isNull(vb)) {
+      return 0;
+    }
+    for (int i = 0; i < Math.max(va.length, vb.length); i++) {
+      long x = i < va.length ? va[i] : 0;
+      long y = i < vb.length ? vb[i] : 0;
+      if (x != y) {
+        return Long.compare(x, y);
+      }
+    }
+    return 0;
+  }
+
+  private static long[] version(File file) {
+    Matcher matcher = VERSIONED.matcher(file.getName());
+    if (!matcher.matches()) {
+      return null;
+    }
+    String[] parts = matcher.group(1).split("[._]");
+    long[] version = new long[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      version[i] = Long.parseLong(parts[i]);
+    }
+    return version;
+  }
+
+  /**
+   * 以腳本的名稱與內容計算 schema 指紋，腳本未變更時可直接使用 schema 快照
+   */
+  public static String fingerprint(List<File> scripts) {
+    StringBuilder builder = new StringBuilder();
+    for (File script : scripts) {
+      try {
+        builder.append(script.getName()).append(':')
+          .append(SchemaFingerprint.sha256(new String(Files.readAllBytes(script.toPath()), StandardCharsets.UTF_8)))
+          .append('\n');
+      } catch (IOException e) {
+        throw new RuntimeException("讀取 DDL 腳本時發生錯誤: " + script.getAbsolutePath(), e);
+      }
+    }
+    return SchemaFingerprint.sha256(builder.toString());
+  }
+
+  public String getConnectionURL() {
+    return connectionURL;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    connection.close();
+  }
+}
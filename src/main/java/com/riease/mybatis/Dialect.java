@@ -0,0 +1,17 @@
+package com.riease.mybatis;
+
+/**
+ * 資料庫方言，用於決定 metadata 讀取時可使用的 catalog 查詢方式。
+ */
+public enum Dialect {
+  /** MySQL / MariaDB，以 information_schema 讀取 */
+  MYSQL,
+  /** PostgreSQL，以 pg_catalog 讀取 */
+  POSTGRESQL,
+  /** Oracle，以 ALL_CONSTRAINTS / ALL_CONS_COLUMNS 讀取 */
+  ORACLE,
+  /** SQL Server，以 INFORMATION_SCHEMA 讀取 */
+  SQLSERVER,
+  /** SQLite，以 sqlite_master 搭配 pragma table-valued function 讀取 */
+  SQLITE
+}
@@ -0,0 +1,145 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * 以 Eclipse JDT 的 formatter 格式化 Java 檔案，設定與 Spotless 使用的 mybatis-code-formatter.xml 相同。
+ * <p>
+ * JDT 不是 plugin 的相依套件，只在 classpath 中有 JDT 時可用（mybatisWatch 任務會加入），
+ * 因此以反射呼叫，沒有 JDT 時 {@link #create(File)} 回傳 null。
+ */
+public class EclipseJavaFormatter {
+
+  /** plugin 內建的 formatter 設定檔 */
+  public static final String DEFAULT_CONFIG_RESOURCE = "config/mybatis-code-formatter.xml";
+
+  private static final String TOOL_FACTORY_CLASS = "org.eclipse.jdt.core.ToolFactory";
+  private static final String CODE_FORMATTER_CLASS = "org.eclipse.jdt.core.formatter.CodeFormatter";
+  private static final String DOCUMENT_CLASS = "org.eclipse.jface.text.Document";
+  private static final String DOCUMENT_INTERFACE = "org.eclipse.jface.text.IDocument";
+
+  private final Object codeFormatter;
+  private final Method format;
+  private final int kind;
+  private final Class<?> documentClass;
+  private final Class<?> documentInterface;
+
+  private EclipseJavaFormatter(Map<String, String> options) throws ReflectiveOperationException {
+    ClassLoader classLoader = EclipseJavaFormatter.class.getClassLoader();
+    Class<?> toolFactory = Class.forName(TOOL_FACTORY_CLASS, true, classLoader);
+    Class<?> codeFormatterClass = Class.forName(CODE_FORMATTER_CLASS, true, classLoader);
+    this.codeFormatter = toolFactory.getMethod("createCodeFormatter", Map.class).invoke(null, options);
+    this.format = codeFormatterClass.getMethod("format", int.class, String.class, int.class, int.class, int.class,
+      String.class);
+    this.kind = codeFormatterClass.getField("K_COMPILATION_UNIT").getInt(null)
+      | codeFormatterClass.getField("F_INCLUDE_COMMENTS").getInt(null);
+    this.documentClass = Class.forName(DOCUMENT_CLASS, true, classLoader);
+    this.documentInterface = Class.forName(DOCUMENT_INTERFACE, true, classLoader);
+  }
+
+  /**
+   * 建立 formatter
+   *
+   * @param configFile formatter 設定檔，不存在時使用 plugin 內建的設定
+   * @return classpath 中沒有 Eclipse JDT 時回傳 null
+   */
+  public static EclipseJavaFormatter create(File configFile) throws IOException {
+    Map<String, String> options;
+    if (Objects.nonNull(configFile) && configFile.isFile()) {
+      try (InputStream in = Files.newInputStream(configFile.toPath())) {
+        options = readOptions(in);
+      }
+    } else {
+      try (InputStream in = EclipseJavaFormatter.class.getClassLoader().getResourceAsStream(DEFAULT_CONFIG_RESOURCE)) {
+        if (Objects.isNull(in)) {
+          throw new IOException("找不到 formatter 設定檔: " + DEFAULT_CONFIG_RESOURCE);
+        }
+        options = readOptions(in);
+      }
+    }
+    try {
+      return new EclipseJavaFormatter(options);
+    } catch (ClassNotFoundException | NoClassDefFoundError e) {
+      return null;
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("無法建立 Eclipse formatter", e);
+    }
+  }
+
+  /**
+   * 格式化檔案，內容不變時不寫入
+   *
+   * @return 檔案內容有變更時回傳 true；無法解析的檔案維持原樣並回傳 false
+   */
+  public boolean format(File file) throws IOException {
+    String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    String formatted = format(source);
+    if (Objects.isNull(formatted) || formatted.equals(source)) {
+      return false;
+    }
+    Files.write(file.toPath(), formatted.getBytes(StandardCharsets.UTF_8));
+    return true;
+  }
+
+  /**
+   * @return 格式化後的內容，無法解析時回傳 null
+   */
+  public String format(String source) {
+    String lineSeparator = source.contains("\r\n") ? "\r\n" : "\n";
+    try {
+      Object edit = format.invoke(codeFormatter, kind, source, 0, source.length(), 0, lineSeparator);
+      if (Objects.isNull(edit)) {
+        return null;
+      }
+      Object document = documentClass.getConstructor(String.class).newInstance(source);
+      edit.getClass().getMethod("apply", documentInterface).invoke(edit, document);
+      return (String) documentClass.getMethod("get").invoke(document);
+    } catch (InvocationTargetException e) {
+      throw new RuntimeException("格式化失敗", e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("格式化失敗", e);
+    }
+  }
+
+  /**
+   * 讀取 Eclipse formatter 設定檔中的 setting
+   */
+  static Map<String, String> readOptions(InputStream in) throws IOException {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    Map<String, String> options = new HashMap<>();
+    try {
+      XMLStreamReader reader = factory.createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT && "setting".equals(reader.getLocalName())) {
+            String id = reader.getAttributeValue(null, "id");
+            String value = reader.getAttributeValue(null, "value");
+            if (Objects.nonNull(id) && Objects.nonNull(value)) {
+              options.put(id, value);
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("無法解析 formatter 設定檔", e);
+    }
+    return options;
+  }
+}
@@ -0,0 +1,103 @@
+package com.riease.mybatis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 依外鍵產生 join 查詢的資料表，寫入設定檔 table 的 joins 屬性，由 JoinSelectPlugin 產生查詢方法。
+ * <p>
+ * joins 為以逗號分隔的 {@code 外鍵欄位:參照資料表.參照欄位}；只使用參照對象為單一欄位主鍵的外鍵，
+ * 確保每筆資料最多 join 一筆，複合外鍵與參照非主鍵欄位的外鍵不處理，參照的資料表也需一併加入設定檔。
+ * <p>
+ * 載入多層參照時，參照的資料表之後以括號接著該資料表的 joins，例如 {@code a_id:a.id(b_id:b.id)}，
+ * 對應參照資料表自己的 join 查詢結果。指定的資料表載入 depth 層，其參照的資料表在 depth 大於 1 時載入 depth - 1 層，
+ * 依此類推；同一個資料表被不同層數參照時取較大的值，此時層數不相符的參照只載入一層。
+ * 設定檔中已存在的資料表不會寫入 joins，參照時只載入一層。
+ */
+final class ForeignKeyJoins {
+
+  private ForeignKeyJoins() {
+  }
+
+  /**
+   * @param tables         要加入設定檔的資料表
+   * @param existingTables 設定檔中已存在的資料表名稱（小寫）
+   * @param filter         指定的資料表
+   * @param depth          指定資料表載入的參照層數
+   * @return key 為資料表名稱（小寫），值為 joins 屬性，只包含有可 join 外鍵的資料表
+   */
+  static Map<String, String> of(List<TableMeta> tables, Set<String> existingTables, TableFilter filter, int depth) {
+    Map<String, TableMeta> tablesByName = new HashMap<>();
+    for (TableMeta tableMeta : tables) {
+      tablesByName.put(tableMeta.getTableName().toLowerCase(Locale.ROOT), tableMeta);
+    }
+    Map<String, List<String[]>> edges = new HashMap<>();
+    for (TableMeta tableMeta : tables) {
+      List<String[]> joinable = new ArrayList<>();
+      for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+        TableMeta reference = tablesByName.get(foreignKey.getReferenceTable().toLowerCase(Locale.ROOT));
+        if (Objects.nonNull(reference) && reference.getPrimaryKeys().size() == 1
+          && reference.getPrimaryKeys().get(0).equalsIgnoreCase(foreignKey.getReferenceColumn())) {
+          // 參照的資料表名稱（小寫）與 joins 中的寫法
+          joinable.add(new String[] {reference.getTableName().toLowerCase(Locale.ROOT),
+            foreignKey.getColumnName() + ":" + reference.getTableName() + "." + reference.getPrimaryKeys().get(0)});
+        }
+      }
+      // 設定檔中的資料表名稱不分大小寫
+      String name = tableMeta.getTableName().toLowerCase(Locale.ROOT);
+      if (!joinable.isEmpty() && !existingTables.contains(name)) {
+        edges.put(name, joinable);
+      }
+    }
+
+    // 由指定的資料表開始往參照的資料表遞減層數，層數只會變大，且每次遞減 1，因此有循環參照時也會結束
+    Map<String, Integer> depths = new LinkedHashMap<>();
+    Deque<String> queue = new ArrayDeque<>();
+    for (TableMeta tableMeta : tables) {
+      String name = tableMeta.getTableName().toLowerCase(Locale.ROOT);
+      if (edges.containsKey(name) && filter.accept(tableMeta.getTableName())) {
+        depths.put(name, depth);
+        queue.add(name);
+      }
+    }
+    while (!queue.isEmpty()) {
+      String name = queue.poll();
+      int next = depths.get(name) - 1;
+      for (String[] edge : edges.get(name)) {
+        if (next >= 1 && edges.containsKey(edge[0]) && depths.getOrDefault(edge[0], 0) < next) {
+          depths.put(edge[0], next);
+          queue.add(edge[0]);
+        }
+      }
+    }
+
+    Map<String, String> joins = new LinkedHashMap<>();
+    for (String name : depths.keySet()) {
+      joins.put(name, joins(name, edges, depths));
+    }
+    return joins;
+  }
+
+  /**
+   * 參照資料表的層數剛好少 1 時才接著其 joins，層數沿路徑遞減，因此不會無限遞迴
+   */
+  private static String joins(String name, Map<String, List<String[]>> edges, Map<String, Integer> depths) {
+    List<String> joins = new ArrayList<>();
+    for (String[] edge : edges.get(name)) {
+      if (depths.containsKey(edge[0]) && depths.get(edge[0]) == depths.get(name) - 1) {
+        joins.add(edge[1] + "(" + joins(edge[0], edges, depths) + ")");
+      } else {
+        joins.add(edge[1]);
+      }
+    }
+    return String.join(",", joins);
+  }
+}
@@ -1,34 +1,30 @@
 package com.riease.mybatis;
 
-public class ForeignKeyMeta {
-  /** 外鍵欄位名稱 */
-  String columnName;
-  /** 參照的資料表名稱 */
-  String referenceTable;
-  /** 參照的欄位名稱 */
-  String referenceColumn;
+/**
+ * {@link TableMeta} 中單一外鍵的唯讀 view，不另外保存外鍵內容。
+ */
+public final class ForeignKeyMeta {
 
-  public String getColumnName() {
-    return columnName;
-  }
+  private final TableMeta table;
+  private final int index;
 
-  public void setColumnName(String columnName) {
-    this.columnName = columnName;
+  ForeignKeyMeta(TableMeta table, int index) {
+    this.table = table;
+    this.index = index;
   }
 
-  public String getReferenceTable() {
-    return referenceTable;
+  /** 外鍵欄位名稱 */
+  public String getColumnName() {
+    return table.foreignKeyColumn(index);
   }
 
-  public void setReferenceTable(String referenceTable) {
-    this.referenceTable = referenceTable;
+  /** 參照的資料表名稱 */
+  public String getReferenceTable() {
+    return table.foreignKeyTable(index);
   }
 
+  /** 參照的欄位名稱 */
   public String getReferenceColumn() {
-    return referenceColumn;
-  }
-
-  public void setReferenceColumn(String referenceColumn) {
-    this.referenceColumn = referenceColumn;
+    return table.foreignKeyReferenceColumn(index);
   }
 }
@@ -0,0 +1,105 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 記錄上一次 mybatisGenerate 產生過的資料表，包含簽章與產出的檔案。
+ * <p>
+ * 以 properties 檔保存，key 為 {@code <contextId>.<tableName>}：
+ * <ul>
+ *   <li>{@code <key>.signature}：資料表 metadata 與 table 設定的簽章</li>
+ *   <li>{@code <key>.files}：產出的檔案路徑，以逗號分隔</li>
+ * </ul>
+ * 另以 {@code context.signature} 記錄 table 以外的設定內容，設定有變更時需全部重新產生。
+ */
+public class GeneratedTableState {
+
+  /** 預設狀態檔位置，相對於專案目錄 */
+  public static final String DEFAULT_PATH = "build-tools/mybatis/generated-tables.properties";
+
+  private static final String SIGNATURE_SUFFIX = ".signature";
+  private static final String FILES_SUFFIX = ".files";
+  private static final String CONTEXT_SIGNATURE = "context.signature";
+
+  private final Properties properties = new Properties();
+
+  public static GeneratedTableState load(File file) throws IOException {
+    GeneratedTableState state = new GeneratedTableState();
+    if (file.isFile()) {
+      try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+        state.properties.load(reader);
+      }
+    }
+    return state;
+  }
+
+  public void save(File file) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (!parent.exists() && !parent.mkdirs()) {
+      throw new IOException("無法建立目錄: " + parent.getAbsolutePath());
+    }
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      properties.store(writer, "MyBatis Generator generated tables");
+    }
+  }
+
+  public String getContextSignature() {
+    return properties.getProperty(CONTEXT_SIGNATURE);
+  }
+
+  public void setContextSignature(String signature) {
+    properties.setProperty(CONTEXT_SIGNATURE, signature);
+  }
+
+  /**
+   * 取得所有已記錄的資料表 key
+   */
+  public Set<String> getTableKeys() {
+    Set<String> keys = new TreeSet<>();
+    for (String name : properties.stringPropertyNames()) {
+      if (name.endsWith(SIGNATURE_SUFFIX) && !CONTEXT_SIGNATURE.equals(name)) {
+        keys.add(StringUtils.removeEnd(name, SIGNATURE_SUFFIX));
+      }
+    }
+    return keys;
+  }
+
+  public String getSignature(String tableKey) {
+    return properties.getProperty(tableKey + SIGNATURE_SUFFIX);
+  }
+
+  public List<String> getFiles(String tableKey) {
+    String files = properties.getProperty(tableKey + FILES_SUFFIX);
+    if (StringUtils.isBlank(files)) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(Arrays.asList(files.split(",")));
+  }
+
+  public void put(String tableKey, String signature, List<String> files) {
+    properties.setProperty(tableKey + SIGNATURE_SUFFIX, signature);
+    properties.setProperty(tableKey + FILES_SUFFIX, String.join(",", files));
+  }
+
+  public void remove(String tableKey) {
+    properties.remove(tableKey + SIGNATURE_SUFFIX);
+    properties.remove(tableKey + FILES_SUFFIX);
+  }
+
+  public static String tableKey(String contextId, String tableName) {
+    return contextId + "." + tableName;
+  }
+}
@@ -0,0 +1,65 @@
+package com.riease.mybatis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 一次 MyBatisGenerator 執行的範圍：單一 context 中的部分資料表。
+ * <p>
+ * 以資料表欄位數作為產生成本，依 LPT（Longest Processing Time first）分配：
+ * 由成本高的資料表開始，每次放入目前成本最低的 shard，讓各 shard 的成本接近。
+ */
+public class GenerationShard {
+
+  private final String contextId;
+  /** 完整限定的資料表名稱，作為 MyBatisGenerator#generate 的 fullyQualifiedTableNames */
+  private final Set<String> tables = new LinkedHashSet<>();
+  private long weight;
+
+  public GenerationShard(String contextId) {
+    this.contextId = contextId;
+  }
+
+  public String getContextId() {
+    return contextId;
+  }
+
+  public Set<String> getTables() {
+    return tables;
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  /**
+   * 將單一 context 的資料表分配到最多 shardCount 個 shard
+   *
+   * @param contextId  context id
+   * @param weights    key 為完整限定的資料表名稱，值為產生成本
+   * @param shardCount shard 數量上限
+   * @return 不含空 shard 的列表
+   */
+  public static List<GenerationShard> partition(String contextId, Map<String, Long> weights, int shardCount) {
+    int count = Math.max(1, Math.min(shardCount, weights.size()));
+    List<GenerationShard> shards = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      shards.add(new GenerationShard(contextId));
+    }
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(weights.entrySet());
+    // 成本相同時依名稱排序，確保每次分配結果相同
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+    for (Map.Entry<String, Long> entry : entries) {
+      GenerationShard lightest = shards.stream().min(Comparator.comparingLong(GenerationShard::getWeight)).orElse(null);
+      Objects.requireNonNull(lightest).tables.add(entry.getKey());
+      lightest.weight += entry.getValue();
+    }
+    shards.removeIf(shard -> shard.tables.isEmpty());
+    return shards;
+  }
+}
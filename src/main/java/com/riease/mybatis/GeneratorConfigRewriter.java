@@ -0,0 +1,878 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 以 StAX 串流方式改寫 mybatis-generator-config.xml，一次讀寫完成：
+ * <ol>
+ *   <li>替換 jdbcConnection 的 driverClass 與 connectionURL</li>
+ *   <li>替換 javaModelGenerator 與 javaClientGenerator 的 targetPackage</li>
+ *   <li>在 context 結尾加入尚未存在的 table 定義；啟用 primitiveTypes 時，NOT NULL 的數值與布林欄位
+ *   加入 columnOverride 改用基本型別（見 {@link PrimitiveColumnType}）；啟用 cacheLookupTables 時，
+ *   參照用的資料表加入 cache 屬性，由 CacheNamespacePlugin 產生 {@code @CacheNamespace}；設定 joinTables 時，
+ *   符合的資料表加入外鍵的 joins 屬性（見 {@link ForeignKeyJoins}），由 JoinSelectPlugin 產生 join 查詢；
+ *   啟用 indexSelectors 時，加入唯一索引與索引開頭欄位的屬性（見 {@link TableIndexes}），由 IndexSelectorPlugin
+ *   產生 selectBy 與 existsBy 查詢；已存在的 table 定義不改寫，缺少這些屬性時輸出資料表名稱</li>
+ * </ol>
+ * 只有一個未命名的資料來源時，改寫第一個 context。
+ * <p>
+ * 多資料來源時，每個資料來源對應 id 相同的 context；設定檔中沒有對應 context 的資料來源，
+ * 會以第一個 context（不含 table 定義）為範本，在 generatorConfiguration 結尾建立新的 context。
+ * 第一個 context 的 id 不屬於任何資料來源時，視為範本，不會保留在輸出中。
+ * <p>
+ * 讀取過程只保留已存在 table 的名稱、其 property 名稱與範本 context 的內容，記憶體用量不隨 table 定義的內容增加。
+ */
+public class GeneratorConfigRewriter {
+
+  /** generatorConfiguration 下 context 元素的縮排 */
+  private static final String CONTEXT_INDENT = "  ";
+  /** context 下 table 元素的縮排 */
+  private static final String TABLE_INDENT = "    ";
+  /** table 下 columnOverride 元素的縮排 */
+  private static final String COLUMN_INDENT = "      ";
+
+  /** {@link #readSignatures(File)} 中 table 以外設定的簽章；table 的 key 一定含有 '.'，不會與此 key 相同 */
+  public static final String CONTEXT_SIGNATURE_KEY = "";
+
+  /** 根元素的層級 */
+  private static final int ROOT_DEPTH = 1;
+  /** context 元素的層級 */
+  private static final int CONTEXT_DEPTH = 2;
+  /** table 等 context 子元素的層級 */
+  private static final int TABLE_DEPTH = 3;
+  /** table 下 property 等元素的層級 */
+  private static final int PROPERTY_DEPTH = 4;
+
+  private final String targetPackage;
+  /** 是否為多資料來源，此時以 context id 對應資料來源 */
+  private final boolean multiple;
+  private final Map<String, ContextState> contextStates = new LinkedHashMap<>();
+
+  private XMLStreamWriter writer;
+  private int depth;
+  private boolean templateSeen;
+  /** 目前所在 context 的改寫狀態，為 null 時原樣輸出 */
+  private ContextState currentState;
+  /** 目前所在的已存在 table 名稱（小寫），用於記錄其 property */
+  private String currentTable;
+  /** 目前的 context 是否不輸出（作為範本的第一個 context） */
+  private boolean suppressed;
+  /** 重新輸出範本時所使用的狀態 */
+  private ContextState replayState;
+  /** 範本 context 的內容，不含 table 定義 */
+  private List<Token> template = new ArrayList<>();
+  private boolean recording;
+  /** 錄製範本時略過的 table 元素層級，0 表示未略過 */
+  private int skipDepth;
+  /** 暫存的空白，遇到 context 結尾時放在新增的 table 之後，維持原本結尾的縮排 */
+  private final StringBuilder pendingWhitespace = new StringBuilder();
+  /** 是否輸出每個資料表的處理訊息 */
+  private boolean verbose;
+  /** NOT NULL 的數值與布林欄位是否改用基本型別 */
+  private boolean primitiveTypes;
+  /** 是否為參照用的資料表加入 cache 屬性 */
+  private boolean cacheLookupTables;
+  /** 產生外鍵 join 查詢的資料表樣式，為空時不加入 joins 屬性 */
+  private String joinTables;
+  /** join 查詢載入的參照層數 */
+  private int joinDepth = 1;
+  /** 是否加入索引欄位的屬性 */
+  private boolean indexSelectors;
+
+  /**
+   * @param targetPackage  產出檔案的基礎套件
+   * @param dataSources    資料來源，只有一個且 name 為 null 時改寫第一個 context
+   * @param tablesToAppend 各資料來源要加入的資料表，key 為資料來源名稱，值為 null 時不處理 table 定義
+   */
+  public GeneratorConfigRewriter(String targetPackage, List<DataSourceParameter> dataSources,
+    Map<String, List<TableMeta>> tablesToAppend) {
+    this.targetPackage = targetPackage;
+    this.multiple = dataSources.size() > 1 || Objects.nonNull(dataSources.get(0).getName());
+    for (DataSourceParameter dataSource : dataSources) {
+      contextStates.put(StringUtils.defaultString(dataSource.getName()),
+        new ContextState(dataSource, tablesToAppend.get(StringUtils.defaultString(dataSource.getName()))));
+    }
+  }
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  public boolean isPrimitiveTypes() {
+    return primitiveTypes;
+  }
+
+  public void setPrimitiveTypes(boolean primitiveTypes) {
+    this.primitiveTypes = primitiveTypes;
+  }
+
+  public boolean isCacheLookupTables() {
+    return cacheLookupTables;
+  }
+
+  public void setCacheLookupTables(boolean cacheLookupTables) {
+    this.cacheLookupTables = cacheLookupTables;
+  }
+
+  public String getJoinTables() {
+    return joinTables;
+  }
+
+  public void setJoinTables(String joinTables) {
+    this.joinTables = joinTables;
+  }
+
+  public int getJoinDepth() {
+    return joinDepth;
+  }
+
+  public void setJoinDepth(int joinDepth) {
+    this.joinDepth = joinDepth;
+  }
+
+  public boolean isIndexSelectors() {
+    return indexSelectors;
+  }
+
+  public void setIndexSelectors(boolean indexSelectors) {
+    this.indexSelectors = indexSelectors;
+  }
+
+  /**
+   * 改寫設定檔，先寫到暫存檔再取代原檔
+   */
+  public void rewrite(File file) throws IOException, XMLStreamException {
+    File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    try (InputStream in = Files.newInputStream(file.toPath());
+         OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+      XMLStreamReader reader = createInputFactory().createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+      this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+      try {
+        rewrite(reader);
+      } finally {
+        reader.close();
+        writer.close();
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+    for (ContextState state : contextStates.values()) {
+      String context = multiple ? "context " + state.dataSource.getName() + " 中" : "";
+      if (Objects.nonNull(state.tablesToAppend)) {
+        System.out.println(context + "加入 " + state.appendedTables + " 個資料表，跳過 " + state.skippedTables
+          + " 個已存在的資料表");
+      }
+      for (Map.Entry<String, List<String>> entry : state.skippedProperties.entrySet()) {
+        System.err.println(context + "已存在的 table 定義不會加入 " + entry.getKey()
+          + " 屬性，請手動加入或以 mybatis.generator.copy.overwrite=true 重新建立設定檔: "
+          + String.join(", ", entry.getValue()));
+      }
+      if (!state.jdbcConnectionFound) {
+        System.err.println(context + "找不到 jdbcConnection 元素，請檢查 mybatis-generator-config.xml 的結構。");
+      }
+      if (!state.javaModelFound) {
+        System.err.println(context + "找不到 javaModelGenerator 元素，請檢查 mybatis-generator-config.xml 的結構。");
+      } else if (!state.javaClientFound) {
+        System.err.println(context + "找不到 javaClientGenerator 元素，請檢查 mybatis-generator-config.xml 的結構。");
+      }
+    }
+  }
+
+  /**
+   * 讀取各 context 下 table 元素的屬性（例如 tableName、catalog、schema、domainObjectName），不改寫檔案
+   *
+   * @return key 為 context id，值為各 table 的屬性，皆依設定檔中的順序排列
+   */
+  public static Map<String, List<Map<String, String>>> readTableAttributes(File file)
+    throws IOException, XMLStreamException {
+    Map<String, List<Map<String, String>>> tables = new LinkedHashMap<>();
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      XMLStreamReader reader = createInputFactory().createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+      try {
+        int depth = 0;
+        List<Map<String, String>> contextTables = null;
+        while (reader.hasNext()) {
+          int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+            if (depth == CONTEXT_DEPTH && "context".equals(reader.getLocalName())) {
+              contextTables = tables.computeIfAbsent(
+                StringUtils.defaultString(reader.getAttributeValue(null, "id")), id -> new ArrayList<>());
+            } else if (depth == TABLE_DEPTH && "table".equals(reader.getLocalName()) && contextTables != null) {
+              Map<String, String> attributes = new LinkedHashMap<>();
+              for (int i = 0; i < reader.getAttributeCount(); i++) {
+                attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+              }
+              contextTables.add(attributes);
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            if (depth == CONTEXT_DEPTH) {
+              contextTables = null;
+            }
+            depth--;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * 讀取各 context 中 javaModelGenerator、sqlMapGenerator 與 javaClientGenerator 的產出目錄，不改寫檔案
+   *
+   * @return targetProject 加上 targetPackage 轉換的路徑，例如 src/main/java/com/example/dao/entity
+   */
+  public static Set<String> readTargetDirectories(File file) throws IOException, XMLStreamException {
+    Set<String> directories = new LinkedHashSet<>();
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      XMLStreamReader reader = createInputFactory().createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+      try {
+        int depth = 0;
+        while (reader.hasNext()) {
+          int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+            String name = reader.getLocalName();
+            if (depth == TABLE_DEPTH && ("javaModelGenerator".equals(name) || "sqlMapGenerator".equals(name)
+              || "javaClientGenerator".equals(name))) {
+              String targetProject = reader.getAttributeValue(null, "targetProject");
+              String targetPackage = reader.getAttributeValue(null, "targetPackage");
+              if (StringUtils.isNotBlank(targetProject)) {
+                directories.add(StringUtils.isBlank(targetPackage) ? targetProject
+                  : targetProject + "/" + targetPackage.replace('.', '/'));
+              }
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return directories;
+  }
+
+  /**
+   * 計算 incremental 產生所需的設定簽章，不改寫檔案，也不保留整份文件。
+   * 元素以名稱、屬性與非空白文字組成內容，不含註解與縮排，只調整格式或註解時簽章不變。
+   *
+   * @return key 為 {@link #CONTEXT_SIGNATURE_KEY} 時為移除 table 元素後的設定簽章；
+   * 其餘 key 為 {@link GeneratedTableState#tableKey(String, String)}，值為該 table 元素的簽章
+   */
+  public static Map<String, String> readSignatures(File file) throws IOException, XMLStreamException {
+    Map<String, String> signatures = new LinkedHashMap<>();
+    StringBuilder contextContent = new StringBuilder();
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      XMLStreamReader reader = createInputFactory().createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+      try {
+        int depth = 0;
+        String contextId = null;
+        String tableKey = null;
+        // 目前 table 元素的內容，不在 table 中時寫入 contextContent
+        StringBuilder tableContent = null;
+        while (reader.hasNext()) {
+          int event = reader.next();
+          StringBuilder content = tableContent != null ? tableContent : contextContent;
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+            if (depth == CONTEXT_DEPTH && "context".equals(reader.getLocalName())) {
+              contextId = StringUtils.defaultString(reader.getAttributeValue(null, "id"));
+            } else if (depth == TABLE_DEPTH && "table".equals(reader.getLocalName())) {
+              tableKey = GeneratedTableState.tableKey(contextId, reader.getAttributeValue(null, "tableName"));
+              tableContent = new StringBuilder();
+              content = tableContent;
+            }
+            content.append('<').append(reader.getLocalName());
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              content.append(' ').append(reader.getAttributeLocalName(i)).append("=\"")
+                .append(reader.getAttributeValue(i)).append('"');
+            }
+            content.append('>');
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            content.append("</").append(reader.getLocalName()).append('>');
+            if (depth == TABLE_DEPTH && tableContent != null) {
+              // 同一個 context 中相同名稱的 table 元素，簽章一併計算
+              String previous = signatures.get(tableKey);
+              String signature = SchemaFingerprint.sha256(tableContent.toString());
+              signatures.put(tableKey, previous == null ? signature : SchemaFingerprint.sha256(previous + signature));
+              tableContent = null;
+            }
+            depth--;
+          } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+            if (!reader.isWhiteSpace()) {
+              content.append(reader.getText().trim());
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    signatures.put(CONTEXT_SIGNATURE_KEY, SchemaFingerprint.sha256(contextContent.toString()));
+    return signatures;
+  }
+
+  /**
+   * 以 cursor API 逐一讀取事件，保留屬性順序、註解、DOCTYPE 與空元素的寫法
+   */
+  private void rewrite(XMLStreamReader reader) throws XMLStreamException {
+    writer.writeStartDocument(StringUtils.defaultIfBlank(reader.getCharacterEncodingScheme(), StandardCharsets.UTF_8.name()),
+      StringUtils.defaultIfBlank(reader.getVersion(), "1.0"));
+    writer.writeCharacters(System.lineSeparator());
+
+    int event = reader.next();
+    while (event != XMLStreamConstants.END_DOCUMENT) {
+      // 預先讀取的下一個事件，用於判斷空元素
+      int lookahead = -1;
+      Token token = new Token(event);
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          token.name = reader.getLocalName();
+          token.attributes = readAttributes(reader);
+          lookahead = reader.next();
+          if (lookahead == XMLStreamConstants.END_ELEMENT) {
+            token.empty = true;
+            lookahead = -1;
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          token.text = reader.getText();
+          token.whitespace = event == XMLStreamConstants.SPACE || reader.isWhiteSpace();
+          break;
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.COMMENT:
+        case XMLStreamConstants.DTD:
+          token.text = reader.getText();
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          token.name = reader.getPITarget();
+          token.text = reader.getPIData();
+          break;
+        default:
+          break;
+      }
+      handle(token);
+      event = lookahead >= 0 ? lookahead : reader.next();
+    }
+    writer.writeCharacters(System.lineSeparator());
+    writer.writeEndDocument();
+  }
+
+  private void handle(Token token) throws XMLStreamException {
+    switch (token.type) {
+      case XMLStreamConstants.START_ELEMENT:
+        startElement(token);
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        endElement(token);
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        if (token.whitespace && depth >= ROOT_DEPTH) {
+          pendingWhitespace.append(token.text);
+          record(token);
+        } else {
+          write(token);
+        }
+        break;
+      case XMLStreamConstants.DTD:
+        writer.writeDTD(token.text);
+        writer.writeCharacters(System.lineSeparator());
+        break;
+      default:
+        write(token);
+        break;
+    }
+  }
+
+  private void startElement(Token token) throws XMLStreamException {
+    depth++;
+    Map<String, String> attributes = new LinkedHashMap<>(token.attributes);
+    if (depth == CONTEXT_DEPTH && "context".equals(token.name)) {
+      beginContext(attributes);
+    } else if (depth == TABLE_DEPTH && "table".equals(token.name)) {
+      if (currentState != null) {
+        currentTable = StringUtils.lowerCase(attributes.get("tableName"), Locale.ROOT);
+        currentState.existingTables.add(currentTable);
+      }
+      // 範本不包含 table 定義與其前方的註解
+      if (recording) {
+        removeTrailingComments();
+        skipDepth = depth;
+      }
+    } else if (depth == PROPERTY_DEPTH && "property".equals(token.name) && currentTable != null) {
+      currentState.existingProperties.computeIfAbsent(currentTable, k -> new HashSet<>()).add(attributes.get("name"));
+    }
+    record(token);
+
+    if (currentState != null) {
+      rewriteAttributes(currentState, token.name, attributes);
+    }
+    if (!suppressed) {
+      flushWhitespace();
+      if (token.empty) {
+        writer.writeEmptyElement(token.name);
+      } else {
+        writer.writeStartElement(token.name);
+      }
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        writer.writeAttribute(attribute.getKey(), attribute.getValue());
+      }
+    }
+    if (token.empty) {
+      closeElement();
+    }
+  }
+
+  private void beginContext(Map<String, String> attributes) {
+    boolean first = !templateSeen && replayState == null;
+    templateSeen = true;
+    if (replayState != null) {
+      currentState = replayState;
+      attributes.put("id", replayState.dataSource.getName());
+    } else if (!multiple) {
+      currentState = first ? contextStates.get("") : null;
+    } else {
+      currentState = contextStates.get(StringUtils.defaultString(attributes.get("id")));
+    }
+    if (currentState != null && currentState.written) {
+      System.err.println("context " + attributes.get("id") + " 重複出現，只改寫第一個。");
+      currentState = null;
+    }
+    // 多資料來源時，第一個 context 若不屬於任何資料來源，只作為範本
+    suppressed = multiple && first && currentState == null;
+    if (suppressed) {
+      pendingWhitespace.setLength(0);
+    }
+    recording = first;
+    if (recording) {
+      template = new ArrayList<>();
+    }
+  }
+
+  private void endElement(Token token) throws XMLStreamException {
+    if (depth == CONTEXT_DEPTH && currentState != null) {
+      // context 結尾，加入尚未存在的 table
+      appendTables(currentState);
+      currentState.written = true;
+    } else if (depth == ROOT_DEPTH) {
+      // 根元素結尾，為沒有對應 context 的資料來源以範本建立 context
+      for (ContextState state : contextStates.values()) {
+        if (!state.written && multiple) {
+          replayTemplate(state);
+        }
+      }
+    }
+    record(token);
+    if (!suppressed) {
+      flushWhitespace();
+      writer.writeEndElement();
+    }
+    closeElement();
+  }
+
+  private void closeElement() {
+    if (skipDepth == depth) {
+      skipDepth = 0;
+    }
+    if (depth == TABLE_DEPTH) {
+      currentTable = null;
+    }
+    if (depth == CONTEXT_DEPTH) {
+      if (suppressed) {
+        pendingWhitespace.setLength(0);
+      }
+      currentState = null;
+      suppressed = false;
+      recording = false;
+    }
+    depth--;
+  }
+
+  private void replayTemplate(ContextState state) throws XMLStreamException {
+    if (template.isEmpty()) {
+      System.err.println("找不到可作為範本的 context，無法建立 context " + state.dataSource.getName());
+      return;
+    }
+    System.out.println("以第一個 context 為範本建立 context " + state.dataSource.getName());
+    String rootWhitespace = pendingWhitespace.toString();
+    pendingWhitespace.setLength(0);
+    writer.writeCharacters(System.lineSeparator() + CONTEXT_INDENT);
+    replayState = state;
+    for (Token token : template) {
+      handle(token);
+    }
+    replayState = null;
+    pendingWhitespace.append(rootWhitespace);
+  }
+
+  private void write(Token token) throws XMLStreamException {
+    record(token);
+    if (suppressed) {
+      return;
+    }
+    flushWhitespace();
+    switch (token.type) {
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        writer.writeCharacters(token.text);
+        break;
+      case XMLStreamConstants.CDATA:
+        writer.writeCData(token.text);
+        break;
+      case XMLStreamConstants.COMMENT:
+        writer.writeComment(token.text);
+        break;
+      case XMLStreamConstants.PROCESSING_INSTRUCTION:
+        writer.writeProcessingInstruction(token.name, token.text);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void flushWhitespace() throws XMLStreamException {
+    writer.writeCharacters(pendingWhitespace.toString());
+    pendingWhitespace.setLength(0);
+  }
+
+  /**
+   * 錄製範本 context 的內容，略過 table 元素
+   */
+  private void record(Token token) {
+    if (recording && replayState == null && skipDepth == 0) {
+      template.add(token);
+    }
+  }
+
+  /**
+   * 移除範本結尾的空白與註解，通常為 table 定義的說明
+   */
+  private void removeTrailingComments() {
+    while (!template.isEmpty()) {
+      Token last = template.get(template.size() - 1);
+      if (last.type != XMLStreamConstants.COMMENT && !last.whitespace) {
+        break;
+      }
+      template.remove(template.size() - 1);
+    }
+  }
+
+  private static Map<String, String> readAttributes(XMLStreamReader reader) {
+    Map<String, String> attributes = new LinkedHashMap<>();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+    }
+    return attributes;
+  }
+
+  private void rewriteAttributes(ContextState state, String name, Map<String, String> attributes) {
+    DataSourceParameter dataSource = state.dataSource;
+    switch (name) {
+      case "jdbcConnection":
+        if (!state.jdbcConnectionFound) {
+          state.jdbcConnectionFound = true;
+          // 注意：這邊不會寫入 username 和 password，因為這些資訊可能包含敏感資料，
+          replaceIfNotBlank(attributes, "driverClass", dataSource.getDriverClass());
+          replaceIfNotBlank(attributes, "connectionURL", dataSource.getConnectionURL());
+          if (multiple) {
+            // 多資料來源時改為各資料來源的參數，由 mybatisGenerate 執行時替換
+            String prefix = "mybatis.generator.datasource." + dataSource.getName();
+            attributes.put("userId", "${" + prefix + ".username}");
+            attributes.put("password", "${" + prefix + ".password}");
+          }
+        }
+        break;
+      case "javaModelGenerator":
+        if (!state.javaModelFound) {
+          state.javaModelFound = true;
+          replaceTargetPackage(dataSource, attributes, ".dao.entity");
+        }
+        break;
+      case "javaClientGenerator":
+        if (!state.javaClientFound) {
+          state.javaClientFound = true;
+          replaceTargetPackage(dataSource, attributes, ".dao.mapper");
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void replaceTargetPackage(DataSourceParameter dataSource, Map<String, String> attributes, String suffix) {
+    if (StringUtils.isNotBlank(targetPackage)) {
+      String subPackage = StringUtils.isNotBlank(dataSource.getSubPackage()) ? "." + dataSource.getSubPackage() : "";
+      attributes.put("targetPackage", targetPackage + subPackage + suffix);
+    }
+  }
+
+  private static void replaceIfNotBlank(Map<String, String> attributes, String name, String value) {
+    if (StringUtils.isNotBlank(value)) {
+      attributes.put(name, value);
+    }
+  }
+
+  private void appendTables(ContextState state) throws XMLStreamException {
+    if (Objects.isNull(state.tablesToAppend)) {
+      return;
+    }
+    Set<String> referencedTables = cacheLookupTables ? referencedTables(state.tablesToAppend) : null;
+    Map<String, String> joins = Collections.emptyMap();
+    // 不論是否已存在於設定檔，有可 join 外鍵的指定資料表，用於列出已存在而沒有加入 joins 的資料表
+    Map<String, String> joinable = Collections.emptyMap();
+    if (StringUtils.isNotBlank(joinTables)) {
+      TableFilter joinFilter = TableFilter.of(joinTables, null, null);
+      joins = ForeignKeyJoins.of(state.tablesToAppend, state.existingTables, joinFilter, Math.max(1, joinDepth));
+      if (!state.existingTables.isEmpty()) {
+        joinable = ForeignKeyJoins.of(state.tablesToAppend, Collections.emptySet(), joinFilter, 1);
+      }
+    }
+    for (TableMeta tableMeta : state.tablesToAppend) {
+      String tableName = StringUtils.lowerCase(tableMeta.getTableName(), Locale.ROOT);
+      boolean cache = Objects.nonNull(referencedTables) && isLookupTable(tableMeta, referencedTables);
+      // 檢查該 table 是否需要處理，設定檔中的名稱不分大小寫
+      if (state.existingTables.contains(tableName)) {
+        state.skippedTables++;
+        // 已存在的 table 定義可能經過手動調整，不改寫，只列出缺少的屬性
+        if (cache) {
+          skipProperty(state, tableMeta, "cache");
+        }
+        if (joinable.containsKey(tableName)) {
+          skipProperty(state, tableMeta, "joins");
+        }
+        if (indexSelectors && Objects.nonNull(TableIndexes.uniqueIndexes(tableMeta))) {
+          skipProperty(state, tableMeta, TableIndexes.UNIQUE_INDEXES_PROPERTY);
+        }
+        if (indexSelectors && Objects.nonNull(TableIndexes.indexedColumns(tableMeta))) {
+          skipProperty(state, tableMeta, TableIndexes.INDEXED_COLUMNS_PROPERTY);
+        }
+        if (verbose) {
+          System.out.println("跳過已存在的表格: " + tableMeta.getTableName());
+        }
+        continue;
+      }
+      state.appendedTables++;
+      if (verbose) {
+        System.out.println("處理表格: " + tableMeta.getTableName());
+      }
+      writer.writeCharacters(System.lineSeparator() + TABLE_INDENT);
+      if (StringUtils.isNotBlank(tableMeta.getComment())) {
+        writer.writeComment(" " + escapeComment(tableMeta.getComment()) + " ");
+        writer.writeCharacters(System.lineSeparator() + TABLE_INDENT);
+      }
+      writer.writeStartElement("table");
+      // 指定 catalog 或 schema 的資料來源，table 需帶有相同的限定名稱
+      if (StringUtils.isNotBlank(state.dataSource.getCatalog())) {
+        writer.writeAttribute("catalog", state.dataSource.getCatalog());
+      }
+      if (StringUtils.isNotBlank(state.dataSource.getSchema())) {
+        writer.writeAttribute("schema", state.dataSource.getSchema());
+      }
+      writer.writeAttribute("tableName", tableMeta.getTableName());
+      if (cache) {
+        // DTD 規定 property 必須在 columnOverride 之前
+        writeProperty("cache", "true");
+        if (verbose) {
+          System.out.println("  參照用的資料表，啟用快取: " + tableMeta.getTableName());
+        }
+      }
+      String tableJoins = joins.get(tableName);
+      if (Objects.nonNull(tableJoins)) {
+        writeProperty("joins", tableJoins);
+        if (verbose) {
+          System.out.println("  以外鍵 join 參照的資料表: " + tableJoins);
+        }
+      }
+      if (indexSelectors) {
+        writeIndexProperties(tableMeta);
+      }
+      if (primitiveTypes) {
+        writeColumnOverrides(tableMeta);
+      }
+      writer.writeCharacters(System.lineSeparator() + TABLE_INDENT);
+      writer.writeEndElement();
+    }
+  }
+
+  /**
+   * 記錄已存在的 table 定義缺少的屬性，已有同名 property 時表示已手動設定，不列出
+   */
+  private static void skipProperty(ContextState state, TableMeta tableMeta, String name) {
+    Set<String> properties = state.existingProperties.get(StringUtils.lowerCase(tableMeta.getTableName(), Locale.ROOT));
+    if (Objects.isNull(properties) || !properties.contains(name)) {
+      state.skippedProperties.computeIfAbsent(name, k -> new ArrayList<>()).add(tableMeta.getTableName());
+    }
+  }
+
+  /**
+   * @return 被其他資料表以外鍵參照的資料表名稱（小寫），不含參照自己的外鍵
+   */
+  private static Set<String> referencedTables(List<TableMeta> tables) {
+    Set<String> referenced = new HashSet<>();
+    for (TableMeta tableMeta : tables) {
+      for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+        if (!StringUtils.equalsIgnoreCase(foreignKey.getReferenceTable(), tableMeta.getTableName())) {
+          referenced.add(StringUtils.lowerCase(foreignKey.getReferenceTable(), Locale.ROOT));
+        }
+      }
+    }
+    return referenced;
+  }
+
+  /**
+   * 參照用的資料表（例如代碼表）：被其他資料表參照，本身沒有參照其他資料表的外鍵，通常讀多寫少
+   */
+  private static boolean isLookupTable(TableMeta tableMeta, Set<String> referencedTables) {
+    if (!referencedTables.contains(StringUtils.lowerCase(tableMeta.getTableName(), Locale.ROOT))) {
+      return false;
+    }
+    for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+      if (!StringUtils.equalsIgnoreCase(foreignKey.getReferenceTable(), tableMeta.getTableName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeProperty(String name, String value) throws XMLStreamException {
+    writer.writeCharacters(System.lineSeparator() + COLUMN_INDENT);
+    writer.writeEmptyElement("property");
+    writer.writeAttribute("name", name);
+    writer.writeAttribute("value", value);
+  }
+
+  /**
+   * 加入唯一索引與索引開頭欄位的屬性，沒有可用的索引時不加入
+   */
+  private void writeIndexProperties(TableMeta tableMeta) throws XMLStreamException {
+    String uniqueIndexes = TableIndexes.uniqueIndexes(tableMeta);
+    if (Objects.nonNull(uniqueIndexes)) {
+      writeProperty(TableIndexes.UNIQUE_INDEXES_PROPERTY, uniqueIndexes);
+    }
+    String indexedColumns = TableIndexes.indexedColumns(tableMeta);
+    if (Objects.nonNull(indexedColumns)) {
+      writeProperty(TableIndexes.INDEXED_COLUMNS_PROPERTY, indexedColumns);
+    }
+    if (verbose && Objects.nonNull(uniqueIndexes)) {
+      System.out.println("  唯一索引: " + uniqueIndexes);
+    }
+    if (verbose && Objects.nonNull(indexedColumns)) {
+      System.out.println("  索引欄位: " + indexedColumns);
+    }
+  }
+
+  /**
+   * 為可改用基本型別的欄位加入 columnOverride
+   */
+  private void writeColumnOverrides(TableMeta tableMeta) throws XMLStreamException {
+    for (ColumnMeta column : tableMeta.getColumns()) {
+      PrimitiveColumnType type = PrimitiveColumnType.of(column);
+      if (Objects.isNull(type)) {
+        continue;
+      }
+      writer.writeCharacters(System.lineSeparator() + COLUMN_INDENT);
+      writer.writeEmptyElement("columnOverride");
+      writer.writeAttribute("column", column.getName());
+      writer.writeAttribute("javaType", type.getJavaType());
+      if (Objects.nonNull(type.getTypeHandler())) {
+        writer.writeAttribute("typeHandler", type.getTypeHandler());
+      }
+      if (verbose) {
+        System.out.println("  欄位 " + column.getName() + " 改用 " + type.getJavaType());
+      }
+    }
+  }
+
+  /**
+   * XML 註解中不可出現 "--"，也不可以 "-" 結尾，在這些 "-" 之後加上空白
+   */
+  private static String escapeComment(String text) {
+    return text.replaceAll("-(?=-|$)", "- ");
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // 保留 DOCTYPE 宣告，但不下載與處理外部 DTD
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    return factory;
+  }
+
+  /**
+   * 單一 context 的改寫狀態
+   */
+  private static class ContextState {
+
+    private final DataSourceParameter dataSource;
+    /** 要加入的資料表，為 null 時不處理 table 定義 */
+    private final List<TableMeta> tablesToAppend;
+    /** 設定檔中已存在的資料表名稱（小寫） */
+    private final Set<String> existingTables = new HashSet<>();
+    /** 已存在的 table 定義中的 property 名稱，key 為資料表名稱（小寫） */
+    private final Map<String, Set<String>> existingProperties = new HashMap<>();
+    /** 已存在的 table 定義沒有加入的屬性，key 為屬性名稱，值為資料表名稱 */
+    private final Map<String, List<String>> skippedProperties = new LinkedHashMap<>();
+    private boolean written;
+    private boolean jdbcConnectionFound;
+    private boolean javaModelFound;
+    private boolean javaClientFound;
+    private int appendedTables;
+    private int skippedTables;
+
+    private ContextState(DataSourceParameter dataSource, List<TableMeta> tablesToAppend) {
+      this.dataSource = dataSource;
+      this.tablesToAppend = tablesToAppend;
+    }
+  }
+
+  /**
+   * 讀取到的 XML 事件，用於錄製與重新輸出範本 context
+   */
+  private static class Token {
+
+    private final int type;
+    private String name;
+    private Map<String, String> attributes;
+    private String text;
+    private boolean empty;
+    private boolean whitespace;
+
+    private Token(int type) {
+      this.type = type;
+    }
+  }
+}
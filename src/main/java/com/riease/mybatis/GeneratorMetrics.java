@@ -0,0 +1,191 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 記錄一次任務執行的各階段耗時、每個資料表的耗時與讀取筆數，結束時輸出為 JSON 報表。
+ * <p>
+ * 可由多個執行緒同時記錄；平行讀取或產生時，階段耗時為各執行緒的總和，而非經過時間。
+ * 報表內容：
+ * <ul>
+ *   <li>phases：各階段耗時（毫秒），依第一次記錄的順序排列</li>
+ *   <li>tableLatency：每個資料表耗時的分布（毫秒），含 count、mean、p50、p90、p99 與 max</li>
+ *   <li>counts：讀取的資料表、欄位、主鍵、外鍵與索引筆數，沒有索引的外鍵欄位數，以及產出的檔案數</li>
+ *   <li>peakHeapBytes：執行期間每次記錄時取樣的 heap 使用量的最大值；worker 模式時為 Gradle daemon 的 heap，
+ *   包含同時執行的其他任務</li>
+ * </ul>
+ * heap 不重設 memory pool 的最大使用量：pool 由整個 JVM 共用，重設會影響同時執行的任務，
+ * 且各 pool 的最大值發生在不同時間，加總後不是同一時間的使用量。
+ */
+public class GeneratorMetrics {
+
+  /** 預設報表目錄，相對於專案目錄 */
+  public static final String DEFAULT_REPORT_DIR = "build/reports/mybatis";
+
+  /** 以 DDL 腳本建立 in-memory 資料庫的耗時 */
+  public static final String PHASE_DDL = "ddl";
+  public static final String PHASE_CONNECT = "connect";
+  public static final String PHASE_FINGERPRINT = "fingerprint";
+  public static final String PHASE_TABLE_LIST = "tableList";
+  public static final String PHASE_COLUMNS = "columns";
+  public static final String PHASE_KEYS = "keys";
+  public static final String PHASE_INDEXES = "indexes";
+  /** 逐表讀取時，每個資料表讀取欄位與鍵值的耗時 */
+  public static final String PHASE_INTROSPECT = "introspect";
+  public static final String PHASE_XML_REWRITE = "xmlRewrite";
+  public static final String PHASE_PARSE = "parse";
+  public static final String PHASE_GENERATION = "generation";
+  /** mybatisWatch 更新設定檔與 schema 快照的耗時 */
+  public static final String PHASE_COPY = "copy";
+  public static final String PHASE_FORMATTING = "formatting";
+
+  private final String task;
+  private final long startNanos = System.nanoTime();
+  private final Instant startedAt = Instant.now();
+
+  private final Map<String, AtomicLong> phaseNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+  private final Map<String, List<Long>> tableLatencyNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+  private final Map<String, AtomicLong> counts = Collections.synchronizedMap(new LinkedHashMap<>());
+  private final AtomicLong peakHeapBytes = new AtomicLong();
+
+  /**
+   * @param task 任務名稱，作為報表檔名
+   */
+  public GeneratorMetrics(String task) {
+    this.task = task;
+    sampleHeap();
+  }
+
+  /**
+   * 開始記錄一次任務執行
+   */
+  public static GeneratorMetrics start(String task) {
+    return new GeneratorMetrics(task);
+  }
+
+  public void addPhase(String phase, long nanos) {
+    phaseNanos.computeIfAbsent(phase, key -> new AtomicLong()).addAndGet(nanos);
+    sampleHeap();
+  }
+
+  public void addTableLatency(String phase, long nanos) {
+    List<Long> samples = tableLatencyNanos.computeIfAbsent(phase, key -> Collections.synchronizedList(new ArrayList<>()));
+    samples.add(nanos);
+    sampleHeap();
+  }
+
+  public void count(String name, long value) {
+    counts.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(value);
+    sampleHeap();
+  }
+
+  /**
+   * 取樣目前整個 heap 的使用量，保留最大值
+   */
+  private void sampleHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+  }
+
+  /**
+   * 輸出 JSON 報表到 reportDir/{task}.json
+   */
+  public File writeReport(File reportDir) throws IOException {
+    File file = new File(reportDir, task + ".json");
+    Files.createDirectories(reportDir.toPath());
+    Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"task\": \"").append(task).append("\",\n");
+    json.append("  \"startedAt\": \"").append(startedAt).append("\",\n");
+    json.append("  \"totalMs\": ").append(millis(System.nanoTime() - startNanos)).append(",\n");
+
+    json.append("  \"phases\": {");
+    synchronized (phaseNanos) {
+      appendEntries(json, phaseNanos, value -> millis(value.get()));
+    }
+    json.append("},\n");
+
+    json.append("  \"tableLatency\": {");
+    synchronized (tableLatencyNanos) {
+      appendEntries(json, tableLatencyNanos, GeneratorMetrics::distribution);
+    }
+    json.append("},\n");
+
+    json.append("  \"counts\": {");
+    synchronized (counts) {
+      appendEntries(json, counts, value -> String.valueOf(value.get()));
+    }
+    json.append("},\n");
+
+    sampleHeap();
+    json.append("  \"peakHeapBytes\": ").append(peakHeapBytes.get()).append('\n');
+    json.append("}\n");
+    return json.toString();
+  }
+
+  private static <T> void appendEntries(StringBuilder json, Map<String, T> map,
+    Function<T, String> formatter) {
+    boolean first = true;
+    for (Map.Entry<String, T> entry : map.entrySet()) {
+      json.append(first ? "\n" : ",\n");
+      json.append("    \"").append(entry.getKey()).append("\": ").append(formatter.apply(entry.getValue()));
+      first = false;
+    }
+    if (!first) {
+      json.append("\n  ");
+    }
+  }
+
+  private static String distribution(List<Long> samples) {
+    List<Long> sorted;
+    synchronized (samples) {
+      sorted = new ArrayList<>(samples);
+    }
+    Collections.sort(sorted);
+    long total = 0;
+    for (long sample : sorted) {
+      total += sample;
+    }
+    int count = sorted.size();
+    return "{\"count\": " + count
+      + ", \"mean\": " + millis(count == 0 ? 0 : total / count)
+      + ", \"p50\": " + millis(percentile(sorted, 50))
+      + ", \"p90\": " + millis(percentile(sorted, 90))
+      + ", \"p99\": " + millis(percentile(sorted, 99))
+      + ", \"max\": " + millis(count == 0 ? 0 : sorted.get(count - 1)) + "}";
+  }
+
+  /**
+   * nearest-rank 百分位數
+   */
+  private static long percentile(List<Long> sorted, int percent) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+    return sorted.get(Math.max(0, rank - 1));
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,32 @@
+package com.riease.mybatis;
+
+import java.util.List;
+
+/**
+ * {@link TableMeta} 中單一索引的唯讀 view，不另外保存索引內容。
+ */
+public final class IndexMeta {
+
+  private final TableMeta table;
+  private final int index;
+
+  IndexMeta(TableMeta table, int index) {
+    this.table = table;
+    this.index = index;
+  }
+
+  /** 索引名稱 */
+  public String getName() {
+    return table.indexName(index);
+  }
+
+  /** 是否為唯一索引 */
+  public boolean isUnique() {
+    return table.isIndexUnique(index);
+  }
+
+  /** 依索引順序排列的欄位名稱，唯讀 */
+  public List<String> getColumnNames() {
+    return table.indexColumns(index);
+  }
+}
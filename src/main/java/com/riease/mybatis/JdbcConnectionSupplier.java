@@ -0,0 +1,13 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 提供新的 JDBC 連線，由呼叫端負責關閉。
+ */
+@FunctionalInterface
+public interface JdbcConnectionSupplier {
+
+  Connection get() throws SQLException;
+}
@@ -0,0 +1,909 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.stream.XMLStreamException;
+import org.apache.commons.lang3.StringUtils;
+import org.mybatis.generator.api.GeneratedFile;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.api.VerboseProgressCallback;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.ConnectionFactoryConfiguration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.SqlMapGeneratorConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.config.xml.ConfigurationParser;
+import org.mybatis.generator.exception.InvalidConfigurationException;
+import org.mybatis.generator.exception.ShellException;
+import org.mybatis.generator.exception.XMLParserException;
+import org.mybatis.generator.internal.DefaultShellCallback;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.internal.util.StringUtility;
+
+/**
+ * MyBatisGenerateMain
+ * 可用於 Gradle JavaExec 執行，依 mybatis-generator-config.xml 產生 MyBatis 相關檔案。
+ * <p>
+ * 啟用 incremental 時，會比對 schema 快照與上一次產生時記錄的資料表簽章，
+ * 只重新產生新增或變更的資料表，並刪除已移除資料表的產出檔案。
+ * <p>
+ * 設定 output dir 時，檔案會產生到 staging 目錄（保留相對於專案目錄的路徑），
+ * 再由 {@link PublishGeneratedFilesMain} 只將內容有變更的檔案搬移到專案目錄。
+ * <p>
+ * 設定檔中的資料表依欄位數分為多個 shard（預設為 CPU 核心數），各 shard 以獨立的 MyBatisGenerator 平行產生。
+ * <p>
+ * introspect 設為 snapshot 時，schema 快照未過期的 context 改以 {@link SnapshotConnectionFactory} 提供 metadata，
+ * 產生時不再查詢資料庫的欄位與主鍵。
+ */
+public class MyBatisGenerateMain {
+
+  /** 依資料表 domain object 名稱推得的產出檔案後綴 */
+  private static final List<String> ARTIFACT_SUFFIXES = List.of(
+    ".java", "Key.java", "WithBLOBs.java", "Example.java",
+    "Mapper.java", "DynamicSqlSupport.java", "Mapper.xml");
+
+  private static final AtomicInteger nextThreadId = new AtomicInteger();
+
+  private MyBatisGenerateParameter parameter;
+
+  /** 各階段耗時與產生的檔案數 */
+  private GeneratorMetrics metrics = new GeneratorMetrics("mybatisGenerate");
+
+  /** 執行參數，優先於系統屬性與環境變數 */
+  private final Map<String, String> properties;
+
+  /** 以 schema 快照取代資料庫讀取的 context，值為 {@link SnapshotConnectionFactory} 中註冊的 key */
+  private Map<String, String> introspectionSnapshots = Collections.emptyMap();
+
+  public MyBatisGenerateMain() {
+    this(Collections.emptyMap());
+  }
+
+  public MyBatisGenerateMain(Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public static void main(String[] args) throws Exception {
+    execute(Collections.emptyMap());
+  }
+
+  /**
+   * 以指定參數執行，供 Gradle Worker API 在同一個 JVM 中直接呼叫
+   *
+   * @return 這次產生的檔案
+   */
+  public static List<File> execute(Map<String, String> properties) throws Exception {
+    MyBatisGenerateMain main = new MyBatisGenerateMain(properties);
+    main.loadParameter();
+    main.metrics = GeneratorMetrics.start("mybatisGenerate");
+    List<GeneratedFile> generatedFiles = main.run();
+    main.writeReport();
+    return generatedFiles.stream().map(MyBatisGenerateMain::fileOf).collect(Collectors.toList());
+  }
+
+  /**
+   * 建立各 context 的 {@link SchemaWatch}，供 {@link WatchSchemaMain} 持續比對 schema 快照；
+   * 沒有快照或快照沒有記錄指紋的 context 不會出現在結果中
+   */
+  static List<SchemaWatch> openSchemaWatches(Map<String, String> properties)
+    throws IOException, XMLParserException, SQLException {
+    MyBatisGenerateMain main = new MyBatisGenerateMain(properties);
+    main.loadParameter();
+    Configuration config = main.parseConfiguration(main.resolve(main.parameter.getConfigFile()), new ArrayList<>());
+    Map<String, SchemaSnapshot> snapshotByContext = main.loadSnapshots(config);
+    List<SchemaWatch> watches = new ArrayList<>();
+    try {
+      for (Context context : config.getContexts()) {
+        SchemaSnapshot snapshot = snapshotByContext.get(context.getId());
+        SchemaWatch watch = Objects.isNull(snapshot) || Objects.isNull(snapshot.getFingerprint())
+          ? null : main.openSchemaWatch(config, context, snapshot);
+        if (Objects.isNull(watch)) {
+          System.out.println("context " + context.getId() + " 的 schema 快照沒有記錄指紋，無法監看。");
+          continue;
+        }
+        watches.add(watch);
+      }
+    } catch (SQLException | RuntimeException e) {
+      for (SchemaWatch watch : watches) {
+        watch.close();
+      }
+      throw e;
+    }
+    return watches;
+  }
+
+  private List<GeneratedFile> run() throws IOException, XMLParserException, InvalidConfigurationException, SQLException,
+    InterruptedException {
+    File configFile = resolve(parameter.getConfigFile());
+    if (isStaged()) {
+      // staging 目錄每次都清空，只保留這次產生的檔案
+      deleteRecursively(resolve(parameter.getOutputDir()));
+    }
+    List<String> parseWarnings = new ArrayList<>();
+    Configuration config;
+    long parseStart = System.nanoTime();
+    try {
+      config = parseConfiguration(configFile, parseWarnings);
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_PARSE, System.nanoTime() - parseStart);
+    }
+    printWarnings(parseWarnings);
+
+    // 以快照估計產生成本、計算簽章或取代資料庫讀取
+    Map<String, SchemaSnapshot> snapshotByContext =
+      parameter.isIncremental() || parameter.getShards() > 1 || parameter.isSnapshotIntrospection()
+        ? loadSnapshots(config) : Collections.emptyMap();
+    if (parameter.isSnapshotIntrospection()) {
+      useSnapshotIntrospection(config, selectIntrospectionSnapshots(configFile, config, snapshotByContext));
+    }
+    // 以快照讀取的 context 不需要建立 DDL 腳本的資料庫
+    List<DdlDatabase> ddlDatabases = openDdlDatabases(config);
+    try {
+      return generate(configFile, config, snapshotByContext);
+    } finally {
+      for (DdlDatabase ddlDatabase : ddlDatabases) {
+        ddlDatabase.close();
+      }
+      for (String key : introspectionSnapshots.values()) {
+        SnapshotConnectionFactory.unregister(key);
+      }
+    }
+  }
+
+  /**
+   * @return 產出的檔案
+   */
+  private List<GeneratedFile> generate(File configFile, Configuration config,
+    Map<String, SchemaSnapshot> snapshotByContext)
+    throws IOException, InvalidConfigurationException, SQLException, InterruptedException {
+    File stateFile = resolve(GeneratedTableState.DEFAULT_PATH);
+    if (!parameter.isIncremental()) {
+      List<GeneratedFile> generatedFiles;
+      long generationStart = System.nanoTime();
+      try {
+        generatedFiles = generate(configFile, config, null, snapshotByContext);
+      } finally {
+        metrics.addPhase(GeneratorMetrics.PHASE_GENERATION, System.nanoTime() - generationStart);
+      }
+      metrics.count("generatedFiles", generatedFiles.size());
+      // 全部重新產生後，舊的產生紀錄已不可信，下次 incremental 時重新建立
+      Files.deleteIfExists(stateFile.toPath());
+      return generatedFiles;
+    }
+
+    // 讀取上一次產生的紀錄
+    GeneratedTableState state = GeneratedTableState.load(stateFile);
+
+    // table 以外的設定有變更時，全部重新產生
+    Map<String, String> xmlSignatures;
+    try {
+      xmlSignatures = GeneratorConfigRewriter.readSignatures(configFile);
+    } catch (XMLStreamException e) {
+      throw new RuntimeException("讀取設定檔失敗: " + configFile, e);
+    }
+    String contextSignature = xmlSignatures.get(GeneratorConfigRewriter.CONTEXT_SIGNATURE_KEY);
+    boolean fullRegeneration = !StringUtils.equals(contextSignature, state.getContextSignature());
+    if (fullRegeneration) {
+      System.out.println("設定檔內容有變更或沒有產生紀錄，將重新產生所有資料表。");
+    }
+
+    Set<String> configuredKeys = new HashSet<>();
+    Set<String> droppedKeys = new HashSet<>();
+    Map<String, String> signatures = new LinkedHashMap<>();
+    Map<String, TableConfiguration> tablesToGenerate = new LinkedHashMap<>();
+    Map<String, Context> tableContexts = new HashMap<>();
+    // 各 context 需產生的資料表
+    Map<String, Set<String>> fullyQualifiedTableNames = new LinkedHashMap<>();
+    Map<String, List<TableConfiguration>> tableConfigurations = tableConfigurations(configFile, config);
+    for (Context context : config.getContexts()) {
+      SchemaSnapshot snapshot = snapshotByContext.get(context.getId());
+      List<TableConfiguration> contextTables = tableConfigurations.get(context.getId());
+      // 快照只包含符合 include/exclude 的資料表，快照中沒有的資料表需確認資料庫中也沒有才視為已移除
+      Set<String> catalogTables = Objects.nonNull(snapshot)
+        && contextTables.stream().anyMatch(tc -> Objects.isNull(snapshot.findTable(tc.getTableName())))
+        ? catalogTables(context, snapshot, contextTables) : Collections.emptySet();
+      for (TableConfiguration tc : contextTables) {
+        String key = GeneratedTableState.tableKey(context.getId(), tc.getTableName());
+        TableMeta tableMeta = Objects.isNull(snapshot) ? null : snapshot.findTable(tc.getTableName());
+        // 資料表仍存在但不在快照中時沒有簽章，每次都重新產生
+        if (Objects.nonNull(snapshot) && Objects.isNull(tableMeta)
+          && !catalogTables.contains(StringUtils.lowerCase(tc.getTableName(), Locale.ROOT))) {
+          droppedKeys.add(key);
+          continue;
+        }
+        configuredKeys.add(key);
+        String signature = signature(tableMeta, xmlSignatures.get(key));
+        signatures.put(key, signature);
+        if (fullRegeneration || Objects.isNull(signature) || !signature.equals(state.getSignature(key))) {
+          tablesToGenerate.put(key, tc);
+          tableContexts.put(key, context);
+          fullyQualifiedTableNames.computeIfAbsent(context.getId(), id -> new HashSet<>())
+            .add(StringUtility.composeFullyQualifiedTableName(tc.getCatalog(), tc.getSchema(), tc.getTableName(), '.'));
+        }
+      }
+    }
+    for (String key : state.getTableKeys()) {
+      if (!configuredKeys.contains(key)) {
+        droppedKeys.add(key);
+      }
+    }
+
+    // 刪除已移除資料表的產出檔案，staging 時改為記錄在清單中，由發布時刪除
+    List<String> removedFiles = new ArrayList<>();
+    for (String key : droppedKeys) {
+      for (String path : state.getFiles(key)) {
+        if (isStaged()) {
+          removedFiles.add(path);
+          continue;
+        }
+        File file = resolve(path);
+        if (file.isFile() && file.delete()) {
+          System.out.println("刪除已移除資料表的檔案: " + path);
+        }
+      }
+      state.remove(key);
+    }
+    if (!removedFiles.isEmpty()) {
+      File removedList = new File(resolve(parameter.getOutputDir()), PublishGeneratedFilesMain.REMOVED_LIST);
+      Files.createDirectories(removedList.getParentFile().toPath());
+      Files.write(removedList.toPath(), removedFiles, StandardCharsets.UTF_8);
+    }
+
+    System.out.println("資料表: " + configuredKeys.size() + "，需產生: " + tablesToGenerate.size()
+      + "，已移除: " + droppedKeys.size());
+    List<GeneratedFile> generatedFiles = Collections.emptyList();
+    if (!tablesToGenerate.isEmpty()) {
+      long generationStart = System.nanoTime();
+      try {
+        generatedFiles = generate(configFile, config, fullyQualifiedTableNames, snapshotByContext);
+      } finally {
+        metrics.addPhase(GeneratorMetrics.PHASE_GENERATION, System.nanoTime() - generationStart);
+      }
+      metrics.count("generatedFiles", generatedFiles.size());
+      // 記錄各資料表產出的檔案
+      for (Map.Entry<String, TableConfiguration> entry : tablesToGenerate.entrySet()) {
+        state.put(entry.getKey(), StringUtils.defaultString(signatures.get(entry.getKey())),
+          artifactsOf(tableContexts.get(entry.getKey()), entry.getValue(), generatedFiles));
+      }
+    } else {
+      System.out.println("沒有需要重新產生的資料表。");
+    }
+    state.setContextSignature(contextSignature);
+    state.save(stateFile);
+    return generatedFiles;
+  }
+
+  /**
+   * 產生檔案。shard 數量大於 1 時，依欄位數將各 context 的資料表分為多個 shard，
+   * 每個 shard 各自以獨立的 Configuration 與 MyBatisGenerator 平行產生；
+   * 每個資料表的產出檔案只取決於該資料表本身，因此結果與依序產生相同。
+   *
+   * @param tablesByContext    各 context 需產生的資料表，為 null 時產生所有 context 的所有資料表
+   * @param snapshotByContext  用於估計產生成本的 schema 快照，沒有快照的資料表成本視為相同
+   * @return 產出的檔案
+   */
+  private List<GeneratedFile> generate(File configFile, Configuration config, Map<String, Set<String>> tablesByContext,
+    Map<String, SchemaSnapshot> snapshotByContext)
+    throws InvalidConfigurationException, SQLException, IOException, InterruptedException {
+    List<String> contextIds = new ArrayList<>();
+    for (Context context : config.getContexts()) {
+      if (Objects.isNull(tablesByContext) || tablesByContext.containsKey(context.getId())) {
+        contextIds.add(context.getId());
+      }
+    }
+    if (parameter.getShards() <= 1) {
+      List<String> warnings = new ArrayList<>();
+      List<GeneratedFile> generatedFiles = generate(config, warnings, new HashSet<>(contextIds),
+        allTables(tablesByContext));
+      printWarnings(warnings);
+      return generatedFiles;
+    }
+
+    List<GenerationShard> shards = new ArrayList<>();
+    Map<String, List<TableConfiguration>> tableConfigurations = tableConfigurations(configFile, config);
+    for (Context context : config.getContexts()) {
+      if (!contextIds.contains(context.getId())) {
+        continue;
+      }
+      Set<String> selected = Objects.isNull(tablesByContext) ? null : tablesByContext.get(context.getId());
+      SchemaSnapshot snapshot = snapshotByContext.get(context.getId());
+      Map<String, Long> weights = new LinkedHashMap<>();
+      for (TableConfiguration tc : tableConfigurations.get(context.getId())) {
+        String fullyQualifiedTableName = StringUtility.composeFullyQualifiedTableName(
+          tc.getCatalog(), tc.getSchema(), tc.getTableName(), '.');
+        if (Objects.isNull(selected) || selected.contains(fullyQualifiedTableName)) {
+          TableMeta tableMeta = Objects.isNull(snapshot) ? null : snapshot.findTable(tc.getTableName());
+          weights.put(fullyQualifiedTableName, Objects.isNull(tableMeta) ? 1L : tableMeta.getColumnCount() + 1L);
+        }
+      }
+      if (!weights.isEmpty()) {
+        shards.addAll(GenerationShard.partition(context.getId(), weights, parameter.getShards()));
+      }
+    }
+    int parallelism = Math.min(shards.size(), parameter.getShards());
+    if (parallelism <= 1) {
+      List<String> warnings = new ArrayList<>();
+      List<GeneratedFile> generatedFiles = generate(config, warnings, new HashSet<>(contextIds),
+        allTables(tablesByContext));
+      printWarnings(warnings);
+      return generatedFiles;
+    }
+
+    System.out.println("以 " + parallelism + " 個執行緒平行產生 " + contextIds.size() + " 個 context、"
+      + shards.size() + " 個 shard");
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-generate-" + nextThreadId.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<List<GeneratedFile>>> futures = new ArrayList<>();
+      List<List<String>> warningsList = new ArrayList<>();
+      for (GenerationShard shard : shards) {
+        List<String> warnings = new ArrayList<>();
+        warningsList.add(warnings);
+        futures.add(executor.submit(() -> {
+          // MyBatisGenerator 執行時會修改 Context 的狀態，每個工作使用各自解析的 Configuration，
+          // 解析時的警告已於第一次解析時輸出
+          Configuration shardConfig = parseConfiguration(configFile, new ArrayList<>());
+          return generate(shardConfig, warnings, Collections.singleton(shard.getContextId()), shard.getTables());
+        }));
+      }
+      List<GeneratedFile> generatedFiles = new ArrayList<>();
+      for (int i = 0; i < futures.size(); i++) {
+        generatedFiles.addAll(futures.get(i).get());
+        printWarnings(warningsList.get(i));
+      }
+      return generatedFiles;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof InvalidConfigurationException) {
+        throw (InvalidConfigurationException) cause;
+      }
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new RuntimeException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<GeneratedFile> generate(Configuration config, List<String> warnings, Set<String> contextIds,
+    Set<String> fullyQualifiedTableNames) throws InvalidConfigurationException, SQLException, IOException,
+    InterruptedException {
+    DefaultShellCallback callback = new DefaultShellCallback(true) {
+      @Override
+      public File getDirectory(String targetProject, String targetPackage) throws ShellException {
+        // 平行產生時多個 shard 可能同時建立相同的套件目錄，mkdirs 失敗會被視為錯誤，因此依序建立
+        synchronized (MyBatisGenerateMain.class) {
+          return super.getDirectory(targetProject, targetPackage);
+        }
+      }
+    };
+    MyBatisGenerator generator = new MyBatisGenerator(config, callback, warnings);
+    ProgressCallback progressCallback = parameter.isVerbose() ? new VerboseProgressCallback() : new ProgressCallback() {
+    };
+    // 記錄每個資料表的讀取與產生耗時
+    generator.generate(new TableTimingProgressCallback(progressCallback, metrics), contextIds, fullyQualifiedTableNames);
+    List<GeneratedFile> generatedFiles = new ArrayList<>();
+    generatedFiles.addAll(generator.getGeneratedJavaFiles());
+    generatedFiles.addAll(generator.getGeneratedXmlFiles());
+    return generatedFiles;
+  }
+
+  /**
+   * 解析設定檔並將 targetProject 轉為絕對路徑
+   */
+  private Configuration parseConfiguration(File configFile, List<String> warnings)
+    throws IOException, XMLParserException {
+    // 執行參數同時作為設定檔中 ${...} 的替換來源，讓 Worker API 不需修改系統屬性
+    Properties extraProperties = new Properties();
+    extraProperties.putAll(properties);
+    Configuration config = new ConfigurationParser(extraProperties, warnings).parseConfiguration(configFile);
+    resolveTargetProjects(config);
+    useDdlDatabases(config);
+    applySnapshotIntrospection(config);
+    return config;
+  }
+
+  /**
+   * 以 DDL 腳本建立各資料來源的 in-memory 資料庫，產生結束後關閉
+   */
+  private List<DdlDatabase> openDdlDatabases(Configuration config) throws SQLException {
+    List<DdlDatabase> ddlDatabases = new ArrayList<>();
+    long ddlStart = System.nanoTime();
+    try {
+      for (DataSourceParameter dataSource : parameter.getDdlDataSources()) {
+        Context context = contextOf(config, dataSource);
+        if (Objects.nonNull(context) && introspectionSnapshots.containsKey(context.getId())) {
+          continue;
+        }
+        ddlDatabases.add(DdlDatabase.open(dataSource.getConnectionURL(),
+          DdlDatabase.resolveScripts(parameter.getProjectDir(), dataSource.getDdlScripts())));
+      }
+    } catch (SQLException | RuntimeException e) {
+      for (DdlDatabase ddlDatabase : ddlDatabases) {
+        ddlDatabase.close();
+      }
+      throw e;
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_DDL, System.nanoTime() - ddlStart);
+    }
+    return ddlDatabases;
+  }
+
+  /**
+   * 設定 DDL 腳本的資料來源，將對應 context 的連線改為 in-memory 資料庫；
+   * 未命名的資料來源對應第一個 context
+   */
+  private void useDdlDatabases(Configuration config) {
+    for (DataSourceParameter dataSource : parameter.getDdlDataSources()) {
+      Context context = contextOf(config, dataSource);
+      if (Objects.isNull(context)) {
+        System.err.println("找不到資料來源 " + dataSource.getName() + " 對應的 context，將不使用 DDL 腳本。");
+        continue;
+      }
+      JDBCConnectionConfiguration jdbcConnection = new JDBCConnectionConfiguration();
+      jdbcConnection.setDriverClass(DdlDatabase.DRIVER_CLASS);
+      jdbcConnection.setConnectionURL(dataSource.getConnectionURL());
+      jdbcConnection.setUserId(DdlDatabase.USERNAME);
+      jdbcConnection.setPassword(DdlDatabase.PASSWORD);
+      context.setJdbcConnectionConfiguration(jdbcConnection);
+    }
+  }
+
+  /**
+   * 資料來源對應的 context，未命名的資料來源對應第一個 context
+   *
+   * @return 找不到時回傳 null
+   */
+  private static Context contextOf(Configuration config, DataSourceParameter dataSource) {
+    return config.getContexts().stream()
+      .filter(c -> Objects.isNull(dataSource.getName()) || StringUtils.equals(c.getId(), dataSource.getName()))
+      .findFirst().orElse(null);
+  }
+
+  /**
+   * 選出可直接以 schema 快照取代資料庫讀取的 context：設定檔中的資料表都在快照中，且快照未過期。
+   * DDL 腳本的快照以腳本內容確認，不需建立資料庫；其他快照以 context 的連線重新計算 schema 指紋，
+   * 只執行少量彙總查詢，不讀取欄位與鍵值。
+   *
+   * @return key 為 context id
+   */
+  private Map<String, SchemaSnapshot> selectIntrospectionSnapshots(File configFile, Configuration config,
+    Map<String, SchemaSnapshot> snapshotByContext) throws IOException {
+    Map<String, SchemaSnapshot> selected = new LinkedHashMap<>();
+    Map<String, List<TableConfiguration>> tableConfigurations = tableConfigurations(configFile, config);
+    for (Context context : config.getContexts()) {
+      SchemaSnapshot snapshot = snapshotByContext.get(context.getId());
+      if (Objects.isNull(snapshot)) {
+        continue;
+      }
+      String missingTable = tableConfigurations.get(context.getId()).stream()
+        .map(TableConfiguration::getTableName)
+        .filter(tableName -> Objects.isNull(snapshot.getTable(tableName)))
+        .findFirst().orElse(null);
+      if (Objects.nonNull(missingTable)) {
+        System.out.println("context " + context.getId() + " 的 schema 快照中沒有資料表 " + missingTable
+          + "，將由資料庫讀取。");
+        continue;
+      }
+      if (!isSnapshotFresh(config, context, snapshot)) {
+        System.out.println("context " + context.getId() + " 的 schema 快照已過期，將由資料庫讀取；"
+          + "請先執行 copyMyBatisGeneratorConfig 更新快照。");
+        continue;
+      }
+      System.out.println("context " + context.getId() + " 以 schema 快照讀取資料表，不重新查詢資料庫 metadata。");
+      selected.put(context.getId(), snapshot);
+    }
+    metrics.count("snapshotContexts", selected.size());
+    return selected;
+  }
+
+  private boolean isSnapshotFresh(Configuration config, Context context, SchemaSnapshot snapshot) {
+    if (Objects.isNull(snapshot.getFingerprint())) {
+      return false;
+    }
+    long fingerprintStart = System.nanoTime();
+    try (SchemaWatch watch = openSchemaWatch(config, context, snapshot)) {
+      return Objects.nonNull(watch) && !watch.isChanged();
+    } catch (SQLException e) {
+      System.err.println("無法計算 context " + context.getId() + " 的 schema 指紋: " + e.getMessage());
+      return false;
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_FINGERPRINT, System.nanoTime() - fingerprintStart);
+    }
+  }
+
+  /**
+   * 建立比對 context 快照的 SchemaWatch，DDL 腳本的資料來源比對腳本內容，其他資料來源開啟 context 的連線
+   *
+   * @return 快照沒有記錄資料庫類型，無法計算指紋時回傳 null
+   */
+  private SchemaWatch openSchemaWatch(Configuration config, Context context, SchemaSnapshot snapshot)
+    throws SQLException {
+    File snapshotFile = snapshotFileOf(context);
+    for (DataSourceParameter dataSource : parameter.getDdlDataSources()) {
+      if (contextOf(config, dataSource) == context) {
+        return SchemaWatch.ofScripts(context.getId(), snapshotFile, snapshot, parameter.getProjectDir(),
+          dataSource.getDdlScripts());
+      }
+    }
+    if (Objects.isNull(snapshot.getDialect())) {
+      return null;
+    }
+    return SchemaWatch.ofConnection(context.getId(), snapshotFile, snapshot, context.getConnection());
+  }
+
+  /**
+   * 註冊選出的快照，並將對應 context 的連線改為 {@link SnapshotConnectionFactory}
+   */
+  private void useSnapshotIntrospection(Configuration config, Map<String, SchemaSnapshot> snapshots) {
+    Map<String, String> keys = new HashMap<>();
+    for (Map.Entry<String, SchemaSnapshot> entry : snapshots.entrySet()) {
+      keys.put(entry.getKey(), SnapshotConnectionFactory.register(entry.getValue()));
+    }
+    introspectionSnapshots = keys;
+    applySnapshotIntrospection(config);
+  }
+
+  /**
+   * 以快照讀取的 context 改用 SnapshotConnectionFactory，MyBatis Generator 讀取資料表時不連線資料庫
+   */
+  private void applySnapshotIntrospection(Configuration config) {
+    for (Context context : config.getContexts()) {
+      String key = introspectionSnapshots.get(context.getId());
+      if (Objects.isNull(key)) {
+        continue;
+      }
+      ConnectionFactoryConfiguration connectionFactory = new ConnectionFactoryConfiguration();
+      connectionFactory.setConfigurationType(SnapshotConnectionFactory.class.getName());
+      connectionFactory.addProperty(SnapshotConnectionFactory.SNAPSHOT_PROPERTY, key);
+      context.setJdbcConnectionConfiguration(null);
+      context.setConnectionFactoryConfiguration(connectionFactory);
+    }
+  }
+
+  /**
+   * 取得各 context 的 table 設定。MyBatis Generator 未公開 Context 中的 table 設定，
+   * 因此由設定檔重新讀取 table 元素的名稱相關屬性，只用於比對產出檔案與估計成本。
+   *
+   * @return key 為 context id
+   */
+  private static Map<String, List<TableConfiguration>> tableConfigurations(File configFile, Configuration config)
+    throws IOException {
+    Map<String, List<Map<String, String>>> tableAttributes;
+    try {
+      tableAttributes = GeneratorConfigRewriter.readTableAttributes(configFile);
+    } catch (XMLStreamException e) {
+      throw new RuntimeException(e);
+    }
+    Map<String, List<TableConfiguration>> tableConfigurations = new LinkedHashMap<>();
+    for (Context context : config.getContexts()) {
+      List<TableConfiguration> contextTables = new ArrayList<>();
+      for (Map<String, String> attributes : tableAttributes.getOrDefault(context.getId(), Collections.emptyList())) {
+        TableConfiguration tc = new TableConfiguration(context);
+        tc.setCatalog(attributes.get("catalog"));
+        tc.setSchema(attributes.get("schema"));
+        tc.setTableName(attributes.get("tableName"));
+        tc.setDomainObjectName(attributes.get("domainObjectName"));
+        contextTables.add(tc);
+      }
+      tableConfigurations.put(context.getId(), contextTables);
+    }
+    return tableConfigurations;
+  }
+
+  private static Set<String> allTables(Map<String, Set<String>> tablesByContext) {
+    if (Objects.isNull(tablesByContext)) {
+      return null;
+    }
+    Set<String> tables = new HashSet<>();
+    for (Set<String> contextTables : tablesByContext.values()) {
+      tables.addAll(contextTables);
+    }
+    return tables;
+  }
+
+  private static void printWarnings(List<String> warnings) {
+    for (String warning : warnings) {
+      System.out.println(warning);
+    }
+  }
+
+  /**
+   * 讀取 copyMyBatisGeneratorConfig 產生的 schema 快照，
+   * 各 context 優先使用同名資料來源的快照，沒有時使用預設快照
+   *
+   * @return key 為 context id；沒有快照的 context 不會出現在結果中
+   */
+  private Map<String, SchemaSnapshot> loadSnapshots(Configuration config) throws IOException {
+    Map<String, SchemaSnapshot> snapshotByContext = new HashMap<>();
+    for (Context context : config.getContexts()) {
+      SchemaSnapshot snapshot = SchemaSnapshotStore.read(snapshotFileOf(context));
+      if (Objects.isNull(snapshot)) {
+        System.out.println("context " + context.getId() + " 找不到 schema 快照。");
+        continue;
+      }
+      snapshotByContext.put(context.getId(), snapshot);
+    }
+    return snapshotByContext;
+  }
+
+  /**
+   * context 使用的快照檔案：同名資料來源的快照，沒有時為預設快照
+   */
+  private File snapshotFileOf(Context context) {
+    return SchemaSnapshotStore.fileOf(new File(parameter.getProjectDir()), context.getId());
+  }
+
+  /**
+   * 快照讀取的 catalog / schema 中所有資料表的小寫名稱，不受 include/exclude 過濾條件影響，
+   * 用來確認快照中沒有的資料表是否已由資料庫移除。DDL 腳本的資料來源讀取以腳本建立的資料庫。
+   *
+   * @return 無法讀取時回傳設定的資料表名稱，不將任何資料表視為已移除
+   */
+  private Set<String> catalogTables(Context context, SchemaSnapshot snapshot, List<TableConfiguration> contextTables) {
+    Set<String> tableNames = new HashSet<>();
+    try (Connection conn = context.getConnection();
+         ResultSet rs = conn.getMetaData().getTables(snapshot.getCatalog(), snapshot.getSchema(), "%", null)) {
+      while (rs.next()) {
+        tableNames.add(StringUtils.lowerCase(rs.getString("TABLE_NAME"), Locale.ROOT));
+      }
+    } catch (SQLException e) {
+      System.err.println("無法讀取 context " + context.getId() + " 的資料表列表，快照中沒有的資料表將重新產生: "
+        + e.getMessage());
+      return contextTables.stream()
+        .map(tc -> StringUtils.lowerCase(tc.getTableName(), Locale.ROOT))
+        .collect(Collectors.toSet());
+    }
+    return tableNames;
+  }
+
+  /**
+   * 資料表 metadata 與 table 設定的簽章，沒有 metadata 時回傳 null
+   *
+   * @param xmlSignature 設定檔中該資料表 table 元素的簽章
+   */
+  private String signature(TableMeta tableMeta, String xmlSignature) {
+    if (Objects.isNull(tableMeta)) {
+      return null;
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(tableMeta.getTableName()).append('|').append(tableMeta.getComment());
+    // 包含 MyBatis Generator 讀取的所有欄位屬性，任一屬性變更都會改變產出
+    for (ColumnMeta column : tableMeta.getColumns()) {
+      builder.append("|C:").append(column.getName()).append(',').append(column.getType())
+        .append(',').append(column.getJdbcType()).append(',').append(column.getLength())
+        .append(',').append(column.getScale()).append(',').append(column.isNullable())
+        .append(',').append(column.getDefaultValue()).append(',').append(column.isAutoIncrement())
+        .append(',').append(column.isGenerated()).append(',').append(column.getComment());
+    }
+    builder.append("|PK:").append(tableMeta.getPrimaryKeys());
+    for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+      builder.append("|FK:").append(foreignKey.getColumnName()).append(',').append(foreignKey.getReferenceTable())
+        .append(',').append(foreignKey.getReferenceColumn());
+    }
+    builder.append("|XML:").append(xmlSignature);
+    return SchemaFingerprint.sha256(builder.toString());
+  }
+
+  /**
+   * 找出屬於該資料表的產出檔案，以 domain object 名稱加上固定後綴比對
+   */
+  private List<String> artifactsOf(Context context, TableConfiguration tc, List<GeneratedFile> generatedFiles) {
+    String domainObjectName = StringUtils.defaultIfBlank(tc.getDomainObjectName(),
+      JavaBeansUtil.getCamelCaseString(tc.getTableName(), true));
+    Set<String> fileNames = new HashSet<>();
+    for (String suffix : ARTIFACT_SUFFIXES) {
+      fileNames.add(domainObjectName + suffix);
+    }
+    List<String> files = new ArrayList<>();
+    for (GeneratedFile generatedFile : generatedFiles) {
+      // 多個 context 可能有相同名稱的資料表，以 context 的 target package 區分
+      if (fileNames.contains(generatedFile.getFileName()) && belongsTo(context, generatedFile)) {
+        files.add(relativize(fileOf(generatedFile)));
+      }
+    }
+    return files;
+  }
+
+  private static File fileOf(GeneratedFile generatedFile) {
+    return new File(new File(generatedFile.getTargetProject(), generatedFile.getTargetPackage().replace('.', '/')),
+      generatedFile.getFileName());
+  }
+
+  private static boolean belongsTo(Context context, GeneratedFile generatedFile) {
+    List<String> targetPackages = new ArrayList<>();
+    if (Objects.nonNull(context.getJavaModelGeneratorConfiguration())) {
+      targetPackages.add(context.getJavaModelGeneratorConfiguration().getTargetPackage());
+    }
+    if (Objects.nonNull(context.getJavaClientGeneratorConfiguration())) {
+      targetPackages.add(context.getJavaClientGeneratorConfiguration().getTargetPackage());
+    }
+    if (Objects.nonNull(context.getSqlMapGeneratorConfiguration())) {
+      targetPackages.add(context.getSqlMapGeneratorConfiguration().getTargetPackage());
+    }
+    String filePackage = generatedFile.getTargetPackage();
+    for (String targetPackage : targetPackages) {
+      // enableSubPackages 時實際套件會再加上 catalog / schema
+      if (StringUtils.equals(filePackage, targetPackage) || StringUtils.startsWith(filePackage, targetPackage + ".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 將 targetProject 轉為絕對路徑，不依賴目前工作目錄（Worker API 執行時為 Gradle daemon 的目錄）。
+   * 使用 staging 時，改為 staging 目錄下相同的相對路徑。
+   */
+  private void resolveTargetProjects(Configuration config) {
+    for (Context context : config.getContexts()) {
+      JavaModelGeneratorConfiguration javaModel = context.getJavaModelGeneratorConfiguration();
+      if (Objects.nonNull(javaModel)) {
+        javaModel.setTargetProject(resolveTargetProject(javaModel.getTargetProject()));
+      }
+      JavaClientGeneratorConfiguration javaClient = context.getJavaClientGeneratorConfiguration();
+      if (Objects.nonNull(javaClient)) {
+        javaClient.setTargetProject(resolveTargetProject(javaClient.getTargetProject()));
+      }
+      SqlMapGeneratorConfiguration sqlMap = context.getSqlMapGeneratorConfiguration();
+      if (Objects.nonNull(sqlMap)) {
+        sqlMap.setTargetProject(resolveTargetProject(sqlMap.getTargetProject()));
+      }
+    }
+  }
+
+  private String resolveTargetProject(String targetProject) {
+    File file = resolve(targetProject);
+    if (!isStaged()) {
+      return file.getPath();
+    }
+    File outputDir = resolve(parameter.getOutputDir());
+    // MyBatis Generator 不會自動建立 targetProject 目錄
+    File stagedDir = new File(outputDir, relativize(file, new File(parameter.getProjectDir())));
+    // 平行產生時可能同時建立，mkdirs 失敗後再確認一次
+    if (!stagedDir.isDirectory() && !stagedDir.mkdirs() && !stagedDir.isDirectory()) {
+      throw new RuntimeException("無法建立目錄: " + stagedDir.getAbsolutePath());
+    }
+    return stagedDir.getPath();
+  }
+
+  /**
+   * 產出檔案相對於專案目錄的路徑，staging 時以 staging 目錄為基準
+   */
+  private String relativize(File file) {
+    File baseDir = isStaged() ? resolve(parameter.getOutputDir()) : new File(parameter.getProjectDir());
+    return relativize(file, baseDir);
+  }
+
+  private static String relativize(File file, File baseDir) {
+    return baseDir.getAbsoluteFile().toPath()
+      .relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+  }
+
+  private boolean isStaged() {
+    return StringUtils.isNotBlank(parameter.getOutputDir());
+  }
+
+  private static void deleteRecursively(File file) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
+    try (Stream<Path> stream = Files.walk(file.toPath())) {
+      for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(parameter.getProjectDir(), path);
+  }
+
+  private void writeReport() {
+    try {
+      File reportFile = metrics.writeReport(resolve(parameter.getReportDir()));
+      System.out.println("執行報表: " + reportFile.getAbsolutePath());
+    } catch (IOException e) {
+      System.err.println("寫入執行報表時發生錯誤: " + e.getMessage());
+    }
+  }
+
+  private void loadParameter() {
+    this.parameter = new MyBatisGenerateParameter();
+    this.parameter.setProjectDir(getProp("mybatis.generator.project.dir", getProp("user.dir", "")));
+    this.parameter.setConfigFile(getProp("mybatis.generator.config.file",
+      "build-tools/mybatis/mybatis-generator-config.xml"));
+    this.parameter.setIncremental(StringUtils.equals(getProp("mybatis.generator.incremental", "false"), "true"));
+    // 未指定 mybatis.generator.verbose 時，debug 才輸出 MyBatisGenerator 每個步驟的進度
+    String logLevel = getProp("mybatis.generator.log.level", "info");
+    String verbose = getProp("mybatis.generator.verbose", String.valueOf(StringUtils.equalsIgnoreCase(logLevel, "debug")));
+    this.parameter.setVerbose(StringUtils.equals(verbose, "true"));
+    this.parameter.setReportDir(getProp("mybatis.generator.report.dir", GeneratorMetrics.DEFAULT_REPORT_DIR));
+    this.parameter.setOutputDir(getProp("mybatis.generator.output.dir", null));
+    this.parameter.setShards(Math.max(1, Integer.parseInt(getProp("mybatis.generator.generate.shards",
+      String.valueOf(Runtime.getRuntime().availableProcessors())).trim())));
+    this.parameter.setDdlDataSources(loadDdlDataSources());
+    this.parameter.setSnapshotIntrospection(StringUtils.equalsIgnoreCase(
+      getProp("mybatis.generator.generate.introspect", "database"), "snapshot"));
+  }
+
+  /**
+   * 讀取設定 DDL 腳本的資料來源，參數與 copyMyBatisGeneratorConfig 相同
+   */
+  private List<DataSourceParameter> loadDdlDataSources() {
+    List<DataSourceParameter> dataSources = new ArrayList<>();
+    String ddl = getProp("mybatis.generator.ddl", null);
+    String ddlMode = getProp("mybatis.generator.ddl.mode", null);
+    String names = getProp("mybatis.generator.datasources", null);
+    List<String> dataSourceNames = new ArrayList<>();
+    if (StringUtils.isBlank(names)) {
+      dataSourceNames.add(null);
+    } else {
+      for (String name : names.split(",")) {
+        if (StringUtils.isNotBlank(name)) {
+          dataSourceNames.add(name.trim());
+        }
+      }
+    }
+    for (String name : dataSourceNames) {
+      String prefix = "mybatis.generator.datasource." + name + ".";
+      DataSourceParameter dataSource = new DataSourceParameter();
+      dataSource.setName(name);
+      dataSource.setDdlScripts(Objects.isNull(name) ? ddl : getProp(prefix + "ddl", ddl));
+      dataSource.setDdlMode(Objects.isNull(name) ? ddlMode : getProp(prefix + "ddl.mode", ddlMode));
+      if (dataSource.isOffline()) {
+        dataSource.setConnectionURL(DdlDatabase.connectionUrl(parameter.getProjectDir(), name, dataSource.getDdlMode()));
+        dataSources.add(dataSource);
+      }
+    }
+    return dataSources;
+  }
+
+  private String getProp(String key, String def) {
+    String v = properties.get(key);
+    if (StringUtils.isBlank(v)) {
+      v = System.getProperty(key);
+    }
+    if (StringUtils.isBlank(v)) {
+      v = System.getenv(key);
+    }
+    return StringUtils.defaultIfBlank(v, def);
+  }
+}
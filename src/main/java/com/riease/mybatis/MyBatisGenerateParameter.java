@@ -0,0 +1,94 @@
+package com.riease.mybatis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MyBatisGenerateParameter {
+
+  private String projectDir;
+  private String configFile;
+  private boolean incremental;
+  private boolean verbose = true;
+  /** 產出檔案的 staging 目錄，未設定時直接產生到 targetProject */
+  private String outputDir;
+  /** 平行產生的 shard 數量，1 表示依序產生 */
+  private int shards = 1;
+  /** 執行報表的輸出目錄 */
+  private String reportDir;
+  /** 設定 DDL 腳本的資料來源，產生時以腳本建立的 in-memory 資料庫取代設定檔中的連線 */
+  private List<DataSourceParameter> ddlDataSources = new ArrayList<>();
+  /** 是否以 schema 快照取代 MyBatis Generator 讀取資料庫 metadata */
+  private boolean snapshotIntrospection;
+
+  public String getProjectDir() {
+    return projectDir;
+  }
+
+  public void setProjectDir(String projectDir) {
+    this.projectDir = projectDir;
+  }
+
+  public String getConfigFile() {
+    return configFile;
+  }
+
+  public void setConfigFile(String configFile) {
+    this.configFile = configFile;
+  }
+
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  public String getOutputDir() {
+    return outputDir;
+  }
+
+  public void setOutputDir(String outputDir) {
+    this.outputDir = outputDir;
+  }
+
+  public int getShards() {
+    return shards;
+  }
+
+  public void setShards(int shards) {
+    this.shards = shards;
+  }
+
+  public String getReportDir() {
+    return reportDir;
+  }
+
+  public void setReportDir(String reportDir) {
+    this.reportDir = reportDir;
+  }
+
+  public List<DataSourceParameter> getDdlDataSources() {
+    return ddlDataSources;
+  }
+
+  public void setDdlDataSources(List<DataSourceParameter> ddlDataSources) {
+    this.ddlDataSources = ddlDataSources;
+  }
+
+  public boolean isSnapshotIntrospection() {
+    return snapshotIntrospection;
+  }
+
+  public void setSnapshotIntrospection(boolean snapshotIntrospection) {
+    this.snapshotIntrospection = snapshotIntrospection;
+  }
+}
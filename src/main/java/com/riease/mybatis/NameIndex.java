@@ -0,0 +1,53 @@
+package com.riease.mybatis;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 以排序後的位置陣列作為名稱索引，不另外建立 HashMap，以二分搜尋查詢。
+ */
+final class NameIndex {
+
+  private NameIndex() {
+  }
+
+  /**
+   * @return 依名稱排序的位置；名稱為 null 的項目排在最後，不會被查詢到
+   */
+  static int[] sort(String[] names) {
+    Integer[] order = new Integer[names.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(i -> names[i], Comparator.nullsLast(Comparator.naturalOrder())));
+    int[] result = new int[order.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = order[i];
+    }
+    return result;
+  }
+
+  /**
+   * @return 名稱所在的位置，找不到時回傳 -1；名稱重複時回傳其中之一
+   */
+  static int find(String[] names, int[] order, String name) {
+    if (name == null) {
+      return -1;
+    }
+    int low = 0;
+    int high = order.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      String candidate = names[order[mid]];
+      int compare = candidate == null ? 1 : candidate.compareTo(name);
+      if (compare < 0) {
+        low = mid + 1;
+      } else if (compare > 0) {
+        high = mid - 1;
+      } else {
+        return order[mid];
+      }
+    }
+    return -1;
+  }
+}
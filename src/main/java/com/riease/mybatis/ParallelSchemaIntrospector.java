@@ -0,0 +1,82 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 以多條連線平行執行逐表讀取。
+ * 資料表清單由呼叫端傳入的連線查詢，之後每個 worker 各自開啟一條連線，
+ * 從共用的索引依序領取下一個資料表讀取欄位、主鍵、外鍵與索引。
+ * 結果直接寫回依 getTables 順序建立的 TableMeta.Builder，因此不論平行度為何，回傳順序皆相同。
+ */
+public class ParallelSchemaIntrospector extends PerTableSchemaIntrospector {
+
+  private static final AtomicInteger nextThreadId = new AtomicInteger();
+
+  private final JdbcConnectionSupplier connectionSupplier;
+  private final int parallelism;
+
+  public ParallelSchemaIntrospector(JdbcConnectionSupplier connectionSupplier, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+    }
+    this.connectionSupplier = connectionSupplier;
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public List<TableMeta> introspect(Connection conn, String catalog, String schema, TableFilter filter)
+    throws SQLException {
+    List<TableMeta.Builder> tableMetaList = listTables(conn, catalog, schema, filter);
+    int workerCount = Math.min(parallelism, tableMetaList.size());
+    if (workerCount <= 1) {
+      for (TableMeta.Builder tableMeta : tableMetaList) {
+        introspectTable(conn.getMetaData(), catalog, schema, tableMeta);
+      }
+      return build(tableMetaList);
+    }
+
+    System.out.println("以 " + workerCount + " 條連線平行讀取 " + tableMetaList.size() + " 個資料表");
+    AtomicInteger nextIndex = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-introspect-" + nextThreadId.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < workerCount; i++) {
+        futures.add(executor.submit(() -> {
+          try (Connection workerConn = connectionSupplier.get()) {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < tableMetaList.size()) {
+              introspectTable(workerConn.getMetaData(), catalog, schema, tableMetaList.get(index));
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("平行讀取資料表時被中斷", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new SQLException("平行讀取資料表時發生錯誤: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return build(tableMetaList);
+  }
+}
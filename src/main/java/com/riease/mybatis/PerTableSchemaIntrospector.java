@@ -0,0 +1,143 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 逐表讀取 metadata：先 getTables，再對每個資料表分別查詢 getColumns、getPrimaryKeys、getImportedKeys 與 getIndexInfo。
+ * 適用於所有 JDBC driver，作為沒有 bulk 實作時的 fallback。
+ */
+public class PerTableSchemaIntrospector extends AbstractSchemaIntrospector {
+
+  @Override
+  public List<TableMeta> introspect(Connection conn, String catalog, String schema, TableFilter filter)
+    throws SQLException {
+    DatabaseMetaData meta = conn.getMetaData();
+    List<TableMeta.Builder> tableMetaList = listTables(conn, catalog, schema, filter);
+    for (TableMeta.Builder tableMeta : tableMetaList) {
+      introspectTable(meta, catalog, schema, tableMeta);
+    }
+    return build(tableMetaList);
+  }
+
+  /**
+   * 查詢符合過濾條件的 TABLE，回傳尚未讀取欄位與鍵值的 TableMeta.Builder
+   */
+  protected List<TableMeta.Builder> listTables(Connection conn, String catalog, String schema, TableFilter filter)
+    throws SQLException {
+    List<TableMeta.Builder> tableMetaList =
+      new ArrayList<>(queryTables(conn.getMetaData(), catalog, schema, filter).values());
+    if (isVerbose()) {
+      for (TableMeta.Builder tableMeta : tableMetaList) {
+        System.out.println("Table: " + tableMeta.getTableName() + ", Comment: " + tableMeta.getComment());
+      }
+    }
+    return tableMetaList;
+  }
+
+  /**
+   * 讀取單一資料表的欄位、主鍵、外鍵與索引，明細只在 verbose 時組合與輸出
+   */
+  protected void introspectTable(DatabaseMetaData meta, String catalog, String schema, TableMeta.Builder tableMeta)
+    throws SQLException {
+    long start = System.nanoTime();
+    String tableName = tableMeta.getTableName();
+    boolean verbose = isVerbose();
+    // 同一個資料表的訊息組合後一次輸出，避免平行讀取時輸出交錯
+    StringBuilder log = verbose ? new StringBuilder() : null;
+
+    // 查詢欄位資訊
+    long columnsStart = System.nanoTime();
+    try (ResultSet columns = meta.getColumns(catalog, schema, tableName, "%")) {
+      while (columns.next()) {
+        readColumn(columns, tableMeta);
+        if (verbose) {
+          log.append("Column: ").append(columns.getString("COLUMN_NAME")).append(' ')
+            .append(columns.getString("TYPE_NAME")).append(' ').append(columns.getString("IS_NULLABLE")).append(' ')
+            .append(columns.getString("REMARKS")).append(System.lineSeparator());
+        }
+      }
+    }
+    long keysStart = System.nanoTime();
+    getMetrics().addPhase(GeneratorMetrics.PHASE_COLUMNS, keysStart - columnsStart);
+
+    // 查詢主鍵
+    try (ResultSet pk = meta.getPrimaryKeys(catalog, schema, tableName)) {
+      // getPrimaryKeys 依欄位名稱排序，改依 KEY_SEQ 加入，與複合主鍵的定義順序相同
+      Map<Short, String> primaryKeys = new TreeMap<>();
+      while (pk.next()) {
+        primaryKeys.put(pk.getShort("KEY_SEQ"), pk.getString("COLUMN_NAME"));
+      }
+      for (String pkName : primaryKeys.values()) {
+        tableMeta.addPrimaryKey(pkName);
+      }
+      if (verbose) {
+        log.append("  Primary Keys:");
+        for (String pkName : primaryKeys.values()) {
+          log.append(' ').append(pkName);
+        }
+        log.append(primaryKeys.isEmpty() ? " 無主鍵" : "").append(System.lineSeparator());
+      }
+    }
+
+    // 查詢外鍵
+    try (ResultSet fk = meta.getImportedKeys(catalog, schema, tableName)) {
+      if (verbose) {
+        log.append("  Foreign Keys:").append(System.lineSeparator());
+      }
+      boolean hasFk = false;
+      while (fk.next()) {
+        hasFk = true;
+        String fkColumnName = fk.getString("FKCOLUMN_NAME");
+        String pkTableName = fk.getString("PKTABLE_NAME");
+        String pkColumnName = fk.getString("PKCOLUMN_NAME");
+        if (verbose) {
+          log.append("    ").append(fkColumnName).append(" -> ").append(pkTableName).append('.').append(pkColumnName)
+            .append(System.lineSeparator());
+        }
+        tableMeta.addForeignKey(fkColumnName, pkTableName, pkColumnName);
+      }
+      if (verbose && !hasFk) {
+        log.append("無外鍵").append(System.lineSeparator());
+      }
+    }
+    long indexesStart = System.nanoTime();
+    getMetrics().addPhase(GeneratorMetrics.PHASE_KEYS, indexesStart - keysStart);
+
+    // 查詢索引，approximate 為 true 避免 driver 為了統計資訊掃描資料表
+    try (ResultSet index = meta.getIndexInfo(catalog, schema, tableName, false, true)) {
+      if (verbose) {
+        log.append("  Indexes:").append(System.lineSeparator());
+      }
+      // getIndexInfo 依 NON_UNIQUE、TYPE、INDEX_NAME、ORDINAL_POSITION 排序，同一個索引的欄位連續回傳
+      while (index.next()) {
+        String indexName = index.getString("INDEX_NAME");
+        // 略過資料表的統計資訊與部分索引；driver 未提供 FILTER_CONDITION 時（例如 sqlite-jdbc）無法辨識部分索引
+        if (index.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || indexName == null
+          || StringUtils.isNotEmpty(index.getString("FILTER_CONDITION"))) {
+          continue;
+        }
+        boolean unique = !index.getBoolean("NON_UNIQUE");
+        String columnName = index.getString("COLUMN_NAME");
+        if (verbose) {
+          log.append("    ").append(indexName).append(unique ? " (unique) " : " ").append(columnName)
+            .append(System.lineSeparator());
+        }
+        tableMeta.addIndexColumn(indexName, unique, columnName);
+      }
+    }
+    long end = System.nanoTime();
+    getMetrics().addPhase(GeneratorMetrics.PHASE_INDEXES, end - indexesStart);
+    getMetrics().addTableLatency(GeneratorMetrics.PHASE_INTROSPECT, end - start);
+    if (verbose) {
+      System.out.print(log);
+    }
+  }
+}
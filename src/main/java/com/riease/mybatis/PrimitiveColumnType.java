@@ -0,0 +1,99 @@
+package com.riease.mybatis;
+
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * NOT NULL 欄位改用的 Java 基本型別，寫入設定檔 table 的 columnOverride，避免產生的 entity 為每個數值裝箱。
+ * <p>
+ * 只處理一定有值、且由程式寫入的欄位：允許 null、主鍵、自動遞增、計算欄位與有預設值的欄位維持包裝型別，
+ * 因為 insert 與 insertSelective 以 null 表示由資料庫給值（例如 SQLite 的 rowid 主鍵），基本型別不會是 null。
+ * <p>
+ * 小數位數為 0 的 DECIMAL / NUMERIC 依精度改為 int（9 位以內）或 long（18 位以內），
+ * 取代 forceBigDecimals 的 BigDecimal；這個 javaType 與 jdbcType 的組合沒有預設的 type handler 對應，
+ * 因此同時指定 typeHandler。其他型別使用 MyBatis 依 javaType 註冊的 type handler。
+ */
+final class PrimitiveColumnType {
+
+  /** int 可完整表示的十進位位數 */
+  private static final int INT_DIGITS = 9;
+  /** long 可完整表示的十進位位數 */
+  private static final int LONG_DIGITS = 18;
+
+  private static final PrimitiveColumnType BOOLEAN = new PrimitiveColumnType("boolean", null);
+  private static final PrimitiveColumnType BYTE = new PrimitiveColumnType("byte", null);
+  private static final PrimitiveColumnType SHORT = new PrimitiveColumnType("short", null);
+  private static final PrimitiveColumnType INT = new PrimitiveColumnType("int", null);
+  private static final PrimitiveColumnType LONG = new PrimitiveColumnType("long", null);
+  private static final PrimitiveColumnType FLOAT = new PrimitiveColumnType("float", null);
+  private static final PrimitiveColumnType DOUBLE = new PrimitiveColumnType("double", null);
+  private static final PrimitiveColumnType DECIMAL_INT =
+    new PrimitiveColumnType("int", "org.apache.ibatis.type.IntegerTypeHandler");
+  private static final PrimitiveColumnType DECIMAL_LONG =
+    new PrimitiveColumnType("long", "org.apache.ibatis.type.LongTypeHandler");
+
+  private final String javaType;
+  private final String typeHandler;
+
+  private PrimitiveColumnType(String javaType, String typeHandler) {
+    this.javaType = javaType;
+    this.typeHandler = typeHandler;
+  }
+
+  /**
+   * @return 欄位對應的基本型別，維持 MyBatis Generator 預設型別時回傳 null
+   */
+  static PrimitiveColumnType of(ColumnMeta column) {
+    if (column.isNullable() || column.isPrimaryKey() || column.isAutoIncrement() || column.isGenerated()
+      || Objects.nonNull(column.getDefaultValue())) {
+      return null;
+    }
+    switch (column.getJdbcType()) {
+      case Types.BOOLEAN:
+        return BOOLEAN;
+      case Types.BIT:
+        // BIT(n) 在 n > 1 時為 byte[]
+        return Objects.isNull(column.getLength()) || column.getLength() <= 1 ? BOOLEAN : null;
+      case Types.TINYINT:
+        return BYTE;
+      case Types.SMALLINT:
+        return SHORT;
+      case Types.INTEGER:
+        return INT;
+      case Types.BIGINT:
+        return LONG;
+      case Types.REAL:
+        return FLOAT;
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return DOUBLE;
+      case Types.DECIMAL:
+      case Types.NUMERIC:
+        return ofDecimal(column.getLength(), column.getScale());
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * 精度未知（例如 Oracle 未指定精度的 NUMBER）或有小數位數時維持 BigDecimal
+   */
+  private static PrimitiveColumnType ofDecimal(Integer precision, Integer scale) {
+    if (Objects.isNull(precision) || precision <= 0 || Objects.isNull(scale) || scale != 0) {
+      return null;
+    }
+    if (precision <= INT_DIGITS) {
+      return DECIMAL_INT;
+    }
+    return precision <= LONG_DIGITS ? DECIMAL_LONG : null;
+  }
+
+  String getJavaType() {
+    return javaType;
+  }
+
+  /** 需指定的 type handler，使用 MyBatis 預設時為 null */
+  String getTypeHandler() {
+    return typeHandler;
+  }
+}
@@ -0,0 +1,201 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * PublishGeneratedFilesMain
+ * 將 staging 目錄中已產生並格式化的檔案發布到專案目錄。
+ * <p>
+ * 只有內容雜湊不同的檔案才會複製到專案目錄，內容相同的檔案保留原本的修改時間，
+ * 讓 compileJava 等下游任務維持 incremental。staging 目錄保持不變，作為 mybatisGenerate 的輸出供 build cache 使用。
+ * <p>
+ * staging 目錄中的路徑即為相對於專案目錄的路徑，另外：
+ * <ul>
+ *   <li>{@link #REMOVED_LIST}：incremental 產生時，已移除資料表的檔案清單，發布時從專案目錄刪除</li>
+ *   <li>{@link #MANIFEST_PATH}：上一次發布的檔案清單，非 incremental 時用於找出不再產生的檔案</li>
+ * </ul>
+ */
+public class PublishGeneratedFilesMain {
+
+  /** staging 目錄中記錄待刪除檔案的清單檔名 */
+  public static final String REMOVED_LIST = ".mybatis-removed";
+
+  /** 已發布檔案清單，相對於專案目錄 */
+  public static final String MANIFEST_PATH = "build-tools/mybatis/published-files.txt";
+
+  private PublishGeneratedFilesParameter parameter;
+
+  /** 執行參數，優先於系統屬性與環境變數 */
+  private final Map<String, String> properties;
+
+  private int added;
+  private int changed;
+  private int unchanged;
+  private int removed;
+
+  public PublishGeneratedFilesMain() {
+    this(Collections.emptyMap());
+  }
+
+  public PublishGeneratedFilesMain(Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public static void main(String[] args) throws Exception {
+    execute(Collections.emptyMap());
+  }
+
+  /**
+   * 以指定參數執行，供 Gradle Worker API 在同一個 JVM 中直接呼叫
+   */
+  public static void execute(Map<String, String> properties) throws Exception {
+    PublishGeneratedFilesMain main = new PublishGeneratedFilesMain(properties);
+    main.loadParameter();
+    main.run();
+  }
+
+  private void run() throws IOException {
+    Path projectDir = new File(parameter.getProjectDir()).getAbsoluteFile().toPath();
+    Path stagingDir = resolve(parameter.getStagingDir()).toPath();
+    if (!Files.isDirectory(stagingDir)) {
+      System.err.println("找不到 staging 目錄: " + stagingDir + "，請先執行 mybatisGenerate。");
+      return;
+    }
+
+    File manifestFile = resolve(MANIFEST_PATH);
+    Set<String> published = readLines(manifestFile.toPath());
+
+    // 發布 staging 中的檔案
+    Set<String> staged = new TreeSet<>();
+    for (Path source : listFiles(stagingDir)) {
+      String path = stagingDir.relativize(source).toString().replace(File.separatorChar, '/');
+      if (REMOVED_LIST.equals(path)) {
+        continue;
+      }
+      staged.add(path);
+      publish(source, projectDir.resolve(path), path);
+    }
+
+    // 需刪除的檔案：incremental 時為已移除資料表的檔案，否則為上一次發布但這次沒有產生的檔案
+    Set<String> toRemove = readLines(stagingDir.resolve(REMOVED_LIST));
+    if (!parameter.isIncremental()) {
+      for (String path : published) {
+        if (!staged.contains(path)) {
+          toRemove.add(path);
+        }
+      }
+    }
+    for (String path : toRemove) {
+      if (Files.deleteIfExists(projectDir.resolve(path))) {
+        removed++;
+        System.out.println("刪除: " + path);
+      }
+    }
+
+    // 更新發布清單
+    if (parameter.isIncremental()) {
+      published.addAll(staged);
+    } else {
+      published = staged;
+    }
+    published.removeAll(toRemove);
+    writeLines(manifestFile.toPath(), published);
+
+    System.out.println("發布產生的檔案 - 新增: " + added + "，變更: " + changed
+      + "，未變更: " + unchanged + "，移除: " + removed);
+  }
+
+  /**
+   * 內容不同時才將 staging 的檔案複製到專案目錄
+   */
+  private void publish(Path source, Path target, String path) throws IOException {
+    if (!Files.exists(target)) {
+      Files.createDirectories(target.getParent());
+      Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+      added++;
+      System.out.println("新增: " + path);
+    } else if (Files.size(source) != Files.size(target) || !sha256(source).equals(sha256(target))) {
+      Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+      changed++;
+      System.out.println("變更: " + path);
+    } else {
+      unchanged++;
+    }
+  }
+
+  private static List<Path> listFiles(Path dir) throws IOException {
+    try (Stream<Path> stream = Files.walk(dir)) {
+      return stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static String sha256(Path file) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(Files.readAllBytes(file));
+      StringBuilder builder = new StringBuilder();
+      for (byte b : hash) {
+        builder.append(String.format("%02x", b));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static Set<String> readLines(Path file) throws IOException {
+    Set<String> lines = new TreeSet<>();
+    if (Files.isRegularFile(file)) {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        if (StringUtils.isNotBlank(line)) {
+          lines.add(line.trim());
+        }
+      }
+    }
+    return lines;
+  }
+
+  private static void writeLines(Path file, Set<String> lines) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, new ArrayList<>(lines), StandardCharsets.UTF_8);
+  }
+
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(parameter.getProjectDir(), path);
+  }
+
+  private void loadParameter() {
+    this.parameter = new PublishGeneratedFilesParameter();
+    this.parameter.setProjectDir(getProp("mybatis.generator.project.dir", getProp("user.dir", "")));
+    this.parameter.setStagingDir(getProp("mybatis.generator.output.dir", "build/mybatis/generated"));
+    this.parameter.setIncremental(StringUtils.equals(getProp("mybatis.generator.incremental", "false"), "true"));
+  }
+
+  private String getProp(String key, String def) {
+    String v = properties.get(key);
+    if (StringUtils.isBlank(v)) {
+      v = System.getProperty(key);
+    }
+    if (StringUtils.isBlank(v)) {
+      v = System.getenv(key);
+    }
+    return StringUtils.defaultIfBlank(v, def);
+  }
+}
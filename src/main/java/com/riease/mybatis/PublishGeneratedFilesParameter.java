@@ -0,0 +1,32 @@
+package com.riease.mybatis;
+
+public class PublishGeneratedFilesParameter {
+
+  private String projectDir;
+  private String stagingDir;
+  private boolean incremental;
+
+  public String getProjectDir() {
+    return projectDir;
+  }
+
+  public void setProjectDir(String projectDir) {
+    this.projectDir = projectDir;
+  }
+
+  public String getStagingDir() {
+    return stagingDir;
+  }
+
+  public void setStagingDir(String stagingDir) {
+    this.stagingDir = stagingDir;
+  }
+
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+}
@@ -0,0 +1,136 @@
+package com.riease.mybatis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 以少量 catalog 查詢計算 schema 指紋，用來判斷 schema 自上次讀取後是否有變更。
+ * 每個方言只查詢資料列數、最後 DDL 時間或 checksum 等彙總值，不讀取任何欄位明細。
+ */
+public final class SchemaFingerprint {
+
+  private static final List<String> MYSQL = List.of(
+    "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, TABLE_COMMENT))), 0)"
+      + " FROM information_schema.TABLES WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())",
+    "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE,"
+      + " COLUMN_DEFAULT, EXTRA, COLUMN_COMMENT, ORDINAL_POSITION))), 0)"
+      + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())",
+    "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME,"
+      + " REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME))), 0)"
+      + " FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())",
+    "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, INDEX_NAME, NON_UNIQUE, SEQ_IN_INDEX,"
+      + " COLUMN_NAME))), 0)"
+      + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())");
+
+  private static final List<String> POSTGRESQL = List.of(
+    "SELECT COUNT(*), md5(string_agg(c.oid::text || ':' || c.relname || ':' || COALESCE(obj_description(c.oid, 'pg_class'), ''),"
+      + " ',' ORDER BY c.oid))"
+      + " FROM pg_catalog.pg_class c JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " WHERE c.relkind IN ('r', 'p') AND n.nspname = COALESCE(?, current_schema())",
+    "SELECT COUNT(*), md5(string_agg(a.attrelid::text || ':' || a.attnum || ':' || a.attname || ':' || a.atttypid || ':'"
+      + " || a.atttypmod || ':' || a.attnotnull || ':' || a.atthasdef || ':'"
+      + " || COALESCE(pg_get_expr(d.adbin, d.adrelid), '') || ':' || COALESCE(col_description(a.attrelid, a.attnum), ''),"
+      + " ',' ORDER BY a.attrelid, a.attnum))"
+      + " FROM pg_catalog.pg_attribute a JOIN pg_catalog.pg_class c ON c.oid = a.attrelid"
+      + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum"
+      + " WHERE a.attnum > 0 AND NOT a.attisdropped AND c.relkind IN ('r', 'p')"
+      + " AND n.nspname = COALESCE(?, current_schema())",
+    "SELECT COUNT(*), md5(string_agg(con.oid::text || ':' || con.contype, ',' ORDER BY con.oid))"
+      + " FROM pg_catalog.pg_constraint con JOIN pg_catalog.pg_namespace n ON n.oid = con.connamespace"
+      + " WHERE con.contype IN ('p', 'f') AND n.nspname = COALESCE(?, current_schema())",
+    "SELECT COUNT(*), md5(string_agg(ix.indexrelid::text || ':' || ix.indisunique || ':' || ix.indkey::text,"
+      + " ',' ORDER BY ix.indexrelid))"
+      + " FROM pg_catalog.pg_index ix JOIN pg_catalog.pg_class c ON c.oid = ix.indrelid"
+      + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+      + " WHERE n.nspname = COALESCE(?, current_schema())");
+
+  private static final List<String> ORACLE = List.of(
+    "SELECT COUNT(*), TO_CHAR(MAX(LAST_DDL_TIME), 'YYYYMMDDHH24MISS') FROM ALL_OBJECTS"
+      + " WHERE OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')) AND OBJECT_TYPE IN ('TABLE', 'INDEX')",
+    "SELECT COUNT(*), SUM(ORA_HASH(TABLE_NAME || ':' || COMMENTS)) FROM ALL_TAB_COMMENTS"
+      + " WHERE OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))",
+    "SELECT COUNT(*), SUM(ORA_HASH(TABLE_NAME || ':' || COLUMN_NAME || ':' || COMMENTS)) FROM ALL_COL_COMMENTS"
+      + " WHERE OWNER = COALESCE(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))");
+
+  private static final List<String> SQLSERVER = List.of(
+    "SELECT COUNT(*), CONVERT(varchar(30), MAX(modify_date), 126) FROM sys.objects"
+      + " WHERE is_ms_shipped = 0 AND type IN ('U', 'PK', 'F')",
+    "SELECT COUNT(*), CHECKSUM_AGG(CHECKSUM(i.object_id, i.index_id, i.name, i.is_unique)) FROM sys.indexes i"
+      + " JOIN sys.tables t ON t.object_id = i.object_id WHERE t.is_ms_shipped = 0",
+    "SELECT COUNT(*), CHECKSUM_AGG(CHECKSUM(CONVERT(nvarchar(4000), value))) FROM sys.extended_properties"
+      + " WHERE name = 'MS_Description'");
+
+  private static final List<String> SQLITE = List.of("PRAGMA schema_version");
+
+  private SchemaFingerprint() {
+  }
+
+  /**
+   * 計算 schema 指紋
+   *
+   * @return SHA-256 十六進位字串，當方言不支援時回傳 null
+   */
+  public static String compute(Connection conn, Dialect dialect, String catalog, String schema) throws SQLException {
+    if (Objects.isNull(dialect)) {
+      return null;
+    }
+    StringBuilder values = new StringBuilder(dialect.name());
+    for (String sql : queries(dialect)) {
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        // 與 BulkSchemaIntrospector 相同，MySQL 的 database 為 catalog，其餘為 schema
+        if (sql.contains("?")) {
+          ps.setString(1, dialect == Dialect.MYSQL ? catalog : schema);
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+          ResultSetMetaData rsMeta = rs.getMetaData();
+          while (rs.next()) {
+            for (int i = 1; i <= rsMeta.getColumnCount(); i++) {
+              values.append('|').append(rs.getString(i));
+            }
+          }
+        }
+      }
+    }
+    return sha256(values.toString());
+  }
+
+  private static List<String> queries(Dialect dialect) {
+    switch (dialect) {
+      case MYSQL:
+        return MYSQL;
+      case POSTGRESQL:
+        return POSTGRESQL;
+      case ORACLE:
+        return ORACLE;
+      case SQLSERVER:
+        return SQLSERVER;
+      case SQLITE:
+        return SQLITE;
+      default:
+        throw new IllegalStateException("Unsupported dialect: " + dialect);
+    }
+  }
+
+  static String sha256(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.riease.mybatis;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 讀取資料庫 metadata，並轉換為 {@link TableMeta} 列表。
+ */
+public interface SchemaIntrospector {
+
+  /**
+   * 讀取指定 catalog / schema 下符合過濾條件的 TABLE 的 metadata。
+   *
+   * @param conn    資料庫連線
+   * @param catalog catalog 名稱，可為 null
+   * @param schema  schema 名稱，可為 null
+   * @param filter  資料表過濾條件，不符合的資料表不會讀取欄位、主鍵與外鍵
+   * @return 依資料表名稱排序的 TableMeta 列表
+   */
+  List<TableMeta> introspect(Connection conn, String catalog, String schema, TableFilter filter) throws SQLException;
+}
@@ -0,0 +1,129 @@
+package com.riease.mybatis;
+
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 已讀取的 schema 快照，包含讀取來源、schema 指紋與 TableMeta 列表。
+ * 設定資料表列表時同時建立名稱索引，可由 {@link #getTable(String)} 查詢。
+ */
+public class SchemaSnapshot {
+
+  /** 讀取來源，由 connectionURL、catalog 與 schema 組成 */
+  String source;
+  /** schema 指紋，為 null 時表示無法判斷是否過期 */
+  String fingerprint;
+  /** 建立時間（epoch millis） */
+  long createdAt;
+  /** 讀取時使用的 catalog */
+  String catalog;
+  /** 讀取時使用的 schema */
+  String schema;
+  /** 資料庫方言，用於產生時重新計算指紋；為 null 時無法以資料庫確認快照是否過期 */
+  Dialect dialect;
+  /** 資料表列表 */
+  List<TableMeta> tables;
+  /** 資料表名稱，與 tables 的順序相同 */
+  private String[] tableNames = new String[0];
+  /** 依名稱排序的資料表索引 */
+  private int[] tableOrder = new int[0];
+
+  public SchemaSnapshot() {
+  }
+
+  public SchemaSnapshot(String source, String fingerprint, long createdAt, List<TableMeta> tables) {
+    this.source = source;
+    this.fingerprint = fingerprint;
+    this.createdAt = createdAt;
+    setTables(tables);
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public void setFingerprint(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public String getCatalog() {
+    return catalog;
+  }
+
+  public void setCatalog(String catalog) {
+    this.catalog = catalog;
+  }
+
+  public String getSchema() {
+    return schema;
+  }
+
+  public void setSchema(String schema) {
+    this.schema = schema;
+  }
+
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  public void setDialect(Dialect dialect) {
+    this.dialect = dialect;
+  }
+
+  public List<TableMeta> getTables() {
+    return tables;
+  }
+
+  public void setTables(List<TableMeta> tables) {
+    this.tables = tables;
+    this.tableNames = new String[tables.size()];
+    for (int i = 0; i < tableNames.length; i++) {
+      tableNames[i] = tables.get(i).getTableName();
+    }
+    this.tableOrder = NameIndex.sort(tableNames);
+  }
+
+  /**
+   * 以名稱查詢資料表，名稱需完全相同
+   *
+   * @return 找不到時回傳 null
+   */
+  public TableMeta getTable(String tableName) {
+    int index = NameIndex.find(tableNames, tableOrder, tableName);
+    return index < 0 ? null : tables.get(index);
+  }
+
+  /**
+   * 以名稱查詢資料表，沒有完全相同的名稱時不分大小寫比對，與設定檔比對既有 table 定義的方式相同
+   *
+   * @return 找不到時回傳 null
+   */
+  public TableMeta findTable(String tableName) {
+    TableMeta tableMeta = getTable(tableName);
+    if (tableMeta != null || tableName == null) {
+      return tableMeta;
+    }
+    for (TableMeta candidate : tables) {
+      if (StringUtils.equalsIgnoreCase(candidate.getTableName(), tableName)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,259 @@
+package com.riease.mybatis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * 以 GZIP 壓縮的二進位格式讀寫 {@link SchemaSnapshot}。
+ * <p>
+ * 檔案結構：magic、格式版本，接著為 source、fingerprint、createdAt、catalog、schema、方言與各資料表內容。
+ * 格式版本不符時視為沒有快照，由呼叫端重新讀取資料庫。
+ * <p>
+ * 字串以出現順序建立字典，重複的字串（例如欄位型別、參照的資料表）只寫入第一次，之後寫入字典中的編號；
+ * 讀取時相同的字串共用同一個實例。
+ */
+public final class SchemaSnapshotStore {
+
+  /** 預設快照檔案位置，相對於專案目錄 */
+  public static final String DEFAULT_PATH = "build-tools/mybatis/schema-snapshot.bin";
+
+  private static final int MAGIC = 0x4D424753; // "MBGS"
+  private static final int VERSION = 4;
+
+  private static final int NULLABLE = 1;
+  private static final int AUTO_INCREMENT = 2;
+  private static final int GENERATED = 4;
+
+  private SchemaSnapshotStore() {
+  }
+
+  /**
+   * 資料來源的快照檔案位置，未命名的資料來源使用 {@link #DEFAULT_PATH}
+   */
+  public static String pathOf(String dataSourceName) {
+    if (dataSourceName == null || dataSourceName.isEmpty()) {
+      return DEFAULT_PATH;
+    }
+    return "build-tools/mybatis/schema-snapshot-" + dataSourceName + ".bin";
+  }
+
+  /**
+   * context 使用的快照檔案：同名資料來源的快照，沒有時為預設快照
+   */
+  public static File fileOf(File projectDir, String contextId) {
+    File snapshotFile = new File(projectDir, pathOf(contextId));
+    return snapshotFile.isFile() ? snapshotFile : new File(projectDir, DEFAULT_PATH);
+  }
+
+  /**
+   * 設定檔中沒有包含在 context 快照中的資料表。
+   * 快照包含所有資料表時，快照即代表 mybatisGenerate 讀取的 schema，可作為任務的輸入判斷是否需要重新產生。
+   *
+   * @return 「context id.資料表名稱」，依設定檔中的順序排列；設定檔不存在時回傳空列表
+   */
+  public static List<String> uncoveredTables(File projectDir, File configFile) throws IOException, XMLStreamException {
+    List<String> uncovered = new ArrayList<>();
+    if (!configFile.isFile()) {
+      return uncovered;
+    }
+    for (Map.Entry<String, List<Map<String, String>>> entry
+      : GeneratorConfigRewriter.readTableAttributes(configFile).entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        continue;
+      }
+      SchemaSnapshot snapshot = read(fileOf(projectDir, entry.getKey()));
+      for (Map<String, String> attributes : entry.getValue()) {
+        String tableName = attributes.get("tableName");
+        if (snapshot == null || snapshot.getTable(tableName) == null) {
+          uncovered.add(entry.getKey() + "." + tableName);
+        }
+      }
+    }
+    return uncovered;
+  }
+
+  /**
+   * 讀取快照
+   *
+   * @return 快照，檔案不存在或格式版本不符時回傳 null
+   */
+  public static SchemaSnapshot read(File file) throws IOException {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+      new GZIPInputStream(Files.newInputStream(file.toPath()))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      List<String> dictionary = new ArrayList<>();
+      SchemaSnapshot snapshot = new SchemaSnapshot();
+      snapshot.setSource(readString(in, dictionary));
+      snapshot.setFingerprint(readString(in, dictionary));
+      snapshot.setCreatedAt(in.readLong());
+      snapshot.setCatalog(readString(in, dictionary));
+      snapshot.setSchema(readString(in, dictionary));
+      String dialect = readString(in, dictionary);
+      snapshot.setDialect(dialect == null ? null : Dialect.valueOf(dialect));
+      int tableCount = in.readInt();
+      StringPool strings = new StringPool();
+      List<TableMeta> tables = new ArrayList<>(tableCount);
+      for (int i = 0; i < tableCount; i++) {
+        tables.add(readTable(in, dictionary, strings));
+      }
+      snapshot.setTables(tables);
+      return snapshot;
+    }
+  }
+
+  /**
+   * 寫入快照，先寫到暫存檔再取代，避免中斷時留下不完整的檔案
+   */
+  public static void write(File file, SchemaSnapshot snapshot) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (!parent.exists() && !parent.mkdirs()) {
+      throw new IOException("無法建立目錄: " + parent.getAbsolutePath());
+    }
+    File tempFile = new File(parent, file.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+      new GZIPOutputStream(Files.newOutputStream(tempFile.toPath()))))) {
+      Map<String, Integer> dictionary = new HashMap<>();
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeString(out, snapshot.getSource(), dictionary);
+      writeString(out, snapshot.getFingerprint(), dictionary);
+      out.writeLong(snapshot.getCreatedAt());
+      writeString(out, snapshot.getCatalog(), dictionary);
+      writeString(out, snapshot.getSchema(), dictionary);
+      writeString(out, snapshot.getDialect() == null ? null : snapshot.getDialect().name(), dictionary);
+      out.writeInt(snapshot.getTables().size());
+      for (TableMeta table : snapshot.getTables()) {
+        writeTable(out, table, dictionary);
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static void writeTable(DataOutputStream out, TableMeta table, Map<String, Integer> dictionary)
+    throws IOException {
+    writeString(out, table.getTableName(), dictionary);
+    writeString(out, table.getComment(), dictionary);
+    out.writeInt(table.getColumnCount());
+    for (ColumnMeta column : table.getColumns()) {
+      writeString(out, column.getName(), dictionary);
+      writeString(out, column.getType(), dictionary);
+      out.writeInt(column.getJdbcType());
+      out.writeInt(column.getLength() == null ? -1 : column.getLength());
+      out.writeInt(column.getScale() == null ? -1 : column.getScale());
+      // 主鍵與外鍵旗標由鍵值清單決定，不保存
+      out.writeByte((column.isNullable() ? NULLABLE : 0) | (column.isAutoIncrement() ? AUTO_INCREMENT : 0)
+        | (column.isGenerated() ? GENERATED : 0));
+      writeString(out, column.getDefaultValue(), dictionary);
+      writeString(out, column.getComment(), dictionary);
+    }
+    out.writeInt(table.getPrimaryKeys().size());
+    for (String primaryKey : table.getPrimaryKeys()) {
+      writeString(out, primaryKey, dictionary);
+    }
+    out.writeInt(table.getForeignKeys().size());
+    for (ForeignKeyMeta foreignKey : table.getForeignKeys()) {
+      writeString(out, foreignKey.getColumnName(), dictionary);
+      writeString(out, foreignKey.getReferenceTable(), dictionary);
+      writeString(out, foreignKey.getReferenceColumn(), dictionary);
+    }
+    out.writeInt(table.getIndexes().size());
+    for (IndexMeta index : table.getIndexes()) {
+      writeString(out, index.getName(), dictionary);
+      out.writeBoolean(index.isUnique());
+      out.writeInt(index.getColumnNames().size());
+      for (String columnName : index.getColumnNames()) {
+        writeString(out, columnName, dictionary);
+      }
+    }
+  }
+
+  private static TableMeta readTable(DataInputStream in, List<String> dictionary, StringPool strings)
+    throws IOException {
+    TableMeta.Builder table = TableMeta.builder(readString(in, dictionary), readString(in, dictionary), strings);
+    int columnCount = in.readInt();
+    for (int i = 0; i < columnCount; i++) {
+      String name = readString(in, dictionary);
+      String type = readString(in, dictionary);
+      int jdbcType = in.readInt();
+      int length = in.readInt();
+      int scale = in.readInt();
+      int flags = in.readByte();
+      String defaultValue = readString(in, dictionary);
+      table.addColumn(name, type, jdbcType, length < 0 ? null : length, scale < 0 ? null : scale,
+        (flags & NULLABLE) != 0, defaultValue, (flags & AUTO_INCREMENT) != 0, (flags & GENERATED) != 0,
+        readString(in, dictionary));
+    }
+    int primaryKeyCount = in.readInt();
+    for (int i = 0; i < primaryKeyCount; i++) {
+      table.addPrimaryKey(readString(in, dictionary));
+    }
+    int foreignKeyCount = in.readInt();
+    for (int i = 0; i < foreignKeyCount; i++) {
+      table.addForeignKey(readString(in, dictionary), readString(in, dictionary), readString(in, dictionary));
+    }
+    int indexCount = in.readInt();
+    for (int i = 0; i < indexCount; i++) {
+      String name = readString(in, dictionary);
+      boolean unique = in.readBoolean();
+      int indexColumnCount = in.readInt();
+      for (int j = 0; j < indexColumnCount; j++) {
+        table.addIndexColumn(name, unique, readString(in, dictionary));
+      }
+    }
+    return table.build();
+  }
+
+  /**
+   * 寫入字串：-1 表示 null；0 以上為新字串的 UTF-8 長度，接著為內容；-2 以下為字典中已有的字串，編號為 -2 - 值
+   */
+  private static void writeString(DataOutputStream out, String value, Map<String, Integer> dictionary)
+    throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    Integer id = dictionary.get(value);
+    if (id != null) {
+      out.writeInt(-2 - id);
+      return;
+    }
+    dictionary.put(value, dictionary.size());
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in, List<String> dictionary) throws IOException {
+    int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < -1) {
+      return dictionary.get(-2 - length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    String value = new String(bytes, StandardCharsets.UTF_8);
+    dictionary.add(value);
+    return value;
+  }
+}
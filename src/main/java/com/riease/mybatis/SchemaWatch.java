@@ -0,0 +1,110 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 比對 context 的 schema 快照與目前的 schema 指紋，判斷快照是否過期。
+ * <p>
+ * 一般資料庫以連線重新計算 {@link SchemaFingerprint}，只執行少量彙總查詢；連線由建立時傳入，
+ * 可在監看期間重複使用，於 {@link #close()} 時關閉。DDL 腳本的資料來源以腳本內容計算，不需連線，
+ * 每次比對時重新掃描腳本，因此可發現新增的 migration 檔案。
+ */
+public class SchemaWatch implements AutoCloseable {
+
+  private final String contextId;
+  private final File snapshotFile;
+  private final Connection connection;
+  private final Dialect dialect;
+  private final String catalog;
+  private final String schema;
+  private final String projectDir;
+  private final String ddlScripts;
+
+  /** 快照記錄的指紋 */
+  private String fingerprint;
+
+  private SchemaWatch(String contextId, File snapshotFile, SchemaSnapshot snapshot, Connection connection,
+    String projectDir, String ddlScripts) {
+    this.contextId = contextId;
+    this.snapshotFile = snapshotFile;
+    this.fingerprint = snapshot.getFingerprint();
+    this.connection = connection;
+    this.dialect = snapshot.getDialect();
+    this.catalog = snapshot.getCatalog();
+    this.schema = snapshot.getSchema();
+    this.projectDir = projectDir;
+    this.ddlScripts = ddlScripts;
+  }
+
+  /**
+   * 以連線計算目前的指紋
+   *
+   * @param connection 比對時使用的連線，關閉 SchemaWatch 時一併關閉
+   */
+  public static SchemaWatch ofConnection(String contextId, File snapshotFile, SchemaSnapshot snapshot,
+    Connection connection) {
+    return new SchemaWatch(contextId, snapshotFile, snapshot, connection, null, null);
+  }
+
+  /**
+   * 以 DDL 腳本內容計算目前的指紋
+   *
+   * @param ddlScripts DDL 腳本路徑，以逗號分隔，相對於 projectDir
+   */
+  public static SchemaWatch ofScripts(String contextId, File snapshotFile, SchemaSnapshot snapshot,
+    String projectDir, String ddlScripts) {
+    return new SchemaWatch(contextId, snapshotFile, snapshot, null, projectDir, ddlScripts);
+  }
+
+  public String getContextId() {
+    return contextId;
+  }
+
+  /**
+   * @return 目前 schema 的指紋，資料庫不支援時回傳 null
+   */
+  public String currentFingerprint() throws SQLException {
+    if (Objects.isNull(connection)) {
+      return DdlDatabase.fingerprint(DdlDatabase.resolveScripts(projectDir, ddlScripts));
+    }
+    if (Objects.isNull(dialect)) {
+      return null;
+    }
+    return SchemaFingerprint.compute(connection, dialect, catalog, schema);
+  }
+
+  /**
+   * @return schema 與快照不同，或無法確認時回傳 true
+   */
+  public boolean isChanged() throws SQLException {
+    String current = currentFingerprint();
+    return Objects.isNull(fingerprint) || Objects.isNull(current) || !StringUtils.equals(fingerprint, current);
+  }
+
+  /**
+   * 快照重新產生後，重新讀取快照記錄的指紋
+   */
+  public void reload() throws IOException {
+    SchemaSnapshot snapshot = SchemaSnapshotStore.read(snapshotFile);
+    fingerprint = Objects.isNull(snapshot) ? null : snapshot.getFingerprint();
+  }
+
+  /**
+   * 將目前的 schema 視為已處理，重新產生失敗時使用，schema 再次變更前不再視為變更
+   */
+  public void markCurrent() throws SQLException {
+    fingerprint = currentFingerprint();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (Objects.nonNull(connection)) {
+      connection.close();
+    }
+  }
+}
@@ -0,0 +1,325 @@
+package com.riease.mybatis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.mybatis.generator.api.ConnectionFactory;
+
+/**
+ * 以 schema 快照取代資料庫連線的 MyBatis Generator ConnectionFactory。
+ * <p>
+ * 回傳的 Connection 不連線資料庫，只提供 MyBatis Generator 讀取資料表時使用的 DatabaseMetaData 方法
+ * （getColumns、getPrimaryKeys、getTables），內容由快照中的 TableMeta 組成；其他方法會拋出
+ * SQLFeatureNotSupportedException。
+ * <p>
+ * 快照以 {@link #register(SchemaSnapshot)} 註冊，回傳的 key 以 connectionFactory 的
+ * {@value #SNAPSHOT_PROPERTY} 屬性傳入，產生結束後以 {@link #unregister(String)} 移除。
+ */
+public class SnapshotConnectionFactory implements ConnectionFactory {
+
+  /** connectionFactory 屬性：已註冊快照的 key */
+  public static final String SNAPSHOT_PROPERTY = "snapshot";
+
+  private static final Map<String, SchemaSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+  private static final String[] COLUMN_LABELS = {
+    "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE",
+    "DECIMAL_DIGITS", "NULLABLE", "REMARKS", "COLUMN_DEF", "ORDINAL_POSITION", "IS_NULLABLE", "IS_AUTOINCREMENT",
+    "IS_GENERATEDCOLUMN"};
+
+  private static final String[] PRIMARY_KEY_LABELS = {
+    "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "KEY_SEQ", "PK_NAME"};
+
+  private static final String[] TABLE_LABELS = {
+    "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "TABLE_TYPE", "REMARKS"};
+
+  private SchemaSnapshot snapshot;
+
+  /**
+   * 註冊快照
+   *
+   * @return 作為 {@value #SNAPSHOT_PROPERTY} 屬性的 key
+   */
+  public static String register(SchemaSnapshot snapshot) {
+    String key = UUID.randomUUID().toString();
+    SNAPSHOTS.put(key, snapshot);
+    return key;
+  }
+
+  public static void unregister(String key) {
+    SNAPSHOTS.remove(key);
+  }
+
+  @Override
+  public void addConfigurationProperties(Properties properties) {
+    String key = properties.getProperty(SNAPSHOT_PROPERTY);
+    snapshot = key == null ? null : SNAPSHOTS.get(key);
+    if (snapshot == null) {
+      throw new IllegalStateException("找不到已註冊的 schema 快照: " + key);
+    }
+  }
+
+  @Override
+  public Connection getConnection() {
+    return proxy(Connection.class, new ConnectionHandler(snapshot));
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(SnapshotConnectionFactory.class.getClassLoader(), new Class<?>[] {type},
+      handler));
+  }
+
+  /**
+   * 處理 Object 的方法，其他未支援的方法拋出 SQLFeatureNotSupportedException
+   */
+  private abstract static class BaseHandler implements InvocationHandler {
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return getClass().getSimpleName();
+        case "isWrapperFor":
+          return false;
+        default:
+          return handle(proxy, method, args);
+      }
+    }
+
+    protected abstract Object handle(Object proxy, Method method, Object[] args) throws SQLException;
+
+    protected static SQLException unsupported(Method method) {
+      return new SQLFeatureNotSupportedException("以 schema 快照產生時不支援: " + method.getName());
+    }
+  }
+
+  private static class ConnectionHandler extends BaseHandler {
+
+    private final SchemaSnapshot snapshot;
+    private boolean closed;
+
+    ConnectionHandler(SchemaSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    protected Object handle(Object proxy, Method method, Object[] args) throws SQLException {
+      switch (method.getName()) {
+        case "getMetaData":
+          return proxy(DatabaseMetaData.class, new MetaDataHandler(snapshot, (Connection) proxy));
+        case "close":
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "isReadOnly":
+          return true;
+        case "getCatalog":
+          return snapshot.getCatalog();
+        case "getSchema":
+          return snapshot.getSchema();
+        default:
+          throw unsupported(method);
+      }
+    }
+  }
+
+  private static class MetaDataHandler extends BaseHandler {
+
+    private static final String SEARCH_STRING_ESCAPE = "\\";
+
+    private final SchemaSnapshot snapshot;
+    private final Connection connection;
+
+    MetaDataHandler(SchemaSnapshot snapshot, Connection connection) {
+      this.snapshot = snapshot;
+      this.connection = connection;
+    }
+
+    @Override
+    protected Object handle(Object proxy, Method method, Object[] args) throws SQLException {
+      switch (method.getName()) {
+        case "getConnection":
+          return connection;
+        case "getSearchStringEscape":
+          return SEARCH_STRING_ESCAPE;
+        case "storesLowerCaseIdentifiers":
+        case "storesUpperCaseIdentifiers":
+          // 快照中的名稱即為設定檔中的名稱，不轉換大小寫
+          return false;
+        case "getTables":
+          return tables((String) args[0], (String) args[1], findTable((String) args[2]));
+        case "getColumns":
+          return columns((String) args[0], (String) args[1], findTable((String) args[2]));
+        case "getPrimaryKeys":
+          return primaryKeys((String) args[0], (String) args[1], findTable((String) args[2]));
+        default:
+          throw unsupported(method);
+      }
+    }
+
+    /**
+     * 以名稱查詢資料表；MyBatis Generator 跳脫萬用字元時，以跳脫前的名稱查詢
+     */
+    private TableMeta findTable(String tableNamePattern) {
+      TableMeta tableMeta = snapshot.getTable(tableNamePattern);
+      if (tableMeta == null && tableNamePattern != null && tableNamePattern.contains(SEARCH_STRING_ESCAPE)) {
+        tableMeta = snapshot.getTable(tableNamePattern.replace(SEARCH_STRING_ESCAPE + "_", "_")
+          .replace(SEARCH_STRING_ESCAPE + "%", "%"));
+      }
+      return tableMeta;
+    }
+
+    private ResultSet tables(String catalog, String schema, TableMeta tableMeta) {
+      List<Object[]> rows = new ArrayList<>();
+      if (tableMeta != null) {
+        rows.add(new Object[] {catalog, schema, tableMeta.getTableName(), "TABLE", tableMeta.getComment()});
+      }
+      return resultSet(TABLE_LABELS, rows);
+    }
+
+    private ResultSet columns(String catalog, String schema, TableMeta tableMeta) {
+      List<Object[]> rows = new ArrayList<>();
+      if (tableMeta != null) {
+        List<ColumnMeta> columns = tableMeta.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+          ColumnMeta column = columns.get(i);
+          rows.add(new Object[] {catalog, schema, tableMeta.getTableName(), column.getName(), column.getJdbcType(),
+            column.getType(), column.getLength(), column.getScale(),
+            column.isNullable() ? DatabaseMetaData.columnNullable : DatabaseMetaData.columnNoNulls,
+            column.getComment(), column.getDefaultValue(), i + 1, column.isNullable() ? "YES" : "NO",
+            column.isAutoIncrement() ? "YES" : "NO", column.isGenerated() ? "YES" : "NO"});
+        }
+      }
+      return resultSet(COLUMN_LABELS, rows);
+    }
+
+    private ResultSet primaryKeys(String catalog, String schema, TableMeta tableMeta) {
+      List<Object[]> rows = new ArrayList<>();
+      if (tableMeta != null) {
+        List<String> primaryKeys = tableMeta.getPrimaryKeys();
+        for (int i = 0; i < primaryKeys.size(); i++) {
+          rows.add(new Object[] {catalog, schema, tableMeta.getTableName(), primaryKeys.get(i), (short) (i + 1), null});
+        }
+      }
+      return resultSet(PRIMARY_KEY_LABELS, rows);
+    }
+
+    private static ResultSet resultSet(String[] labels, List<Object[]> rows) {
+      return proxy(ResultSet.class, new ResultSetHandler(labels, rows));
+    }
+  }
+
+  /**
+   * 以記憶體中的資料列提供唯讀、只能向前移動的 ResultSet
+   */
+  private static class ResultSetHandler extends BaseHandler {
+
+    private final String[] labels;
+    private final List<Object[]> rows;
+    private int row = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    ResultSetHandler(String[] labels, List<Object[]> rows) {
+      this.labels = labels;
+      this.rows = Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    protected Object handle(Object proxy, Method method, Object[] args) throws SQLException {
+      switch (method.getName()) {
+        case "next":
+          row++;
+          return row < rows.size();
+        case "close":
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "wasNull":
+          return wasNull;
+        case "findColumn":
+          return findColumn((String) args[0]);
+        case "getMetaData":
+          return proxy(ResultSetMetaData.class, new ResultSetMetaDataHandler(labels));
+        case "getObject":
+          return value(args[0]);
+        case "getString": {
+          Object value = value(args[0]);
+          return value == null ? null : value.toString();
+        }
+        case "getInt": {
+          Object value = value(args[0]);
+          return value == null ? 0 : ((Number) value).intValue();
+        }
+        case "getShort": {
+          Object value = value(args[0]);
+          return value == null ? (short) 0 : ((Number) value).shortValue();
+        }
+        case "getBoolean":
+          return "YES".equals(value(args[0]));
+        default:
+          throw unsupported(method);
+      }
+    }
+
+    private Object value(Object column) throws SQLException {
+      if (row < 0 || row >= rows.size()) {
+        throw new SQLException("ResultSet 沒有目前的資料列");
+      }
+      int index = column instanceof Integer ? (Integer) column : findColumn((String) column);
+      Object value = rows.get(row)[index - 1];
+      wasNull = value == null;
+      return value;
+    }
+
+    private int findColumn(String label) throws SQLException {
+      for (int i = 0; i < labels.length; i++) {
+        if (labels[i].equalsIgnoreCase(label)) {
+          return i + 1;
+        }
+      }
+      throw new SQLException("找不到欄位: " + label);
+    }
+  }
+
+  private static class ResultSetMetaDataHandler extends BaseHandler {
+
+    private final String[] labels;
+
+    ResultSetMetaDataHandler(String[] labels) {
+      this.labels = labels;
+    }
+
+    @Override
+    protected Object handle(Object proxy, Method method, Object[] args) throws SQLException {
+      switch (method.getName()) {
+        case "getColumnCount":
+          return labels.length;
+        case "getColumnName":
+        case "getColumnLabel":
+          return labels[(Integer) args[0] - 1];
+        default:
+          throw unsupported(method);
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.riease.mybatis;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 讀取 metadata 時共用重複的字串（例如欄位型別、常見的欄位名稱與參照的資料表），相同內容只保留一個實例。
+ * <p>
+ * 不使用 {@link String#intern()}，pool 只在讀取期間存在，讀取結束後與未被引用的字串一起回收。
+ * 可由多個執行緒同時使用。
+ */
+public final class StringPool {
+
+  private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+  /**
+   * @return 與 value 內容相同的共用實例，value 為 null 時回傳 null
+   */
+  public String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    String existing = strings.putIfAbsent(value, value);
+    return existing == null ? value : existing;
+  }
+}
@@ -0,0 +1,188 @@
+package com.riease.mybatis;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 決定要讀取哪些資料表的 metadata。
+ * <ul>
+ *   <li>include：glob 樣式（{@code *}、{@code ?}），以 {@code regex:} 開頭時為正規表示式</li>
+ *   <li>exclude：與 include 相同格式，符合者一律排除</li>
+ *   <li>tables：明確指定的資料表名稱</li>
+ * </ul>
+ * 沒有 include 與 tables 時包含所有資料表。資料表名稱比對不分大小寫。
+ * <p>
+ * include 與 tables 能轉換為 JDBC LIKE 樣式時，會直接作為 getTables / getColumns 的 tableNamePattern，
+ * 讓資料庫只回傳需要的資料表；無法轉換（正規表示式）時以 "%" 查詢，再於記憶體中過濾。
+ */
+public class TableFilter {
+
+  /** LIKE 樣式數量超過此值時，改以 "%" 查詢，避免過多的查詢往返 */
+  private static final int MAX_PUSH_DOWN_PATTERNS = 50;
+
+  private static final String REGEX_PREFIX = "regex:";
+
+  private final List<String> includes;
+  private final List<String> excludes;
+  private final List<String> tables;
+
+  private final List<Pattern> includePatterns = new ArrayList<>();
+  private final List<Pattern> excludePatterns = new ArrayList<>();
+  private final Set<String> tableNames = new LinkedHashSet<>();
+
+  public TableFilter(List<String> includes, List<String> excludes, List<String> tables) {
+    this.includes = includes;
+    this.excludes = excludes;
+    this.tables = tables;
+    for (String include : includes) {
+      includePatterns.add(toPattern(include));
+    }
+    for (String exclude : excludes) {
+      excludePatterns.add(toPattern(exclude));
+    }
+    for (String table : tables) {
+      tableNames.add(table.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * 以逗號分隔的參數值建立 TableFilter
+   */
+  public static TableFilter of(String includes, String excludes, String tables) {
+    return new TableFilter(split(includes), split(excludes), split(tables));
+  }
+
+  /**
+   * 是否需要讀取該資料表
+   */
+  public boolean accept(String tableName) {
+    String name = tableName.toLowerCase(Locale.ROOT);
+    for (Pattern pattern : excludePatterns) {
+      if (pattern.matcher(tableName).matches()) {
+        return false;
+      }
+    }
+    if (includePatterns.isEmpty() && tableNames.isEmpty()) {
+      return true;
+    }
+    if (tableNames.contains(name)) {
+      return true;
+    }
+    for (Pattern pattern : includePatterns) {
+      if (pattern.matcher(tableName).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 轉換為 JDBC 的 tableNamePattern，並依資料庫儲存識別字的大小寫調整。
+   * 無法轉換時回傳只有 "%" 的列表。
+   */
+  public List<String> tableNamePatterns(DatabaseMetaData meta) throws SQLException {
+    List<String> all = Collections.singletonList("%");
+    if (includes.isEmpty() && tables.isEmpty()) {
+      return all;
+    }
+    String escape = StringUtils.defaultString(meta.getSearchStringEscape());
+    Set<String> patterns = new LinkedHashSet<>();
+    for (String table : tables) {
+      patterns.add(escapeLike(table, escape));
+    }
+    for (String include : includes) {
+      if (include.startsWith(REGEX_PREFIX)) {
+        return all;
+      }
+      patterns.add(globToLike(include, escape));
+    }
+    if (patterns.size() > MAX_PUSH_DOWN_PATTERNS) {
+      return all;
+    }
+    List<String> result = new ArrayList<>();
+    for (String pattern : patterns) {
+      if (meta.storesUpperCaseIdentifiers()) {
+        result.add(pattern.toUpperCase(Locale.ROOT));
+      } else if (meta.storesLowerCaseIdentifiers()) {
+        result.add(pattern.toLowerCase(Locale.ROOT));
+      } else {
+        result.add(pattern);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 過濾條件的文字描述，用於判斷 schema 快照是否以相同條件建立
+   */
+  public String describe() {
+    return "include=" + includes + ";exclude=" + excludes + ";tables=" + tables;
+  }
+
+  private static Pattern toPattern(String value) {
+    if (value.startsWith(REGEX_PREFIX)) {
+      return Pattern.compile(value.substring(REGEX_PREFIX.length()), Pattern.CASE_INSENSITIVE);
+    }
+    StringBuilder regex = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == '*') {
+        regex.append(".*");
+      } else if (c == '?') {
+        regex.append('.');
+      } else {
+        regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+  }
+
+  private static String globToLike(String glob, String escape) {
+    StringBuilder like = new StringBuilder();
+    for (char c : glob.toCharArray()) {
+      if (c == '*') {
+        like.append('%');
+      } else if (c == '?') {
+        like.append('_');
+      } else {
+        like.append(escapeLike(String.valueOf(c), escape));
+      }
+    }
+    return like.toString();
+  }
+
+  private static String escapeLike(String value, String escape) {
+    if (escape.isEmpty()) {
+      // 無法跳脫時 "_" 與 "%" 仍為萬用字元，多出的資料表會在 accept 時排除
+      return value;
+    }
+    StringBuilder like = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == '_' || c == '%' || escape.equals(String.valueOf(c))) {
+        like.append(escape);
+      }
+      like.append(c);
+    }
+    return like.toString();
+  }
+
+  private static List<String> split(String value) {
+    List<String> list = new ArrayList<>();
+    if (StringUtils.isBlank(value)) {
+      return list;
+    }
+    for (String item : value.split(",")) {
+      if (StringUtils.isNotBlank(item)) {
+        list.add(item.trim());
+      }
+    }
+    return list;
+  }
+}
@@ -0,0 +1,142 @@
+package com.riease.mybatis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 依索引決定可產生查詢方法的欄位，寫入設定檔 table 的屬性，由 IndexSelectorPlugin 產生 selectBy 與 existsBy 方法；
+ * 並找出沒有索引可用的外鍵欄位。
+ * <ul>
+ *   <li>{@value #UNIQUE_INDEXES_PROPERTY}：唯一索引的欄位，索引之間以逗號分隔，複合索引的欄位以 + 連接，
+ *   例如 {@code email,tenant_id+code}；不含欄位與主鍵相同的索引（已有 selectByPrimaryKey）</li>
+ *   <li>{@value #INDEXED_COLUMNS_PROPERTY}：各索引的第一個欄位，以逗號分隔；不含單一欄位的主鍵與單一欄位的唯一索引</li>
+ * </ul>
+ */
+final class TableIndexes {
+
+  /** table 屬性：唯一索引的欄位 */
+  static final String UNIQUE_INDEXES_PROPERTY = "uniqueIndexes";
+
+  /** table 屬性：索引的第一個欄位 */
+  static final String INDEXED_COLUMNS_PROPERTY = "indexedColumns";
+
+  private TableIndexes() {
+  }
+
+  /**
+   * @return {@value #UNIQUE_INDEXES_PROPERTY} 屬性，沒有可用的唯一索引時回傳 null
+   */
+  static String uniqueIndexes(TableMeta tableMeta) {
+    Set<String> primaryKeys = lowerCase(tableMeta.getPrimaryKeys());
+    Set<String> uniqueIndexes = new LinkedHashSet<>();
+    for (IndexMeta index : tableMeta.getIndexes()) {
+      if (index.isUnique() && isPropertySafe(index.getColumnNames())
+        && !lowerCase(index.getColumnNames()).equals(primaryKeys)) {
+        uniqueIndexes.add(String.join("+", index.getColumnNames()));
+      }
+    }
+    return uniqueIndexes.isEmpty() ? null : String.join(",", uniqueIndexes);
+  }
+
+  /**
+   * @return {@value #INDEXED_COLUMNS_PROPERTY} 屬性，沒有可用的索引時回傳 null
+   */
+  static String indexedColumns(TableMeta tableMeta) {
+    // 已有以單一欄位查詢單筆資料的方法
+    Set<String> uniqueColumns = new HashSet<>();
+    if (tableMeta.getPrimaryKeys().size() == 1) {
+      uniqueColumns.add(tableMeta.getPrimaryKeys().get(0).toLowerCase(Locale.ROOT));
+    }
+    for (IndexMeta index : tableMeta.getIndexes()) {
+      if (index.isUnique() && index.getColumnNames().size() == 1) {
+        uniqueColumns.add(index.getColumnNames().get(0).toLowerCase(Locale.ROOT));
+      }
+    }
+    Set<String> indexedColumns = new LinkedHashSet<>();
+    for (IndexMeta index : tableMeta.getIndexes()) {
+      String leading = index.getColumnNames().get(0);
+      // 已加入的欄位同樣加入 uniqueColumns，多個索引以相同欄位開頭時只加入一次
+      if (isPropertySafe(index.getColumnNames().subList(0, 1))
+        && uniqueColumns.add(leading.toLowerCase(Locale.ROOT))) {
+        indexedColumns.add(leading);
+      }
+    }
+    return indexedColumns.isEmpty() ? null : String.join(",", indexedColumns);
+  }
+
+  /**
+   * 沒有索引可用的外鍵欄位：外鍵欄位不是任何索引（含主鍵）的第一個欄位，
+   * 且不在只由參照相同資料表的外鍵欄位組成的索引前綴之後（例如複合外鍵 (a, b) 與索引 (a, b)）。
+   * 刪除或更新參照的資料時，資料庫需要以外鍵欄位查詢參照的資料列，沒有索引時每次都會掃描整個資料表。
+   */
+  static List<ForeignKeyMeta> unindexedForeignKeys(TableMeta tableMeta) {
+    List<ForeignKeyMeta> unindexed = new ArrayList<>();
+    List<List<String>> indexes = new ArrayList<>();
+    if (!tableMeta.getPrimaryKeys().isEmpty()) {
+      indexes.add(tableMeta.getPrimaryKeys());
+    }
+    for (IndexMeta index : tableMeta.getIndexes()) {
+      indexes.add(index.getColumnNames());
+    }
+    for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+      boolean indexed = false;
+      for (List<String> columns : indexes) {
+        if (isIndexPrefix(tableMeta, foreignKey, columns)) {
+          indexed = true;
+          break;
+        }
+      }
+      if (!indexed) {
+        unindexed.add(foreignKey);
+      }
+    }
+    return unindexed;
+  }
+
+  private static boolean isIndexPrefix(TableMeta tableMeta, ForeignKeyMeta foreignKey, List<String> columns) {
+    for (String column : columns) {
+      if (column.equalsIgnoreCase(foreignKey.getColumnName())) {
+        return true;
+      }
+      if (!referencesSameTable(tableMeta, column, foreignKey.getReferenceTable())) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private static boolean referencesSameTable(TableMeta tableMeta, String column, String referenceTable) {
+    for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+      if (foreignKey.getColumnName().equalsIgnoreCase(column)
+        && foreignKey.getReferenceTable().equalsIgnoreCase(referenceTable)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 屬性以逗號與 + 分隔，欄位名稱含有這兩個字元時無法寫入
+   */
+  private static boolean isPropertySafe(List<String> columns) {
+    for (String column : columns) {
+      if (Objects.isNull(column) || column.indexOf(',') >= 0 || column.indexOf('+') >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Set<String> lowerCase(List<String> names) {
+    Set<String> result = new HashSet<>();
+    for (String name : names) {
+      result.add(name.toLowerCase(Locale.ROOT));
+    }
+    return result;
+  }
+}
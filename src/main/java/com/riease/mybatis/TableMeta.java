@@ -1,59 +1,395 @@
 package com.riease.mybatis;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
-public class TableMeta {
+/**
+ * 資料表的 metadata，建立後不可修改，以 {@link Builder} 建立。
+ * <p>
+ * 資料表與欄位數量很多時，為了降低記憶體用量，欄位不以個別物件保存，而是以平行的陣列保存：
+ * 名稱、型別與備註為字串陣列（重複的字串由 {@link StringPool} 共用同一個實例），
+ * JDBC 型別、長度與小數位數為 int 陣列，是否允許為空、自動遞增、計算欄位與是否為主鍵、外鍵為 byte 陣列中的位元旗標。
+ * 索引同樣以平行的陣列保存，各索引的欄位依序接在同一個字串陣列中，以起始位置區分。
+ * {@link #getColumns()}、{@link #getForeignKeys()} 與 {@link #getIndexes()} 回傳唯讀的 view，存取時才建立輕量的
+ * {@link ColumnMeta}、{@link ForeignKeyMeta} 與 {@link IndexMeta}。
+ */
+public final class TableMeta {
+
+  static final int NULLABLE = 1;
+  static final int PRIMARY_KEY = 2;
+  static final int FOREIGN_KEY = 4;
+  static final int AUTO_INCREMENT = 8;
+  static final int GENERATED = 16;
+
+  /** 欄位長度或小數位數未知 */
+  private static final int NO_LENGTH = -1;
 
   /** 資料表名稱 */
-  String tableName;
-  /** 欄位資訊列表 */
-  List<ColumnMeta> columns;
-  /** 主鍵欄位名稱列表 */
-  List<String> primaryKeys;
-  /** 外鍵資訊列表 */
-  List<ForeignKeyMeta> foreignKeys;
+  private final String tableName;
   /** 資料表備註 */
-  String comment;
+  private final String comment;
+  private final String[] columnNames;
+  private final String[] columnTypes;
+  private final String[] columnComments;
+  private final String[] columnDefaults;
+  /** {@link java.sql.Types} 中的 JDBC 型別 */
+  private final int[] columnJdbcTypes;
+  private final int[] columnLengths;
+  private final int[] columnScales;
+  private final byte[] columnFlags;
+  /** 依名稱排序的欄位索引，以二分搜尋查詢欄位 */
+  private final int[] columnOrder;
+  /** 主鍵欄位名稱 */
+  private final String[] primaryKeys;
+  private final String[] foreignKeyColumns;
+  private final String[] foreignKeyTables;
+  private final String[] foreignKeyReferenceColumns;
+  private final String[] indexNames;
+  private final boolean[] indexUnique;
+  /** 各索引第一個欄位在 {@link #indexColumnNames} 中的位置，最後一個元素為欄位總數 */
+  private final int[] indexStarts;
+  /** 依索引與欄位順序排列的索引欄位名稱 */
+  private final String[] indexColumnNames;
+
+  private TableMeta(Builder builder) {
+    int columnCount = builder.columnNames.size();
+    this.tableName = builder.tableName;
+    this.comment = builder.comment;
+    this.columnNames = builder.columnNames.toArray(new String[0]);
+    this.columnTypes = builder.columnTypes.toArray(new String[0]);
+    this.columnComments = builder.columnComments.toArray(new String[0]);
+    this.columnDefaults = builder.columnDefaults.toArray(new String[0]);
+    this.columnJdbcTypes = Arrays.copyOf(builder.columnJdbcTypes, columnCount);
+    this.columnLengths = Arrays.copyOf(builder.columnLengths, columnCount);
+    this.columnScales = Arrays.copyOf(builder.columnScales, columnCount);
+    this.columnFlags = Arrays.copyOf(builder.columnFlags, columnCount);
+    this.primaryKeys = builder.primaryKeys.toArray(new String[0]);
+    this.foreignKeyColumns = builder.foreignKeyColumns.toArray(new String[0]);
+    this.foreignKeyTables = builder.foreignKeyTables.toArray(new String[0]);
+    this.foreignKeyReferenceColumns = builder.foreignKeyReferenceColumns.toArray(new String[0]);
+    int indexCount = builder.indexNames.size();
+    this.indexNames = builder.indexNames.toArray(new String[0]);
+    this.indexUnique = new boolean[indexCount];
+    this.indexStarts = new int[indexCount + 1];
+    for (int i = 0; i < indexCount; i++) {
+      indexUnique[i] = builder.indexUnique.get(i);
+      indexStarts[i] = builder.indexStarts.get(i);
+    }
+    indexStarts[indexCount] = builder.indexColumnNames.size();
+    this.indexColumnNames = builder.indexColumnNames.toArray(new String[0]);
+    this.columnOrder = NameIndex.sort(columnNames);
+
+    // 主鍵與外鍵旗標由鍵值清單決定，與讀取欄位的順序無關
+    Set<String> primaryKeySet = new HashSet<>(Arrays.asList(primaryKeys));
+    Set<String> foreignKeySet = new HashSet<>(Arrays.asList(foreignKeyColumns));
+    for (int i = 0; i < columnCount; i++) {
+      int flags = columnFlags[i] & ~(PRIMARY_KEY | FOREIGN_KEY);
+      if (primaryKeySet.contains(columnNames[i])) {
+        flags |= PRIMARY_KEY;
+      }
+      if (foreignKeySet.contains(columnNames[i])) {
+        flags |= FOREIGN_KEY;
+      }
+      columnFlags[i] = (byte) flags;
+    }
+  }
+
+  public static Builder builder(String tableName, String comment, StringPool strings) {
+    return new Builder(tableName, comment, strings);
+  }
 
   public String getTableName() {
     return tableName;
   }
 
-  public void setTableName(String tableName) {
-    this.tableName = tableName;
+  public String getComment() {
+    return comment;
   }
 
+  /**
+   * @return 依讀取順序排列的欄位，唯讀
+   */
   public List<ColumnMeta> getColumns() {
-    return columns;
+    return new AbstractList<ColumnMeta>() {
+      @Override
+      public ColumnMeta get(int index) {
+        if (index < 0 || index >= columnNames.length) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + columnNames.length);
+        }
+        return new ColumnMeta(TableMeta.this, index);
+      }
+
+      @Override
+      public int size() {
+        return columnNames.length;
+      }
+    };
   }
 
-  public void setColumns(List<ColumnMeta> columns) {
-    this.columns = columns;
+  /**
+   * 以名稱查詢欄位，名稱需完全相同
+   *
+   * @return 找不到時回傳 null
+   */
+  public ColumnMeta getColumn(String name) {
+    int index = NameIndex.find(columnNames, columnOrder, name);
+    return index < 0 ? null : new ColumnMeta(this, index);
   }
 
-  public List<String> getPrimaryKeys() {
-    return primaryKeys;
+  public int getColumnCount() {
+    return columnNames.length;
   }
 
-  public void setPrimaryKeys(List<String> primaryKeys) {
-    this.primaryKeys = primaryKeys;
+  /**
+   * @return 主鍵欄位名稱，唯讀
+   */
+  public List<String> getPrimaryKeys() {
+    return Collections.unmodifiableList(Arrays.asList(primaryKeys));
   }
 
+  /**
+   * @return 外鍵，唯讀
+   */
   public List<ForeignKeyMeta> getForeignKeys() {
-    return foreignKeys;
+    return new AbstractList<ForeignKeyMeta>() {
+      @Override
+      public ForeignKeyMeta get(int index) {
+        if (index < 0 || index >= foreignKeyColumns.length) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + foreignKeyColumns.length);
+        }
+        return new ForeignKeyMeta(TableMeta.this, index);
+      }
+
+      @Override
+      public int size() {
+        return foreignKeyColumns.length;
+      }
+    };
+  }
+
+  /**
+   * @return 索引，含主鍵的索引（依資料庫是否回報而定），唯讀
+   */
+  public List<IndexMeta> getIndexes() {
+    return new AbstractList<IndexMeta>() {
+      @Override
+      public IndexMeta get(int index) {
+        if (index < 0 || index >= indexNames.length) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + indexNames.length);
+        }
+        return new IndexMeta(TableMeta.this, index);
+      }
+
+      @Override
+      public int size() {
+        return indexNames.length;
+      }
+    };
   }
 
-  public void setForeignKeys(List<ForeignKeyMeta> foreignKeys) {
-    this.foreignKeys = foreignKeys;
+  String columnName(int index) {
+    return columnNames[index];
   }
 
-  public String getComment() {
-    return comment;
+  String columnType(int index) {
+    return columnTypes[index];
   }
 
-  public void setComment(String comment) {
-    this.comment = comment;
+  String columnComment(int index) {
+    return columnComments[index];
+  }
+
+  String columnDefault(int index) {
+    return columnDefaults[index];
   }
-}
 
+  int columnJdbcType(int index) {
+    return columnJdbcTypes[index];
+  }
+
+  Integer columnLength(int index) {
+    return columnLengths[index] == NO_LENGTH ? null : columnLengths[index];
+  }
+
+  Integer columnScale(int index) {
+    return columnScales[index] == NO_LENGTH ? null : columnScales[index];
+  }
+
+  boolean hasColumnFlag(int index, int flag) {
+    return (columnFlags[index] & flag) != 0;
+  }
 
+  String foreignKeyColumn(int index) {
+    return foreignKeyColumns[index];
+  }
+
+  String foreignKeyTable(int index) {
+    return foreignKeyTables[index];
+  }
+
+  String foreignKeyReferenceColumn(int index) {
+    return foreignKeyReferenceColumns[index];
+  }
+
+  String indexName(int index) {
+    return indexNames[index];
+  }
+
+  boolean isIndexUnique(int index) {
+    return indexUnique[index];
+  }
+
+  List<String> indexColumns(int index) {
+    return Collections.unmodifiableList(
+      Arrays.asList(indexColumnNames).subList(indexStarts[index], indexStarts[index + 1]));
+  }
+
+  /**
+   * 讀取 metadata 時逐步加入欄位與鍵值，最後以 {@link #build()} 建立不可修改的 TableMeta。
+   * 每個 Builder 只由一個執行緒使用；共用的 {@link StringPool} 可由多個執行緒同時使用。
+   */
+  public static final class Builder {
+
+    private final StringPool strings;
+    private final String tableName;
+    private final String comment;
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<String> columnTypes = new ArrayList<>();
+    private final List<String> columnComments = new ArrayList<>();
+    private final List<String> columnDefaults = new ArrayList<>();
+    private int[] columnJdbcTypes = new int[16];
+    private int[] columnLengths = new int[16];
+    private int[] columnScales = new int[16];
+    private byte[] columnFlags = new byte[16];
+    private final List<String> primaryKeys = new ArrayList<>();
+    private final List<String> foreignKeyColumns = new ArrayList<>();
+    private final List<String> foreignKeyTables = new ArrayList<>();
+    private final List<String> foreignKeyReferenceColumns = new ArrayList<>();
+    private final List<String> indexNames = new ArrayList<>();
+    private final List<Boolean> indexUnique = new ArrayList<>();
+    private final List<Integer> indexStarts = new ArrayList<>();
+    private final List<String> indexColumnNames = new ArrayList<>();
+    /** 含有運算式欄位而略過的索引，之後讀到同名的欄位也一併略過 */
+    private String skippedIndex;
+
+    private Builder(String tableName, String comment, StringPool strings) {
+      this.strings = strings;
+      this.tableName = strings.intern(tableName);
+      this.comment = strings.intern(comment);
+    }
+
+    public String getTableName() {
+      return tableName;
+    }
+
+    public String getComment() {
+      return comment;
+    }
+
+    public int getColumnCount() {
+      return columnNames.size();
+    }
+
+    /**
+     * 加入欄位，內容對應 DatabaseMetaData#getColumns 的同名欄位
+     *
+     * @param type     資料庫的型別名稱（TYPE_NAME）
+     * @param jdbcType {@link java.sql.Types} 中的 JDBC 型別（DATA_TYPE）
+     * @param length   欄位長度（COLUMN_SIZE），未知時為 null
+     * @param scale    小數位數（DECIMAL_DIGITS），未知時為 null
+     */
+    public Builder addColumn(String name, String type, int jdbcType, Integer length, Integer scale, boolean nullable,
+      String defaultValue, boolean autoIncrement, boolean generated, String comment) {
+      int index = columnNames.size();
+      if (index == columnLengths.length) {
+        columnJdbcTypes = Arrays.copyOf(columnJdbcTypes, index * 2);
+        columnLengths = Arrays.copyOf(columnLengths, index * 2);
+        columnScales = Arrays.copyOf(columnScales, index * 2);
+        columnFlags = Arrays.copyOf(columnFlags, index * 2);
+      }
+      columnNames.add(strings.intern(name));
+      columnTypes.add(strings.intern(type));
+      columnComments.add(strings.intern(comment));
+      columnDefaults.add(strings.intern(defaultValue));
+      columnJdbcTypes[index] = jdbcType;
+      columnLengths[index] = length == null ? NO_LENGTH : length;
+      columnScales[index] = scale == null ? NO_LENGTH : scale;
+      int flags = nullable ? NULLABLE : 0;
+      if (autoIncrement) {
+        flags |= AUTO_INCREMENT;
+      }
+      if (generated) {
+        flags |= GENERATED;
+      }
+      columnFlags[index] = (byte) flags;
+      return this;
+    }
+
+    public Builder addPrimaryKey(String columnName) {
+      primaryKeys.add(strings.intern(columnName));
+      return this;
+    }
+
+    public Builder addForeignKey(String columnName, String referenceTable, String referenceColumn) {
+      foreignKeyColumns.add(strings.intern(columnName));
+      foreignKeyTables.add(strings.intern(referenceTable));
+      foreignKeyReferenceColumns.add(strings.intern(referenceColumn));
+      return this;
+    }
+
+    /**
+     * 加入索引欄位，同一個索引的欄位需連續且依欄位順序加入，內容對應 DatabaseMetaData#getIndexInfo 的同名欄位。
+     * 運算式索引的欄位沒有名稱（columnName 為 null），此時略過整個索引，不保存不完整的欄位清單
+     *
+     * @param indexName 索引名稱（INDEX_NAME）
+     * @param unique    是否為唯一索引（NON_UNIQUE 為 false）
+     */
+    public Builder addIndexColumn(String indexName, boolean unique, String columnName) {
+      int last = indexNames.size() - 1;
+      boolean sameIndex = last >= 0 && indexNames.get(last).equals(indexName);
+      if (Objects.equals(skippedIndex, indexName) && !sameIndex) {
+        return this;
+      }
+      if (Objects.isNull(columnName)) {
+        if (sameIndex) {
+          indexColumnNames.subList(indexStarts.get(last), indexColumnNames.size()).clear();
+          indexNames.remove(last);
+          indexUnique.remove(last);
+          indexStarts.remove(last);
+        }
+        skippedIndex = indexName;
+        return this;
+      }
+      if (!sameIndex) {
+        skippedIndex = null;
+        indexNames.add(strings.intern(indexName));
+        indexUnique.add(unique);
+        indexStarts.add(indexColumnNames.size());
+      }
+      indexColumnNames.add(strings.intern(columnName));
+      return this;
+    }
+
+    public List<String> getPrimaryKeys() {
+      return Collections.unmodifiableList(primaryKeys);
+    }
+
+    public int getIndexCount() {
+      return indexNames.size();
+    }
+
+    public int getForeignKeyCount() {
+      return foreignKeyColumns.size();
+    }
+
+    public TableMeta build() {
+      return new TableMeta(this);
+    }
+  }
+}
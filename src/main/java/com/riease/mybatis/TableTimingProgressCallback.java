@@ -0,0 +1,80 @@
+package com.riease.mybatis;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.mybatis.generator.api.ProgressCallback;
+
+/**
+ * 轉送 MyBatisGenerator 的進度通知，並依工作名稱中的資料表名稱累計每個資料表的耗時。
+ * <p>
+ * MyBatisGenerator 依序執行各項工作，每項工作的耗時為到下一次 startTask 為止的時間；
+ * 名稱為 "... table XXX" 的工作（讀取資料表、產生各類檔案）計入該資料表，其餘工作（例如寫入檔案）不計入。
+ * 全部完成時，每個資料表的耗時記錄到 {@link GeneratorMetrics} 的 generation 分布。
+ */
+public class TableTimingProgressCallback implements ProgressCallback {
+
+  private static final Pattern TABLE_TASK = Pattern.compile("table (\\S+)$");
+
+  private final ProgressCallback delegate;
+  private final GeneratorMetrics metrics;
+  private final Map<String, Long> tableNanos = new HashMap<>();
+
+  private String currentTable;
+  private long currentStart;
+
+  public TableTimingProgressCallback(ProgressCallback delegate, GeneratorMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void introspectionStarted(int totalTasks) {
+    delegate.introspectionStarted(totalTasks);
+  }
+
+  @Override
+  public void generationStarted(int totalTasks) {
+    delegate.generationStarted(totalTasks);
+  }
+
+  @Override
+  public void saveStarted(int totalTasks) {
+    finishTask();
+    delegate.saveStarted(totalTasks);
+  }
+
+  @Override
+  public void startTask(String taskName) {
+    finishTask();
+    Matcher matcher = TABLE_TASK.matcher(taskName);
+    if (matcher.find()) {
+      currentTable = matcher.group(1);
+      currentStart = System.nanoTime();
+    }
+    delegate.startTask(taskName);
+  }
+
+  @Override
+  public void done() {
+    finishTask();
+    for (long nanos : tableNanos.values()) {
+      metrics.addTableLatency(GeneratorMetrics.PHASE_GENERATION, nanos);
+    }
+    tableNanos.clear();
+    delegate.done();
+  }
+
+  @Override
+  public void checkCancel() throws InterruptedException {
+    delegate.checkCancel();
+  }
+
+  private void finishTask() {
+    if (currentTable != null) {
+      tableNanos.merge(currentTable, System.nanoTime() - currentStart, Long::sum);
+      currentTable = null;
+    }
+  }
+}
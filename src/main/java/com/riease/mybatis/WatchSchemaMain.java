@@ -0,0 +1,227 @@
+package com.riease.mybatis;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * WatchSchemaMain
+ * 持續監看資料庫 schema，schema 變更時自動更新設定檔與快照、重新產生並格式化變更的資料表。
+ * <p>
+ * 每個 context 保持一個連線，依設定的間隔以 {@link SchemaFingerprint} 比對快照記錄的指紋，只執行少量彙總查詢；
+ * DDL 腳本的資料來源改為比對腳本內容。偵測到變更時，在同一個 JVM 中依序執行
+ * {@link CopyMyBatisGeneratorConfigMain} 與 incremental 的 {@link MyBatisGenerateMain}，
+ * 只重新產生簽章有變更的資料表，再以 {@link EclipseJavaFormatter} 格式化這次產生的 Java 檔案。
+ * <p>
+ * 自偵測到變更到原始碼更新完成的耗時記錄在報表的 tableLatency.changeToSources。
+ * 執行緒被中斷（Gradle 取消任務或 Ctrl+C）時結束。
+ */
+public class WatchSchemaMain {
+
+  private WatchSchemaParameter parameter;
+
+  /** 各階段耗時與變更次數，每次重新產生後更新報表 */
+  private GeneratorMetrics metrics = new GeneratorMetrics("mybatisWatch");
+
+  /** 執行參數，優先於系統屬性與環境變數 */
+  private final Map<String, String> properties;
+
+  /** 重新產生時傳給 copyMyBatisGeneratorConfig 與 mybatisGenerate 的參數，一律為 incremental */
+  private final Map<String, String> cycleProperties;
+
+  private EclipseJavaFormatter formatter;
+
+  public WatchSchemaMain() {
+    this(Collections.emptyMap());
+  }
+
+  public WatchSchemaMain(Map<String, String> properties) {
+    this.properties = properties;
+    this.cycleProperties = new HashMap<>(properties);
+    this.cycleProperties.put("mybatis.generator.incremental", "true");
+    // 直接更新專案中的原始碼，不使用 staging 目錄
+    this.cycleProperties.remove("mybatis.generator.output.dir");
+  }
+
+  public static void main(String[] args) throws Exception {
+    execute(Collections.emptyMap());
+  }
+
+  /**
+   * 以指定參數執行，供 Gradle Worker API 在同一個 JVM 中直接呼叫；直到執行緒被中斷才返回
+   */
+  public static void execute(Map<String, String> properties) throws Exception {
+    WatchSchemaMain main = new WatchSchemaMain(properties);
+    main.loadParameter();
+    main.metrics = GeneratorMetrics.start("mybatisWatch");
+    try {
+      main.run();
+    } finally {
+      main.writeReport();
+    }
+  }
+
+  private void run() throws Exception {
+    formatter = EclipseJavaFormatter.create(resolve(parameter.getFormatterFile()));
+    if (Objects.isNull(formatter)) {
+      System.out.println("classpath 中沒有 Eclipse JDT，產生的檔案不會格式化，可另外執行 spotlessApply。");
+    }
+
+    // 先同步一次，確保快照與原始碼對應目前的 schema
+    regenerate();
+
+    List<SchemaWatch> watches = MyBatisGenerateMain.openSchemaWatches(cycleProperties);
+    if (watches.isEmpty()) {
+      System.err.println("沒有可監看的 context，請確認 copyMyBatisGeneratorConfig 已產生 schema 快照。");
+      return;
+    }
+    System.out.println("開始監看 " + watches.size() + " 個 context 的 schema，每 " + parameter.getIntervalSeconds()
+      + " 秒檢查一次，中斷執行即可結束。");
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        TimeUnit.SECONDS.sleep(parameter.getIntervalSeconds());
+        List<SchemaWatch> changed = changedWatches(watches);
+        if (changed.isEmpty()) {
+          continue;
+        }
+        long detectedAt = System.nanoTime();
+        List<String> contextIds = new ArrayList<>();
+        for (SchemaWatch watch : changed) {
+          contextIds.add(watch.getContextId());
+        }
+        System.out.println("偵測到 schema 變更: " + StringUtils.join(contextIds, ", "));
+        try {
+          regenerate();
+          for (SchemaWatch watch : changed) {
+            watch.reload();
+          }
+          long latency = System.nanoTime() - detectedAt;
+          metrics.addTableLatency("changeToSources", latency);
+          metrics.count("changes", 1);
+          System.out.println("原始碼已更新，自偵測到變更共 " + TimeUnit.NANOSECONDS.toMillis(latency) + " ms。");
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          // 例如 migration 執行到一半，等 schema 再次變更時才重新產生，不在每次檢查時重試
+          System.err.println("重新產生失敗: " + e.getMessage());
+          metrics.count("failures", 1);
+          for (SchemaWatch watch : changed) {
+            try {
+              watch.markCurrent();
+            } catch (SQLException ignored) {
+              // 無法計算指紋時維持原本的指紋，下次檢查時再重新產生
+            }
+          }
+        }
+        writeReport();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      for (SchemaWatch watch : watches) {
+        watch.close();
+      }
+      System.out.println("結束監看 schema。");
+    }
+  }
+
+  /**
+   * @return schema 與快照不同的 context；無法計算指紋時視為未變更，下次再檢查
+   */
+  private List<SchemaWatch> changedWatches(List<SchemaWatch> watches) {
+    List<SchemaWatch> changed = new ArrayList<>();
+    long fingerprintStart = System.nanoTime();
+    try {
+      for (SchemaWatch watch : watches) {
+        try {
+          if (watch.isChanged()) {
+            changed.add(watch);
+          }
+        } catch (SQLException e) {
+          System.err.println("無法計算 context " + watch.getContextId() + " 的 schema 指紋: " + e.getMessage());
+        }
+      }
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_FINGERPRINT, System.nanoTime() - fingerprintStart);
+    }
+    metrics.count("polls", 1);
+    return changed;
+  }
+
+  /**
+   * 更新設定檔與快照，incremental 產生變更的資料表，再格式化這次產生的 Java 檔案
+   */
+  private void regenerate() throws Exception {
+    long copyStart = System.nanoTime();
+    try {
+      CopyMyBatisGeneratorConfigMain.execute(cycleProperties);
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_COPY, System.nanoTime() - copyStart);
+    }
+    List<File> generatedFiles;
+    long generationStart = System.nanoTime();
+    try {
+      generatedFiles = MyBatisGenerateMain.execute(cycleProperties);
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_GENERATION, System.nanoTime() - generationStart);
+    }
+    metrics.count("generatedFiles", generatedFiles.size());
+    if (Objects.isNull(formatter)) {
+      return;
+    }
+    int formatted = 0;
+    long formattingStart = System.nanoTime();
+    try {
+      for (File file : generatedFiles) {
+        if (file.getName().endsWith(".java") && formatter.format(file)) {
+          formatted++;
+        }
+      }
+    } finally {
+      metrics.addPhase(GeneratorMetrics.PHASE_FORMATTING, System.nanoTime() - formattingStart);
+    }
+    metrics.count("formattedFiles", formatted);
+  }
+
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(parameter.getProjectDir(), path);
+  }
+
+  private void writeReport() {
+    try {
+      File reportFile = metrics.writeReport(resolve(parameter.getReportDir()));
+      System.out.println("執行報表: " + reportFile.getAbsolutePath());
+    } catch (IOException e) {
+      System.err.println("寫入執行報表時發生錯誤: " + e.getMessage());
+    }
+  }
+
+  private void loadParameter() {
+    this.parameter = new WatchSchemaParameter();
+    this.parameter.setProjectDir(getProp("mybatis.generator.project.dir", getProp("user.dir", "")));
+    this.parameter.setIntervalSeconds(Math.max(1, Long.parseLong(getProp("mybatis.generator.watch.interval", "5").trim())));
+    this.parameter.setFormatterFile(getProp("mybatis.generator.watch.formatter",
+      "build-tools/spotless/mybatis-code-formatter.xml"));
+    this.parameter.setReportDir(getProp("mybatis.generator.report.dir", GeneratorMetrics.DEFAULT_REPORT_DIR));
+  }
+
+  private String getProp(String key, String def) {
+    String v = properties.get(key);
+    if (StringUtils.isBlank(v)) {
+      v = System.getProperty(key);
+    }
+    if (StringUtils.isBlank(v)) {
+      v = System.getenv(key);
+    }
+    return StringUtils.defaultIfBlank(v, def);
+  }
+}
@@ -0,0 +1,44 @@
+package com.riease.mybatis;
+
+public class WatchSchemaParameter {
+
+  private String projectDir;
+  /** 檢查 schema 指紋的間隔秒數 */
+  private long intervalSeconds = 5;
+  /** Eclipse formatter 設定檔，不存在時使用 plugin 內建的設定 */
+  private String formatterFile;
+  /** 執行報表的輸出目錄 */
+  private String reportDir;
+
+  public String getProjectDir() {
+    return projectDir;
+  }
+
+  public void setProjectDir(String projectDir) {
+    this.projectDir = projectDir;
+  }
+
+  public long getIntervalSeconds() {
+    return intervalSeconds;
+  }
+
+  public void setIntervalSeconds(long intervalSeconds) {
+    this.intervalSeconds = intervalSeconds;
+  }
+
+  public String getFormatterFile() {
+    return formatterFile;
+  }
+
+  public void setFormatterFile(String formatterFile) {
+    this.formatterFile = formatterFile;
+  }
+
+  public String getReportDir() {
+    return reportDir;
+  }
+
+  public void setReportDir(String reportDir) {
+    this.reportDir = reportDir;
+  }
+}
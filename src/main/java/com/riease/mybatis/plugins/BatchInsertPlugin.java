@@ -0,0 +1,185 @@
+package com.riease.mybatis.plugins;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.codegen.mybatis3.ListUtilities;
+import org.mybatis.generator.internal.util.StringUtility;
+
+/**
+ * 在 MyBatis3DynamicSql 產生的 Mapper 加入大量寫入用的方法。
+ * <p>
+ * MyBatis Generator 產生的 insertMultiple 會把所有資料組成一個 INSERT，資料筆數多時參數數量會超過
+ * JDBC driver 的上限（SQL Server 2,100、SQLite 32,766、PostgreSQL 65,535）。本插件加入：
+ * <ul>
+ *   <li>insertMultipleInChunks：依 insert 欄位數計算每批筆數，使每個 INSERT 的參數數量不超過
+ *   {@value #MAX_PARAMETERS_PROPERTY}（預設 {@value #DEFAULT_MAX_PARAMETERS}），分批呼叫 insertMultiple</li>
+ *   <li>flushStatements：標註 {@code @Flush}，送出 BATCH executor 累積的 statement</li>
+ *   <li>insertBatch、updateBatchByPrimaryKey：逐筆呼叫 insert、updateByPrimaryKey 後 flushStatements。
+ *   這兩個方法每筆產生的 SQL 都相同，以 {@code ExecutorType.BATCH} 開啟的 SqlSession 執行時會合併為 JDBC batch；
+ *   一般的 SqlSession 則逐筆執行，回傳空的結果</li>
+ * </ul>
+ * 只加入 Mapper 中已有對應方法（insertMultiple、insert、updateByPrimaryKey）的方法，
+ * 例如沒有主鍵的資料表不會加入 updateBatchByPrimaryKey。
+ */
+public class BatchInsertPlugin extends PluginAdapter {
+
+  /** 插件屬性：每個 INSERT 的參數數量上限 */
+  public static final String MAX_PARAMETERS_PROPERTY = "maxParameters";
+
+  public static final int DEFAULT_MAX_PARAMETERS = 2000;
+
+  private static final FullyQualifiedJavaType COLLECTION = new FullyQualifiedJavaType("java.util.Collection");
+  private static final FullyQualifiedJavaType ARRAY_LIST = new FullyQualifiedJavaType("java.util.ArrayList");
+  private static final FullyQualifiedJavaType LIST = new FullyQualifiedJavaType("java.util.List");
+  private static final FullyQualifiedJavaType FLUSH = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Flush");
+  private static final FullyQualifiedJavaType BATCH_RESULT =
+    new FullyQualifiedJavaType("org.apache.ibatis.executor.BatchResult");
+
+  private int maxParameters = DEFAULT_MAX_PARAMETERS;
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("BatchInsertPlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入批次寫入方法");
+      return false;
+    }
+    String value = properties.getProperty(MAX_PARAMETERS_PROPERTY);
+    if (StringUtility.stringHasValue(value)) {
+      try {
+        maxParameters = Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        warnings.add("BatchInsertPlugin 的 " + MAX_PARAMETERS_PROPERTY + " 不是整數: " + value);
+        return false;
+      }
+    }
+    if (maxParameters < 1) {
+      warnings.add("BatchInsertPlugin 的 " + MAX_PARAMETERS_PROPERTY + " 必須大於 0: " + value);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    Set<String> methods = new HashSet<>();
+    for (Method method : interfaze.getMethods()) {
+      methods.add(method.getName());
+    }
+    FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+
+    if (methods.contains("insertMultiple")) {
+      int columns = ListUtilities.removeGeneratedAlwaysColumns(introspectedTable.getAllColumns()).size();
+      int chunkSize = Math.max(1, maxParameters / Math.max(1, columns));
+      interfaze.addMethod(insertMultipleInChunks(introspectedTable, recordType, chunkSize, imports));
+      interfaze.addMethod(insertMultipleInChunks(introspectedTable, recordType, imports));
+      imports.add(COLLECTION);
+      imports.add(ARRAY_LIST);
+      imports.add(LIST);
+    }
+    boolean insertBatch = methods.contains("insert");
+    boolean updateBatch = methods.contains("updateByPrimaryKey");
+    if (insertBatch || updateBatch) {
+      interfaze.addMethod(flushStatements(introspectedTable, imports));
+      imports.add(FLUSH);
+      imports.add(BATCH_RESULT);
+      imports.add(COLLECTION);
+      imports.add(LIST);
+    }
+    if (insertBatch) {
+      interfaze.addMethod(batch("insertBatch", "insert", introspectedTable, recordType, imports));
+    }
+    if (updateBatch) {
+      interfaze.addMethod(batch("updateBatchByPrimaryKey", "updateByPrimaryKey", introspectedTable, recordType,
+        imports));
+    }
+    interfaze.addImportedTypes(imports);
+    return true;
+  }
+
+  /**
+   * 以產生時計算的每批筆數呼叫 insertMultipleInChunks(records, chunkSize)
+   */
+  private Method insertMultipleInChunks(IntrospectedTable introspectedTable, FullyQualifiedJavaType recordType,
+    int chunkSize, Set<FullyQualifiedJavaType> imports) {
+    Method method = newMethod("insertMultipleInChunks", FullyQualifiedJavaType.getIntInstance(), introspectedTable,
+      imports);
+    method.addParameter(new Parameter(collectionOf(recordType), "records"));
+    method.addBodyLine("return insertMultipleInChunks(records, " + chunkSize + ");");
+    return method;
+  }
+
+  private Method insertMultipleInChunks(IntrospectedTable introspectedTable, FullyQualifiedJavaType recordType,
+    Set<FullyQualifiedJavaType> imports) {
+    Method method = newMethod("insertMultipleInChunks", FullyQualifiedJavaType.getIntInstance(), introspectedTable,
+      imports);
+    method.addParameter(new Parameter(collectionOf(recordType), "records"));
+    method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "chunkSize"));
+    String shortName = recordType.getShortName();
+    method.addBodyLine("int rows = 0;");
+    method.addBodyLine("List<" + shortName + "> chunk = new ArrayList<>(Math.min(records.size(), chunkSize));");
+    method.addBodyLine("for (" + shortName + " row : records) {");
+    method.addBodyLine("chunk.add(row);");
+    method.addBodyLine("if (chunk.size() >= chunkSize) {");
+    method.addBodyLine("rows += insertMultiple(chunk);");
+    method.addBodyLine("chunk.clear();");
+    method.addBodyLine("}");
+    method.addBodyLine("}");
+    method.addBodyLine("if (!chunk.isEmpty()) {");
+    method.addBodyLine("rows += insertMultiple(chunk);");
+    method.addBodyLine("}");
+    method.addBodyLine("return rows;");
+    return method;
+  }
+
+  private Method flushStatements(IntrospectedTable introspectedTable, Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method("flushStatements");
+    method.setAbstract(true);
+    method.setReturnType(batchResults());
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    method.addAnnotation("@Flush");
+    return method;
+  }
+
+  /**
+   * 逐筆呼叫 statement 後 flushStatements
+   */
+  private Method batch(String name, String statement, IntrospectedTable introspectedTable,
+    FullyQualifiedJavaType recordType, Set<FullyQualifiedJavaType> imports) {
+    Method method = newMethod(name, batchResults(), introspectedTable, imports);
+    method.addParameter(new Parameter(collectionOf(recordType), "records"));
+    method.addBodyLine("for (" + recordType.getShortName() + " row : records) {");
+    method.addBodyLine(statement + "(row);");
+    method.addBodyLine("}");
+    method.addBodyLine("return flushStatements();");
+    return method;
+  }
+
+  private Method newMethod(String name, FullyQualifiedJavaType returnType, IntrospectedTable introspectedTable,
+    Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method(name);
+    method.setDefault(true);
+    method.setReturnType(returnType);
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    return method;
+  }
+
+  private static FullyQualifiedJavaType collectionOf(FullyQualifiedJavaType recordType) {
+    FullyQualifiedJavaType type = new FullyQualifiedJavaType(COLLECTION.getFullyQualifiedName());
+    type.addTypeArgument(recordType);
+    return type;
+  }
+
+  private static FullyQualifiedJavaType batchResults() {
+    FullyQualifiedJavaType type = new FullyQualifiedJavaType(LIST.getFullyQualifiedName());
+    type.addTypeArgument(BATCH_RESULT);
+    return type;
+  }
+}
@@ -0,0 +1,146 @@
+package com.riease.mybatis.plugins;
+
+import com.riease.mybatis.TableFilter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.internal.util.StringUtility;
+
+/**
+ * 在指定資料表的 Mapper 加上 {@code @CacheNamespace}，啟用 MyBatis 的二級快取。
+ * <p>
+ * 啟用快取的資料表：
+ * <ul>
+ *   <li>table 設定 {@value #CACHE_PROPERTY} 屬性時依其值（true / false）；copyMyBatisGeneratorConfig 啟用
+ *   mybatis.generator.cache.lookup.tables 時，會為參照用的資料表寫入此屬性</li>
+ *   <li>未設定時，資料表名稱符合插件屬性 {@value #TABLES_PROPERTY}（以逗號分隔，支援 glob 或 regex: 開頭的正規表示式）
+ *   且不符合 {@value #EXCLUDE_TABLES_PROPERTY} 時啟用</li>
+ * </ul>
+ * eviction（LRU、FIFO、SOFT、WEAK）、size、flushInterval（毫秒）與 readWrite 以插件屬性設定預設值，
+ * 可用 table 屬性 cacheEviction、cacheSize、cacheFlushInterval、cacheReadWrite 個別覆寫。
+ * <p>
+ * 快取以 Mapper 為範圍：同一個 Mapper 的 insert、update、delete（含繼承自 CommonInsertMapper 等的 statement）
+ * 預設 flushCache=true，執行後清除快取；其他 Mapper 或 SQL 修改同一個資料表時不會清除，需以 flushInterval 控制過期時間。
+ * readWrite 為 true 時快取回傳序列化的複本，entity 需實作 Serializable（範本已啟用 SerializablePlugin）。
+ */
+public class CacheNamespacePlugin extends PluginAdapter {
+
+  /** table 屬性：是否啟用快取 */
+  public static final String CACHE_PROPERTY = "cache";
+
+  /** 插件屬性：啟用快取的資料表樣式 */
+  public static final String TABLES_PROPERTY = "tables";
+
+  /** 插件屬性：不啟用快取的資料表樣式 */
+  public static final String EXCLUDE_TABLES_PROPERTY = "excludeTables";
+
+  private static final FullyQualifiedJavaType CACHE_NAMESPACE =
+    new FullyQualifiedJavaType("org.apache.ibatis.annotations.CacheNamespace");
+
+  private static final String DEFAULT_EVICTION = "LRU";
+  private static final int DEFAULT_SIZE = 1024;
+
+  private TableFilter tableFilter;
+  private String eviction;
+  private int size;
+  private long flushInterval;
+  private boolean readWrite;
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("CacheNamespacePlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入快取設定");
+      return false;
+    }
+    String tables = properties.getProperty(TABLES_PROPERTY);
+    if (StringUtility.stringHasValue(tables)) {
+      tableFilter = TableFilter.of(tables, properties.getProperty(EXCLUDE_TABLES_PROPERTY), null);
+    }
+    try {
+      eviction = evictionClass(properties.getProperty("eviction", DEFAULT_EVICTION));
+      size = Integer.parseInt(properties.getProperty("size", String.valueOf(DEFAULT_SIZE)).trim());
+      flushInterval = Long.parseLong(properties.getProperty("flushInterval", "0").trim());
+    } catch (IllegalArgumentException e) {
+      warnings.add("CacheNamespacePlugin 的設定錯誤: " + e.getMessage());
+      return false;
+    }
+    readWrite = !"false".equalsIgnoreCase(properties.getProperty("readWrite", "true").trim());
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    if (!isCached(introspectedTable)) {
+      return true;
+    }
+    Properties tableProperties = introspectedTable.getTableConfiguration().getProperties();
+    String evictionClass = eviction;
+    int cacheSize = size;
+    long cacheFlushInterval = flushInterval;
+    boolean cacheReadWrite = readWrite;
+    try {
+      if (StringUtility.stringHasValue(tableProperties.getProperty("cacheEviction"))) {
+        evictionClass = evictionClass(tableProperties.getProperty("cacheEviction"));
+      }
+      if (StringUtility.stringHasValue(tableProperties.getProperty("cacheSize"))) {
+        cacheSize = Integer.parseInt(tableProperties.getProperty("cacheSize").trim());
+      }
+      if (StringUtility.stringHasValue(tableProperties.getProperty("cacheFlushInterval"))) {
+        cacheFlushInterval = Long.parseLong(tableProperties.getProperty("cacheFlushInterval").trim());
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("資料表 " + introspectedTable.getFullyQualifiedTableNameAtRuntime()
+        + " 的快取設定錯誤: " + e.getMessage(), e);
+    }
+    if (StringUtility.stringHasValue(tableProperties.getProperty("cacheReadWrite"))) {
+      cacheReadWrite = !"false".equalsIgnoreCase(tableProperties.getProperty("cacheReadWrite").trim());
+    }
+
+    FullyQualifiedJavaType evictionType = new FullyQualifiedJavaType(evictionClass);
+    StringBuilder annotation = new StringBuilder("@CacheNamespace(eviction=")
+      .append(evictionType.getShortName()).append(".class, size=").append(cacheSize);
+    if (cacheFlushInterval > 0) {
+      annotation.append(", flushInterval=").append(cacheFlushInterval);
+    }
+    if (!cacheReadWrite) {
+      annotation.append(", readWrite=false");
+    }
+    annotation.append(')');
+    interfaze.addAnnotation(annotation.toString());
+    interfaze.addImportedType(CACHE_NAMESPACE);
+    interfaze.addImportedType(evictionType);
+    return true;
+  }
+
+  /**
+   * table 的 {@value #CACHE_PROPERTY} 屬性優先於資料表樣式
+   */
+  private boolean isCached(IntrospectedTable introspectedTable) {
+    String cache = introspectedTable.getTableConfigurationProperty(CACHE_PROPERTY);
+    if (StringUtility.stringHasValue(cache)) {
+      return "true".equalsIgnoreCase(cache.trim());
+    }
+    return Objects.nonNull(tableFilter)
+      && tableFilter.accept(introspectedTable.getFullyQualifiedTable().getIntrospectedTableName());
+  }
+
+  private static String evictionClass(String eviction) {
+    switch (eviction.trim().toUpperCase(Locale.ROOT)) {
+      case "LRU":
+        return "org.apache.ibatis.cache.decorators.LruCache";
+      case "FIFO":
+        return "org.apache.ibatis.cache.decorators.FifoCache";
+      case "SOFT":
+        return "org.apache.ibatis.cache.decorators.SoftCache";
+      case "WEAK":
+        return "org.apache.ibatis.cache.decorators.WeakCache";
+      default:
+        throw new IllegalArgumentException("不支援的 eviction: " + eviction + "，可用 LRU、FIFO、SOFT、WEAK");
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.riease.mybatis.plugins;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.internal.util.StringUtility;
+import org.mybatis.generator.runtime.dynamic.sql.elements.AbstractMethodGenerator;
+
+/**
+ * 在 MyBatis3DynamicSql 產生的 Mapper 加入以索引欄位等值查詢的方法，查詢條件一定能以索引定位。
+ * <p>
+ * 索引由 copyMyBatisGeneratorConfig 讀取，寫入 table 的屬性：
+ * <ul>
+ *   <li>{@value #UNIQUE_INDEXES_PROPERTY}：唯一索引，以逗號分隔，複合索引的欄位以 + 連接。
+ *   加入 {@code Optional<Record> selectByXxx(...)} 與 {@code boolean existsByXxx(...)}，
+ *   複合索引的方法名稱以 And 連接各欄位，例如 selectByTenantIdAndCode</li>
+ *   <li>{@value #INDEXED_COLUMNS_PROPERTY}：索引的第一個欄位，以逗號分隔。
+ *   加入 {@code List<Record> selectByXxx(value)} 與 {@code boolean existsByXxx(value)}</li>
+ * </ul>
+ * 唯一索引的 existsBy 以 count 查詢，資料庫只需讀取索引；非唯一的 existsBy 以 limit 1 查詢，找到第一筆即停止，
+ * 不計算所有符合的資料列。參數為 null 時條件為 {@code = null}，不會符合任何資料列。
+ * 欄位不存在（例如被 ignoreColumn 排除）、為 BLOB 欄位或方法名稱重複時略過該索引。
+ */
+public class IndexSelectorPlugin extends PluginAdapter {
+
+  /** table 屬性：唯一索引的欄位 */
+  public static final String UNIQUE_INDEXES_PROPERTY = "uniqueIndexes";
+
+  /** table 屬性：索引的第一個欄位 */
+  public static final String INDEXED_COLUMNS_PROPERTY = "indexedColumns";
+
+  private static final FullyQualifiedJavaType LIST = new FullyQualifiedJavaType("java.util.List");
+  private static final FullyQualifiedJavaType OPTIONAL = new FullyQualifiedJavaType("java.util.Optional");
+  private static final String SQL_BUILDER = "org.mybatis.dynamic.sql.SqlBuilder.";
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("IndexSelectorPlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入索引查詢方法");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    String uniqueIndexes = introspectedTable.getTableConfigurationProperty(UNIQUE_INDEXES_PROPERTY);
+    String indexedColumns = introspectedTable.getTableConfigurationProperty(INDEXED_COLUMNS_PROPERTY);
+    if (!StringUtility.stringHasValue(uniqueIndexes) && !StringUtility.stringHasValue(indexedColumns)) {
+      return true;
+    }
+    if (!hasMethod(interfaze, "selectOne") || !hasMethod(interfaze, "select") || !hasMethod(interfaze, "count")) {
+      return true;
+    }
+    Set<String> methodNames = new HashSet<>();
+    for (Method method : interfaze.getMethods()) {
+      methodNames.add(method.getName());
+    }
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+    boolean added = false;
+    // 唯一索引先加入，與索引欄位的方法名稱相同時保留回傳單筆的方法
+    if (StringUtility.stringHasValue(uniqueIndexes)) {
+      for (String index : uniqueIndexes.split(",")) {
+        List<IntrospectedColumn> columns = columns(introspectedTable, index.split("\\+"));
+        if (Objects.nonNull(columns) && methodNames.add(selectName(columns))) {
+          addMethods(interfaze, introspectedTable, columns, true, imports);
+          added = true;
+        }
+      }
+    }
+    if (StringUtility.stringHasValue(indexedColumns)) {
+      for (String column : indexedColumns.split(",")) {
+        List<IntrospectedColumn> columns = columns(introspectedTable, column);
+        if (Objects.nonNull(columns) && methodNames.add(selectName(columns))) {
+          addMethods(interfaze, introspectedTable, columns, false, imports);
+          added = true;
+        }
+      }
+    }
+    if (added) {
+      interfaze.addImportedTypes(imports);
+      interfaze.addStaticImport(SQL_BUILDER + "isEqualTo");
+    }
+    return true;
+  }
+
+  /**
+   * 加入 selectBy 與 existsBy 方法
+   *
+   * @param unique 是否為唯一索引，唯一時 selectBy 回傳 Optional，否則回傳 List
+   */
+  private void addMethods(Interface interfaze, IntrospectedTable introspectedTable, List<IntrospectedColumn> columns,
+    boolean unique, Set<FullyQualifiedJavaType> imports) {
+    String tableFieldName = JavaBeansUtil.getValidPropertyName(introspectedTable.getMyBatisDynamicSQLTableObjectName());
+    StringBuilder where = new StringBuilder("c -> c.where(");
+    for (int i = 0; i < columns.size(); i++) {
+      IntrospectedColumn column = columns.get(i);
+      if (i > 0) {
+        where.append(".and(");
+      }
+      where.append(AbstractMethodGenerator.calculateFieldName(tableFieldName, column))
+        .append(", isEqualTo(").append(column.getJavaProperty()).append("_))");
+    }
+    FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+    FullyQualifiedJavaType returnType = new FullyQualifiedJavaType(
+      (unique ? OPTIONAL : LIST).getFullyQualifiedName());
+    returnType.addTypeArgument(recordType);
+    imports.add(unique ? OPTIONAL : LIST);
+
+    Method select = newMethod(selectName(columns), returnType, introspectedTable, columns, imports);
+    select.addBodyLine("return " + (unique ? "selectOne(" : "select(") + where + ");");
+    interfaze.addMethod(select);
+
+    Method exists = newMethod("existsBy" + selectName(columns).substring("selectBy".length()),
+      FullyQualifiedJavaType.getBooleanPrimitiveInstance(), introspectedTable, columns, imports);
+    if (unique) {
+      exists.addBodyLine("return count(" + where + ") > 0;");
+    } else {
+      exists.addBodyLine("return !select(" + where + ".limit(1)).isEmpty();");
+    }
+    interfaze.addMethod(exists);
+  }
+
+  /**
+   * @return 依名稱找到的欄位，任一欄位不存在或為 BLOB 欄位時回傳 null
+   */
+  private static List<IntrospectedColumn> columns(IntrospectedTable introspectedTable, String... columnNames) {
+    List<IntrospectedColumn> columns = new ArrayList<>();
+    for (String columnName : columnNames) {
+      Optional<IntrospectedColumn> column = introspectedTable.getColumn(columnName.trim());
+      if (!column.isPresent() || column.get().isBLOBColumn()) {
+        return null;
+      }
+      columns.add(column.get());
+    }
+    return columns.isEmpty() ? null : columns;
+  }
+
+  private static String selectName(List<IntrospectedColumn> columns) {
+    StringBuilder name = new StringBuilder("selectBy");
+    for (int i = 0; i < columns.size(); i++) {
+      String property = columns.get(i).getJavaProperty();
+      if (i > 0) {
+        name.append("And");
+      }
+      name.append(Character.toUpperCase(property.charAt(0))).append(property.substring(1));
+    }
+    return name.toString();
+  }
+
+  private static boolean hasMethod(Interface interfaze, String name) {
+    for (Method method : interfaze.getMethods()) {
+      if (name.equals(method.getName()) && method.isDefault() && method.getParameters().size() == 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Method newMethod(String name, FullyQualifiedJavaType returnType, IntrospectedTable introspectedTable,
+    List<IntrospectedColumn> columns, Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method(name);
+    method.setDefault(true);
+    method.setReturnType(returnType);
+    for (IntrospectedColumn column : columns) {
+      method.addParameter(new Parameter(column.getFullyQualifiedJavaType(), column.getJavaProperty() + "_"));
+      imports.add(column.getFullyQualifiedJavaType());
+    }
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    return method;
+  }
+}
@@ -0,0 +1,434 @@
+package com.riease.mybatis.plugins;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.JavaVisibility;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.ObjectFactory;
+import org.mybatis.generator.internal.db.SqlReservedWords;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.internal.util.StringUtility;
+import org.mybatis.generator.runtime.dynamic.sql.elements.AbstractMethodGenerator;
+
+/**
+ * 依 table 的 {@value #JOINS_PROPERTY} 屬性，以 left join 一次查詢資料與外鍵參照的資料，避免逐筆查詢參照資料的 N+1 查詢。
+ * <p>
+ * {@value #JOINS_PROPERTY} 由 copyMyBatisGeneratorConfig 依外鍵寫入（mybatis.generator.join.tables），
+ * 格式為以逗號分隔的 {@code 外鍵欄位:參照資料表.參照欄位}，參照資料表之後可用括號接著該資料表的 joins 載入下一層，
+ * 此時參照的資料表也需有相同的 joins 屬性。加入的內容：
+ * <ul>
+ *   <li>entity：每個外鍵一個參照資料的屬性，外鍵屬性名稱以 Id 結尾時去除 Id（例如 customerId 為 customer），
+ *   否則加上 Reference</li>
+ *   <li>selectManyWithReferences：以 {@code @One} 對應參照資料表 Mapper 的結果（有下一層時為其 join 查詢的結果），
+ *   參照資料表的欄位以 join 的別名加底線為前綴</li>
+ *   <li>selectWithReferences(completer)：查詢本身的欄位與各層參照資料表的欄位，本身的資料表別名為 p，
+ *   參照資料表為 j0、j1...，下一層為 j0_j0 等</li>
+ *   <li>selectByPrimaryKeyWithReferences：有主鍵時依主鍵查詢</li>
+ * </ul>
+ * 參照資料表的 Mapper 與 DynamicSqlSupport 名稱依 context 的設定推算，參照資料表的 table 不可另外指定
+ * domainObjectName、mapperName 等名稱。參照資料表的欄位於執行時取自其 Mapper 的 selectList，
+ * 因此產生的檔案只取決於資料表本身，可以分 shard 或增量產生。
+ */
+public class JoinSelectPlugin extends PluginAdapter {
+
+  /** table 屬性：join 的外鍵 */
+  public static final String JOINS_PROPERTY = "joins";
+
+  /** 本身資料表的別名 */
+  private static final String TABLE_ALIAS = "p";
+
+  private static final FullyQualifiedJavaType LIST = new FullyQualifiedJavaType("java.util.List");
+  private static final FullyQualifiedJavaType OPTIONAL = new FullyQualifiedJavaType("java.util.Optional");
+  private static final FullyQualifiedJavaType ARRAY_LIST = new FullyQualifiedJavaType("java.util.ArrayList");
+  private static final FullyQualifiedJavaType ARRAYS = new FullyQualifiedJavaType("java.util.Arrays");
+  private static final FullyQualifiedJavaType ONE = new FullyQualifiedJavaType("org.apache.ibatis.annotations.One");
+  private static final FullyQualifiedJavaType BASIC_COLUMN =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.BasicColumn");
+  private static final FullyQualifiedJavaType SQL_COLUMN = new FullyQualifiedJavaType("org.mybatis.dynamic.sql.SqlColumn");
+  private static final FullyQualifiedJavaType SQL_TABLE = new FullyQualifiedJavaType("org.mybatis.dynamic.sql.SqlTable");
+  private static final FullyQualifiedJavaType SQL_BUILDER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.SqlBuilder");
+  private static final FullyQualifiedJavaType QUERY_EXPRESSION_DSL =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.QueryExpressionDSL");
+  private static final FullyQualifiedJavaType SELECT_MODEL =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.SelectModel");
+  private static final FullyQualifiedJavaType SELECT_DSL_COMPLETER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.SelectDSLCompleter");
+  private static final FullyQualifiedJavaType SELECT_STATEMENT_PROVIDER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.render.SelectStatementProvider");
+  private static final FullyQualifiedJavaType RENDERING_STRATEGIES =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.render.RenderingStrategies");
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("JoinSelectPlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入 join 查詢");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+    for (Join join : joins(introspectedTable)) {
+      FullyQualifiedJavaType type = new FullyQualifiedJavaType(join.reference.getBaseRecordType());
+      String property = join.property;
+
+      Field field = new Field(property, type);
+      field.setVisibility(JavaVisibility.PRIVATE);
+      field.addJavaDocLine("/**");
+      field.addJavaDocLine(" * 以 " + join.column.getActualColumnName() + " 參照的 "
+        + join.reference.getFullyQualifiedTable() + " 資料，由 selectWithReferences 載入");
+      field.addJavaDocLine(" */");
+      context.getCommentGenerator().addFieldAnnotation(field, introspectedTable, imports);
+      topLevelClass.addField(field);
+
+      Method getter = new Method(JavaBeansUtil.getGetterMethodName(property, type));
+      getter.setVisibility(JavaVisibility.PUBLIC);
+      getter.setReturnType(type);
+      getter.addBodyLine("return " + property + ";");
+      context.getCommentGenerator().addGeneralMethodAnnotation(getter, introspectedTable, imports);
+      topLevelClass.addMethod(getter);
+
+      Method setter = new Method(JavaBeansUtil.getSetterMethodName(property));
+      setter.setVisibility(JavaVisibility.PUBLIC);
+      setter.addParameter(new Parameter(type, property));
+      setter.addBodyLine("this." + property + " = " + property + ";");
+      context.getCommentGenerator().addGeneralMethodAnnotation(setter, introspectedTable, imports);
+      topLevelClass.addMethod(setter);
+      addImportedType(imports, topLevelClass.getType(), type);
+    }
+    topLevelClass.addImportedTypes(imports);
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    List<Join> joins = joins(introspectedTable);
+    Method selectMany = findMethod(interfaze, "selectMany");
+    if (joins.isEmpty() || Objects.isNull(selectMany) || Objects.isNull(findMethod(interfaze, "select"))) {
+      return true;
+    }
+    FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+    FullyQualifiedJavaType listType = new FullyQualifiedJavaType(LIST.getFullyQualifiedName());
+    listType.addTypeArgument(recordType);
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+
+    Method statement = new Method("selectManyWithReferences");
+    statement.setAbstract(true);
+    statement.setReturnType(listType);
+    statement.addParameter(new Parameter(SELECT_STATEMENT_PROVIDER, "selectStatement"));
+    context.getCommentGenerator().addGeneralMethodAnnotation(statement, introspectedTable, imports);
+    addResultsAnnotations(statement, selectMany, joinResultMapId(recordType), joins);
+    interfaze.addMethod(statement);
+
+    String tableFieldName = JavaBeansUtil.getValidPropertyName(introspectedTable.getMyBatisDynamicSQLTableObjectName());
+    Method select = new Method("selectWithReferences");
+    select.setDefault(true);
+    select.setReturnType(listType);
+    select.addParameter(new Parameter(SELECT_DSL_COMPLETER, "completer"));
+    context.getCommentGenerator().addGeneralMethodAnnotation(select, introspectedTable, imports);
+    select.addBodyLine("List<BasicColumn> columns = new ArrayList<>(Arrays.asList(selectList));");
+    List<String> joinLines = new ArrayList<>();
+    for (Join join : joins) {
+      String foreignKey = AbstractMethodGenerator.calculateFieldName(tableFieldName, join.column);
+      addJoin(interfaze, select, joinLines, foreignKey, join, imports);
+    }
+    select.addBodyLine("QueryExpressionDSL<SelectModel> start = SqlBuilder.select(columns).from(" + tableFieldName
+      + ", \"" + TABLE_ALIAS + "\");");
+    select.addBodyLines(joinLines);
+    select.addBodyLine("return selectManyWithReferences(completer.apply(start).build().render(RenderingStrategies.MYBATIS3));");
+    interfaze.addMethod(select);
+
+    List<IntrospectedColumn> keys = introspectedTable.getPrimaryKeyColumns();
+    if (!keys.isEmpty()) {
+      FullyQualifiedJavaType optionalType = new FullyQualifiedJavaType(OPTIONAL.getFullyQualifiedName());
+      optionalType.addTypeArgument(recordType);
+      Method selectByPrimaryKey = new Method("selectByPrimaryKeyWithReferences");
+      selectByPrimaryKey.setDefault(true);
+      selectByPrimaryKey.setReturnType(optionalType);
+      context.getCommentGenerator().addGeneralMethodAnnotation(selectByPrimaryKey, introspectedTable, imports);
+      StringBuilder condition = new StringBuilder();
+      for (IntrospectedColumn key : keys) {
+        String parameter = key.getJavaProperty() + "_";
+        selectByPrimaryKey.addParameter(new Parameter(key.getFullyQualifiedJavaType(), parameter));
+        imports.add(key.getFullyQualifiedJavaType());
+        condition.append(condition.length() == 0 ? "c.where(" : ".and(")
+          .append(AbstractMethodGenerator.calculateFieldName(tableFieldName, key))
+          .append(", isEqualTo(").append(parameter).append("))");
+      }
+      selectByPrimaryKey.addBodyLine("return selectWithReferences(c -> " + condition + ").stream().findFirst();");
+      interfaze.addMethod(selectByPrimaryKey);
+      imports.add(OPTIONAL);
+      interfaze.addStaticImport("org.mybatis.dynamic.sql.SqlBuilder.isEqualTo");
+    }
+
+    interfaze.addMethod(joinColumnsMethod(introspectedTable, imports));
+    imports.add(LIST);
+    imports.add(ARRAY_LIST);
+    imports.add(ARRAYS);
+    imports.add(ONE);
+    imports.add(BASIC_COLUMN);
+    imports.add(SQL_COLUMN);
+    imports.add(SQL_TABLE);
+    imports.add(SQL_BUILDER);
+    imports.add(QUERY_EXPRESSION_DSL);
+    imports.add(SELECT_MODEL);
+    imports.add(SELECT_DSL_COMPLETER);
+    imports.add(SELECT_STATEMENT_PROVIDER);
+    imports.add(RENDERING_STRATEGIES);
+    interfaze.addImportedTypes(imports);
+    interfaze.addStaticImport("org.mybatis.dynamic.sql.SqlBuilder.equalTo");
+    return true;
+  }
+
+  /**
+   * 複製 selectMany 的 {@code @Results}，改為新的 id，並在結尾加入各參照資料的 {@code @One}
+   */
+  private static void addResultsAnnotations(Method statement, Method selectMany, String resultMapId, List<Join> joins) {
+    boolean inResults = false;
+    for (String annotation : selectMany.getAnnotations()) {
+      if (annotation.startsWith("@Results(")) {
+        inResults = true;
+        statement.addAnnotation(annotation.replaceFirst("id=\"[^\"]*\"", "id=\"" + resultMapId + "\""));
+      } else if (inResults && annotation.startsWith("})")) {
+        for (int i = 0; i < joins.size(); i++) {
+          Join join = joins.get(i);
+          statement.addAnnotation("    @Result(property=\"" + join.property + "\", one=@One(resultMap=\""
+            + join.resultMap() + "\", columnPrefix=\"" + join.alias + "_\"))" + (i < joins.size() - 1 ? "," : ""));
+        }
+        statement.addAnnotation(annotation);
+        inResults = false;
+      } else if (inResults) {
+        // 原本最後一個 @Result 之後接著加入的 @One
+        statement.addAnnotation(annotation.endsWith(",") ? annotation : annotation + ",");
+      } else if (!annotation.startsWith("@Generated")) {
+        statement.addAnnotation(annotation);
+      }
+    }
+  }
+
+  /**
+   * 加入參照資料表的欄位與 left join，有下一層時遞迴加入
+   *
+   * @param foreignKey 外鍵欄位的運算式
+   */
+  private void addJoin(Interface interfaze, Method select, List<String> joinLines, String foreignKey, Join join,
+    Set<FullyQualifiedJavaType> imports) {
+    IntrospectedTable reference = join.reference;
+    FullyQualifiedJavaType mapperType = new FullyQualifiedJavaType(reference.getMyBatis3JavaMapperType());
+    FullyQualifiedJavaType supportType = new FullyQualifiedJavaType(reference.getMyBatisDynamicSqlSupportType());
+    addImportedType(imports, interfaze.getType(), mapperType);
+    addImportedType(imports, interfaze.getType(), supportType);
+    String referenceTable = supportType.getShortName() + "."
+      + JavaBeansUtil.getValidPropertyName(reference.getMyBatisDynamicSQLTableObjectName());
+
+    select.addBodyLine("SqlTable " + join.alias + " = SqlTable.of(" + referenceTable + ".tableNameAtRuntime());");
+    select.addBodyLine("columns.addAll(joinColumns(" + mapperType.getShortName() + ".selectList, \"" + join.alias
+      + "\"));");
+    joinLines.add("start.leftJoin(" + join.alias + ", \"" + join.alias + "\").on(" + foreignKey + ", equalTo("
+      + columnOf(join.referenceColumn, join.alias) + "));");
+    for (Join next : join.next) {
+      addJoin(interfaze, select, joinLines, columnOf(next.columnName, join.alias), next, imports);
+    }
+  }
+
+  private String columnOf(String columnName, String tableAlias) {
+    return "SqlColumn.of(\"" + StringUtility.escapeStringForJava(delimit(columnName)) + "\", " + tableAlias + ")";
+  }
+
+  /**
+   * 與 MyBatis Generator 相同，autoDelimitKeywords 時為關鍵字的欄位名稱加上分隔符號
+   */
+  private String delimit(String columnName) {
+    if (context.autoDelimitKeywords() && SqlReservedWords.containsWord(columnName)) {
+      return context.getBeginningDelimiter() + columnName + context.getEndingDelimiter();
+    }
+    return columnName;
+  }
+
+  /**
+   * 參照資料表的欄位改為以 join 的別名限定，並以別名加底線為欄位別名，對應 {@code @One} 的 columnPrefix
+   */
+  private Method joinColumnsMethod(IntrospectedTable introspectedTable, Set<FullyQualifiedJavaType> imports) {
+    FullyQualifiedJavaType basicColumns = new FullyQualifiedJavaType(LIST.getFullyQualifiedName());
+    basicColumns.addTypeArgument(BASIC_COLUMN);
+    Method method = new Method("joinColumns");
+    method.setStatic(true);
+    method.setReturnType(basicColumns);
+    method.addParameter(new Parameter(new FullyQualifiedJavaType("org.mybatis.dynamic.sql.BasicColumn[]"), "columns"));
+    method.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "alias"));
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    method.addBodyLine("List<BasicColumn> joinColumns = new ArrayList<>();");
+    method.addBodyLine("for (BasicColumn column : columns) {");
+    method.addBodyLine("SqlColumn<?> sqlColumn = (SqlColumn<?>) column;");
+    // 結果對應使用不含分隔符號的欄位名稱
+    StringBuilder name = new StringBuilder("sqlColumn.name()");
+    name.append(".replace(\"").append(StringUtility.escapeStringForJava(context.getBeginningDelimiter()))
+      .append("\", \"\")");
+    if (!context.getBeginningDelimiter().equals(context.getEndingDelimiter())) {
+      name.append(".replace(\"").append(StringUtility.escapeStringForJava(context.getEndingDelimiter()))
+        .append("\", \"\")");
+    }
+    method.addBodyLine("joinColumns.add(sqlColumn.qualifiedWith(alias).as(alias + \"_\" + " + name + "));");
+    method.addBodyLine("}");
+    method.addBodyLine("return joinColumns;");
+    return method;
+  }
+
+  /**
+   * 參照的資料表通常在相同套件，不需 import
+   */
+  private static void addImportedType(Set<FullyQualifiedJavaType> imports, FullyQualifiedJavaType self,
+    FullyQualifiedJavaType type) {
+    if (!type.getPackageName().equals(self.getPackageName())) {
+      imports.add(type);
+    }
+  }
+
+  private static String joinResultMapId(FullyQualifiedJavaType recordType) {
+    return recordType.getShortNameWithoutTypeArguments() + "JoinResult";
+  }
+
+  private static Method findMethod(Interface interfaze, String name) {
+    for (Method method : interfaze.getMethods()) {
+      if (name.equals(method.getName())) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 本身資料表的 join，外鍵欄位不存在（例如被忽略）的 join 不處理
+   */
+  private List<Join> joins(IntrospectedTable introspectedTable) {
+    String property = introspectedTable.getTableConfigurationProperty(JOINS_PROPERTY);
+    if (!StringUtility.stringHasValue(property)) {
+      return new ArrayList<>();
+    }
+    TableConfiguration tc = introspectedTable.getTableConfiguration();
+    List<Join> joins = new ArrayList<>();
+    List<Join> parsed = parse(property, tc, "");
+    Set<String> properties = new HashSet<>();
+    for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+      properties.add(column.getJavaProperty());
+    }
+    for (Join join : parsed) {
+      Optional<IntrospectedColumn> column = introspectedTable.getColumn(join.columnName);
+      if (!column.isPresent()) {
+        continue;
+      }
+      join.column = column.get();
+      String javaProperty = join.column.getJavaProperty();
+      String name = javaProperty.length() > 2 && javaProperty.endsWith("Id")
+        ? javaProperty.substring(0, javaProperty.length() - 2) : javaProperty + "Reference";
+      join.property = properties.add(name) ? name : javaProperty + "Reference";
+      joins.add(join);
+    }
+    return joins;
+  }
+
+  /**
+   * 解析 {@value #JOINS_PROPERTY} 屬性，別名依位置為 j0、j1...，下一層接在上一層的別名之後
+   */
+  private List<Join> parse(String value, TableConfiguration tc, String aliasPrefix) {
+    List<Join> joins = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i <= value.length(); i++) {
+      char c = i < value.length() ? value.charAt(i) : ',';
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        String item = value.substring(start, i).trim();
+        start = i + 1;
+        if (!item.isEmpty()) {
+          joins.add(parseJoin(item, tc, aliasPrefix + "j" + joins.size()));
+        }
+      }
+    }
+    if (depth != 0) {
+      throw new IllegalArgumentException("資料表 " + tc.getTableName() + " 的 joins 屬性括號不對稱: " + value);
+    }
+    return joins;
+  }
+
+  private Join parseJoin(String item, TableConfiguration tc, String alias) {
+    int open = item.indexOf('(');
+    String edge = open < 0 ? item : item.substring(0, open);
+    int colon = edge.indexOf(':');
+    int dot = edge.lastIndexOf('.');
+    if (colon <= 0 || dot <= colon + 1 || dot == edge.length() - 1) {
+      throw new IllegalArgumentException("資料表 " + tc.getTableName()
+        + " 的 joins 屬性格式應為 外鍵欄位:參照資料表.參照欄位，實際為: " + item);
+    }
+    Join join = new Join();
+    join.columnName = edge.substring(0, colon).trim();
+    join.referenceColumn = edge.substring(dot + 1).trim();
+    join.alias = alias;
+    join.reference = referenceTable(tc, edge.substring(colon + 1, dot).trim());
+    if (open >= 0) {
+      join.next = parse(item.substring(open + 1, item.lastIndexOf(')')), tc, alias + "_");
+    }
+    return join;
+  }
+
+  /**
+   * 以 context 的設定推算參照資料表的名稱，catalog 與 schema 與本身的資料表相同
+   */
+  private IntrospectedTable referenceTable(TableConfiguration tc, String tableName) {
+    TableConfiguration reference = new TableConfiguration(context);
+    reference.setCatalog(tc.getCatalog());
+    reference.setSchema(tc.getSchema());
+    reference.setTableName(tableName);
+    reference.setDomainObjectRenamingRule(tc.getDomainObjectRenamingRule());
+    FullyQualifiedTable table = new FullyQualifiedTable(tc.getCatalog(), tc.getSchema(), tableName, null, null,
+      false, null, null, null, tc.isDelimitIdentifiers(), tc.getDomainObjectRenamingRule(), context);
+    IntrospectedTable introspectedTable = ObjectFactory.createIntrospectedTable(reference, table, context);
+    introspectedTable.initialize();
+    return introspectedTable;
+  }
+
+  private static class Join {
+    /** 外鍵欄位名稱 */
+    private String columnName;
+    /** 參照欄位名稱 */
+    private String referenceColumn;
+    /** join 的別名，也是參照資料欄位別名的前綴 */
+    private String alias;
+    /** 只有名稱，沒有欄位資訊 */
+    private IntrospectedTable reference;
+    /** 下一層的 join */
+    private List<Join> next = new ArrayList<>();
+    /** 只有本身資料表的 join 有值 */
+    private IntrospectedColumn column;
+    private String property;
+
+    /**
+     * 有下一層時對應參照資料表的 join 查詢結果
+     */
+    private String resultMap() {
+      FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(reference.getBaseRecordType());
+      return reference.getMyBatis3JavaMapperType() + "."
+        + (next.isEmpty() ? recordType.getShortNameWithoutTypeArguments() + "Result" : joinResultMapId(recordType));
+    }
+  }
+}
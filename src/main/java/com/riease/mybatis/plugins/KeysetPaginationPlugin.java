@@ -0,0 +1,151 @@
+package com.riease.mybatis.plugins;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.runtime.dynamic.sql.elements.AbstractMethodGenerator;
+
+/**
+ * 在 MyBatis3DynamicSql 產生的 Mapper 加入以主鍵排序的 keyset（seek）分頁方法。
+ * <p>
+ * offset 分頁需讀取並捨棄前面所有資料列，越後面的頁越慢；keyset 分頁以上一頁最後一筆的主鍵為條件，
+ * 由主鍵索引直接定位，每一頁的耗時相同。加入的方法：
+ * <ul>
+ *   <li>selectFirstPage(limit)：依主鍵排序的第一頁</li>
+ *   <li>selectPageAfter(主鍵..., limit)：主鍵大於指定值的下一頁</li>
+ *   <li>selectPageAfter(row, limit)：以上一頁最後一筆資料的主鍵查詢下一頁</li>
+ * </ul>
+ * 複合主鍵依主鍵欄位順序比較，條件為 {@code k1 >= ? and (k1 > ? or (k1 = ? and k2 > ?) or ...)}，
+ * 不使用部分資料庫不支援的 row value 比較。開頭的 {@code k1 >= ?} 在邏輯上多餘，但只有 or 條件時
+ * 部分資料庫（例如以參數執行的 SQLite）無法以主鍵索引定位，會掃描整個索引。
+ * 只加入有主鍵且有 select(completer) 方法的 Mapper。
+ */
+public class KeysetPaginationPlugin extends PluginAdapter {
+
+  private static final FullyQualifiedJavaType LIST = new FullyQualifiedJavaType("java.util.List");
+  private static final FullyQualifiedJavaType LONG = new FullyQualifiedJavaType("long");
+  private static final String SQL_BUILDER = "org.mybatis.dynamic.sql.SqlBuilder.";
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("KeysetPaginationPlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入分頁方法");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    List<IntrospectedColumn> keys = introspectedTable.getPrimaryKeyColumns();
+    if (keys.isEmpty() || !hasSelect(interfaze)) {
+      return true;
+    }
+    String tableFieldName = JavaBeansUtil.getValidPropertyName(introspectedTable.getMyBatisDynamicSQLTableObjectName());
+    List<String> fieldNames = new ArrayList<>();
+    for (IntrospectedColumn key : keys) {
+      fieldNames.add(AbstractMethodGenerator.calculateFieldName(tableFieldName, key));
+    }
+    String orderBy = String.join(", ", fieldNames);
+    FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+    FullyQualifiedJavaType listType = new FullyQualifiedJavaType(LIST.getFullyQualifiedName());
+    listType.addTypeArgument(recordType);
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+
+    Method firstPage = newMethod("selectFirstPage", listType, introspectedTable, imports);
+    firstPage.addParameter(new Parameter(LONG, "limit"));
+    firstPage.addBodyLine("return select(c -> c.orderBy(" + orderBy + ").limit(limit));");
+    interfaze.addMethod(firstPage);
+
+    Method pageAfter = newMethod("selectPageAfter", listType, introspectedTable, imports);
+    List<String> keyParameters = new ArrayList<>();
+    for (IntrospectedColumn key : keys) {
+      String parameter = key.getJavaProperty() + "_";
+      pageAfter.addParameter(new Parameter(key.getFullyQualifiedJavaType(), parameter));
+      imports.add(key.getFullyQualifiedJavaType());
+      keyParameters.add(parameter);
+    }
+    pageAfter.addParameter(new Parameter(LONG, "limit"));
+    pageAfter.addBodyLine("return select(c ->");
+    pageAfter.addBodyLines(seekCondition(fieldNames, keyParameters));
+    pageAfter.addBodyLine("    .orderBy(" + orderBy + ").limit(limit)");
+    pageAfter.addBodyLine(");");
+    interfaze.addMethod(pageAfter);
+
+    Method rowPageAfter = newMethod("selectPageAfter", listType, introspectedTable, imports);
+    rowPageAfter.addParameter(new Parameter(recordType, "row"));
+    rowPageAfter.addParameter(new Parameter(LONG, "limit"));
+    List<String> getters = new ArrayList<>();
+    for (IntrospectedColumn key : keys) {
+      getters.add("row." + JavaBeansUtil.getGetterMethodName(key.getJavaProperty(), key.getFullyQualifiedJavaType())
+        + "()");
+    }
+    rowPageAfter.addBodyLine("return selectPageAfter(" + String.join(", ", getters) + ", limit);");
+    interfaze.addMethod(rowPageAfter);
+
+    imports.add(LIST);
+    interfaze.addImportedTypes(imports);
+    interfaze.addStaticImport(SQL_BUILDER + "isGreaterThan");
+    if (keys.size() > 1) {
+      interfaze.addStaticImport(SQL_BUILDER + "isGreaterThanOrEqualTo");
+      interfaze.addStaticImport(SQL_BUILDER + "isEqualTo");
+      interfaze.addStaticImport(SQL_BUILDER + "and");
+      interfaze.addStaticImport(SQL_BUILDER + "or");
+    }
+    return true;
+  }
+
+  /**
+   * 單一主鍵為 {@code k1 > ?}；複合主鍵為 {@code k1 >= ? and (k1 > ? or (k1 = ? and k2 > ?) or ...)}，
+   * 第 i 個 or 條件為前 i - 1 個主鍵相等且第 i 個主鍵大於指定值
+   */
+  private static List<String> seekCondition(List<String> fieldNames, List<String> keyParameters) {
+    List<String> lines = new ArrayList<>();
+    String first = fieldNames.get(0);
+    String firstParameter = keyParameters.get(0);
+    if (fieldNames.size() == 1) {
+      lines.add("    c.where(" + first + ", isGreaterThan(" + firstParameter + "))");
+      return lines;
+    }
+    lines.add("    c.where(" + first + ", isGreaterThanOrEqualTo(" + firstParameter + "), and(" + first
+      + ", isGreaterThan(" + firstParameter + "),");
+    for (int i = 1; i < fieldNames.size(); i++) {
+      StringBuilder line = new StringBuilder("        or(").append(first).append(", isEqualTo(")
+        .append(firstParameter).append(')');
+      for (int j = 1; j <= i; j++) {
+        line.append(", and(").append(fieldNames.get(j)).append(j == i ? ", isGreaterThan(" : ", isEqualTo(")
+          .append(keyParameters.get(j)).append("))");
+      }
+      line.append(i < fieldNames.size() - 1 ? ")," : ")))");
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  private static boolean hasSelect(Interface interfaze) {
+    for (Method method : interfaze.getMethods()) {
+      if ("select".equals(method.getName()) && method.isDefault() && method.getParameters().size() == 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Method newMethod(String name, FullyQualifiedJavaType returnType, IntrospectedTable introspectedTable,
+    Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method(name);
+    method.setDefault(true);
+    method.setReturnType(returnType);
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    return method;
+  }
+}
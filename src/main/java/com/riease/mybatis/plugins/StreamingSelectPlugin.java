@@ -0,0 +1,169 @@
+package com.riease.mybatis.plugins;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.internal.util.StringUtility;
+
+/**
+ * 在 MyBatis3DynamicSql 產生的 Mapper 加入串流讀取的 select 方法，查詢結果不需全部載入記憶體。
+ * <ul>
+ *   <li>selectManyCursor、selectCursor(completer)：回傳 {@code Cursor}，逐筆讀取</li>
+ *   <li>selectManyWithHandler、select(completer, handler)：每讀取一筆呼叫一次 {@code ResultHandler}</li>
+ * </ul>
+ * 方法標註 {@code @Options(fetchSize = ..., resultSetType = ResultSetType.FORWARD_ONLY)}，
+ * fetchSize 以插件屬性 {@value #FETCH_SIZE_PROPERTY} 設定（預設 {@value #DEFAULT_FETCH_SIZE}）。
+ * 使用與 selectMany 相同的 result map，只在 Mapper 中有 selectMany 時加入。
+ * <p>
+ * Cursor 必須在 SqlSession 關閉前讀取完畢；PostgreSQL 需在交易中（autoCommit 為 false）才會依 fetchSize 分批讀取，
+ * MySQL 需將 fetchSize 設為 Integer.MIN_VALUE 或在連線 URL 加上 useCursorFetch=true。
+ */
+public class StreamingSelectPlugin extends PluginAdapter {
+
+  /** 插件屬性：每次從資料庫讀取的筆數 */
+  public static final String FETCH_SIZE_PROPERTY = "fetchSize";
+
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private static final FullyQualifiedJavaType CURSOR = new FullyQualifiedJavaType("org.apache.ibatis.cursor.Cursor");
+  private static final FullyQualifiedJavaType RESULT_HANDLER =
+    new FullyQualifiedJavaType("org.apache.ibatis.session.ResultHandler");
+  private static final FullyQualifiedJavaType OPTIONS = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Options");
+  private static final FullyQualifiedJavaType RESULT_SET_TYPE =
+    new FullyQualifiedJavaType("org.apache.ibatis.mapping.ResultSetType");
+  private static final FullyQualifiedJavaType RESULT_MAP =
+    new FullyQualifiedJavaType("org.apache.ibatis.annotations.ResultMap");
+  private static final FullyQualifiedJavaType SELECT_PROVIDER =
+    new FullyQualifiedJavaType("org.apache.ibatis.annotations.SelectProvider");
+  private static final FullyQualifiedJavaType SQL_PROVIDER_ADAPTER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.util.SqlProviderAdapter");
+  private static final FullyQualifiedJavaType SELECT_STATEMENT_PROVIDER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.render.SelectStatementProvider");
+  private static final FullyQualifiedJavaType SELECT_DSL_COMPLETER =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.select.SelectDSLCompleter");
+  private static final FullyQualifiedJavaType MYBATIS3_UTILS =
+    new FullyQualifiedJavaType("org.mybatis.dynamic.sql.util.mybatis3.MyBatis3Utils");
+
+  /** selectMany 上 {@code @Results} 的 id */
+  private static final String RESULTS_ID_PREFIX = "@Results(id=\"";
+
+  private int fetchSize = DEFAULT_FETCH_SIZE;
+
+  @Override
+  public boolean validate(List<String> warnings) {
+    if (!"MyBatis3DynamicSql".equals(context.getTargetRuntime())) {
+      warnings.add("StreamingSelectPlugin 只支援 MyBatis3DynamicSql，context " + context.getId() + " 不會加入串流讀取方法");
+      return false;
+    }
+    String value = properties.getProperty(FETCH_SIZE_PROPERTY);
+    if (StringUtility.stringHasValue(value)) {
+      try {
+        fetchSize = Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        warnings.add("StreamingSelectPlugin 的 " + FETCH_SIZE_PROPERTY + " 不是整數: " + value);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+    Method selectMany = null;
+    for (Method method : interfaze.getMethods()) {
+      if ("selectMany".equals(method.getName()) && method.getParameters().size() == 1) {
+        selectMany = method;
+      }
+    }
+    if (selectMany == null) {
+      return true;
+    }
+    FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+    String resultMapId = resultMapId(selectMany, recordType);
+    String tableFieldName = JavaBeansUtil.getValidPropertyName(introspectedTable.getMyBatisDynamicSQLTableObjectName());
+    Set<FullyQualifiedJavaType> imports = new HashSet<>();
+
+    FullyQualifiedJavaType cursorType = new FullyQualifiedJavaType(CURSOR.getFullyQualifiedName());
+    cursorType.addTypeArgument(recordType);
+    FullyQualifiedJavaType handlerType = new FullyQualifiedJavaType(RESULT_HANDLER.getFullyQualifiedName());
+    handlerType.addTypeArgument(recordType);
+
+    Method selectManyCursor = newStatement("selectManyCursor", resultMapId, introspectedTable, imports);
+    selectManyCursor.setReturnType(cursorType);
+    interfaze.addMethod(selectManyCursor);
+
+    Method selectManyWithHandler = newStatement("selectManyWithHandler", resultMapId, introspectedTable, imports);
+    selectManyWithHandler.addParameter(new Parameter(handlerType, "handler"));
+    interfaze.addMethod(selectManyWithHandler);
+
+    Method selectCursor = newDefault("selectCursor", introspectedTable, imports);
+    selectCursor.setReturnType(cursorType);
+    selectCursor.addBodyLine("return selectManyCursor(MyBatis3Utils.select(selectList, " + tableFieldName
+      + ", completer));");
+    interfaze.addMethod(selectCursor);
+
+    Method select = newDefault("select", introspectedTable, imports);
+    select.addParameter(new Parameter(handlerType, "handler"));
+    select.addBodyLine("selectManyWithHandler(MyBatis3Utils.select(selectList, " + tableFieldName
+      + ", completer), handler);");
+    interfaze.addMethod(select);
+
+    imports.add(CURSOR);
+    imports.add(RESULT_HANDLER);
+    imports.add(OPTIONS);
+    imports.add(RESULT_SET_TYPE);
+    imports.add(RESULT_MAP);
+    imports.add(SELECT_PROVIDER);
+    imports.add(SQL_PROVIDER_ADAPTER);
+    imports.add(SELECT_STATEMENT_PROVIDER);
+    imports.add(SELECT_DSL_COMPLETER);
+    imports.add(MYBATIS3_UTILS);
+    interfaze.addImportedTypes(imports);
+    return true;
+  }
+
+  /**
+   * 以 SelectStatementProvider 查詢的 mapper statement，result map 與 selectMany 相同
+   */
+  private Method newStatement(String name, String resultMapId, IntrospectedTable introspectedTable,
+    Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method(name);
+    method.setAbstract(true);
+    method.addParameter(new Parameter(SELECT_STATEMENT_PROVIDER, "selectStatement"));
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    method.addAnnotation("@SelectProvider(type=SqlProviderAdapter.class, method=\"select\")");
+    method.addAnnotation("@ResultMap(\"" + resultMapId + "\")");
+    method.addAnnotation("@Options(fetchSize=" + fetchSize + ", resultSetType=ResultSetType.FORWARD_ONLY)");
+    return method;
+  }
+
+  private Method newDefault(String name, IntrospectedTable introspectedTable, Set<FullyQualifiedJavaType> imports) {
+    Method method = new Method(name);
+    method.setDefault(true);
+    method.addParameter(new Parameter(SELECT_DSL_COMPLETER, "completer"));
+    context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable, imports);
+    return method;
+  }
+
+  /**
+   * @return selectMany 的 {@code @Results} id，找不到時使用 MyBatis Generator 預設的命名
+   */
+  private static String resultMapId(Method selectMany, FullyQualifiedJavaType recordType) {
+    for (String annotation : selectMany.getAnnotations()) {
+      if (annotation.startsWith(RESULTS_ID_PREFIX)) {
+        int end = annotation.indexOf('"', RESULTS_ID_PREFIX.length());
+        if (end > 0) {
+          return annotation.substring(RESULTS_ID_PREFIX.length(), end);
+        }
+      }
+    }
+    return recordType.getShortNameWithoutTypeArguments() + "Result";
+  }
+}
@@ -0,0 +1,154 @@
+package com.riease;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.JDBC;
+
+class MyBatisGeneratorPluginTest {
+
+  private static final String ORDERS_ENTITY = "src/main/java/com/example/dao/entity/Orders.java";
+
+  @TempDir
+  File projectDir;
+
+  @TempDir
+  File cacheDir;
+
+  /**
+   * staged output 的產出只包含產生的檔案，輸入相同時從 build cache 取得
+   */
+  @Test
+  void stagedOutputIsLoadedFromCache() throws Exception {
+    assertEquals(TaskOutcome.FROM_CACHE, regenerate(false));
+  }
+
+  /**
+   * 同時啟用 staged output 與 incremental 時，產出取決於上一次的產生紀錄，不從 build cache 取得
+   */
+  @Test
+  void stagedIncrementalOutputIsNotLoadedFromCache() throws Exception {
+    assertEquals(TaskOutcome.SUCCESS, regenerate(true));
+  }
+
+  /**
+   * 以 staged output 產生一次，刪除 build 目錄後再執行 mybatisGenerate，回傳第二次執行的結果
+   */
+  private TaskOutcome regenerate(boolean incremental) throws Exception {
+    createProject(incremental);
+    BuildResult result = runner("copyMyBatisGeneratorConfig", "mybatisGenerate").build();
+    assertEquals(TaskOutcome.SUCCESS, result.task(":mybatisGenerate").getOutcome(), result.getOutput());
+    assertTrue(new File(projectDir, ORDERS_ENTITY).isFile(), result.getOutput());
+
+    deleteRecursively(new File(projectDir, "build"));
+    result = runner("mybatisGenerate").build();
+    return result.task(":mybatisGenerate").getOutcome();
+  }
+
+  private void createProject(boolean incremental) throws Exception {
+    try (Connection conn = DriverManager.getConnection(connectionUrl());
+         Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, amount INTEGER NOT NULL)");
+    }
+    // MyBatis Generator 不會自動建立 targetProject 目錄
+    assertTrue(new File(projectDir, "src/main/java").mkdirs());
+    assertTrue(new File(projectDir, "src/main/resources").mkdirs());
+
+    write("settings.gradle", "rootProject.name = 'example'",
+      "buildCache {",
+      "  local {",
+      "    directory = file('" + path(cacheDir) + "')",
+      "  }",
+      "}");
+    // 產生時以專案的 runtimeClasspath 執行，加入本 plugin 與 SQLite driver
+    String classpath = generatorClasspath().stream()
+      .map(file -> "'" + path(file) + "'")
+      .collect(Collectors.joining(", "));
+    write("build.gradle", "plugins {",
+      "  id 'java'",
+      "  id 'com.riease.mybatis-generator'",
+      "}",
+      "group = 'com.example'",
+      "dependencies {",
+      "  runtimeOnly files(" + classpath + ")",
+      "}");
+    write("gradle.properties", "mybatis.generator.db.driverClass=org.sqlite.JDBC",
+      "mybatis.generator.db.connectionURL=" + connectionUrl().replace("\\", "/"),
+      "mybatis.generator.staged.output=true",
+      "mybatis.generator.incremental=" + incremental,
+      "mybatis.generator.generate.shards=1");
+  }
+
+  private GradleRunner runner(String... tasks) {
+    List<String> arguments = new ArrayList<>(Arrays.asList(tasks));
+    arguments.add("--build-cache");
+    // SQLite 不需帳號密碼，但參數不可為空白
+    Map<String, String> environment = new HashMap<>(System.getenv());
+    environment.put("mybatis.generator.db.username", "test");
+    environment.put("mybatis.generator.db.password", "test");
+    return GradleRunner.create()
+      .withProjectDir(projectDir)
+      .withPluginClasspath()
+      .withEnvironment(environment)
+      .withArguments(arguments);
+  }
+
+  /**
+   * java-gradle-plugin 產生的 plugin classpath 與 SQLite driver
+   */
+  private List<File> generatorClasspath() throws Exception {
+    Properties metadata = new Properties();
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream("plugin-under-test-metadata.properties")) {
+      assertNotNull(in);
+      metadata.load(in);
+    }
+    List<File> files = Arrays.stream(metadata.getProperty("implementation-classpath").split(File.pathSeparator))
+      .map(File::new)
+      .collect(Collectors.toList());
+    files.add(new File(JDBC.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+    return files;
+  }
+
+  private String connectionUrl() {
+    return "jdbc:sqlite:" + new File(projectDir, "schema.db").getAbsolutePath();
+  }
+
+  private void write(String path, String... lines) throws Exception {
+    Files.write(new File(projectDir, path).toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+  }
+
+  private static String path(File file) {
+    return file.getAbsolutePath().replace('\\', '/');
+  }
+
+  private static void deleteRecursively(File dir) throws Exception {
+    try (Stream<Path> paths = Files.walk(dir.toPath())) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package com.riease.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CopyMyBatisGeneratorConfigMainTest {
+
+  @TempDir
+  File projectDir;
+
+  /**
+   * 設定檔中已存在的資料表欄位異動時，schema 快照（mybatisGenerate 的輸入）需隨之更新，mybatisGenerate 才會重新產生
+   */
+  @Test
+  void snapshotChangesWhenExistingTableChanges() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    File snapshotFile = new File(projectDir, SchemaSnapshotStore.pathOf(null));
+    assertEquals(2, customer(snapshotFile).getColumnCount());
+
+    // customer 已存在於設定檔中
+    execute(null);
+    byte[] unchanged = Files.readAllBytes(snapshotFile.toPath());
+
+    execute("ALTER TABLE customer ADD COLUMN email TEXT");
+    assertFalse(Arrays.equals(unchanged, Files.readAllBytes(snapshotFile.toPath())));
+    TableMeta customer = customer(snapshotFile);
+    assertEquals(3, customer.getColumnCount());
+    assertNotNull(customer.getColumn("email"));
+  }
+
+  /**
+   * schema 未變更時使用快照，快照內容不變，mybatisGenerate 維持 up-to-date
+   */
+  @Test
+  void snapshotUnchangedWhenSchemaUnchanged() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    File snapshotFile = new File(projectDir, SchemaSnapshotStore.pathOf(null));
+    byte[] first = Files.readAllBytes(snapshotFile.toPath());
+
+    execute(null);
+    assertArrayEquals(first, Files.readAllBytes(snapshotFile.toPath()));
+  }
+
+  /**
+   * 快照沒有包含設定檔中的資料表時（例如被 exclude 排除），快照不能代表 mybatisGenerate 讀取的 schema
+   */
+  @Test
+  void uncoveredTablesListsTablesMissingFromSnapshot() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER NOT NULL)");
+    File configFile = new File(projectDir, "build-tools/mybatis/mybatis-generator-config.xml");
+    assertEquals(Collections.emptyList(), SchemaSnapshotStore.uncoveredTables(projectDir, configFile));
+
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.tables.exclude", "orders");
+    CopyMyBatisGeneratorConfigMain.execute(properties);
+    assertEquals(Collections.singletonList("mainContext.orders"),
+      SchemaSnapshotStore.uncoveredTables(projectDir, configFile));
+  }
+
+  /**
+   * 已存在的 table 定義不會加入 cache 屬性，需列出缺少屬性的資料表；手動加入後不再列出
+   */
+  @Test
+  void reportsExistingTablesMissingCache() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER REFERENCES customer (id))");
+
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.cache.lookup.tables", "true");
+    String warning = stderr(properties);
+    assertTrue(warning.contains("不會加入 cache 屬性"), warning);
+    assertTrue(warning.contains(": customer"), warning);
+    File configFile = new File(projectDir, "build-tools/mybatis/mybatis-generator-config.xml");
+    String config = new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+    assertFalse(config.contains("name=\"cache\""), config);
+
+    Files.write(configFile.toPath(), config.replace("tableName=\"customer\">",
+      "tableName=\"customer\"><property name=\"cache\" value=\"true\"/>").getBytes(StandardCharsets.UTF_8));
+    warning = stderr(properties);
+    assertFalse(warning.contains("cache"), warning);
+  }
+
+  /**
+   * 設定檔中的資料表名稱不分大小寫，大小寫不同時不重複加入；已存在的 table 定義不加入 joins，需列出指定的資料表
+   */
+  @Test
+  void reportsExistingTablesMissingJoinsIgnoringCase() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER REFERENCES customer (id))");
+    File configFile = new File(projectDir, "build-tools/mybatis/mybatis-generator-config.xml");
+    String config = new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+    Files.write(configFile.toPath(), config.replace("tableName=\"orders\"", "tableName=\"ORDERS\"")
+      .getBytes(StandardCharsets.UTF_8));
+
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.join.tables", "orders");
+    String warning = stderr(properties);
+    assertTrue(warning.contains("不會加入 joins 屬性"), warning);
+    assertTrue(warning.contains(": orders"), warning);
+    config = new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+    assertFalse(config.contains("tableName=\"orders\""), config);
+    assertFalse(config.contains("name=\"joins\""), config);
+  }
+
+  /**
+   * 已存在的 table 定義不加入索引屬性，之後新增的索引需列出資料表
+   */
+  @Test
+  void reportsExistingTablesMissingIndexProperties() throws Exception {
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, email TEXT NOT NULL, status INTEGER)");
+    String warning = stderr(properties());
+    assertFalse(warning.contains("uniqueIndexes"), warning);
+
+    execute("CREATE UNIQUE INDEX ux_customer_email ON customer (email)");
+    execute("CREATE INDEX ix_customer_status ON customer (status)");
+    warning = stderr(properties());
+    assertTrue(warning.contains("不會加入 uniqueIndexes 屬性，"), warning);
+    assertTrue(warning.contains("不會加入 indexedColumns 屬性，"), warning);
+    assertTrue(warning.contains(": customer"), warning);
+
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.index.selectors", "false");
+    warning = stderr(properties);
+    assertFalse(warning.contains("uniqueIndexes"), warning);
+  }
+
+  /**
+   * 未設定 schema 時只讀取連線目前的 schema，其他 schema 的資料表與同名資料表的欄位不會加入快照
+   */
+  @Test
+  void readsOnlyCurrentSchema() throws Exception {
+    String url = "jdbc:h2:" + new File(projectDir, "schema").getAbsolutePath();
+    try (Connection conn = DriverManager.getConnection(url, "test", "test");
+         Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name VARCHAR(100) NOT NULL)");
+      stmt.execute("CREATE SCHEMA other");
+      stmt.execute("CREATE TABLE other.customer (id INTEGER PRIMARY KEY, code VARCHAR(10) NOT NULL, note TEXT)");
+      stmt.execute("CREATE TABLE other.audit (id INTEGER PRIMARY KEY)");
+    }
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.db.driverClass", "org.h2.Driver");
+    properties.put("mybatis.generator.db.connectionURL", url);
+    CopyMyBatisGeneratorConfigMain.execute(properties);
+
+    SchemaSnapshot snapshot = SchemaSnapshotStore.read(new File(projectDir, SchemaSnapshotStore.pathOf(null)));
+    assertNotNull(snapshot);
+    assertEquals("PUBLIC", snapshot.getSchema());
+    assertEquals(1, snapshot.getTables().size());
+    TableMeta customer = snapshot.getTable("CUSTOMER");
+    assertNotNull(customer);
+    assertEquals(Arrays.asList("ID", "NAME"),
+      customer.getColumns().stream().map(ColumnMeta::getName).collect(Collectors.toList()));
+  }
+
+  /**
+   * 執行 DDL 後以 copyMyBatisGeneratorConfig 讀取資料庫
+   */
+  private void execute(String ddl) throws SQLException {
+    if (ddl != null) {
+      try (Connection conn = DriverManager.getConnection(connectionUrl());
+           Statement stmt = conn.createStatement()) {
+        stmt.execute(ddl);
+      }
+    }
+    CopyMyBatisGeneratorConfigMain.execute(properties());
+  }
+
+  /**
+   * 執行 copyMyBatisGeneratorConfig，回傳輸出到 System.err 的內容
+   */
+  private static String stderr(Map<String, String> properties) throws Exception {
+    PrintStream original = System.err;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(buffer, true, StandardCharsets.UTF_8.name()));
+    try {
+      CopyMyBatisGeneratorConfigMain.execute(properties);
+    } finally {
+      System.setErr(original);
+    }
+    return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private TableMeta customer(File snapshotFile) throws Exception {
+    SchemaSnapshot snapshot = SchemaSnapshotStore.read(snapshotFile);
+    assertNotNull(snapshot);
+    assertEquals(1, snapshot.getTables().size());
+    TableMeta customer = snapshot.getTables().get(0);
+    assertEquals("customer", customer.getTableName());
+    return customer;
+  }
+
+  private String connectionUrl() {
+    return "jdbc:sqlite:" + new File(projectDir, "schema.db").getAbsolutePath();
+  }
+
+  /**
+   * SQLite 不需帳號密碼，但參數不可為空白
+   */
+  private Map<String, String> properties() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("mybatis.generator.project.dir", projectDir.getAbsolutePath());
+    properties.put("mybatis.generator.target.package", "com.example");
+    properties.put("mybatis.generator.db.driverClass", "org.sqlite.JDBC");
+    properties.put("mybatis.generator.db.connectionURL", connectionUrl());
+    properties.put("mybatis.generator.db.username", "test");
+    properties.put("mybatis.generator.db.password", "test");
+    return properties;
+  }
+}
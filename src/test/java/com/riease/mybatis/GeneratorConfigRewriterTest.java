@@ -0,0 +1,180 @@
+package com.riease.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GeneratorConfigRewriterTest {
+
+  private static final String CONTEXT_ID = "mainContext";
+
+  @TempDir
+  File projectDir;
+
+  private File configFile;
+
+  @BeforeEach
+  void copyTemplate() throws Exception {
+    configFile = new File(projectDir, "mybatis-generator-config.xml");
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream("config/mybatis-generator-config.xml")) {
+      assertNotNull(in);
+      Files.copy(in, configFile.toPath());
+    }
+  }
+
+  /**
+   * 加入的 table 依資料表順序排在 context 結尾，範本的註解與屬性維持不變
+   */
+  @Test
+  void appendsTablesAndKeepsTemplate() throws Exception {
+    String output = rewrite(new GeneratorConfigRewriter("com.example", dataSources(),
+      tables(table("customer"), table("orders"))));
+    assertTrue(output.contains("加入 2 個資料表，跳過 0 個已存在的資料表"), output);
+
+    assertEquals(Arrays.asList("customer", "orders"), tableNames());
+    String config = read();
+    assertTrue(config.contains("<!-- 插件配置 -->"), config);
+    assertTrue(config.contains("<property name=\"maxParameters\" value=\"2000\"/>"), config);
+    assertTrue(config.contains("driverClass=\"org.sqlite.JDBC\""), config);
+    assertTrue(config.contains("targetPackage=\"com.example.dao.entity\""), config);
+    assertTrue(config.indexOf("<table tableName=\"orders\">") < config.indexOf("</context>"), config);
+
+    // 再次改寫時兩個資料表都已存在，不會重複加入
+    output = rewrite(new GeneratorConfigRewriter("com.example", dataSources(),
+      tables(table("customer"), table("orders"))));
+    assertTrue(output.contains("加入 0 個資料表，跳過 2 個已存在的資料表"), output);
+    assertEquals(Arrays.asList("customer", "orders"), tableNames());
+    assertTrue(read().contains("<property name=\"maxParameters\" value=\"2000\"/>"));
+  }
+
+  /**
+   * 設定檔中已存在的資料表名稱不分大小寫，不會重複加入
+   */
+  @Test
+  void existingTablesMatchCaseInsensitively() throws Exception {
+    rewrite(new GeneratorConfigRewriter("com.example", dataSources(), tables(table("ORDERS"))));
+
+    String output = rewrite(new GeneratorConfigRewriter("com.example", dataSources(),
+      tables(table("customer"), table("orders"))));
+    assertTrue(output.contains("加入 1 個資料表，跳過 1 個已存在的資料表"), output);
+    assertEquals(Arrays.asList("ORDERS", "customer"), tableNames());
+  }
+
+  /**
+   * 啟用 primitiveTypes 時，columnOverride 依欄位順序排在 property 之後（DTD 規定的順序），
+   * 可為 null、主鍵與有預設值的欄位不改用基本型別
+   */
+  @Test
+  void columnOverridesFollowPropertiesInColumnOrder() throws Exception {
+    StringPool strings = new StringPool();
+    TableMeta orders = TableMeta.builder("orders", null, strings)
+      .addColumn("id", "INTEGER", Types.INTEGER, 10, 0, false, null, true, false, null)
+      .addColumn("quantity", "INTEGER", Types.INTEGER, 10, 0, false, null, false, false, null)
+      .addColumn("note", "VARCHAR", Types.VARCHAR, 100, null, true, null, false, false, null)
+      .addColumn("paid", "BOOLEAN", Types.BOOLEAN, 1, null, false, null, false, false, null)
+      .addColumn("status", "INTEGER", Types.INTEGER, 10, 0, false, "0", false, false, null)
+      .addColumn("amount", "BIGINT", Types.BIGINT, 19, 0, false, null, false, false, null)
+      .addPrimaryKey("id")
+      .addIndexColumn("ux_orders_quantity_paid", true, "quantity")
+      .addIndexColumn("ux_orders_quantity_paid", true, "paid")
+      .build();
+    GeneratorConfigRewriter rewriter = new GeneratorConfigRewriter("com.example", dataSources(), tables(orders));
+    rewriter.setPrimitiveTypes(true);
+    rewriter.setIndexSelectors(true);
+    rewrite(rewriter);
+
+    String config = read();
+    Matcher table = Pattern.compile("(?s)<table tableName=\"orders\">(.*?)</table>").matcher(config);
+    assertTrue(table.find(), config);
+    String content = table.group(1);
+    int lastProperty = content.lastIndexOf("<property ");
+    int firstOverride = content.indexOf("<columnOverride ");
+    assertTrue(lastProperty >= 0 && firstOverride > lastProperty, content);
+    assertTrue(content.contains("<property name=\"uniqueIndexes\" value=\"quantity+paid\"/>"), content);
+
+    List<String> overrides = new ArrayList<>();
+    Matcher override = Pattern.compile("<columnOverride column=\"(\\w+)\" javaType=\"(\\w+)\"").matcher(content);
+    while (override.find()) {
+      overrides.add(override.group(1) + ":" + override.group(2));
+    }
+    assertEquals(Arrays.asList("quantity:int", "paid:boolean", "amount:long"), overrides);
+  }
+
+  /**
+   * 資料表備註寫成 XML 註解時，連續的 "-" 與結尾的 "-" 之間加上空白，改寫後的設定檔仍可解析
+   */
+  @Test
+  void tableCommentDashesAreEscaped() throws Exception {
+    TableMeta orders = TableMeta.builder("orders", "訂單---主檔 -", new StringPool())
+      .addColumn("id", "INTEGER", Types.INTEGER, 10, 0, false, null, false, false, null)
+      .addPrimaryKey("id")
+      .build();
+    rewrite(new GeneratorConfigRewriter("com.example", dataSources(), tables(orders)));
+
+    String config = read();
+    assertTrue(config.contains("<!-- 訂單- - -主檔 -  -->"), config);
+    assertEquals(Collections.singletonList("orders"), tableNames());
+  }
+
+  private static TableMeta table(String tableName) {
+    return TableMeta.builder(tableName, null, new StringPool())
+      .addColumn("id", "INTEGER", Types.INTEGER, 10, 0, false, null, false, false, null)
+      .addPrimaryKey("id")
+      .build();
+  }
+
+  private static List<DataSourceParameter> dataSources() {
+    DataSourceParameter dataSource = new DataSourceParameter();
+    dataSource.setDriverClass("org.sqlite.JDBC");
+    dataSource.setConnectionURL("jdbc:sqlite:schema.db");
+    return Collections.singletonList(dataSource);
+  }
+
+  private static Map<String, List<TableMeta>> tables(TableMeta... tables) {
+    return Collections.singletonMap("", Arrays.asList(tables));
+  }
+
+  private List<String> tableNames() throws Exception {
+    return GeneratorConfigRewriter.readTableAttributes(configFile).get(CONTEXT_ID).stream()
+      .map(attributes -> attributes.get("tableName"))
+      .collect(Collectors.toList());
+  }
+
+  private String read() throws Exception {
+    return new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 改寫設定檔，回傳輸出到 System.out 的內容
+   */
+  private String rewrite(GeneratorConfigRewriter rewriter) throws Exception {
+    PrintStream original = System.out;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8.name()));
+    try {
+      rewriter.rewrite(configFile);
+    } finally {
+      System.setOut(original);
+    }
+    return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
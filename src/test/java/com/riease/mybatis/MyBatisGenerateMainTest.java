@@ -0,0 +1,137 @@
+package com.riease.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MyBatisGenerateMainTest {
+
+  private static final String ORDERS_ENTITY = "src/main/java/com/example/dao/entity/Orders.java";
+
+  @TempDir
+  File projectDir;
+
+  @BeforeEach
+  void generateAll() throws Exception {
+    // MyBatis Generator 不會自動建立 targetProject 目錄
+    assertTrue(new File(projectDir, "src/main/java").mkdirs());
+    execute("CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+    execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER NOT NULL)");
+    CopyMyBatisGeneratorConfigMain.execute(properties());
+    generate();
+    assertTrue(new File(projectDir, ORDERS_ENTITY).isFile());
+  }
+
+  /**
+   * 被 exclude 排除而不在快照中的資料表仍存在於資料庫，不可視為已移除；資料表刪除後才刪除產出檔案
+   */
+  @Test
+  void excludedTableIsRegeneratedUntilDropped() throws Exception {
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.tables.exclude", "orders");
+    CopyMyBatisGeneratorConfigMain.execute(properties);
+
+    String output = generate();
+    assertTrue(output.contains("已移除: 0"), output);
+    assertTrue(new File(projectDir, ORDERS_ENTITY).isFile());
+    assertTrue(state().getFiles("mainContext.orders").contains(ORDERS_ENTITY), output);
+
+    execute("DROP TABLE orders");
+    output = generate();
+    assertTrue(output.contains("已移除: 1"), output);
+    assertFalse(new File(projectDir, ORDERS_ENTITY).exists());
+  }
+
+  /**
+   * 快照中的資料表名稱與設定檔的大小寫不同時，視為同一個資料表
+   */
+  @Test
+  void tableWithDifferentCaseIsNotDropped() throws Exception {
+    execute("ALTER TABLE orders RENAME TO orders_renamed");
+    execute("ALTER TABLE orders_renamed RENAME TO ORDERS");
+    CopyMyBatisGeneratorConfigMain.execute(properties());
+    SchemaSnapshot snapshot = SchemaSnapshotStore.read(new File(projectDir, SchemaSnapshotStore.DEFAULT_PATH));
+    assertTrue(snapshot.getTable("orders") == null && snapshot.getTable("ORDERS") != null);
+
+    String output = generate();
+    assertTrue(output.contains("已移除: 0"), output);
+    assertFalse(output.contains("刪除已移除資料表的檔案"), output);
+    assertTrue(new File(projectDir, ORDERS_ENTITY).isFile());
+  }
+
+  /**
+   * 只變更欄位的預設值時，資料表的簽章不同，只重新產生該資料表
+   */
+  @Test
+  void columnDefaultChangeRegeneratesTable() throws Exception {
+    String output = generate();
+    assertTrue(output.contains("需產生: 0"), output);
+
+    // SQLite 無法修改欄位的預設值，重新建立資料表
+    execute("DROP TABLE orders");
+    execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER NOT NULL DEFAULT 0)");
+    CopyMyBatisGeneratorConfigMain.execute(properties());
+    output = generate();
+    assertTrue(output.contains("資料表: 2，需產生: 1"), output);
+  }
+
+  /**
+   * 以 incremental 模式執行 mybatisGenerate，回傳輸出到 System.out 的內容
+   */
+  private String generate() throws Exception {
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.incremental", "true");
+    properties.put("mybatis.generator.generate.shards", "1");
+    PrintStream original = System.out;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8.name()));
+    try {
+      MyBatisGenerateMain.execute(properties);
+    } finally {
+      System.setOut(original);
+    }
+    return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private GeneratedTableState state() throws Exception {
+    return GeneratedTableState.load(new File(projectDir, GeneratedTableState.DEFAULT_PATH));
+  }
+
+  private void execute(String ddl) throws SQLException {
+    try (Connection conn = DriverManager.getConnection(connectionUrl());
+         Statement stmt = conn.createStatement()) {
+      stmt.execute(ddl);
+    }
+  }
+
+  private String connectionUrl() {
+    return "jdbc:sqlite:" + new File(projectDir, "schema.db").getAbsolutePath();
+  }
+
+  /**
+   * SQLite 不需帳號密碼，但參數不可為空白
+   */
+  private Map<String, String> properties() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("mybatis.generator.project.dir", projectDir.getAbsolutePath());
+    properties.put("mybatis.generator.target.package", "com.example");
+    properties.put("mybatis.generator.db.driverClass", "org.sqlite.JDBC");
+    properties.put("mybatis.generator.db.connectionURL", connectionUrl());
+    properties.put("mybatis.generator.db.username", "test");
+    properties.put("mybatis.generator.db.password", "test");
+    return properties;
+  }
+}
@@ -0,0 +1,105 @@
+package com.riease.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParallelSchemaIntrospectorTest {
+
+  private static final int TABLES = 2000;
+
+  @TempDir
+  static File databaseDir;
+
+  /** 逐表讀取的結果，每個資料表一行 */
+  private static List<String> expected;
+
+  @BeforeAll
+  static void createSchema() throws SQLException {
+    try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+      conn.setAutoCommit(false);
+      for (int i = 1; i <= TABLES; i++) {
+        String tableName = String.format("t_%04d", i);
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(tableName)
+          .append(" (id INTEGER NOT NULL PRIMARY KEY, code VARCHAR(").append(10 + i % 40).append(") NOT NULL")
+          .append(", amount DECIMAL(12, 2), note TEXT DEFAULT 'n/a'");
+        if (i > 1) {
+          // 參照前一個資料表，讓外鍵的參照對象隨資料表不同
+          ddl.append(", parent_id INTEGER REFERENCES ").append(String.format("t_%04d", i - 1)).append(" (id)");
+        }
+        stmt.execute(ddl.append(")").toString());
+        stmt.execute("CREATE UNIQUE INDEX ux_" + tableName + "_code ON " + tableName + " (code)");
+        if (i % 3 == 0) {
+          stmt.execute("CREATE INDEX ix_" + tableName + "_amount ON " + tableName + " (amount, note)");
+        }
+      }
+      conn.commit();
+    }
+    try (Connection conn = connect()) {
+      expected = describe(new PerTableSchemaIntrospector().introspect(conn, null, null, allTables()));
+    }
+    assertEquals(TABLES, expected.size());
+    // 比對的內容包含主鍵、外鍵與索引
+    assertTrue(expected.get(2).contains("|PK:[id]|FK:parent_id,t_0002,id|IX:"), expected.get(2));
+  }
+
+  /**
+   * 不論平行度為何，回傳的資料表順序與內容皆與逐表讀取相同
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 16})
+  void sameResultAsPerTableIntrospection(int parallelism) throws SQLException {
+    ParallelSchemaIntrospector introspector =
+      new ParallelSchemaIntrospector(ParallelSchemaIntrospectorTest::connect, parallelism);
+    try (Connection conn = connect()) {
+      assertEquals(expected, describe(introspector.introspect(conn, null, null, allTables())));
+    }
+  }
+
+  private static Connection connect() throws SQLException {
+    return DriverManager.getConnection("jdbc:sqlite:" + new File(databaseDir, "schema.db").getAbsolutePath());
+  }
+
+  private static TableFilter allTables() {
+    return TableFilter.of(null, null, null);
+  }
+
+  /**
+   * 以文字表示資料表的完整內容，比對失敗時可直接看出差異
+   */
+  private static List<String> describe(List<TableMeta> tableMetaList) {
+    List<String> result = new ArrayList<>();
+    for (TableMeta tableMeta : tableMetaList) {
+      StringBuilder builder = new StringBuilder(tableMeta.getTableName()).append('|').append(tableMeta.getComment());
+      for (ColumnMeta column : tableMeta.getColumns()) {
+        builder.append("|C:").append(column.getName()).append(',').append(column.getType())
+          .append(',').append(column.getJdbcType()).append(',').append(column.getLength())
+          .append(',').append(column.getScale()).append(',').append(column.isNullable())
+          .append(',').append(column.getDefaultValue()).append(',').append(column.isAutoIncrement())
+          .append(',').append(column.isPrimaryKey()).append(',').append(column.isForeignKey());
+      }
+      builder.append("|PK:").append(tableMeta.getPrimaryKeys());
+      for (ForeignKeyMeta foreignKey : tableMeta.getForeignKeys()) {
+        builder.append("|FK:").append(foreignKey.getColumnName()).append(',').append(foreignKey.getReferenceTable())
+          .append(',').append(foreignKey.getReferenceColumn());
+      }
+      for (IndexMeta index : tableMeta.getIndexes()) {
+        builder.append("|IX:").append(index.getName()).append(',').append(index.isUnique())
+          .append(',').append(index.getColumnNames());
+      }
+      result.add(builder.toString());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+package com.riease.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SchemaSnapshotStoreTest {
+
+  @TempDir
+  File projectDir;
+
+  /**
+   * 寫入後讀取的快照與原本的內容相同，包含 null 值、欄位旗標、主鍵、外鍵與索引
+   */
+  @Test
+  void roundTrip() throws Exception {
+    StringPool strings = new StringPool();
+    TableMeta customer = TableMeta.builder("customer", "客戶", strings)
+      .addColumn("id", "INTEGER", Types.INTEGER, 10, 0, false, null, true, false, "編號")
+      .addColumn("name", "VARCHAR", Types.VARCHAR, 100, null, false, "''", false, false, null)
+      .addPrimaryKey("id")
+      .build();
+    TableMeta orders = TableMeta.builder("orders", null, strings)
+      .addColumn("id", "INTEGER", Types.INTEGER, 10, 0, false, null, true, false, null)
+      .addColumn("customer_id", "INTEGER", Types.INTEGER, 10, 0, true, null, false, false, "客戶編號")
+      .addColumn("code", "VARCHAR", Types.VARCHAR, null, null, false, null, false, false, null)
+      .addColumn("total", "DECIMAL", Types.DECIMAL, 12, 2, false, "0", false, true, null)
+      .addPrimaryKey("id")
+      .addForeignKey("customer_id", "customer", "id")
+      .addIndexColumn("ux_orders_customer_code", true, "customer_id")
+      .addIndexColumn("ux_orders_customer_code", true, "code")
+      .addIndexColumn("ix_orders_total", false, "total")
+      .build();
+    SchemaSnapshot snapshot = new SchemaSnapshot("jdbc:sqlite:schema.db", "abc123", 1700000000000L,
+      Arrays.asList(customer, orders));
+    snapshot.setSchema("main");
+    snapshot.setDialect(Dialect.SQLITE);
+
+    File file = new File(projectDir, SchemaSnapshotStore.DEFAULT_PATH);
+    SchemaSnapshotStore.write(file, snapshot);
+    assertTrue(file.isFile());
+    assertFalse(new File(file.getParentFile(), file.getName() + ".tmp").exists());
+
+    SchemaSnapshot read = SchemaSnapshotStore.read(file);
+    assertNotNull(read);
+    assertEquals("jdbc:sqlite:schema.db", read.getSource());
+    assertEquals("abc123", read.getFingerprint());
+    assertEquals(1700000000000L, read.getCreatedAt());
+    assertNull(read.getCatalog());
+    assertEquals("main", read.getSchema());
+    assertEquals(Dialect.SQLITE, read.getDialect());
+    assertEquals(2, read.getTables().size());
+
+    TableMeta readCustomer = read.getTable("customer");
+    assertEquals("客戶", readCustomer.getComment());
+    ColumnMeta name = readCustomer.getColumn("name");
+    assertEquals("''", name.getDefaultValue());
+    assertNull(name.getComment());
+    assertNull(name.getScale());
+
+    TableMeta readOrders = read.getTable("orders");
+    assertNull(readOrders.getComment());
+    assertEquals(Arrays.asList("id", "customer_id", "code", "total"),
+      readOrders.getColumns().stream().map(ColumnMeta::getName).collect(Collectors.toList()));
+    ColumnMeta id = readOrders.getColumn("id");
+    assertTrue(id.isPrimaryKey() && id.isAutoIncrement() && !id.isNullable() && !id.isGenerated());
+    ColumnMeta customerId = readOrders.getColumn("customer_id");
+    assertTrue(customerId.isNullable() && customerId.isForeignKey() && !customerId.isAutoIncrement());
+    assertEquals("客戶編號", customerId.getComment());
+    ColumnMeta code = readOrders.getColumn("code");
+    assertNull(code.getLength());
+    assertEquals(Types.VARCHAR, code.getJdbcType());
+    ColumnMeta total = readOrders.getColumn("total");
+    assertEquals("DECIMAL", total.getType());
+    assertEquals(12, total.getLength());
+    assertEquals(2, total.getScale());
+    assertEquals("0", total.getDefaultValue());
+    assertTrue(total.isGenerated());
+
+    assertEquals(Collections.singletonList("id"), readOrders.getPrimaryKeys());
+    assertEquals(1, readOrders.getForeignKeys().size());
+    ForeignKeyMeta foreignKey = readOrders.getForeignKeys().get(0);
+    assertEquals("customer_id", foreignKey.getColumnName());
+    assertEquals("customer", foreignKey.getReferenceTable());
+    assertEquals("id", foreignKey.getReferenceColumn());
+    assertEquals(2, readOrders.getIndexes().size());
+    IndexMeta unique = readOrders.getIndexes().get(0);
+    assertEquals("ux_orders_customer_code", unique.getName());
+    assertTrue(unique.isUnique());
+    assertEquals(Arrays.asList("customer_id", "code"), unique.getColumnNames());
+    IndexMeta index = readOrders.getIndexes().get(1);
+    assertFalse(index.isUnique());
+    assertEquals(Collections.singletonList("total"), index.getColumnNames());
+
+    // 字典中的字串讀取時共用同一個實例
+    assertSame(readCustomer.getColumn("id").getType(), readOrders.getColumn("customer_id").getType());
+    assertSame(readCustomer.getTableName(), foreignKey.getReferenceTable());
+  }
+
+  /**
+   * 檔案不存在或格式版本不符時視為沒有快照
+   */
+  @Test
+  void readReturnsNullForMissingOrOtherVersion() throws Exception {
+    File file = new File(projectDir, SchemaSnapshotStore.DEFAULT_PATH);
+    assertNull(SchemaSnapshotStore.read(file));
+
+    assertTrue(file.getParentFile().mkdirs());
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file.toPath())))) {
+      // magic "MBGS" 與舊的格式版本
+      out.writeInt(0x4D424753);
+      out.writeInt(3);
+      out.writeInt(-1);
+    }
+    assertNull(SchemaSnapshotStore.read(file));
+
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file.toPath())))) {
+      out.writeInt(0x12345678);
+      out.writeInt(4);
+    }
+    assertNull(SchemaSnapshotStore.read(file));
+  }
+}
@@ -0,0 +1,86 @@
+package com.riease.mybatis.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.dynamic.sql.select.CountDSLCompleter;
+
+class BatchInsertPluginTest {
+
+  @TempDir
+  File projectDir;
+
+  /**
+   * insertMultipleInChunks 每批筆數為 maxParameters / 欄位數：3 個欄位、maxParameters 為 7 時每批 2 筆，
+   * 5 筆資料分 3 次 insertMultiple 寫入
+   */
+  @Test
+  void insertMultipleInChunksSplitsAtMaxParametersPerColumn() throws Exception {
+    GeneratedProject project = new GeneratedProject(projectDir);
+    project.execute("CREATE TABLE orders (id INTEGER NOT NULL, code TEXT NOT NULL, amount INTEGER NOT NULL)");
+    project.copyConfig(Collections.emptyMap());
+    String config = project.readConfig();
+    assertTrue(config.matches("(?s).*name=\"maxParameters\" value=\"\\d+\".*"), config);
+    project.writeConfig(config.replaceAll("name=\"maxParameters\" value=\"\\d+\"",
+      "name=\"maxParameters\" value=\"7\""));
+
+    StatementCounter counter = new StatementCounter();
+    project.generate(counter);
+    String mapperSource = project.source("mapper.OrdersMapper");
+    assertTrue(mapperSource.contains("return insertMultipleInChunks(records, 2);"), mapperSource);
+
+    Class<?> mapperType = project.mapper("OrdersMapper");
+    List<Object> records = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      records.add(project.newEntity("Orders", "id", i, "code", "C" + i, "amount", i * 10));
+    }
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      Object rows = GeneratedProject.invoke(mapper, mapperType, "insertMultipleInChunks",
+        new Class<?>[] {Collection.class}, records);
+      session.commit();
+      assertEquals(5, rows);
+    }
+    assertEquals(3, counter.count(".insertMultiple"));
+
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      Object rows = GeneratedProject.invoke(mapper, mapperType, "count",
+        new Class<?>[] {CountDSLCompleter.class}, (CountDSLCompleter) c -> c);
+      assertEquals(5L, rows);
+    }
+  }
+
+  /**
+   * 記錄執行的寫入 statement
+   */
+  @Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+  static class StatementCounter implements Interceptor {
+
+    private final List<String> statementIds = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      statementIds.add(((MappedStatement) invocation.getArgs()[0]).getId());
+      return invocation.proceed();
+    }
+
+    long count(String statementSuffix) {
+      return statementIds.stream().filter(id -> id.endsWith(statementSuffix)).count();
+    }
+  }
+}
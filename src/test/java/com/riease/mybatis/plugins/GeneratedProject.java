@@ -0,0 +1,267 @@
+package com.riease.mybatis.plugins;
+
+import com.riease.mybatis.CopyMyBatisGeneratorConfigMain;
+import com.riease.mybatis.MyBatisGenerateMain;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.mybatis.dynamic.sql.SqlTable;
+
+/**
+ * 插件測試用的專案：以 SQLite 資料庫執行 copyMyBatisGeneratorConfig 與 mybatisGenerate，
+ * 編譯產生的 entity 與 Mapper，並以 MyBatis 執行產生的方法。
+ * <p>
+ * 產生的類別只存在於執行期，測試以反射呼叫；資料表 orders 的類別為 {@code entity("Orders")} 與
+ * {@code mapper("OrdersMapper")}。
+ */
+final class GeneratedProject {
+
+  static final String TARGET_PACKAGE = "com.example";
+  static final String ENTITY_PACKAGE = TARGET_PACKAGE + ".dao.entity";
+  static final String MAPPER_PACKAGE = TARGET_PACKAGE + ".dao.mapper";
+  static final String CONFIG_PATH = "build-tools/mybatis/mybatis-generator-config.xml";
+
+  private static final String SOURCE_DIR = "src/main/java";
+
+  private final File projectDir;
+  private ClassLoader classLoader;
+  private SqlSessionFactory sqlSessionFactory;
+
+  GeneratedProject(File projectDir) {
+    this.projectDir = projectDir;
+  }
+
+  /**
+   * 在 SQLite 資料庫執行 SQL
+   */
+  void execute(String... sqls) throws SQLException {
+    try (Connection conn = DriverManager.getConnection(connectionUrl());
+         Statement stmt = conn.createStatement()) {
+      for (String sql : sqls) {
+        stmt.execute(sql);
+      }
+    }
+  }
+
+  /**
+   * 執行 copyMyBatisGeneratorConfig，產生包含所有資料表的設定檔
+   *
+   * @param extraProperties 額外的執行參數，例如 join 的資料表
+   */
+  void copyConfig(Map<String, String> extraProperties) {
+    Map<String, String> properties = properties();
+    properties.putAll(extraProperties);
+    CopyMyBatisGeneratorConfigMain.execute(properties);
+  }
+
+  String readConfig() throws IOException {
+    return new String(Files.readAllBytes(new File(projectDir, CONFIG_PATH).toPath()), StandardCharsets.UTF_8);
+  }
+
+  void writeConfig(String config) throws IOException {
+    Files.write(new File(projectDir, CONFIG_PATH).toPath(), config.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 執行 mybatisGenerate 後編譯產生的檔案，並建立以產生的 Mapper 查詢 SQLite 資料庫的 SqlSessionFactory
+   *
+   * @param interceptors 加入 MyBatis 的 plugin，例如記錄執行的 statement
+   */
+  void generate(Interceptor... interceptors) throws Exception {
+    File sourceDir = new File(projectDir, SOURCE_DIR);
+    // MyBatis Generator 不會自動建立 targetProject 目錄
+    if (!sourceDir.isDirectory() && !sourceDir.mkdirs()) {
+      throw new IOException("無法建立目錄: " + sourceDir);
+    }
+    Map<String, String> properties = properties();
+    properties.put("mybatis.generator.generate.shards", "1");
+    MyBatisGenerateMain.execute(properties);
+
+    File classesDir = new File(projectDir, "build/classes");
+    List<String> classNames = compile(sourceDir, classesDir);
+    classLoader = new URLClassLoader(new URL[] {classesDir.toURI().toURL()}, GeneratedProject.class.getClassLoader());
+
+    UnpooledDataSource dataSource = new UnpooledDataSource("org.sqlite.JDBC", connectionUrl(), null, null);
+    Configuration configuration = new Configuration(
+      new Environment("test", new JdbcTransactionFactory(), dataSource));
+    for (Interceptor interceptor : interceptors) {
+      configuration.addInterceptor(interceptor);
+    }
+    // join 查詢的 result map 參照其他 Mapper，所有 Mapper 都需註冊
+    for (String className : classNames) {
+      if (className.startsWith(MAPPER_PACKAGE + ".") && className.endsWith("Mapper")) {
+        configuration.addMapper(classLoader.loadClass(className));
+      }
+    }
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  /**
+   * 產生的原始碼
+   *
+   * @param className 例如 {@code mapper.OrdersMapper}，相對於 {@value #TARGET_PACKAGE}.dao
+   */
+  String source(String className) throws IOException {
+    Path path = new File(projectDir, SOURCE_DIR + "/" + (TARGET_PACKAGE + ".dao." + className).replace('.', '/')
+      + ".java").toPath();
+    return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+  }
+
+  Class<?> entity(String simpleName) throws ClassNotFoundException {
+    return classLoader.loadClass(ENTITY_PACKAGE + "." + simpleName);
+  }
+
+  Class<?> mapper(String simpleName) throws ClassNotFoundException {
+    return classLoader.loadClass(MAPPER_PACKAGE + "." + simpleName);
+  }
+
+  SqlSessionFactory getSqlSessionFactory() {
+    return sqlSessionFactory;
+  }
+
+  /**
+   * 以 setter 建立 entity
+   *
+   * @param values 屬性名稱與值交錯
+   */
+  Object newEntity(String simpleName, Object... values) throws ReflectiveOperationException {
+    Class<?> type = entity(simpleName);
+    Object entity = type.getConstructor().newInstance();
+    for (int i = 0; i < values.length; i += 2) {
+      String property = (String) values[i];
+      String setter = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+      for (Method method : type.getMethods()) {
+        if (method.getName().equals(setter) && method.getParameterCount() == 1) {
+          method.invoke(entity, values[i + 1]);
+          break;
+        }
+      }
+    }
+    return entity;
+  }
+
+  /**
+   * 以 getter 讀取 entity 的屬性
+   */
+  static Object get(Object entity, String property) throws ReflectiveOperationException {
+    return entity.getClass().getMethod("get" + Character.toUpperCase(property.charAt(0)) + property.substring(1))
+      .invoke(entity);
+  }
+
+  /**
+   * 呼叫 Mapper 的方法，依名稱與參數型別尋找
+   */
+  static Object invoke(Object mapper, Class<?> mapperType, String name, Class<?>[] parameterTypes, Object... args)
+    throws ReflectiveOperationException {
+    return mapperType.getMethod(name, parameterTypes).invoke(mapper, args);
+  }
+
+  /**
+   * @return 編譯的類別名稱
+   */
+  private static List<String> compile(File sourceDir, File classesDir) throws IOException {
+    List<File> sources;
+    try (Stream<Path> stream = Files.walk(sourceDir.toPath())) {
+      sources = stream.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
+    }
+    if (sources.isEmpty()) {
+      throw new IllegalStateException("沒有產生任何 Java 檔案: " + sourceDir);
+    }
+    if (!classesDir.isDirectory() && !classesDir.mkdirs()) {
+      throw new IOException("無法建立目錄: " + classesDir);
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+      StandardCharsets.UTF_8)) {
+      List<String> options = List.of("-d", classesDir.getAbsolutePath(), "-classpath", classpath(),
+        "-proc:none", "-encoding", "UTF-8");
+      boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+        fileManager.getJavaFileObjectsFromFiles(sources)).call();
+      if (!success) {
+        StringBuilder message = new StringBuilder("產生的檔案編譯失敗:");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+          message.append(System.lineSeparator()).append(diagnostic);
+        }
+        throw new IllegalStateException(message.toString());
+      }
+    }
+    List<String> classNames = new ArrayList<>();
+    for (File source : sources) {
+      String path = sourceDir.toPath().relativize(source.toPath()).toString();
+      classNames.add(path.substring(0, path.length() - ".java".length()).replace(File.separatorChar, '.'));
+    }
+    return classNames;
+  }
+
+  /**
+   * 測試的 classpath 加上 MyBatis、MyBatis Dynamic SQL 與 {@code @Generated} 所在的 jar，
+   * 測試程序的 java.class.path 不一定包含所有相依套件
+   */
+  private static String classpath() {
+    Set<String> entries = new LinkedHashSet<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        entries.add(entry);
+      }
+    }
+    for (Class<?> type : new Class<?>[] {SqlSession.class, SqlTable.class, jakarta.annotation.Generated.class}) {
+      try {
+        entries.add(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath());
+      } catch (URISyntaxException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return String.join(File.pathSeparator, entries);
+  }
+
+  private String connectionUrl() {
+    return "jdbc:sqlite:" + new File(projectDir, "schema.db").getAbsolutePath();
+  }
+
+  /**
+   * SQLite 不需帳號密碼，但參數不可為空白
+   */
+  private Map<String, String> properties() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("mybatis.generator.project.dir", projectDir.getAbsolutePath());
+    properties.put("mybatis.generator.target.package", TARGET_PACKAGE);
+    properties.put("mybatis.generator.db.driverClass", "org.sqlite.JDBC");
+    properties.put("mybatis.generator.db.connectionURL", connectionUrl());
+    properties.put("mybatis.generator.db.username", "test");
+    properties.put("mybatis.generator.db.password", "test");
+    return properties;
+  }
+}
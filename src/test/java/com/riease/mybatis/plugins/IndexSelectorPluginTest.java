@@ -0,0 +1,119 @@
+package com.riease.mybatis.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IndexSelectorPluginTest {
+
+  @TempDir
+  File projectDir;
+
+  private GeneratedProject project;
+  private Class<?> mapperType;
+
+  /**
+   * 唯一複合索引 (tenant_id, code)、以 customer_id 開頭的非唯一索引、被 ignoreColumn 排除的 note 欄位的索引，
+   * 以及方法名稱與 selectByPrimaryKey 重複的 primary_key 欄位的索引
+   */
+  @BeforeEach
+  void generate() throws Exception {
+    project = new GeneratedProject(projectDir);
+    project.execute(
+      "CREATE TABLE orders (id INTEGER PRIMARY KEY, tenant_id INTEGER NOT NULL, code TEXT NOT NULL, "
+        + "customer_id INTEGER NOT NULL, created TEXT NOT NULL, note TEXT, primary_key INTEGER)",
+      "CREATE UNIQUE INDEX ux_orders_tenant_code ON orders (tenant_id, code)",
+      "CREATE INDEX ix_orders_customer ON orders (customer_id, created)",
+      "CREATE INDEX ix_orders_note ON orders (note)",
+      "CREATE INDEX ix_orders_primary_key ON orders (primary_key)",
+      "INSERT INTO orders (id, tenant_id, code, customer_id, created, note, primary_key) "
+        + "VALUES (1, 1, 'A', 7, '2024-01-01', 'first', 1)",
+      "INSERT INTO orders (id, tenant_id, code, customer_id, created, note, primary_key) "
+        + "VALUES (2, 1, 'B', 7, '2024-01-02', 'second', 2)",
+      "INSERT INTO orders (id, tenant_id, code, customer_id, created, note, primary_key) "
+        + "VALUES (3, 2, 'A', 8, '2024-01-03', 'third', 3)");
+    project.copyConfig(Collections.emptyMap());
+
+    String config = project.readConfig();
+    assertTrue(config.contains("name=\"uniqueIndexes\" value=\"tenant_id+code\""), config);
+    Matcher table = Pattern.compile("(?s)(<table [^>]*tableName=\"orders\"[^>]*>.*?)(\\s*</table>)").matcher(config);
+    assertTrue(table.find(), config);
+    project.writeConfig(config.substring(0, table.end(1)) + System.lineSeparator()
+      + "      <ignoreColumn column=\"note\"/>" + config.substring(table.end(1)));
+
+    project.generate();
+    mapperType = project.mapper("OrdersMapper");
+  }
+
+  /**
+   * 唯一複合索引的 selectBy 回傳單筆，existsBy 以 count 查詢
+   */
+  @Test
+  void uniqueCompositeIndex() throws Exception {
+    String mapperSource = project.source("mapper.OrdersMapper");
+    assertTrue(mapperSource.contains("return count(c -> c.where("), mapperSource);
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      Class<?>[] types = {Integer.class, String.class};
+      Optional<?> order = (Optional<?>) GeneratedProject.invoke(mapper, mapperType, "selectByTenantIdAndCode",
+        types, 1, "B");
+      assertTrue(order.isPresent());
+      assertEquals(2, GeneratedProject.get(order.get(), "id"));
+      assertFalse(((Optional<?>) GeneratedProject.invoke(mapper, mapperType, "selectByTenantIdAndCode",
+        types, 2, "B")).isPresent());
+
+      assertEquals(true, GeneratedProject.invoke(mapper, mapperType, "existsByTenantIdAndCode", types, 2, "A"));
+      assertEquals(false, GeneratedProject.invoke(mapper, mapperType, "existsByTenantIdAndCode", types, 3, "A"));
+    }
+  }
+
+  /**
+   * 非唯一索引的第一個欄位：selectBy 回傳所有符合的資料，existsBy 以 limit 1 查詢
+   */
+  @Test
+  void nonUniqueLeadingColumn() throws Exception {
+    String mapperSource = project.source("mapper.OrdersMapper");
+    assertTrue(mapperSource.contains(".limit(1)).isEmpty();"), mapperSource);
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      Class<?>[] types = {Integer.class};
+      assertEquals(2, ((List<?>) GeneratedProject.invoke(mapper, mapperType, "selectByCustomerId", types, 7))
+        .size());
+      assertEquals(true, GeneratedProject.invoke(mapper, mapperType, "existsByCustomerId", types, 8));
+      assertEquals(false, GeneratedProject.invoke(mapper, mapperType, "existsByCustomerId", types, 9));
+      // 唯一複合索引的第一個欄位同樣可以查詢
+      assertEquals(2, ((List<?>) GeneratedProject.invoke(mapper, mapperType, "selectByTenantId", types, 1))
+        .size());
+    }
+  }
+
+  /**
+   * 被 ignoreColumn 排除的欄位與方法名稱重複的索引不加入方法，產生的 Mapper 仍可編譯
+   */
+  @Test
+  void skippedIndexes() throws Exception {
+    assertThrows(NoSuchMethodException.class, () -> mapperType.getMethod("selectByNote", String.class));
+    assertThrows(NoSuchMethodException.class, () -> mapperType.getMethod("existsByNote", String.class));
+    assertThrows(NoSuchMethodException.class, () -> mapperType.getMethod("existsByPrimaryKey", Integer.class));
+    // 保留 MyBatis Generator 產生的 selectByPrimaryKey(id)
+    assertEquals(Optional.class, mapperType.getMethod("selectByPrimaryKey", Integer.class).getReturnType());
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      Optional<?> order = (Optional<?>) GeneratedProject.invoke(mapper, mapperType, "selectByPrimaryKey",
+        new Class<?>[] {Integer.class}, 3);
+      assertEquals(3, GeneratedProject.get(order.get(), "primaryKey"));
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.riease.mybatis.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JoinSelectPluginTest {
+
+  @TempDir
+  File projectDir;
+
+  /**
+   * joins 深度 1：orders 載入 customer，customer 不載入 region；外鍵為 null 時參照資料為 null
+   */
+  @Test
+  void selectByPrimaryKeyWithReferencesLoadsOneLevel() throws Exception {
+    GeneratedProject project = generate(1);
+    assertThrows(NoSuchMethodException.class, () -> project.entity("Customer").getMethod("getRegion"));
+
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object order = selectByPrimaryKeyWithReferences(project, session, 1);
+      Object customer = GeneratedProject.get(order, "customer");
+      assertEquals("Alice", GeneratedProject.get(customer, "name"));
+      assertEquals(10, GeneratedProject.get(customer, "regionId"));
+
+      Object orderWithoutCustomer = selectByPrimaryKeyWithReferences(project, session, 2);
+      assertNull(GeneratedProject.get(orderWithoutCustomer, "customer"));
+
+      Object mapper = session.getMapper(project.mapper("OrdersMapper"));
+      Optional<?> missing = (Optional<?>) GeneratedProject.invoke(mapper, project.mapper("OrdersMapper"),
+        "selectByPrimaryKeyWithReferences", new Class<?>[] {Integer.class}, 3);
+      assertFalse(missing.isPresent());
+    }
+  }
+
+  /**
+   * joins 深度 2：orders 載入 customer，customer 再載入 region，巢狀的欄位前綴需對應 join 的別名
+   */
+  @Test
+  void selectByPrimaryKeyWithReferencesLoadsTwoLevels() throws Exception {
+    GeneratedProject project = generate(2);
+    String config = project.readConfig();
+    assertTrue(config.contains("customer_id:customer.id(region_id:region.id)"), config);
+
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object order = selectByPrimaryKeyWithReferences(project, session, 1);
+      assertEquals(100, GeneratedProject.get(order, "amount"));
+      Object customer = GeneratedProject.get(order, "customer");
+      assertEquals("Alice", GeneratedProject.get(customer, "name"));
+      Object region = GeneratedProject.get(customer, "region");
+      assertEquals(10, GeneratedProject.get(region, "id"));
+      assertEquals("North", GeneratedProject.get(region, "name"));
+
+      Object orderWithoutCustomer = selectByPrimaryKeyWithReferences(project, session, 2);
+      assertNull(GeneratedProject.get(orderWithoutCustomer, "customer"));
+    }
+  }
+
+  private GeneratedProject generate(int depth) throws Exception {
+    GeneratedProject project = new GeneratedProject(projectDir);
+    project.execute(
+      "CREATE TABLE region (id INTEGER PRIMARY KEY, name TEXT NOT NULL)",
+      "CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT NOT NULL, region_id INTEGER REFERENCES region (id))",
+      "CREATE TABLE orders (id INTEGER PRIMARY KEY, customer_id INTEGER REFERENCES customer (id), "
+        + "amount INTEGER NOT NULL)",
+      "INSERT INTO region (id, name) VALUES (10, 'North')",
+      "INSERT INTO customer (id, name, region_id) VALUES (20, 'Alice', 10)",
+      "INSERT INTO orders (id, customer_id, amount) VALUES (1, 20, 100)",
+      "INSERT INTO orders (id, customer_id, amount) VALUES (2, NULL, 200)");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("mybatis.generator.join.tables", "orders");
+    properties.put("mybatis.generator.join.depth", String.valueOf(depth));
+    project.copyConfig(properties);
+    project.generate();
+    return project;
+  }
+
+  private static Object selectByPrimaryKeyWithReferences(GeneratedProject project, SqlSession session, int id)
+    throws Exception {
+    Class<?> mapperType = project.mapper("OrdersMapper");
+    Optional<?> order = (Optional<?>) GeneratedProject.invoke(session.getMapper(mapperType), mapperType,
+      "selectByPrimaryKeyWithReferences", new Class<?>[] {Integer.class}, id);
+    assertTrue(order.isPresent());
+    return order.get();
+  }
+}
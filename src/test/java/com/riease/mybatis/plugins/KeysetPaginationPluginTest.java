@@ -0,0 +1,81 @@
+package com.riease.mybatis.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KeysetPaginationPluginTest {
+
+  private static final long PAGE_SIZE = 4;
+
+  @TempDir
+  File projectDir;
+
+  /**
+   * 3 個欄位的複合主鍵，以 selectFirstPage 與 selectPageAfter 逐頁讀取時，每一筆資料依主鍵順序恰好出現一次
+   */
+  @Test
+  void selectPageAfterReturnsEveryRowOnceWithCompositeKey() throws Exception {
+    GeneratedProject project = new GeneratedProject(projectDir);
+    project.execute("CREATE TABLE orders (a INTEGER NOT NULL, b INTEGER NOT NULL, c INTEGER NOT NULL, "
+      + "name TEXT NOT NULL, PRIMARY KEY (a, b, c))");
+    List<String> expected = new ArrayList<>();
+    for (int a = 0; a < 3; a++) {
+      for (int b = 0; b < 3; b++) {
+        for (int c = 0; c < 3; c++) {
+          expected.add(a + "," + b + "," + c);
+        }
+      }
+    }
+    // 寫入順序與主鍵順序不同
+    List<String> shuffled = new ArrayList<>(expected);
+    Collections.shuffle(shuffled, new Random(1));
+    List<String> inserts = new ArrayList<>();
+    for (String key : shuffled) {
+      inserts.add("INSERT INTO orders (a, b, c, name) VALUES (" + key + ", 'row " + key + "')");
+    }
+    project.execute(inserts.toArray(new String[0]));
+    project.copyConfig(Collections.emptyMap());
+    project.generate();
+    String mapperSource = project.source("mapper.OrdersMapper");
+    assertTrue(mapperSource.contains("selectPageAfter(Integer a_, Integer b_, Integer c_, long limit)"),
+      mapperSource);
+
+    Class<?> recordType = project.entity("Orders");
+    Class<?> mapperType = project.mapper("OrdersMapper");
+    List<String> actual = new ArrayList<>();
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      List<?> page = (List<?>) GeneratedProject.invoke(mapper, mapperType, "selectFirstPage",
+        new Class<?>[] {long.class}, PAGE_SIZE);
+      int pages = 0;
+      while (!page.isEmpty()) {
+        assertTrue(page.size() <= PAGE_SIZE);
+        for (Object row : page) {
+          actual.add(GeneratedProject.get(row, "a") + "," + GeneratedProject.get(row, "b") + ","
+            + GeneratedProject.get(row, "c"));
+        }
+        page = (List<?>) GeneratedProject.invoke(mapper, mapperType, "selectPageAfter",
+          new Class<?>[] {recordType, long.class}, page.get(page.size() - 1), PAGE_SIZE);
+        pages++;
+      }
+      assertEquals((expected.size() + PAGE_SIZE - 1) / PAGE_SIZE, pages);
+
+      // 以主鍵值指定位置：(1, 2, 2) 之後為 (2, 0, 0)
+      List<?> after = (List<?>) GeneratedProject.invoke(mapper, mapperType, "selectPageAfter",
+        new Class<?>[] {Integer.class, Integer.class, Integer.class, long.class}, 1, 2, 2, 2L);
+      assertEquals(2, after.size());
+      assertEquals("row 2,0,0", GeneratedProject.get(after.get(0), "name"));
+      assertEquals("row 2,0,1", GeneratedProject.get(after.get(1), "name"));
+    }
+    assertEquals(expected, actual);
+  }
+}
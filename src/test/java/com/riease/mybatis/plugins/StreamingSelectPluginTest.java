@@ -0,0 +1,85 @@
+package com.riease.mybatis.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.dynamic.sql.select.SelectDSLCompleter;
+
+class StreamingSelectPluginTest {
+
+  private static final int ROWS = 25;
+
+  @TempDir
+  File projectDir;
+
+  private GeneratedProject project;
+  private Class<?> mapperType;
+
+  @BeforeEach
+  void generate() throws Exception {
+    project = new GeneratedProject(projectDir);
+    project.execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, amount INTEGER NOT NULL)");
+    List<String> inserts = new ArrayList<>();
+    for (int i = 1; i <= ROWS; i++) {
+      inserts.add("INSERT INTO orders (id, amount) VALUES (" + i + ", " + i * 10 + ")");
+    }
+    project.execute(inserts.toArray(new String[0]));
+    project.copyConfig(Collections.emptyMap());
+    project.generate();
+    mapperType = project.mapper("OrdersMapper");
+  }
+
+  /**
+   * selectCursor 回傳的 Cursor 在 SqlSession 關閉前可讀取所有資料
+   */
+  @Test
+  void selectCursorIteratesAllRows() throws Exception {
+    Set<Object> ids = new HashSet<>();
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      try (Cursor<?> cursor = (Cursor<?>) GeneratedProject.invoke(mapper, mapperType, "selectCursor",
+        new Class<?>[] {SelectDSLCompleter.class}, SelectDSLCompleter.allRows())) {
+        for (Object row : cursor) {
+          assertTrue(ids.add(GeneratedProject.get(row, "id")));
+        }
+        assertTrue(cursor.isConsumed());
+      }
+    }
+    assertEquals(ROWS, ids.size());
+  }
+
+  /**
+   * select 傳入的 ResultHandler 每一筆資料呼叫一次
+   */
+  @Test
+  void resultHandlerIsCalledOncePerRow() throws Exception {
+    List<Object> rows = new ArrayList<>();
+    ResultHandler<Object> handler = context -> {
+      assertEquals(rows.size() + 1, context.getResultCount());
+      rows.add(context.getResultObject());
+    };
+    try (SqlSession session = project.getSqlSessionFactory().openSession()) {
+      Object mapper = session.getMapper(mapperType);
+      GeneratedProject.invoke(mapper, mapperType, "select",
+        new Class<?>[] {SelectDSLCompleter.class, ResultHandler.class}, SelectDSLCompleter.allRows(), handler);
+    }
+    Set<Object> ids = new HashSet<>();
+    for (Object row : rows) {
+      ids.add(GeneratedProject.get(row, "id"));
+    }
+    assertEquals(ROWS, rows.size());
+    assertEquals(ROWS, ids.size());
+  }
+}